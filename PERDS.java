@@ -5,6 +5,8 @@ import perds.models.*;
 import perds.simulation.*;
 import perds.utils.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -12,7 +14,7 @@ import java.util.*;
  * Integrates network management, dispatch, predictive analysis, and performance monitoring
  * 
  * Features:
- * - Advanced pathfinding (Dijkstra & A*)
+ * - Advanced pathfinding (engine chosen with -Dperds.pathfinder, Dijkstra by default)
  * - Adaptive resource positioning
  * - Performance metrics and visualization
  * - Time-based simulation engine
@@ -27,9 +29,12 @@ public class PERDS {
     
     public PERDS() {
         this.network = new EmergencyNetwork();
-        this.dispatchManager = new DispatchManager(network);
+        // Units parked at dispatch centers route along cached shortest-path trees
+        this.dispatchManager = new DispatchManager(network,
+            new ShortestPathTreeCache(network, PathfinderFactory.createConfigured()));
         this.predictiveAnalyzer = new PredictiveAnalyzer();
-        this.resourcePositioner = new ResourcePositioner(network, predictiveAnalyzer);
+        this.resourcePositioner = new ResourcePositioner(network, predictiveAnalyzer,
+            PathfinderFactory.createConfigured());
         this.metrics = new PerformanceMetrics();
         this.incidentCounter = 0;
     }
@@ -86,6 +91,27 @@ public class PERDS {
         System.out.println();
     }
     
+    /**
+     * Initialize the emergency network from a network file (see NetworkFile) instead
+     * of building it in code
+     */
+    public void loadNetwork(Path path) throws IOException {
+        System.out.println("=== Loading Emergency Network ===\n");
+        
+        NetworkFile file = NetworkFile.open(path);
+        file.addTo(network);
+        
+        System.out.println("Loaded " + file);
+        System.out.println();
+    }
+    
+    /**
+     * Save the current network, e.g. to start later runs with loadNetwork()
+     */
+    public void saveNetwork(Path path) throws IOException {
+        NetworkFile.write(network, path, Map.of("source", "PERDS"));
+    }
+    
     /**
      * Initialize response units at various dispatch centers
      */
@@ -208,12 +234,12 @@ public class PERDS {
         
         // Benchmark Dijkstra
         long dijkstraStart = System.nanoTime();
-        DijkstraPathfinder.PathResult dijkstraResult = dijkstra.findShortestPath(network, source, dest);
+        PathResult dijkstraResult = dijkstra.findShortestPath(network, source, dest);
         long dijkstraTime = System.nanoTime() - dijkstraStart;
         
         // Benchmark A*
         long aStarStart = System.nanoTime();
-        AStarPathfinder.PathResult aStarResult = aStar.findShortestPath(network, source, dest);
+        PathResult aStarResult = aStar.findShortestPath(network, source, dest);
         long aStarTime = System.nanoTime() - aStarStart;
         
         System.out.println("Finding path from " + source.getName() + " to " + dest.getName());
@@ -0,0 +1,23 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+
+/**
+ * Lower-bound estimate of the remaining travel time used to guide A*
+ * Implementations must be admissible (never overestimate) and should be consistent,
+ * otherwise A* may return longer-than-optimal paths
+ */
+public interface AStarHeuristic {
+    
+    /**
+     * Called before every search on a snapshot; implementations that precompute
+     * data should only redo it when the snapshot differs from the last one
+     */
+    default void prepare(CompactGraph graph) {
+    }
+    
+    /**
+     * Estimated travel time from one node to another
+     */
+    double estimate(CompactGraph graph, int from, int to);
+}
@@ -6,188 +6,149 @@ import java.util.*;
 
 /**
  * A* pathfinding algorithm implementation
- * Uses heuristic (Euclidean distance) for more efficient pathfinding
+ * Uses a pluggable heuristic (scaled Euclidean distance by default, or landmark-based ALT)
  * Typically faster than Dijkstra for single source-destination queries
+ * Searches run on the network's CompactGraph snapshot (int-indexed CSR arrays)
+ * The reused search workspace makes instances not thread-safe: use one instance
+ * per thread, e.g. from PathfinderFactory
  */
-public class AStarPathfinder {
+public class AStarPathfinder implements Pathfinder {
+    // Search workspace reused across calls (instances are not thread-safe)
+    private final SearchContext context = new SearchContext(0);
+    // Open set ordered by f(n) = g(n) + h(n)
+    private final NodeQueue openSet;
+    private final AStarHeuristic heuristic;
+    
+    public AStarPathfinder() {
+        this(NodeQueue.Type.INDEXED_HEAP);
+    }
+    
+    /**
+     * Create a pathfinder backed by a specific priority queue implementation
+     */
+    public AStarPathfinder(NodeQueue.Type queueType) {
+        this(queueType, new EuclideanHeuristic());
+    }
+    
+    /**
+     * Create a pathfinder guided by a specific heuristic, e.g. new LandmarkHeuristic()
+     */
+    public AStarPathfinder(AStarHeuristic heuristic) {
+        this(NodeQueue.Type.INDEXED_HEAP, heuristic);
+    }
+    
+    public AStarPathfinder(NodeQueue.Type queueType, AStarHeuristic heuristic) {
+        this.openSet = NodeQueue.create(queueType, 0);
+        this.heuristic = heuristic;
+    }
     
     /**
      * Find shortest path using A* algorithm
      * Time Complexity: O((V + E) log V) - similar to Dijkstra but often faster in practice
      * Space Complexity: O(V)
      */
+    @Override
     public PathResult findShortestPath(EmergencyNetwork network, Location source, Location destination) {
         if (source == null || destination == null) {
-            return new PathResult(false, Double.POSITIVE_INFINITY, new ArrayList<>());
+            return PathResult.noPath();
         }
         
-        // Priority queue: ordered by f(n) = g(n) + h(n)
-        PriorityQueue<AStarNode> openSet = new PriorityQueue<>(
-            Comparator.comparingDouble(AStarNode::getFScore)
-        );
+        CompactGraph graph = network.getCompactGraph();
+        int sourceIndex = graph.indexOf(source);
+        int destinationIndex = graph.indexOf(destination);
         
-        // Track visited nodes
-        Set<Location> closedSet = new HashSet<>();
+        if (sourceIndex < 0 || destinationIndex < 0) {
+            return PathResult.noPath();
+        }
         
-        // Track best path to each node
-        Map<Location, Location> cameFrom = new HashMap<>();
+        return findShortestPath(graph, sourceIndex, destinationIndex);
+    }
+    
+    /**
+     * Find shortest path between two node indices of a compact snapshot
+     * Edge costs are the snapshot's effective weights (travel time * congestion)
+     */
+    public PathResult findShortestPath(CompactGraph graph, int source, int destination) {
+        heuristic.prepare(graph);
         
-        // g(n) - actual cost from start to n
-        Map<Location, Double> gScore = new HashMap<>();
-        gScore.put(source, 0.0);
+        // g(n) - actual cost from start to n, best predecessor and closed set
+        context.reset(graph.getNodeCount());
+        openSet.ensureCapacity(graph.getNodeCount());
+        openSet.clear();
+        context.update(source, 0.0, -1);
         
         // f(n) = g(n) + h(n)
-        double heuristicEstimate = calculateHeuristic(source, destination);
-        openSet.offer(new AStarNode(source, 0.0, heuristicEstimate));
+        double heuristicEstimate = heuristic.estimate(graph, source, destination);
+        openSet.push(source, heuristicEstimate);
         
         while (!openSet.isEmpty()) {
-            AStarNode current = openSet.poll();
-            Location currentLocation = current.getLocation();
+            int currentNode = openSet.poll();
             
             // Goal reached
-            if (currentLocation.equals(destination)) {
-                return reconstructPath(cameFrom, currentLocation, gScore.get(currentLocation));
+            if (currentNode == destination) {
+                return reconstructPath(graph, currentNode, context.getDistance(currentNode));
             }
             
-            // Skip if already processed
-            if (closedSet.contains(currentLocation)) {
-                continue;
-            }
-            
-            closedSet.add(currentLocation);
+            context.settle(currentNode);
+            double currentGScore = context.getDistance(currentNode);
             
             // Explore neighbors
-            for (Edge edge : network.getNeighbors(currentLocation)) {
-                if (edge.isBlocked()) {
+            for (int edge = graph.edgeStart(currentNode); edge < graph.edgeEnd(currentNode); edge++) {
+                double weight = graph.edgeWeight(edge);
+                if (weight == Double.POSITIVE_INFINITY) {
                     continue;
                 }
                 
-                Location neighbor = edge.getDestination();
+                int neighbor = graph.edgeTarget(edge);
                 
-                if (closedSet.contains(neighbor)) {
+                if (context.isSettled(neighbor)) {
                     continue;
                 }
                 
                 // Calculate tentative g score
-                double tentativeGScore = gScore.get(currentLocation) + edge.getTravelTime();
+                double tentativeGScore = currentGScore + weight;
                 
                 // If this path is better than any previous one
-                if (tentativeGScore < gScore.getOrDefault(neighbor, Double.POSITIVE_INFINITY)) {
+                if (tentativeGScore < context.getDistance(neighbor)) {
                     // Update best path
-                    cameFrom.put(neighbor, currentLocation);
-                    gScore.put(neighbor, tentativeGScore);
+                    context.update(neighbor, tentativeGScore, currentNode);
                     
                     // Calculate f score and add to open set
-                    double hScore = calculateHeuristic(neighbor, destination);
+                    double hScore = heuristic.estimate(graph, neighbor, destination);
                     double fScore = tentativeGScore + hScore;
-                    openSet.offer(new AStarNode(neighbor, tentativeGScore, fScore));
+                    openSet.push(neighbor, fScore);
                 }
             }
         }
         
         // No path found
-        return new PathResult(false, Double.POSITIVE_INFINITY, new ArrayList<>());
+        return PathResult.noPath();
     }
     
     /**
-     * Heuristic function: Euclidean distance scaled by average speed
-     * Admissible and consistent heuristic for A*
+     * Number of nodes expanded by the last search (the destination excluded)
      */
-    private double calculateHeuristic(Location from, Location to) {
-        double dx = to.getX() - from.getX();
-        double dy = to.getY() - from.getY();
-        double euclideanDistance = Math.sqrt(dx * dx + dy * dy);
-        
-        // Assume average speed of 60 km/h = 1 km per minute
-        // This makes the heuristic admissible (never overestimates)
-        return euclideanDistance;
+    @Override
+    public int getLastSettledCount() {
+        return context.getSettledCount();
+    }
+    
+    public AStarHeuristic getHeuristic() {
+        return heuristic;
     }
     
     /**
      * Reconstruct path from start to destination
      */
-    private PathResult reconstructPath(Map<Location, Location> cameFrom, 
-                                      Location destination, double totalDistance) {
+    private PathResult reconstructPath(CompactGraph graph, int destination, double totalDistance) {
         List<Location> path = new ArrayList<>();
-        Location current = destination;
         
         // Build path backwards
-        while (current != null) {
-            path.add(0, current);
-            current = cameFrom.get(current);
-        }
-        
-        return new PathResult(true, totalDistance, path);
-    }
-    
-    /**
-     * Inner class for A* priority queue nodes
-     */
-    private static class AStarNode {
-        private final Location location;
-        private final double gScore; // Actual cost from start
-        private final double fScore; // f(n) = g(n) + h(n)
-        
-        public AStarNode(Location location, double gScore, double fScore) {
-            this.location = location;
-            this.gScore = gScore;
-            this.fScore = fScore;
-        }
-        
-        public Location getLocation() {
-            return location;
-        }
-        
-        public double getGScore() {
-            return gScore;
-        }
-        
-        public double getFScore() {
-            return fScore;
-        }
-    }
-    
-    /**
-     * Result of pathfinding operation
-     */
-    public static class PathResult {
-        private final boolean valid;
-        private final double totalDistance;
-        private final List<Location> path;
-        
-        public PathResult(boolean valid, double totalDistance, List<Location> path) {
-            this.valid = valid;
-            this.totalDistance = totalDistance;
-            this.path = path;
-        }
-        
-        public boolean isValid() {
-            return valid;
+        for (int current = destination; current != -1; current = context.getPrevious(current)) {
+            path.add(graph.getLocation(current));
         }
+        Collections.reverse(path);
         
-        public double getTotalDistance() {
-            return totalDistance;
-        }
-        
-        public List<Location> getPath() {
-            return path;
-        }
-        
-        @Override
-        public String toString() {
-            if (!valid) {
-                return "No valid path";
-            }
-            
-            StringBuilder sb = new StringBuilder();
-            sb.append("Path (Distance: ").append(String.format("%.2f", totalDistance)).append("): ");
-            for (int i = 0; i < path.size(); i++) {
-                sb.append(path.get(i).getName());
-                if (i < path.size() - 1) {
-                    sb.append(" -> ");
-                }
-            }
-            return sb.toString();
-        }
+        return new PathResult(path, totalDistance);
     }
 }
@@ -0,0 +1,44 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+
+/**
+ * Bidirectional A* with average potentials
+ * Uses p(v) = (h(v, destination) - h(source, v)) / 2 forward and -p(v) backward;
+ * for a consistent heuristic both reduced weights stay non-negative, so the plain
+ * bidirectional stopping rule (topForward + topBackward >= best) remains exact
+ * Time Complexity: O((V + E) log V) worst case, O(1) heuristic calls per relaxation
+ * Space Complexity: O(V)
+ */
+public class BidirectionalAStarPathfinder extends BidirectionalDijkstraPathfinder {
+    private final AStarHeuristic heuristic;
+    private int source;
+    private int destination;
+    
+    public BidirectionalAStarPathfinder() {
+        this(new EuclideanHeuristic());
+    }
+    
+    /**
+     * Create a pathfinder guided by a specific heuristic, e.g. new LandmarkHeuristic()
+     */
+    public BidirectionalAStarPathfinder(AStarHeuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+    
+    @Override
+    protected void preparePotential(CompactGraph graph, int source, int destination) {
+        heuristic.prepare(graph);
+        this.source = source;
+        this.destination = destination;
+    }
+    
+    @Override
+    protected double potential(CompactGraph graph, int node) {
+        return (heuristic.estimate(graph, node, destination) - heuristic.estimate(graph, source, node)) / 2.0;
+    }
+    
+    public AStarHeuristic getHeuristic() {
+        return heuristic;
+    }
+}
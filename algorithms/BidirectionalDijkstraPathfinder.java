@@ -0,0 +1,152 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+import perds.models.EmergencyNetwork;
+import perds.models.Location;
+
+import java.util.*;
+
+/**
+ * Bidirectional Dijkstra: searches forward from the source and backward from the
+ * destination (over the snapshot's reversed edges) and joins the two at the best
+ * meeting node
+ * Each step expands the side with the smaller queue key; the search stops once
+ * topForward + topBackward >= best, when no unexplored path can be shorter
+ * Node keys are distance + potential, so subclasses can turn this into
+ * bidirectional A* by overriding the potential (zero here)
+ * Time Complexity: O((V + E) log V) worst case, typically about half the settled
+ * nodes of unidirectional Dijkstra on road-like graphs
+ * Space Complexity: O(V)
+ */
+public class BidirectionalDijkstraPathfinder implements Pathfinder {
+    // Search workspaces reused across calls (instances are not thread-safe)
+    private final SearchContext forward = new SearchContext(0);
+    private final SearchContext backward = new SearchContext(0);
+    private final IndexedMinHeap forwardQueue = new IndexedMinHeap(0, 4);
+    private final IndexedMinHeap backwardQueue = new IndexedMinHeap(0, 4);
+    
+    /**
+     * Find shortest path from source to destination
+     */
+    @Override
+    public PathResult findShortestPath(EmergencyNetwork network, Location source,
+                                       Location destination) {
+        CompactGraph graph = network.getCompactGraph();
+        int sourceIndex = graph.indexOf(source);
+        int destinationIndex = graph.indexOf(destination);
+        
+        if (sourceIndex < 0 || destinationIndex < 0) {
+            return PathResult.noPath();
+        }
+        
+        return findShortestPath(graph, sourceIndex, destinationIndex);
+    }
+    
+    /**
+     * Find shortest path between two node indices of a compact snapshot
+     */
+    public PathResult findShortestPath(CompactGraph graph, int source, int destination) {
+        CompactGraph reverse = graph.getReverse();
+        preparePotential(graph, source, destination);
+        
+        int nodeCount = graph.getNodeCount();
+        forward.reset(nodeCount);
+        backward.reset(nodeCount);
+        forwardQueue.ensureCapacity(nodeCount);
+        backwardQueue.ensureCapacity(nodeCount);
+        forwardQueue.clear();
+        backwardQueue.clear();
+        
+        forward.update(source, 0.0, -1);
+        forwardQueue.push(source, potential(graph, source));
+        backward.update(destination, 0.0, -1);
+        backwardQueue.push(destination, -potential(graph, destination));
+        
+        double best = source == destination ? 0.0 : Double.POSITIVE_INFINITY;
+        int meeting = source == destination ? source : -1;
+        
+        // With potential p the forward key is d + p and the backward key d - p, so the
+        // keys of any node on a source-destination path add up to its length
+        while (forwardQueue.peekKey() + backwardQueue.peekKey() < best) {
+            boolean forwardStep = forwardQueue.peekKey() <= backwardQueue.peekKey();
+            SearchContext context = forwardStep ? forward : backward;
+            SearchContext other = forwardStep ? backward : forward;
+            IndexedMinHeap queue = forwardStep ? forwardQueue : backwardQueue;
+            CompactGraph edges = forwardStep ? graph : reverse;
+            double sign = forwardStep ? 1.0 : -1.0;
+            
+            int current = queue.poll();
+            context.settle(current);
+            double distance = context.getDistance(current);
+            
+            for (int edge = edges.edgeStart(current); edge < edges.edgeEnd(current); edge++) {
+                double weight = edges.edgeWeight(edge);
+                if (weight == Double.POSITIVE_INFINITY) {
+                    continue; // Skip blocked edges
+                }
+                
+                int neighbor = edges.edgeTarget(edge);
+                if (context.isSettled(neighbor)) {
+                    continue;
+                }
+                
+                double newDistance = distance + weight;
+                if (newDistance < context.getDistance(neighbor)) {
+                    context.update(neighbor, newDistance, current);
+                    queue.push(neighbor, newDistance + sign * potential(graph, neighbor));
+                    
+                    // Both searches have reached the neighbour: candidate route
+                    double through = newDistance + other.getDistance(neighbor);
+                    if (through < best) {
+                        best = through;
+                        meeting = neighbor;
+                    }
+                }
+            }
+        }
+        
+        if (meeting < 0) {
+            return PathResult.noPath(); // No path found
+        }
+        
+        return new PathResult(reconstructPath(graph, meeting), best);
+    }
+    
+    /**
+     * Hook called once per query before any potential is read
+     */
+    protected void preparePotential(CompactGraph graph, int source, int destination) {
+    }
+    
+    /**
+     * Forward potential of a node; the backward search uses its negation
+     * Must keep reduced edge weights non-negative in both directions
+     */
+    protected double potential(CompactGraph graph, int node) {
+        return 0.0;
+    }
+    
+    /**
+     * Number of nodes settled by the last query in both directions
+     */
+    @Override
+    public int getLastSettledCount() {
+        return forward.getSettledCount() + backward.getSettledCount();
+    }
+    
+    /**
+     * Join the forward half (source -> meeting) and backward half (meeting -> destination)
+     */
+    private List<Location> reconstructPath(CompactGraph graph, int meeting) {
+        List<Location> path = new ArrayList<>();
+        for (int current = meeting; current != -1; current = forward.getPrevious(current)) {
+            path.add(graph.getLocation(current));
+        }
+        Collections.reverse(path);
+        // Backward predecessors already point towards the destination
+        for (int current = backward.getPrevious(meeting); current != -1; current = backward.getPrevious(current)) {
+            path.add(graph.getLocation(current));
+        }
+        return path;
+    }
+}
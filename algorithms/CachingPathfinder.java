@@ -0,0 +1,297 @@
+package perds.algorithms;
+
+import perds.models.EmergencyNetwork;
+import perds.models.Location;
+import perds.models.NetworkChange;
+
+import java.util.*;
+
+/**
+ * Bounded LRU cache of routes in front of any Pathfinder engine
+ * Entries are keyed by (source, destination) and valid for the network version the
+ * cache was last synchronized with; on a version change the logged NetworkChanges are
+ * replayed so that only affected routes are dropped:
+ * - weight increase or closure of u -> v: routes that use u -> v
+ * - weight decrease, reopening or new edge u -> v with weight w: routes longer than w
+ *   (a route of length <= w cannot be beaten by a path that contains the edge)
+ * - removed location: routes that pass through it; added location: routes ending at it
+ * If the change log no longer reaches back far enough the whole cache is cleared
+ *
+ * Thread-safe: lookups, misses and invalidation run under one lock, since the
+ * wrapped engines reuse search workspaces
+ * Time Complexity: O(1) per hit, O(query) per miss, O(C * P) per replayed change
+ * for C cached routes of P nodes
+ * Space Complexity: O(C * P)
+ */
+public class CachingPathfinder implements Pathfinder {
+    public static final int DEFAULT_CAPACITY = 4096;
+    
+    private final Pathfinder delegate;
+    private final int capacity;
+    private final LinkedHashMap<RouteKey, PathResult> routes;
+    
+    // Network and version the cached routes are valid for
+    private EmergencyNetwork network;
+    private long version;
+    
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private int lastSettledCount;
+    
+    public CachingPathfinder(Pathfinder delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+    
+    public CachingPathfinder(Pathfinder delegate, int capacity) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate pathfinder cannot be null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        // Access order turns iteration order into least-recently-used first
+        this.routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RouteKey, PathResult> eldest) {
+                if (size() > CachingPathfinder.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Find shortest path from source to destination, from the cache when possible
+     * Time Complexity: O(1) on a hit
+     */
+    @Override
+    public synchronized PathResult findShortestPath(EmergencyNetwork network, Location source,
+                                                    Location destination) {
+        synchronize(network);
+        
+        RouteKey key = new RouteKey(source, destination);
+        PathResult cached = routes.get(key);
+        if (cached != null) {
+            hits++;
+            lastSettledCount = 0;
+            return cached;
+        }
+        
+        misses++;
+        PathResult result = delegate.findShortestPath(network, source, destination);
+        lastSettledCount = delegate.getLastSettledCount();
+        return store(key, result);
+    }
+    
+    /**
+     * Serve every source from the cache if possible, otherwise run the delegate's
+     * many-to-one search once and cache the routes it returns
+     */
+    @Override
+    public synchronized Map<Location, PathResult> findPathsToTarget(EmergencyNetwork network,
+                                                                    Collection<Location> sources,
+                                                                    Location target, int limit) {
+        synchronize(network);
+        
+        List<Map.Entry<Location, PathResult>> cached = new ArrayList<>();
+        for (Location source : new LinkedHashSet<>(sources)) {
+            PathResult result = routes.get(new RouteKey(source, target));
+            if (result == null) {
+                cached = null;
+                break;
+            }
+            if (result.isValid()) {
+                cached.add(new AbstractMap.SimpleEntry<>(source, result));
+            }
+        }
+        
+        if (cached != null) {
+            hits++;
+            lastSettledCount = 0;
+            cached.sort(Comparator.comparingDouble(entry -> entry.getValue().getTotalDistance()));
+            Map<Location, PathResult> paths = new LinkedHashMap<>();
+            for (Map.Entry<Location, PathResult> entry : cached) {
+                if (limit > 0 && paths.size() == limit) {
+                    break;
+                }
+                paths.put(entry.getKey(), entry.getValue());
+            }
+            return paths;
+        }
+        
+        misses++;
+        Map<Location, PathResult> paths = delegate.findPathsToTarget(network, sources, target, limit);
+        lastSettledCount = delegate.getLastSettledCount();
+        Map<Location, PathResult> stored = new LinkedHashMap<>();
+        for (Map.Entry<Location, PathResult> entry : paths.entrySet()) {
+            stored.put(entry.getKey(), store(new RouteKey(entry.getKey(), target), entry.getValue()));
+        }
+        return stored;
+    }
+    
+    private PathResult store(RouteKey key, PathResult result) {
+        // Cached routes are shared between callers, so their paths must not change
+        PathResult shared = new PathResult(Collections.unmodifiableList(new ArrayList<>(result.getPath())),
+            result.getTotalDistance());
+        routes.put(key, shared);
+        return shared;
+    }
+    
+    /**
+     * Bring the cache up to the network's current version
+     */
+    private void synchronize(EmergencyNetwork current) {
+        if (current != network) {
+            invalidateAll();
+            network = current;
+            version = current.getVersion();
+            return;
+        }
+        if (current.getVersion() == version) {
+            return;
+        }
+        
+        List<NetworkChange> changes = current.getChangesSince(version);
+        version = current.getVersion();
+        if (changes == null) {
+            invalidateAll(); // Change log truncated
+            return;
+        }
+        for (NetworkChange change : changes) {
+            apply(change);
+        }
+    }
+    
+    private void apply(NetworkChange change) {
+        Iterator<Map.Entry<RouteKey, PathResult>> iterator = routes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<RouteKey, PathResult> entry = iterator.next();
+            if (isAffected(entry.getKey(), entry.getValue(), change)) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+    
+    private static boolean isAffected(RouteKey key, PathResult route, NetworkChange change) {
+        switch (change.getType()) {
+            case LOCATION_ADDED:
+                return change.getSource().equals(key.source) || change.getSource().equals(key.destination);
+            case LOCATION_REMOVED:
+                return route.getPath().contains(change.getSource());
+            default:
+                break;
+        }
+        
+        double oldWeight = change.getOldWeight();
+        double newWeight = change.getNewWeight();
+        if (newWeight < oldWeight) {
+            // Edge became cheaper or usable: only a route longer than it can improve
+            return route.getTotalDistance() > newWeight;
+        }
+        if (newWeight > oldWeight) {
+            return usesEdge(route.getPath(), change.getSource(), change.getDestination());
+        }
+        return false;
+    }
+    
+    private static boolean usesEdge(List<Location> path, Location source, Location destination) {
+        for (int i = 0; i + 1 < path.size(); i++) {
+            if (path.get(i).equals(source) && path.get(i + 1).equals(destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void invalidateAll() {
+        invalidations += routes.size();
+        routes.clear();
+    }
+    
+    /**
+     * Drop every cached route; counters are kept
+     */
+    public synchronized void clear() {
+        invalidateAll();
+    }
+    
+    /**
+     * Nodes settled by the last query, 0 for a cache hit
+     */
+    @Override
+    public synchronized int getLastSettledCount() {
+        return lastSettledCount;
+    }
+    
+    public Pathfinder getDelegate() {
+        return delegate;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public synchronized int size() {
+        return routes.size();
+    }
+    
+    public synchronized long getHitCount() {
+        return hits;
+    }
+    
+    public synchronized long getMissCount() {
+        return misses;
+    }
+    
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+    
+    public synchronized long getInvalidationCount() {
+        return invalidations;
+    }
+    
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("PathCache{hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, invalidations=%d, size=%d/%d}",
+            hits, misses, getHitRate() * 100, evictions, invalidations, routes.size(), capacity);
+    }
+    
+    /**
+     * Cache key: ordered (source, destination) pair
+     */
+    private static class RouteKey {
+        private final Location source;
+        private final Location destination;
+        
+        RouteKey(Location source, Location destination) {
+            this.source = source;
+            this.destination = destination;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RouteKey)) return false;
+            RouteKey other = (RouteKey) o;
+            return Objects.equals(source, other.source) && Objects.equals(destination, other.destination);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, destination);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package perds.algorithms;
+
+import perds.models.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe dispatch manager for many intake operators and dispatcher threads
+ * - intake is lock-free: incidents go into a concurrent skip list ordered by priority
+ *   (then arrival), and polling the head hands each incident to exactly one dispatcher
+ * - units are claimed with a compare-and-set on their status (AVAILABLE -> DISPATCHED),
+ *   so a unit can never be assigned twice; a dispatcher that loses a race moves on to
+ *   the next-nearest unit or re-routes against the remaining ones
+ * - candidates come from per-type availability buckets that follow every status change,
+ *   so a dispatch never scans busy units or units of the wrong type
+ * - routing runs outside any lock on a per-thread engine, since engines reuse workspaces
+ * - resolving an incident swaps its status atomically, so a resolve that races with
+ *   a dispatch either frees the claimed unit or makes the dispatcher release it
+ * The network must not be mutated while dispatchers are routing on it
+ *
+ * Time Complexity: O(log n) per report, O(c + (V + E) log V) per dispatch for c
+ * available capable units
+ * Space Complexity: O(U + n) for U units and n pending incidents
+ */
+public class ConcurrentDispatchManager {
+    // Nearest unit locations considered per routing round before re-routing
+    private static final int CLAIM_CANDIDATES = 4;
+    // Index cells along the longer side of the network
+    private static final int INDEX_CELLS_PER_SIDE = 64;
+    
+    private final EmergencyNetwork network;
+    private final ThreadLocal<Pathfinder> pathfinders;
+    private final List<ResponseUnit> responseUnits;
+    private final UnitSpatialIndex unitIndex;
+    private final ConcurrentSkipListSet<QueuedIncident> incidentQueue;
+    private final Map<String, Incident> activeIncidents;
+    private final AtomicLong arrivals;
+    
+    // Statistics
+    private final AtomicLong dispatches;
+    private final AtomicLong claimConflicts;
+    
+    public ConcurrentDispatchManager(EmergencyNetwork network) {
+        this(network, DijkstraPathfinder::new);
+    }
+    
+    /**
+     * Create a dispatch manager routing with one engine per dispatcher thread,
+     * e.g. PathfinderFactory::createConfigured
+     */
+    public ConcurrentDispatchManager(EmergencyNetwork network, Supplier<? extends Pathfinder> pathfinderFactory) {
+        if (network == null || pathfinderFactory == null) {
+            throw new IllegalArgumentException("Network and pathfinder factory cannot be null");
+        }
+        this.network = network;
+        this.pathfinders = ThreadLocal.withInitial(pathfinderFactory);
+        this.responseUnits = new CopyOnWriteArrayList<>();
+        this.unitIndex = new UnitSpatialIndex(network, INDEX_CELLS_PER_SIDE);
+        this.incidentQueue = new ConcurrentSkipListSet<>();
+        this.activeIncidents = new ConcurrentHashMap<>();
+        this.arrivals = new AtomicLong();
+        this.dispatches = new AtomicLong();
+        this.claimConflicts = new AtomicLong();
+    }
+    
+    /**
+     * Register a response unit in the system
+     * Time Complexity: O(U) (copy-on-write; units are registered rarely)
+     */
+    public void registerUnit(ResponseUnit unit) {
+        responseUnits.add(unit);
+        unitIndex.add(unit);
+    }
+    
+    /**
+     * Remove a response unit from the system; its changes are no longer followed
+     * Time Complexity: O(U) (copy-on-write)
+     */
+    public void unregisterUnit(ResponseUnit unit) {
+        responseUnits.remove(unit);
+        unitIndex.remove(unit);
+    }
+    
+    /**
+     * Unregister every unit, so units that outlive this manager no longer notify
+     * it or keep it reachable
+     */
+    public void close() {
+        responseUnits.clear();
+        unitIndex.clear();
+    }
+    
+    /**
+     * Report a new incident; safe to call from any number of threads without locking
+     * Time Complexity: O(log n) expected
+     */
+    public void reportIncident(Incident incident) {
+        activeIncidents.put(incident.getId(), incident);
+        incidentQueue.add(new QueuedIncident(incident, arrivals.getAndIncrement()));
+    }
+    
+    /**
+     * Dispatch the highest-priority pending incident from the calling thread
+     * Returns null if no incident is pending or no unit could be claimed for it
+     * (the incident is then requeued)
+     * Time Complexity: O(c + (V + E) log V) per routing round
+     */
+    public DispatchManager.DispatchDecision dispatchNext() {
+        while (true) {
+            QueuedIncident queued = incidentQueue.pollFirst();
+            if (queued == null) {
+                return null;
+            }
+            Incident incident = queued.incident;
+            if (incident.getStatus() != Incident.IncidentStatus.REPORTED) {
+                continue; // Resolved or cancelled while waiting
+            }
+            
+            DispatchManager.DispatchDecision decision = claimNearestUnit(incident);
+            if (decision == null) {
+                if (incident.getStatus() == Incident.IncidentStatus.REPORTED) {
+                    incidentQueue.add(queued); // No unit free, keep the original arrival order
+                    return null;
+                }
+                continue;
+            }
+            dispatches.incrementAndGet();
+            return decision;
+        }
+    }
+    
+    /**
+     * Dispatch pending incidents from the calling thread until none is left or no
+     * unit can be claimed
+     */
+    public List<DispatchManager.DispatchDecision> dispatchAll() {
+        List<DispatchManager.DispatchDecision> decisions = new ArrayList<>();
+        DispatchManager.DispatchDecision decision;
+        while ((decision = dispatchNext()) != null) {
+            decisions.add(decision);
+        }
+        return decisions;
+    }
+    
+    /**
+     * Route to the nearest compatible available units and claim the first one that
+     * no other dispatcher has claimed meanwhile
+     */
+    private DispatchManager.DispatchDecision claimNearestUnit(Incident incident) {
+        Pathfinder pathfinder = pathfinders.get();
+        
+        while (true) {
+            Map<Location, List<ResponseUnit>> candidates = new LinkedHashMap<>();
+            for (ResponseUnit unit : unitIndex.getAvailableUnits(incident.getType())) {
+                Location location = unit.getCurrentLocation();
+                if (location != null) {
+                    candidates.computeIfAbsent(location, key -> new ArrayList<>()).add(unit);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return null;
+            }
+            
+            // Routing runs without holding anything; claims are validated afterwards
+            Map<Location, PathResult> paths = pathfinder.findPathsToTarget(
+                network, candidates.keySet(), incident.getLocation(), CLAIM_CANDIDATES);
+            if (paths.isEmpty()) {
+                return null; // No candidate can reach the incident
+            }
+            
+            for (Map.Entry<Location, PathResult> entry : paths.entrySet()) {
+                for (ResponseUnit unit : candidates.get(entry.getKey())) {
+                    if (!unit.compareAndSetStatus(ResponseUnit.UnitStatus.AVAILABLE,
+                            ResponseUnit.UnitStatus.DISPATCHED)) {
+                        claimConflicts.incrementAndGet();
+                        continue;
+                    }
+                    if (!unit.getCurrentLocation().equals(entry.getKey())) {
+                        // Freed at another location after routing: give it back
+                        unit.setStatus(ResponseUnit.UnitStatus.AVAILABLE);
+                        claimConflicts.incrementAndGet();
+                        continue;
+                    }
+                    return assign(unit, incident, entry.getValue());
+                }
+            }
+            // Every routed unit was taken by other dispatchers: route again
+        }
+    }
+    
+    /**
+     * Bind a claimed unit to an incident, releasing it if the incident was resolved
+     * or cancelled in the meantime
+     */
+    private DispatchManager.DispatchDecision assign(ResponseUnit unit, Incident incident, PathResult path) {
+        unit.setCurrentIncident(incident);
+        incident.setAssignedUnit(unit);
+        if (incident.compareAndSetStatus(Incident.IncidentStatus.REPORTED, Incident.IncidentStatus.DISPATCHED)) {
+            return new DispatchManager.DispatchDecision(unit, incident, path);
+        }
+        
+        incident.setAssignedUnit(null);
+        unit.setCurrentIncident(null);
+        unit.setStatus(ResponseUnit.UnitStatus.AVAILABLE);
+        return null;
+    }
+    
+    /**
+     * Mark an incident as resolved and free up the assigned unit
+     * Safe to call concurrently with dispatching; only the first call has an effect
+     * Time Complexity: O(1)
+     */
+    public void resolveIncident(String incidentId) {
+        Incident incident = activeIncidents.remove(incidentId);
+        if (incident == null) {
+            return;
+        }
+        
+        Incident.IncidentStatus previous = incident.getAndSetStatus(Incident.IncidentStatus.RESOLVED);
+        ResponseUnit unit = incident.getAssignedUnit();
+        if (previous != Incident.IncidentStatus.REPORTED && unit != null) {
+            unit.setCurrentIncident(null);
+            unit.setCurrentLocation(incident.getLocation());
+            // Publish availability last, so claimers see the new location
+            unit.setStatus(ResponseUnit.UnitStatus.AVAILABLE);
+        }
+    }
+    
+    /**
+     * Get all active incidents (weakly consistent view)
+     */
+    public Collection<Incident> getActiveIncidents() {
+        return Collections.unmodifiableCollection(activeIncidents.values());
+    }
+    
+    /**
+     * Get all response units
+     */
+    public List<ResponseUnit> getResponseUnits() {
+        return Collections.unmodifiableList(responseUnits);
+    }
+    
+    /**
+     * Time Complexity: O(1)
+     */
+    public long getAvailableUnitsCount() {
+        return unitIndex.countAvailable();
+    }
+    
+    /**
+     * Number of incidents waiting in the queue (approximate under concurrency)
+     */
+    public int getPendingCount() {
+        return incidentQueue.size();
+    }
+    
+    public long getDispatchCount() {
+        return dispatches.get();
+    }
+    
+    /**
+     * Number of unit claims lost to another dispatcher
+     */
+    public long getClaimConflictCount() {
+        return claimConflicts.get();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ConcurrentDispatchManager{units=%d, pending=%d, dispatched=%d, claimConflicts=%d}",
+            responseUnits.size(), incidentQueue.size(), dispatches.get(), claimConflicts.get());
+    }
+    
+    /**
+     * Queue entry: priority snapshot at report time, ties broken by arrival order
+     */
+    private static class QueuedIncident implements Comparable<QueuedIncident> {
+        private final Incident incident;
+        private final double priority;
+        private final long arrival;
+        
+        QueuedIncident(Incident incident, long arrival) {
+            this.incident = incident;
+            this.priority = incident.getPriorityScore();
+            this.arrival = arrival;
+        }
+        
+        @Override
+        public int compareTo(QueuedIncident other) {
+            int byPriority = Double.compare(other.priority, priority); // Highest first
+            return byPriority != 0 ? byPriority : Long.compare(arrival, other.arrival);
+        }
+    }
+}
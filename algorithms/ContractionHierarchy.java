@@ -0,0 +1,447 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+
+import java.util.*;
+
+/**
+ * Contraction Hierarchy (CH) over a CompactGraph snapshot
+ * Nodes are contracted one by one in order of importance; whenever removing a node
+ * would lengthen a shortest path between two of its neighbours, a shortcut arc
+ * replacing the two-hop path is inserted. Queries then only have to search upward
+ * (towards more important nodes) from both endpoints, see ContractionHierarchyPathfinder
+ *
+ * The hierarchy is stored as two upward CSR graphs:
+ * - forward arcs u -> v (rank[v] > rank[u]) weighted in travel direction u -> v
+ * - backward arcs u -> v (rank[v] > rank[u]) weighted in travel direction v -> u
+ * Each arc records its middle node (-1 for an original edge) so that shortcuts can be
+ * unpacked back into the original route
+ *
+ * Blocked edges (+Infinity) are left out; the hierarchy is tied to the metric of the
+ * snapshot it was built from and must be rebuilt when weights change
+ *
+ * Time Complexity: preprocessing is heuristic, roughly O(V * W) where W is the cost of
+ * the bounded witness searches; queries settle a few hundred nodes on road networks
+ * Space Complexity: O(V + E + S) for S shortcuts
+ */
+public class ContractionHierarchy {
+    // Witness searches stop after settling this many nodes (a missed witness only costs an extra shortcut)
+    private static final int WITNESS_SETTLE_LIMIT = 200;
+    
+    private final CompactGraph graph;
+    private final int[] rank;
+    
+    private final int[] forwardOffsets;
+    private final int[] forwardTargets;
+    private final double[] forwardWeights;
+    private final int[] forwardMiddles;
+    
+    private final int[] backwardOffsets;
+    private final int[] backwardTargets;
+    private final double[] backwardWeights;
+    private final int[] backwardMiddles;
+    
+    /**
+     * Assemble a hierarchy from prebuilt upward graphs
+     */
+    ContractionHierarchy(CompactGraph graph, int[] rank,
+                         int[] forwardOffsets, int[] forwardTargets, double[] forwardWeights, int[] forwardMiddles,
+                         int[] backwardOffsets, int[] backwardTargets, double[] backwardWeights, int[] backwardMiddles) {
+        this.graph = graph;
+        this.rank = rank;
+        this.forwardOffsets = forwardOffsets;
+        this.forwardTargets = forwardTargets;
+        this.forwardWeights = forwardWeights;
+        this.forwardMiddles = forwardMiddles;
+        this.backwardOffsets = backwardOffsets;
+        this.backwardTargets = backwardTargets;
+        this.backwardWeights = backwardWeights;
+        this.backwardMiddles = backwardMiddles;
+    }
+    
+    /**
+     * Build a hierarchy for a snapshot
+     * Nodes are ordered lazily by edge difference plus the number of contracted neighbours
+     */
+    public static ContractionHierarchy build(CompactGraph graph) {
+        return new Contractor(graph).contractAll();
+    }
+    
+    public CompactGraph getGraph() {
+        return graph;
+    }
+    
+    public int getNodeCount() {
+        return rank.length;
+    }
+    
+    /**
+     * Position of a node in the contraction order (higher = more important)
+     */
+    public int getRank(int node) {
+        return rank[node];
+    }
+    
+    public int forwardStart(int node) {
+        return forwardOffsets[node];
+    }
+    
+    public int forwardEnd(int node) {
+        return forwardOffsets[node + 1];
+    }
+    
+    public int forwardTarget(int arc) {
+        return forwardTargets[arc];
+    }
+    
+    public double forwardWeight(int arc) {
+        return forwardWeights[arc];
+    }
+    
+    public int backwardStart(int node) {
+        return backwardOffsets[node];
+    }
+    
+    public int backwardEnd(int node) {
+        return backwardOffsets[node + 1];
+    }
+    
+    public int backwardTarget(int arc) {
+        return backwardTargets[arc];
+    }
+    
+    public double backwardWeight(int arc) {
+        return backwardWeights[arc];
+    }
+    
+    /**
+     * Number of upward arcs in both search graphs
+     */
+    public int getArcCount() {
+        return forwardTargets.length + backwardTargets.length;
+    }
+    
+    /**
+     * Number of upward arcs that are shortcuts
+     */
+    public int getShortcutCount() {
+        int count = 0;
+        for (int middle : forwardMiddles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        for (int middle : backwardMiddles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Expand the hierarchy arc from -> to (travel direction) into original nodes
+     * Appends every node after 'from' up to and including 'to'
+     * Time Complexity: O(k) for k original edges, using an explicit stack
+     */
+    public void unpackArc(int from, int to, List<Integer> path) {
+        Deque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[]{from, to});
+        
+        while (!stack.isEmpty()) {
+            int[] arc = stack.pop();
+            int middle = middleOf(arc[0], arc[1]);
+            if (middle < 0) {
+                path.add(arc[1]);
+            } else {
+                // Second half pushed first so the first half is expanded first
+                stack.push(new int[]{middle, arc[1]});
+                stack.push(new int[]{arc[0], middle});
+            }
+        }
+    }
+    
+    private int middleOf(int from, int to) {
+        if (rank[from] < rank[to]) {
+            for (int arc = forwardOffsets[from]; arc < forwardOffsets[from + 1]; arc++) {
+                if (forwardTargets[arc] == to) {
+                    return forwardMiddles[arc];
+                }
+            }
+        } else {
+            for (int arc = backwardOffsets[to]; arc < backwardOffsets[to + 1]; arc++) {
+                if (backwardTargets[arc] == from) {
+                    return backwardMiddles[arc];
+                }
+            }
+        }
+        throw new IllegalStateException("No hierarchy arc from " + from + " to " + to);
+    }
+    
+    @Override
+    public String toString() {
+        return "ContractionHierarchy{nodes=" + getNodeCount() +
+                ", arcs=" + getArcCount() +
+                ", shortcuts=" + getShortcutCount() + "}";
+    }
+    
+    /**
+     * Growable adjacency list of the graph being contracted, at most one arc per neighbour
+     */
+    private static final class ArcList {
+        int[] nodes = new int[4];
+        double[] weights = new double[4];
+        int[] middles = new int[4];
+        int size;
+        
+        /**
+         * Insert an arc, or lower the weight of an existing arc to the same node
+         */
+        void addOrImprove(int node, double weight, int middle) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    if (weight < weights[i]) {
+                        weights[i] = weight;
+                        middles[i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+                middles = Arrays.copyOf(middles, size * 2);
+            }
+            nodes[size] = node;
+            weights[size] = weight;
+            middles[size] = middle;
+            size++;
+        }
+    }
+    
+    /**
+     * One-shot contraction of a snapshot
+     */
+    private static final class Contractor {
+        private final CompactGraph graph;
+        private final int nodeCount;
+        private final ArcList[] out;
+        private final ArcList[] in;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours;
+        private final int[] rank;
+        
+        // Workspace for witness searches
+        private final SearchContext witness;
+        private final IndexedMinHeap witnessQueue;
+        
+        Contractor(CompactGraph graph) {
+            this.graph = graph;
+            this.nodeCount = graph.getNodeCount();
+            this.out = new ArcList[nodeCount];
+            this.in = new ArcList[nodeCount];
+            this.contracted = new boolean[nodeCount];
+            this.contractedNeighbours = new int[nodeCount];
+            this.rank = new int[nodeCount];
+            this.witness = new SearchContext(nodeCount);
+            this.witnessQueue = new IndexedMinHeap(nodeCount, 4);
+            
+            for (int node = 0; node < nodeCount; node++) {
+                out[node] = new ArcList();
+                in[node] = new ArcList();
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                    int target = graph.edgeTarget(edge);
+                    double weight = graph.edgeWeight(edge);
+                    if (target != node && weight != Double.POSITIVE_INFINITY) {
+                        out[node].addOrImprove(target, weight, -1);
+                        in[target].addOrImprove(node, weight, -1);
+                    }
+                }
+            }
+        }
+        
+        ContractionHierarchy contractAll() {
+            IndexedMinHeap order = new IndexedMinHeap(nodeCount, 4);
+            for (int node = 0; node < nodeCount; node++) {
+                order.push(node, priority(node));
+            }
+            
+            int nextRank = 0;
+            while (!order.isEmpty()) {
+                int node = order.poll();
+                
+                // Lazy update: re-queue if the node became more expensive than the next candidate
+                double current = priority(node);
+                if (!order.isEmpty() && current > order.peekKey()) {
+                    order.push(node, current);
+                    continue;
+                }
+                
+                processNode(node, true);
+                contracted[node] = true;
+                rank[node] = nextRank++;
+                markNeighbours(node);
+            }
+            
+            return assemble();
+        }
+        
+        /**
+         * Edge difference (shortcuts added minus arcs removed) plus contracted neighbours
+         */
+        private double priority(int node) {
+            int shortcuts = processNode(node, false);
+            int removed = liveDegree(out[node]) + liveDegree(in[node]);
+            return shortcuts - removed + contractedNeighbours[node];
+        }
+        
+        private int liveDegree(ArcList arcs) {
+            int degree = 0;
+            for (int i = 0; i < arcs.size; i++) {
+                if (!contracted[arcs.nodes[i]]) {
+                    degree++;
+                }
+            }
+            return degree;
+        }
+        
+        private void markNeighbours(int node) {
+            for (int i = 0; i < out[node].size; i++) {
+                contractedNeighbours[out[node].nodes[i]]++;
+            }
+            for (int i = 0; i < in[node].size; i++) {
+                contractedNeighbours[in[node].nodes[i]]++;
+            }
+        }
+        
+        /**
+         * Count (and if apply is set, insert) the shortcuts needed to contract a node
+         */
+        private int processNode(int node, boolean apply) {
+            ArcList incoming = in[node];
+            ArcList outgoing = out[node];
+            int shortcuts = 0;
+            
+            for (int i = 0; i < incoming.size; i++) {
+                int from = incoming.nodes[i];
+                if (contracted[from]) {
+                    continue;
+                }
+                double inWeight = incoming.weights[i];
+                
+                double maxOutWeight = -1.0;
+                for (int j = 0; j < outgoing.size; j++) {
+                    int to = outgoing.nodes[j];
+                    if (!contracted[to] && to != from) {
+                        maxOutWeight = Math.max(maxOutWeight, outgoing.weights[j]);
+                    }
+                }
+                if (maxOutWeight < 0.0) {
+                    continue; // No outgoing arc to bridge
+                }
+                
+                witnessSearch(from, node, inWeight + maxOutWeight);
+                
+                for (int j = 0; j < outgoing.size; j++) {
+                    int to = outgoing.nodes[j];
+                    if (contracted[to] || to == from) {
+                        continue;
+                    }
+                    double viaWeight = inWeight + outgoing.weights[j];
+                    if (witness.getDistance(to) <= viaWeight) {
+                        continue; // A path avoiding the node is at least as short
+                    }
+                    shortcuts++;
+                    if (apply) {
+                        out[from].addOrImprove(to, viaWeight, node);
+                        in[to].addOrImprove(from, viaWeight, node);
+                    }
+                }
+            }
+            return shortcuts;
+        }
+        
+        /**
+         * Bounded Dijkstra over uncontracted nodes that never enters the excluded node
+         */
+        private void witnessSearch(int source, int excluded, double maxDistance) {
+            witness.reset(nodeCount);
+            witnessQueue.clear();
+            witness.update(source, 0.0, -1);
+            witnessQueue.push(source, 0.0);
+            
+            while (!witnessQueue.isEmpty()
+                    && witnessQueue.peekKey() <= maxDistance
+                    && witness.getSettledCount() < WITNESS_SETTLE_LIMIT) {
+                int current = witnessQueue.poll();
+                witness.settle(current);
+                double distance = witness.getDistance(current);
+                
+                ArcList arcs = out[current];
+                for (int i = 0; i < arcs.size; i++) {
+                    int next = arcs.nodes[i];
+                    if (next == excluded || contracted[next] || witness.isSettled(next)) {
+                        continue;
+                    }
+                    double newDistance = distance + arcs.weights[i];
+                    if (newDistance < witness.getDistance(next)) {
+                        witness.update(next, newDistance, current);
+                        witnessQueue.push(next, newDistance);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Keep only upward arcs and pack them into CSR arrays
+         */
+        private ContractionHierarchy assemble() {
+            int[] forwardOffsets = new int[nodeCount + 1];
+            int[] backwardOffsets = new int[nodeCount + 1];
+            for (int node = 0; node < nodeCount; node++) {
+                forwardOffsets[node + 1] = forwardOffsets[node] + countUpward(node, out[node]);
+                backwardOffsets[node + 1] = backwardOffsets[node] + countUpward(node, in[node]);
+            }
+            
+            int[] forwardTargets = new int[forwardOffsets[nodeCount]];
+            double[] forwardWeights = new double[forwardTargets.length];
+            int[] forwardMiddles = new int[forwardTargets.length];
+            int[] backwardTargets = new int[backwardOffsets[nodeCount]];
+            double[] backwardWeights = new double[backwardTargets.length];
+            int[] backwardMiddles = new int[backwardTargets.length];
+            
+            for (int node = 0; node < nodeCount; node++) {
+                copyUpward(node, out[node], forwardOffsets[node], forwardTargets, forwardWeights, forwardMiddles);
+                copyUpward(node, in[node], backwardOffsets[node], backwardTargets, backwardWeights, backwardMiddles);
+            }
+            
+            return new ContractionHierarchy(graph, rank,
+                forwardOffsets, forwardTargets, forwardWeights, forwardMiddles,
+                backwardOffsets, backwardTargets, backwardWeights, backwardMiddles);
+        }
+        
+        private int countUpward(int node, ArcList arcs) {
+            int count = 0;
+            for (int i = 0; i < arcs.size; i++) {
+                if (rank[arcs.nodes[i]] > rank[node]) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        
+        private void copyUpward(int node, ArcList arcs, int position,
+                                int[] targets, double[] weights, int[] middles) {
+            for (int i = 0; i < arcs.size; i++) {
+                if (rank[arcs.nodes[i]] > rank[node]) {
+                    targets[position] = arcs.nodes[i];
+                    weights[position] = arcs.weights[i];
+                    middles[position] = arcs.middles[i];
+                    position++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+import perds.models.EmergencyNetwork;
+import perds.models.Location;
+
+import java.util.*;
+
+/**
+ * Point-to-point shortest paths on a Contraction Hierarchy
+ * Runs a bidirectional Dijkstra that only relaxes upward arcs: forward from the source,
+ * backward from the destination; the best meeting node gives the distance and the
+ * shortcut arcs on both halves are unpacked into the original route
+ *
+ * The hierarchy is built on first use and refreshed whenever the network's snapshot changes:
+ * - CONTRACTION rebuilds a classic CH from scratch
+ * - CUSTOMIZABLE keeps a metric-independent ordering and only re-runs the weight
+ *   customization while the topology is unchanged (live congestion and closures)
+ * Time Complexity: O(preprocessing) once per network version, then queries settle only
+ * the upward search spaces of both endpoints
+ * Space Complexity: O(V) per pathfinder plus the hierarchy
+ */
+public class ContractionHierarchyPathfinder implements Pathfinder {
+    public enum Preprocessing {
+        CONTRACTION,
+        CUSTOMIZABLE
+    }
+    
+    private final Preprocessing preprocessing;
+    private ContractionHierarchy hierarchy;
+    private CustomizableContractionHierarchy customizable;
+    
+    // Search workspaces reused across calls (instances are not thread-safe)
+    private final SearchContext forward = new SearchContext(0);
+    private final SearchContext backward = new SearchContext(0);
+    private final IndexedMinHeap forwardQueue = new IndexedMinHeap(0, 4);
+    private final IndexedMinHeap backwardQueue = new IndexedMinHeap(0, 4);
+    
+    public ContractionHierarchyPathfinder() {
+        this(Preprocessing.CONTRACTION);
+    }
+    
+    public ContractionHierarchyPathfinder(Preprocessing preprocessing) {
+        this.preprocessing = preprocessing;
+    }
+    
+    /**
+     * Find shortest path from source to destination
+     */
+    @Override
+    public PathResult findShortestPath(EmergencyNetwork network, Location source,
+                                       Location destination) {
+        ContractionHierarchy current = getHierarchy(network);
+        CompactGraph graph = current.getGraph();
+        int sourceIndex = graph.indexOf(source);
+        int destinationIndex = graph.indexOf(destination);
+        
+        if (sourceIndex < 0 || destinationIndex < 0) {
+            return PathResult.noPath();
+        }
+        
+        return findShortestPath(current, sourceIndex, destinationIndex);
+    }
+    
+    /**
+     * Get the hierarchy for the network's current snapshot, contracting or
+     * re-customizing it if needed
+     */
+    public ContractionHierarchy getHierarchy(EmergencyNetwork network) {
+        CompactGraph graph = network.getCompactGraph();
+        if (hierarchy != null && hierarchy.getGraph() == graph) {
+            return hierarchy;
+        }
+        
+        if (preprocessing == Preprocessing.CUSTOMIZABLE) {
+            if (customizable == null || !customizable.supports(graph)) {
+                customizable = new CustomizableContractionHierarchy(graph);
+            }
+            hierarchy = customizable.customize(graph);
+        } else {
+            hierarchy = ContractionHierarchy.build(graph);
+        }
+        return hierarchy;
+    }
+    
+    /**
+     * Find shortest path between two node indices of a hierarchy
+     * Time Complexity: O(S log S) where S is the size of both upward search spaces
+     */
+    public PathResult findShortestPath(ContractionHierarchy hierarchy, int source,
+                                       int destination) {
+        int nodeCount = hierarchy.getNodeCount();
+        forward.reset(nodeCount);
+        backward.reset(nodeCount);
+        forwardQueue.ensureCapacity(nodeCount);
+        backwardQueue.ensureCapacity(nodeCount);
+        forwardQueue.clear();
+        backwardQueue.clear();
+        
+        forward.update(source, 0.0, -1);
+        forwardQueue.push(source, 0.0);
+        backward.update(destination, 0.0, -1);
+        backwardQueue.push(destination, 0.0);
+        
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        
+        // Alternate by smallest key; neither side can improve once both keys reach the best distance
+        while (Math.min(forwardQueue.peekKey(), backwardQueue.peekKey()) < best) {
+            boolean forwardStep = forwardQueue.peekKey() <= backwardQueue.peekKey();
+            SearchContext context = forwardStep ? forward : backward;
+            SearchContext other = forwardStep ? backward : forward;
+            IndexedMinHeap queue = forwardStep ? forwardQueue : backwardQueue;
+            
+            int current = queue.poll();
+            context.settle(current);
+            double distance = context.getDistance(current);
+            
+            double through = distance + other.getDistance(current);
+            if (through < best) {
+                best = through;
+                meeting = current;
+            }
+            
+            int start = forwardStep ? hierarchy.forwardStart(current) : hierarchy.backwardStart(current);
+            int end = forwardStep ? hierarchy.forwardEnd(current) : hierarchy.backwardEnd(current);
+            for (int arc = start; arc < end; arc++) {
+                int next = forwardStep ? hierarchy.forwardTarget(arc) : hierarchy.backwardTarget(arc);
+                double weight = forwardStep ? hierarchy.forwardWeight(arc) : hierarchy.backwardWeight(arc);
+                if (weight == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double newDistance = distance + weight;
+                if (newDistance < context.getDistance(next)) {
+                    context.update(next, newDistance, current);
+                    queue.push(next, newDistance);
+                }
+            }
+        }
+        
+        if (meeting < 0) {
+            return PathResult.noPath(); // No path found
+        }
+        
+        return new PathResult(reconstructPath(hierarchy, source, meeting), best);
+    }
+    
+    /**
+     * Number of nodes settled by the last query in both directions
+     */
+    @Override
+    public int getLastSettledCount() {
+        return forward.getSettledCount() + backward.getSettledCount();
+    }
+    
+    /**
+     * Join the forward half (source -> meeting) and backward half (meeting -> destination)
+     * and unpack every hierarchy arc into original nodes
+     */
+    private List<Location> reconstructPath(ContractionHierarchy hierarchy, int source, int meeting) {
+        List<Integer> upward = new ArrayList<>();
+        for (int current = meeting; current != -1; current = forward.getPrevious(current)) {
+            upward.add(current);
+        }
+        Collections.reverse(upward);
+        // Backward predecessors already point towards the destination
+        for (int current = backward.getPrevious(meeting); current != -1; current = backward.getPrevious(current)) {
+            upward.add(current);
+        }
+        
+        List<Integer> nodes = new ArrayList<>();
+        nodes.add(source);
+        for (int i = 0; i + 1 < upward.size(); i++) {
+            hierarchy.unpackArc(upward.get(i), upward.get(i + 1), nodes);
+        }
+        
+        CompactGraph graph = hierarchy.getGraph();
+        List<Location> path = new ArrayList<>(nodes.size());
+        for (int node : nodes) {
+            path.add(graph.getLocation(node));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,244 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+
+import java.util.*;
+
+/**
+ * Customizable Contraction Hierarchy (CCH)
+ * Splits CH preprocessing into two phases:
+ * - a metric-independent phase that orders nodes by minimum degree on the undirected
+ *   topology (blocked edges included) and adds the fill-in arcs of the elimination
+ * - a customization phase that computes arc weights for the current metric by
+ *   processing lower triangles bottom-up
+ * Weight, congestion and closure changes keep the topology, so only the much cheaper
+ * customization has to be repeated; the result is an ordinary ContractionHierarchy
+ * that shares the upward topology arrays
+ *
+ * Time Complexity: ordering O(sum of squared elimination degrees),
+ * customization O(E + T) for T lower triangles
+ * Space Complexity: O(V + A) for A upward arcs
+ * Not thread-safe: customization reuses a marker array
+ */
+public class CustomizableContractionHierarchy {
+    private final CompactGraph topology;
+    private final int[] rank;
+    // Nodes in ascending rank order
+    private final int[] order;
+    
+    // Upward arcs u -> v (rank[v] > rank[u]), one per undirected pair
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    
+    // Snapshot edge -> upward arc, and whether it runs lower -> upper (forward)
+    private final int[] edgeArc;
+    private final boolean[] edgeForward;
+    
+    // Customization workspace: upward arc of the node being scanned to each target, -1 if none
+    private final int[] marker;
+    
+    /**
+     * Run the metric-independent phase for a snapshot's topology
+     */
+    public CustomizableContractionHierarchy(CompactGraph graph) {
+        this.topology = graph;
+        int nodeCount = graph.getNodeCount();
+        this.rank = new int[nodeCount];
+        this.order = new int[nodeCount];
+        
+        List<Set<Integer>> upperNeighbours = eliminate(graph);
+        
+        this.upOffsets = new int[nodeCount + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            upOffsets[node + 1] = upOffsets[node] + upperNeighbours.get(node).size();
+        }
+        this.upTargets = new int[upOffsets[nodeCount]];
+        for (int node = 0; node < nodeCount; node++) {
+            int position = upOffsets[node];
+            for (int target : upperNeighbours.get(node)) {
+                upTargets[position++] = target;
+            }
+        }
+        
+        this.marker = new int[nodeCount];
+        Arrays.fill(marker, -1);
+        
+        // Map every snapshot edge onto the arc of its endpoint pair
+        this.edgeArc = new int[graph.getEdgeCount()];
+        this.edgeForward = new boolean[graph.getEdgeCount()];
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                int target = graph.edgeTarget(edge);
+                if (target == node) {
+                    edgeArc[edge] = -1; // Self-loops never lie on a shortest path
+                } else if (rank[node] < rank[target]) {
+                    edgeArc[edge] = findArc(node, target);
+                    edgeForward[edge] = true;
+                } else {
+                    edgeArc[edge] = findArc(target, node);
+                    edgeForward[edge] = false;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Greedy minimum-degree elimination with fill-in
+     * Assigns ranks in elimination order and returns each node's upper neighbours
+     */
+    private List<Set<Integer>> eliminate(CompactGraph graph) {
+        int nodeCount = graph.getNodeCount();
+        List<Set<Integer>> neighbours = new ArrayList<>(nodeCount);
+        List<Set<Integer>> upper = new ArrayList<>(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            neighbours.add(new HashSet<>());
+            upper.add(null);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                int target = graph.edgeTarget(edge);
+                if (target != node) {
+                    neighbours.get(node).add(target);
+                    neighbours.get(target).add(node);
+                }
+            }
+        }
+        
+        IndexedMinHeap queue = new IndexedMinHeap(nodeCount, 4);
+        for (int node = 0; node < nodeCount; node++) {
+            queue.push(node, neighbours.get(node).size());
+        }
+        
+        int nextRank = 0;
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            Set<Integer> remaining = neighbours.get(node);
+            
+            // Lazy update: degrees only grow through fill-in
+            if (!queue.isEmpty() && remaining.size() > queue.peekKey()) {
+                queue.push(node, remaining.size());
+                continue;
+            }
+            
+            rank[node] = nextRank;
+            order[nextRank] = node;
+            nextRank++;
+            upper.set(node, remaining);
+            neighbours.set(node, Collections.emptySet());
+            
+            // Remaining neighbours become a clique
+            for (int neighbour : remaining) {
+                Set<Integer> adjacent = neighbours.get(neighbour);
+                adjacent.remove(node);
+                for (int other : remaining) {
+                    if (other != neighbour) {
+                        adjacent.add(other);
+                    }
+                }
+                queue.push(neighbour, adjacent.size());
+            }
+        }
+        return upper;
+    }
+    
+    private int findArc(int lower, int upper) {
+        for (int arc = upOffsets[lower]; arc < upOffsets[lower + 1]; arc++) {
+            if (upTargets[arc] == upper) {
+                return arc;
+            }
+        }
+        throw new IllegalStateException("No upward arc from " + lower + " to " + upper);
+    }
+    
+    /**
+     * Whether a snapshot can be customized with this ordering
+     */
+    public boolean supports(CompactGraph graph) {
+        return topology.hasSameTopology(graph);
+    }
+    
+    /**
+     * Compute arc weights for the snapshot's current metric
+     * Blocked edges contribute +Infinity, which queries skip
+     * Time Complexity: O(E + T) for T lower triangles
+     */
+    public ContractionHierarchy customize(CompactGraph graph) {
+        if (!supports(graph)) {
+            throw new IllegalArgumentException("Snapshot topology differs from the customizable hierarchy");
+        }
+        
+        int arcCount = upTargets.length;
+        double[] forwardWeights = new double[arcCount];
+        double[] backwardWeights = new double[arcCount];
+        int[] forwardMiddles = new int[arcCount];
+        int[] backwardMiddles = new int[arcCount];
+        Arrays.fill(forwardWeights, Double.POSITIVE_INFINITY);
+        Arrays.fill(backwardWeights, Double.POSITIVE_INFINITY);
+        Arrays.fill(forwardMiddles, -1);
+        Arrays.fill(backwardMiddles, -1);
+        
+        // Original edges
+        for (int edge = 0; edge < edgeArc.length; edge++) {
+            int arc = edgeArc[edge];
+            if (arc < 0) {
+                continue;
+            }
+            double weight = graph.edgeWeight(edge);
+            if (edgeForward[edge]) {
+                forwardWeights[arc] = Math.min(forwardWeights[arc], weight);
+            } else {
+                backwardWeights[arc] = Math.min(backwardWeights[arc], weight);
+            }
+        }
+        
+        // Lower triangles (low, first, second) with rank[low] < rank[first] < rank[second],
+        // bottom-up so arcs at low are final before they are used
+        for (int low : order) {
+            for (int firstArc = upOffsets[low]; firstArc < upOffsets[low + 1]; firstArc++) {
+                int first = upTargets[firstArc];
+                for (int arc = upOffsets[first]; arc < upOffsets[first + 1]; arc++) {
+                    marker[upTargets[arc]] = arc;
+                }
+                
+                for (int secondArc = upOffsets[low]; secondArc < upOffsets[low + 1]; secondArc++) {
+                    int second = upTargets[secondArc];
+                    if (rank[second] <= rank[first]) {
+                        continue;
+                    }
+                    // Elimination of low made first and second adjacent
+                    int arc = marker[second];
+                    
+                    // first -> low -> second
+                    double forward = backwardWeights[firstArc] + forwardWeights[secondArc];
+                    if (forward < forwardWeights[arc]) {
+                        forwardWeights[arc] = forward;
+                        forwardMiddles[arc] = low;
+                    }
+                    // second -> low -> first
+                    double backward = backwardWeights[secondArc] + forwardWeights[firstArc];
+                    if (backward < backwardWeights[arc]) {
+                        backwardWeights[arc] = backward;
+                        backwardMiddles[arc] = low;
+                    }
+                }
+                
+                for (int arc = upOffsets[first]; arc < upOffsets[first + 1]; arc++) {
+                    marker[upTargets[arc]] = -1;
+                }
+            }
+        }
+        
+        return new ContractionHierarchy(graph, rank,
+            upOffsets, upTargets, forwardWeights, forwardMiddles,
+            upOffsets, upTargets, backwardWeights, backwardMiddles);
+    }
+    
+    public int getArcCount() {
+        return upTargets.length;
+    }
+    
+    @Override
+    public String toString() {
+        return "CustomizableContractionHierarchy{nodes=" + rank.length + ", arcs=" + upTargets.length + "}";
+    }
+}
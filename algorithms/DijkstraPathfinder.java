@@ -1,6 +1,6 @@
 package perds.algorithms;
 
-import perds.models.Edge;
+import perds.models.CompactGraph;
 import perds.models.EmergencyNetwork;
 import perds.models.Location;
 
@@ -8,202 +8,270 @@ import java.util.*;
 
 /**
  * Implements Dijkstra's algorithm for finding shortest paths in the emergency network
- * Time Complexity: O((V + E) log V) with priority queue
+ * Searches run on the network's CompactGraph snapshot (int-indexed CSR arrays)
+ * and reuse one SearchContext, so a query allocates nothing proportional to V
+ * Because of that workspace an instance is not thread-safe: use one instance per
+ * thread, e.g. from PathfinderFactory
+ * Time Complexity: O((V + E) log V) with an indexed heap (decrease-key, no stale entries)
  * Space Complexity: O(V)
  */
-public class DijkstraPathfinder {
+public class DijkstraPathfinder implements Pathfinder {
+    // Search workspace reused across calls (instances are not thread-safe)
+    private final SearchContext context = new SearchContext(0);
+    private final NodeQueue queue;
+    
+    public DijkstraPathfinder() {
+        this(NodeQueue.Type.INDEXED_HEAP);
+    }
     
     /**
-     * Node class for priority queue, storing location and distance
+     * Create a pathfinder backed by a specific priority queue implementation
      */
-    private static class Node implements Comparable<Node> {
-        Location location;
-        double distance;
-        
-        Node(Location location, double distance) {
-            this.location = location;
-            this.distance = distance;
-        }
-        
-        @Override
-        public int compareTo(Node other) {
-            return Double.compare(this.distance, other.distance);
-        }
+    public DijkstraPathfinder(NodeQueue.Type queueType) {
+        this.queue = NodeQueue.create(queueType, 0);
     }
     
     /**
      * Find shortest path from source to destination
      * Returns a PathResult containing the path and total distance
      */
+    @Override
     public PathResult findShortestPath(EmergencyNetwork network, Location source, Location destination) {
-        // Distance map: Location -> shortest distance from source
-        Map<Location, Double> distances = new HashMap<>();
-        // Previous location map for path reconstruction
-        Map<Location, Location> previous = new HashMap<>();
-        // Priority queue for selecting next location to visit
-        PriorityQueue<Node> pq = new PriorityQueue<>();
-        // Visited set to avoid reprocessing
-        Set<Location> visited = new HashSet<>();
-        
-        // Initialize distances
-        for (Location loc : network.getAllLocations()) {
-            distances.put(loc, Double.MAX_VALUE);
+        CompactGraph graph = network.getCompactGraph();
+        int sourceIndex = graph.indexOf(source);
+        int destinationIndex = graph.indexOf(destination);
+        
+        if (sourceIndex < 0 || destinationIndex < 0) {
+            return PathResult.noPath();
         }
-        distances.put(source, 0.0);
         
-        // Start with source
-        pq.offer(new Node(source, 0.0));
+        return findShortestPath(graph, sourceIndex, destinationIndex);
+    }
+    
+    /**
+     * Find shortest path between two node indices of a compact snapshot
+     * Touches only primitive arrays during the search
+     */
+    public PathResult findShortestPath(CompactGraph graph, int source, int destination) {
+        runSearch(graph, source, destination);
         
-        while (!pq.isEmpty()) {
-            Node current = pq.poll();
-            Location currentLoc = current.location;
-            
-            // Skip if already visited
-            if (visited.contains(currentLoc)) {
-                continue;
-            }
-            visited.add(currentLoc);
+        if (!context.isSettled(destination)) {
+            return PathResult.noPath(); // No path found
+        }
+        
+        return new PathResult(reconstructPath(graph, destination), context.getDistance(destination));
+    }
+    
+    /**
+     * Run Dijkstra from source on the reusable context, stopping once destination
+     * is settled (pass -1 to settle every reachable node)
+     */
+    private void runSearch(CompactGraph graph, int source, int destination) {
+        startSearch(graph, source);
+        settleUntil(graph, destination, 0);
+    }
+    
+    private void startSearch(CompactGraph graph, int source) {
+        context.reset(graph.getNodeCount());
+        queue.ensureCapacity(graph.getNodeCount());
+        queue.clear();
+        
+        context.update(source, 0.0, -1);
+        queue.push(source, 0.0);
+    }
+    
+    /**
+     * Settle nodes until destination is settled, or until markedLimit marked nodes
+     * have been settled when markedLimit is positive
+     */
+    private void settleUntil(CompactGraph graph, int destination, int markedLimit) {
+        while (!queue.isEmpty()) {
+            // Each node is queued at most once, so a polled node is final
+            int current = queue.poll();
+            context.settle(current);
             
             // Found destination
-            if (currentLoc.equals(destination)) {
+            if (current == destination) {
                 break;
             }
+            if (markedLimit > 0 && context.isMarked(current) && --markedLimit == 0) {
+                break;
+            }
+            
+            double currentDistance = context.getDistance(current);
             
             // Explore neighbors
-            List<Edge> neighbors = network.getNeighbors(currentLoc);
-            for (Edge edge : neighbors) {
-                if (edge.isBlocked()) {
+            for (int edge = graph.edgeStart(current); edge < graph.edgeEnd(current); edge++) {
+                double weight = graph.edgeWeight(edge);
+                if (weight == Double.POSITIVE_INFINITY) {
                     continue; // Skip blocked edges
                 }
                 
-                Location neighbor = edge.getDestination();
-                double newDistance = distances.get(currentLoc) + edge.getEffectiveWeight();
+                int neighbor = graph.edgeTarget(edge);
+                double newDistance = currentDistance + weight;
                 
                 // Update if we found a shorter path
-                if (newDistance < distances.get(neighbor)) {
-                    distances.put(neighbor, newDistance);
-                    previous.put(neighbor, currentLoc);
-                    pq.offer(new Node(neighbor, newDistance));
+                if (newDistance < context.getDistance(neighbor)) {
+                    context.update(neighbor, newDistance, current);
+                    queue.push(neighbor, newDistance);
                 }
             }
         }
-        
-        // Reconstruct path
-        List<Location> path = reconstructPath(previous, source, destination);
-        double totalDistance = distances.get(destination);
-        
-        return new PathResult(path, totalDistance);
     }
     
     /**
-     * Reconstruct path from previous map
+     * Reconstruct path from the context's predecessor links
      */
-    private List<Location> reconstructPath(Map<Location, Location> previous, 
-                                           Location source, Location destination) {
+    private List<Location> reconstructPath(CompactGraph graph, int destination) {
         List<Location> path = new ArrayList<>();
-        Location current = destination;
         
         // Build path backwards from destination to source
-        while (current != null) {
-            path.add(current);
-            current = previous.get(current);
+        for (int current = destination; current != -1; current = context.getPrevious(current)) {
+            path.add(graph.getLocation(current));
         }
         
         // Reverse to get source-to-destination order
         Collections.reverse(path);
+        return path;
+    }
+    
+    /**
+     * Find paths from many sources to a single target with one search
+     * Runs Dijkstra from the target over reversed edges and stops as soon as every
+     * source, or the nearest limit of them when limit is positive, has been settled
+     * Returns reachable sources in ascending distance order; unreachable ones are omitted
+     * Time Complexity: O((V + E) log V) once, instead of once per source
+     */
+    @Override
+    public Map<Location, PathResult> findPathsToTarget(EmergencyNetwork network, Collection<Location> sources,
+                                                       Location target, int limit) {
+        Map<Location, PathResult> paths = new LinkedHashMap<>();
+        CompactGraph graph = network.getCompactGraph();
+        int targetIndex = graph.indexOf(target);
         
-        // Check if path is valid (should start with source)
-        if (path.isEmpty() || !path.get(0).equals(source)) {
-            return new ArrayList<>(); // No path found
+        if (targetIndex < 0 || sources.isEmpty()) {
+            return paths;
         }
         
+        // Search from the target on the reversed graph
+        CompactGraph reverse = graph.getReverse();
+        startSearch(reverse, targetIndex);
+        
+        int candidates = 0;
+        for (Location source : sources) {
+            int sourceIndex = graph.indexOf(source);
+            if (sourceIndex >= 0 && context.mark(sourceIndex)) {
+                candidates++;
+            }
+        }
+        if (candidates == 0) {
+            return paths;
+        }
+        
+        settleUntil(reverse, -1, limit > 0 ? Math.min(limit, candidates) : candidates);
+        
+        List<Integer> settledSources = new ArrayList<>();
+        for (int i = 0; i < context.getTouchedCount(); i++) {
+            int node = context.getTouchedNode(i);
+            if (context.isMarked(node) && context.isSettled(node)) {
+                settledSources.add(node);
+            }
+        }
+        settledSources.sort(Comparator.comparingDouble(context::getDistance));
+        
+        for (int node : settledSources) {
+            paths.put(graph.getLocation(node),
+                new PathResult(reconstructReversePath(graph, node), context.getDistance(node)));
+        }
+        
+        return paths;
+    }
+    
+    /**
+     * Walk predecessor links of a reverse search; they already point towards the root,
+     * so the walk yields the path in source-to-target order
+     */
+    private List<Location> reconstructReversePath(CompactGraph graph, int source) {
+        List<Location> path = new ArrayList<>();
+        for (int current = source; current != -1; current = context.getPrevious(current)) {
+            path.add(graph.getLocation(current));
+        }
         return path;
     }
     
+    /**
+     * Number of nodes settled by the last search
+     */
+    @Override
+    public int getLastSettledCount() {
+        return context.getSettledCount();
+    }
+    
     /**
      * Find shortest distances from source to all other locations
      * Useful for predictive analysis
      */
     public Map<Location, Double> findShortestDistances(EmergencyNetwork network, Location source) {
         Map<Location, Double> distances = new HashMap<>();
-        PriorityQueue<Node> pq = new PriorityQueue<>();
-        Set<Location> visited = new HashSet<>();
+        CompactGraph graph = network.getCompactGraph();
+        int sourceIndex = graph.indexOf(source);
+        double[] nodeDistances = sourceIndex >= 0 ? findShortestDistances(graph, sourceIndex) : null;
         
-        // Initialize
         for (Location loc : network.getAllLocations()) {
-            distances.put(loc, Double.MAX_VALUE);
-        }
-        distances.put(source, 0.0);
-        pq.offer(new Node(source, 0.0));
-        
-        while (!pq.isEmpty()) {
-            Node current = pq.poll();
-            Location currentLoc = current.location;
-            
-            if (visited.contains(currentLoc)) {
-                continue;
-            }
-            visited.add(currentLoc);
-            
-            List<Edge> neighbors = network.getNeighbors(currentLoc);
-            for (Edge edge : neighbors) {
-                if (edge.isBlocked()) {
-                    continue;
-                }
-                
-                Location neighbor = edge.getDestination();
-                double newDistance = distances.get(currentLoc) + edge.getEffectiveWeight();
-                
-                if (newDistance < distances.get(neighbor)) {
-                    distances.put(neighbor, newDistance);
-                    pq.offer(new Node(neighbor, newDistance));
-                }
-            }
+            double distance = nodeDistances != null ? nodeDistances[graph.indexOf(loc)] : Double.POSITIVE_INFINITY;
+            // Unreachable locations keep the Double.MAX_VALUE marker
+            distances.put(loc, distance == Double.POSITIVE_INFINITY ? Double.MAX_VALUE : distance);
         }
         
         return distances;
     }
     
     /**
-     * Inner class to store path results
+     * Find shortest distances from a source node to every node of a compact snapshot
+     * Unreachable nodes are reported as +Infinity
      */
-    public static class PathResult {
-        private final List<Location> path;
-        private final double totalDistance;
+    public double[] findShortestDistances(CompactGraph graph, int source) {
+        runSearch(graph, source, -1);
         
-        public PathResult(List<Location> path, double totalDistance) {
-            this.path = path;
-            this.totalDistance = totalDistance;
+        double[] distances = new double[graph.getNodeCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < context.getTouchedCount(); i++) {
+            int node = context.getTouchedNode(i);
+            distances[node] = context.getDistance(node);
         }
         
-        public List<Location> getPath() {
-            return path;
+        return distances;
+    }
+    
+    /**
+     * Find shortest distances from a source node to selected target nodes
+     * Writes the distance to targets[i] into out[offset + i] (+Infinity if unreachable)
+     * or, when targets is null, the distance to every node into out[offset + node]
+     * With targets, the search stops as soon as every target is settled
+     */
+    public void findShortestDistances(CompactGraph graph, int source, int[] targets, double[] out, int offset) {
+        if (targets == null) {
+            runSearch(graph, source, -1);
+            Arrays.fill(out, offset, offset + graph.getNodeCount(), Double.POSITIVE_INFINITY);
+            for (int i = 0; i < context.getTouchedCount(); i++) {
+                int node = context.getTouchedNode(i);
+                out[offset + node] = context.getDistance(node);
+            }
+            return;
         }
         
-        public double getTotalDistance() {
-            return totalDistance;
+        startSearch(graph, source);
+        int pending = 0;
+        for (int target : targets) {
+            if (context.mark(target)) {
+                pending++;
+            }
         }
-        
-        public boolean isValid() {
-            return !path.isEmpty() && totalDistance != Double.MAX_VALUE;
+        if (pending > 0) {
+            settleUntil(graph, -1, pending);
         }
-        
-        @Override
-        public String toString() {
-            if (!isValid()) {
-                return "PathResult{No path found}";
-            }
-            StringBuilder sb = new StringBuilder("PathResult{\n");
-            sb.append("  Distance: ").append(String.format("%.2f", totalDistance)).append("\n");
-            sb.append("  Path: ");
-            for (int i = 0; i < path.size(); i++) {
-                sb.append(path.get(i).getName());
-                if (i < path.size() - 1) {
-                    sb.append(" -> ");
-                }
-            }
-            sb.append("\n}");
-            return sb.toString();
+        for (int i = 0; i < targets.length; i++) {
+            out[offset + i] = context.getDistance(targets[i]);
         }
     }
 }
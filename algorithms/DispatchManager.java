@@ -7,18 +7,44 @@ import java.util.*;
 /**
  * Manages dispatch decisions and unit allocation
  * Uses priority queue for incident prioritization
+ * Routes with any Pathfinder engine (Dijkstra by default)
+ * Candidate units come from a spatial index partitioned by type and availability,
+ * so only the geometrically closest capable units are routed
  */
 public class DispatchManager {
+    // Candidate units routed per round, before widening the search
+    private static final int DEFAULT_CANDIDATE_LIMIT = 8;
+    // Index cells along the longer side of the network
+    private static final int INDEX_CELLS_PER_SIDE = 64;
+    
     private final EmergencyNetwork network;
-    private final DijkstraPathfinder pathfinder;
+    private final Pathfinder pathfinder;
     private final List<ResponseUnit> responseUnits;
+    private final UnitSpatialIndex unitIndex;
+    private final EuclideanHeuristic lowerBound;
+    private int candidateLimit;
+    private boolean loggingEnabled;
     private final PriorityQueue<Incident> incidentQueue;
     private final Map<String, Incident> activeIncidents;
     
     public DispatchManager(EmergencyNetwork network) {
+        this(network, new DijkstraPathfinder());
+    }
+    
+    /**
+     * Create a dispatch manager routing with a specific engine
+     */
+    public DispatchManager(EmergencyNetwork network, Pathfinder pathfinder) {
+        if (pathfinder == null) {
+            throw new IllegalArgumentException("Pathfinder cannot be null");
+        }
         this.network = network;
-        this.pathfinder = new DijkstraPathfinder();
+        this.pathfinder = pathfinder;
         this.responseUnits = new ArrayList<>();
+        this.unitIndex = new UnitSpatialIndex(network, INDEX_CELLS_PER_SIDE);
+        this.lowerBound = new EuclideanHeuristic();
+        this.candidateLimit = DEFAULT_CANDIDATE_LIMIT;
+        this.loggingEnabled = true;
         this.activeIncidents = new HashMap<>();
         
         // Priority queue ordered by incident severity (highest first)
@@ -29,10 +55,29 @@ public class DispatchManager {
     
     /**
      * Register a response unit in the system
-     * Time Complexity: O(1)
+     * Time Complexity: O(1) expected
      */
     public void registerUnit(ResponseUnit unit) {
         responseUnits.add(unit);
+        unitIndex.add(unit);
+    }
+    
+    /**
+     * Remove a response unit from the system; its changes are no longer followed
+     * Time Complexity: O(U)
+     */
+    public void unregisterUnit(ResponseUnit unit) {
+        responseUnits.remove(unit);
+        unitIndex.remove(unit);
+    }
+    
+    /**
+     * Unregister every unit, so units that outlive this manager no longer notify
+     * it or keep it reachable
+     */
+    public void close() {
+        responseUnits.clear();
+        unitIndex.clear();
     }
     
     /**
@@ -42,57 +87,128 @@ public class DispatchManager {
     public void reportIncident(Incident incident) {
         activeIncidents.put(incident.getId(), incident);
         incidentQueue.offer(incident);
-        System.out.println("Incident reported: " + incident);
+        log("Incident reported: ", incident);
     }
     
     /**
      * Find the best available unit for an incident
      * Considers: unit availability, unit type compatibility, and distance
-     * Time Complexity: O(n * (V + E) log V) where n is number of units
+     * Score is distance / severity priority, so the nearest compatible unit wins;
+     * with Dijkstra a single reverse search from the incident stops at the first unit
+     * location reached, other engines run one query per candidate location
+     * Only the k straight-line nearest capable units are routed. The round is final
+     * when the best route beats a lower bound on the travel time of every unit
+     * farther away (straight-line distance at the fastest speed on any road);
+     * otherwise k doubles, so the result is the same as routing the whole fleet
+     * Time Complexity: O(c + k log k + (V + E) log V) per round for c scanned index cells
      */
     public DispatchDecision findBestUnit(Incident incident) {
-        ResponseUnit bestUnit = null;
-        DijkstraPathfinder.PathResult bestPath = null;
-        double bestScore = Double.MAX_VALUE;
+        int k = candidateLimit > 0 ? candidateLimit : Integer.MAX_VALUE;
         
-        for (ResponseUnit unit : responseUnits) {
-            // Check if unit is available and can respond to this incident type
-            if (!unit.isAvailable() || !unit.canRespondTo(incident.getType())) {
-                continue;
+        while (true) {
+            List<ResponseUnit> candidates = unitIndex.findNearest(incident.getLocation(), k, incident.getType());
+            if (candidates.isEmpty()) {
+                return null;
+            }
+            Set<Location> candidateLocations = new LinkedHashSet<>();
+            for (ResponseUnit unit : candidates) {
+                candidateLocations.add(unit.getCurrentLocation());
             }
             
-            // Calculate path from unit's location to incident location
-            DijkstraPathfinder.PathResult path = pathfinder.findShortestPath(
-                network,
-                unit.getCurrentLocation(),
-                incident.getLocation()
+            // Nearest unit location by path distance
+            Map<Location, PathResult> paths = pathfinder.findPathsToTarget(
+                network, candidateLocations, incident.getLocation(), 1
             );
             
-            if (!path.isValid()) {
-                continue; // No valid path
+            boolean exhausted = candidates.size() < k || k == Integer.MAX_VALUE;
+            if (!exhausted) {
+                double bound = travelTimeLowerBound(candidates.get(candidates.size() - 1).getCurrentLocation(),
+                    incident.getLocation());
+                if (paths.isEmpty() || paths.values().iterator().next().getTotalDistance() >= bound) {
+                    // A unit further away might still be closer by road
+                    k = k > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : k * 2;
+                    continue;
+                }
             }
             
-            // Calculate score (lower is better)
-            // Score considers distance and severity
-            double score = path.getTotalDistance() / incident.getSeverity().getPriority();
+            if (paths.isEmpty()) {
+                return null; // No suitable unit found
+            }
             
-            if (score < bestScore) {
-                bestScore = score;
-                bestUnit = unit;
-                bestPath = path;
+            Map.Entry<Location, PathResult> nearest = paths.entrySet().iterator().next();
+            for (ResponseUnit unit : candidates) {
+                // First registered unit at that location, as in a sequential scan
+                if (unit.getCurrentLocation().equals(nearest.getKey())) {
+                    return new DispatchDecision(unit, incident, nearest.getValue());
+                }
             }
+            
+            return null;
         }
-        
-        if (bestUnit != null) {
-            return new DispatchDecision(bestUnit, incident, bestPath);
+    }
+    
+    /**
+     * Lower bound on the travel time to the target from any unit at least as far
+     * away in a straight line as a given unit location
+     */
+    private double travelTimeLowerBound(Location unitLocation, Location target) {
+        CompactGraph graph = network.getCompactGraph();
+        int from = graph.indexOf(unitLocation);
+        int to = graph.indexOf(target);
+        if (from < 0 || to < 0) {
+            return 0.0; // Not on the network: no bound, widen the search
+        }
+        // Follows the change log, so dispatch does not rescan every edge per version
+        lowerBound.prepare(network);
+        return lowerBound.estimate(graph, from, to);
+    }
+    
+    /**
+     * Set how many straight-line nearest units are routed per round
+     * 0 routes every available capable unit at once
+     */
+    public void setCandidateLimit(int candidateLimit) {
+        if (candidateLimit < 0) {
+            throw new IllegalArgumentException("Candidate limit cannot be negative");
+        }
+        this.candidateLimit = candidateLimit;
+    }
+    
+    public int getCandidateLimit() {
+        return candidateLimit;
+    }
+    
+    /**
+     * Turn the console log of reports, dispatches and resolutions on or off,
+     * e.g. off for long simulation runs
+     */
+    public void setLoggingEnabled(boolean loggingEnabled) {
+        this.loggingEnabled = loggingEnabled;
+    }
+    
+    public boolean isLoggingEnabled() {
+        return loggingEnabled;
+    }
+    
+    /**
+     * Print a message; the subject is only turned into text when logging is on
+     */
+    private void log(String message, Object subject) {
+        if (loggingEnabled) {
+            System.out.println(message + subject);
         }
-        
-        return null; // No suitable unit found
+    }
+    
+    /**
+     * Spatial index over the registered units
+     */
+    public UnitSpatialIndex getUnitIndex() {
+        return unitIndex;
     }
     
     /**
      * Dispatch the next highest-priority incident
-     * Time Complexity: O(n * (V + E) log V)
+     * Time Complexity: O(n + (V + E) log V)
      */
     public DispatchDecision dispatchNext() {
         if (incidentQueue.isEmpty()) {
@@ -118,12 +234,12 @@ public class DispatchManager {
             decision.getUnit().setStatus(ResponseUnit.UnitStatus.DISPATCHED);
             decision.getUnit().setCurrentIncident(incident);
             
-            System.out.println("Dispatched: " + decision);
+            log("Dispatched: ", decision);
             return decision;
         } else {
             // No available unit, requeue incident
             incidentQueue.offer(incident);
-            System.out.println("No available unit for incident: " + incident.getId());
+            log("No available unit for incident: ", incident.getId());
             return null;
         }
     }
@@ -164,7 +280,7 @@ public class DispatchManager {
             }
             
             activeIncidents.remove(incidentId);
-            System.out.println("Incident resolved: " + incidentId);
+            log("Incident resolved: ", incidentId);
         }
     }
     
@@ -175,6 +291,13 @@ public class DispatchManager {
         return activeIncidents.values();
     }
     
+    /**
+     * Get the routing engine used for dispatch decisions
+     */
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+    
     /**
      * Get all response units
      */
@@ -184,11 +307,10 @@ public class DispatchManager {
     
     /**
      * Get available units count
+     * Time Complexity: O(1)
      */
     public long getAvailableUnitsCount() {
-        return responseUnits.stream()
-            .filter(ResponseUnit::isAvailable)
-            .count();
+        return unitIndex.countAvailable();
     }
     
     /**
@@ -197,10 +319,10 @@ public class DispatchManager {
     public static class DispatchDecision {
         private final ResponseUnit unit;
         private final Incident incident;
-        private final DijkstraPathfinder.PathResult path;
+        private final PathResult path;
         
         public DispatchDecision(ResponseUnit unit, Incident incident, 
-                               DijkstraPathfinder.PathResult path) {
+                               PathResult path) {
             this.unit = unit;
             this.incident = incident;
             this.path = path;
@@ -214,7 +336,7 @@ public class DispatchManager {
             return incident;
         }
         
-        public DijkstraPathfinder.PathResult getPath() {
+        public PathResult getPath() {
             return path;
         }
         
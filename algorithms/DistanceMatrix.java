@@ -0,0 +1,127 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+import perds.models.Location;
+
+import java.util.Arrays;
+
+/**
+ * Dense shortest-distance matrix from a set of source nodes to a set of target nodes
+ * of one CompactGraph snapshot, stored row-major in a single flat array
+ * Unreachable pairs hold +Infinity
+ *
+ * Time Complexity: O(1) per lookup
+ * Space Complexity: O(S * T)
+ */
+public class DistanceMatrix {
+    private final CompactGraph graph;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] values;
+    // Node index -> row / column, -1 if the node is not a source / target
+    private final int[] rowByNode;
+    private final int[] columnByNode;
+    
+    /**
+     * Wrap computed distances; targets may be null for a column per snapshot node
+     */
+    DistanceMatrix(CompactGraph graph, int[] sources, int[] targets, double[] values) {
+        this.graph = graph;
+        this.sources = sources;
+        this.targets = targets;
+        this.values = values;
+        this.rowByNode = indexByNode(sources, graph.getNodeCount());
+        this.columnByNode = targets != null ? indexByNode(targets, graph.getNodeCount()) : null;
+    }
+    
+    private static int[] indexByNode(int[] nodes, int nodeCount) {
+        int[] index = new int[nodeCount];
+        Arrays.fill(index, -1);
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            index[nodes[i]] = i; // First occurrence wins for repeated nodes
+        }
+        return index;
+    }
+    
+    /**
+     * Distance from the source of a row to the target of a column
+     */
+    public double get(int row, int column) {
+        return values[row * getColumnCount() + column];
+    }
+    
+    /**
+     * Distance between two node indices, +Infinity if either is not in the matrix
+     */
+    public double getDistance(int sourceNode, int targetNode) {
+        int row = rowOf(sourceNode);
+        int column = columnOf(targetNode);
+        return row >= 0 && column >= 0 ? get(row, column) : Double.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Distance between two locations, +Infinity if either is not in the matrix
+     */
+    public double getDistance(Location from, Location to) {
+        return getDistance(graph.indexOf(from), graph.indexOf(to));
+    }
+    
+    /**
+     * Row of a source node, -1 if it is not a source
+     */
+    public int rowOf(int sourceNode) {
+        return sourceNode >= 0 && sourceNode < rowByNode.length ? rowByNode[sourceNode] : -1;
+    }
+    
+    /**
+     * Column of a target node, -1 if it is not a target
+     */
+    public int columnOf(int targetNode) {
+        if (targetNode < 0 || targetNode >= graph.getNodeCount()) {
+            return -1;
+        }
+        return columnByNode != null ? columnByNode[targetNode] : targetNode;
+    }
+    
+    /**
+     * Copy of one row
+     */
+    public double[] copyRow(int row) {
+        int columns = getColumnCount();
+        return Arrays.copyOfRange(values, row * columns, (row + 1) * columns);
+    }
+    
+    public int getRowCount() {
+        return sources.length;
+    }
+    
+    public int getColumnCount() {
+        return targets != null ? targets.length : graph.getNodeCount();
+    }
+    
+    /**
+     * Source node of a row
+     */
+    public int getSource(int row) {
+        return sources[row];
+    }
+    
+    /**
+     * Target node of a column
+     */
+    public int getTarget(int column) {
+        return targets != null ? targets[column] : column;
+    }
+    
+    /**
+     * Snapshot the distances were computed on
+     */
+    public CompactGraph getGraph() {
+        return graph;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("DistanceMatrix{%d x %d, version=%d}", getRowCount(), getColumnCount(), graph.getVersion());
+    }
+}
@@ -0,0 +1,142 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+import perds.models.EmergencyNetwork;
+import perds.models.Location;
+import perds.models.NetworkChange;
+
+import java.util.List;
+
+/**
+ * Straight-line heuristic: Euclidean distance times the lowest travel time per unit of
+ * distance found on any edge of the snapshot
+ * Scaling by the fastest edge keeps the estimate admissible whatever the speeds,
+ * but a single fast road weakens it for the whole network
+ */
+public class EuclideanHeuristic implements AStarHeuristic {
+    private CompactGraph preparedGraph;
+    // Network and version the scale was last brought up to date with
+    private EmergencyNetwork preparedNetwork;
+    private long preparedVersion;
+    // Lowest time per distance (+Infinity if no usable edge) and the edge it comes from
+    private double scale = Double.POSITIVE_INFINITY;
+    private int fastestSource = -1;
+    private int fastestTarget = -1;
+    private double timePerDistance;
+    private long fullScans;
+    
+    /**
+     * Compute the scale factor for a new snapshot
+     * Time Complexity: O(E) per snapshot, O(1) otherwise
+     */
+    @Override
+    public void prepare(CompactGraph graph) {
+        if (graph == preparedGraph) {
+            return;
+        }
+        scan(graph);
+        preparedNetwork = null;
+    }
+    
+    /**
+     * Bring the scale factor up to date with a network by replaying its change log
+     * Faster or new edges lower the factor directly; all edges are only scanned again
+     * when the fastest edge slows down or disappears, or the log no longer reaches back
+     * Time Complexity: O(K) for K changes since the last call, O(E) for a full scan
+     */
+    public void prepare(EmergencyNetwork network) {
+        if (network == preparedNetwork && network.getVersion() == preparedVersion) {
+            return;
+        }
+        
+        List<NetworkChange> changes = network == preparedNetwork ? network.getChangesSince(preparedVersion) : null;
+        boolean exact = changes != null;
+        if (exact) {
+            for (NetworkChange change : changes) {
+                if (!apply(change)) {
+                    exact = false;
+                    break;
+                }
+            }
+        }
+        if (exact) {
+            preparedGraph = null;
+        } else {
+            scan(network.getCompactGraph());
+        }
+        preparedNetwork = network;
+        preparedVersion = network.getVersion();
+    }
+    
+    private void scan(CompactGraph graph) {
+        scale = Double.POSITIVE_INFINITY;
+        fastestSource = -1;
+        fastestTarget = -1;
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                double weight = graph.edgeWeight(edge);
+                double length = straightLine(graph, node, graph.edgeTarget(edge));
+                if (weight != Double.POSITIVE_INFINITY && length > 0 && weight / length < scale) {
+                    scale = weight / length;
+                    fastestSource = node;
+                    fastestTarget = graph.edgeTarget(edge);
+                }
+            }
+        }
+        
+        // No usable edge: nothing is reachable anyway
+        timePerDistance = scale == Double.POSITIVE_INFINITY ? 0.0 : scale;
+        preparedGraph = graph;
+        fullScans++;
+    }
+    
+    /**
+     * Apply one change to the scale; false if all edges have to be scanned again
+     */
+    private boolean apply(NetworkChange change) {
+        if (change.getType() == NetworkChange.ChangeType.LOCATION_ADDED) {
+            return true;
+        }
+        if (change.getType() == NetworkChange.ChangeType.LOCATION_REMOVED) {
+            return change.getSourceIndex() != fastestSource && change.getSourceIndex() != fastestTarget;
+        }
+        
+        boolean fastest = change.getSourceIndex() == fastestSource && change.getDestinationIndex() == fastestTarget;
+        if (fastest && change.getNewWeight() > change.getOldWeight()) {
+            return false;
+        }
+        double length = straightLine(change.getSource(), change.getDestination());
+        double weight = change.getNewWeight();
+        if (weight != Double.POSITIVE_INFINITY && length > 0 && weight / length < scale) {
+            scale = weight / length;
+            fastestSource = change.getSourceIndex();
+            fastestTarget = change.getDestinationIndex();
+            timePerDistance = scale;
+        }
+        return true;
+    }
+    
+    /**
+     * Number of times every edge was scanned to compute the scale
+     */
+    public long getFullScanCount() {
+        return fullScans;
+    }
+    
+    @Override
+    public double estimate(CompactGraph graph, int from, int to) {
+        return straightLine(graph, from, to) * timePerDistance;
+    }
+    
+    private static double straightLine(CompactGraph graph, int from, int to) {
+        double dx = graph.getX(to) - graph.getX(from);
+        double dy = graph.getY(to) - graph.getY(from);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+    
+    private static double straightLine(Location from, Location to) {
+        double dx = to.getX() - from.getX();
+        double dy = to.getY() - from.getY();
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,164 @@
+package perds.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of rows to columns (Hungarian algorithm, shortest
+ * augmenting paths with dual potentials)
+ * Rectangular matrices are supported: every row of the smaller side is matched to
+ * a distinct column of the larger side. Forbidden pairs are given as +Infinity;
+ * a row is only left unmatched when every completion would need a forbidden pair
+ *
+ * Time Complexity: O(n^2 m) worst case for n = min(rows, columns), m = max
+ * Space Complexity: O(n m) for the working copy of the cost matrix
+ */
+public class HungarianAssignment {
+    
+    private HungarianAssignment() {
+    }
+    
+    /**
+     * Solve the assignment problem for a rows x columns cost matrix
+     * Returns, for every row, the assigned column or -1 if the row stays unmatched
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int columns = rows == 0 ? 0 : cost[0].length;
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        if (rows == 0 || columns == 0) {
+            return assignment;
+        }
+        
+        // Forbidden pairs become a penalty larger than any total of allowed costs,
+        // so the optimum uses as few of them as possible
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double[] row : cost) {
+            if (row.length != columns) {
+                throw new IllegalArgumentException("Cost matrix must be rectangular");
+            }
+            for (double value : row) {
+                if (Double.isNaN(value) || value == Double.NEGATIVE_INFINITY) {
+                    throw new IllegalArgumentException("Costs must be numbers or +Infinity");
+                }
+                if (value != Double.POSITIVE_INFINITY) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+        }
+        if (min == Double.POSITIVE_INFINITY) {
+            return assignment; // Everything forbidden
+        }
+        double penalty = (max - min + 1.0) * (Math.min(rows, columns) + 1);
+        
+        // The algorithm matches the smaller side, so transpose tall matrices
+        boolean transposed = rows > columns;
+        int n = transposed ? columns : rows;
+        int m = transposed ? rows : columns;
+        double[][] a = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double value = transposed ? cost[j][i] : cost[i][j];
+                a[i][j] = value == Double.POSITIVE_INFINITY ? penalty : value - min;
+            }
+        }
+        
+        int[] match = solveSquareOrWide(a, n, m);
+        for (int i = 0; i < n; i++) {
+            int j = match[i];
+            double original = transposed ? cost[j][i] : cost[i][j];
+            if (original == Double.POSITIVE_INFINITY) {
+                continue; // Forced onto a forbidden pair: leave unmatched
+            }
+            if (transposed) {
+                assignment[j] = i;
+            } else {
+                assignment[i] = j;
+            }
+        }
+        return assignment;
+    }
+    
+    /**
+     * Core algorithm for n <= m with finite costs; returns the column of every row
+     * Rows are added one at a time, each by a Dijkstra-like search for the cheapest
+     * augmenting path in reduced costs a[i][j] - u[i] - v[j]
+     */
+    private static int[] solveSquareOrWide(double[][] a, int n, int m) {
+        // 1-based arrays; column 0 is the virtual start of each augmenting path
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] rowOfColumn = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minReduced = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+        
+        for (int row = 1; row <= n; row++) {
+            rowOfColumn[0] = row;
+            int column = 0;
+            Arrays.fill(minReduced, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            
+            do {
+                used[column] = true;
+                int i = rowOfColumn[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int next = -1;
+                double[] costs = a[i - 1];
+                double ui = u[i];
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        double reduced = costs[j - 1] - ui - v[j];
+                        if (reduced < minReduced[j]) {
+                            minReduced[j] = reduced;
+                            way[j] = column;
+                        }
+                        if (minReduced[j] < delta) {
+                            delta = minReduced[j];
+                            next = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[rowOfColumn[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minReduced[j] -= delta;
+                    }
+                }
+                column = next;
+            } while (rowOfColumn[column] != 0);
+            
+            // Flip the augmenting path
+            do {
+                int previous = way[column];
+                rowOfColumn[column] = rowOfColumn[previous];
+                column = previous;
+            } while (column != 0);
+        }
+        
+        int[] match = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (rowOfColumn[j] != 0) {
+                match[rowOfColumn[j] - 1] = j - 1;
+            }
+        }
+        return match;
+    }
+    
+    /**
+     * Total cost of an assignment, ignoring unmatched rows
+     */
+    public static double totalCost(double[][] cost, int[] assignment) {
+        double total = 0.0;
+        for (int row = 0; row < assignment.length; row++) {
+            if (assignment[row] >= 0) {
+                total += cost[row][assignment[row]];
+            }
+        }
+        return total;
+    }
+}
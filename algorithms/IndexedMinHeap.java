@@ -0,0 +1,169 @@
+package perds.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Indexed d-ary min-heap keyed by node index
+ * Each node appears at most once; a position array maps node -> heap slot,
+ * which gives true decrease-key instead of pushing duplicate entries
+ *
+ * Time Complexity: O(log_d n) push/decrease, O(d log_d n) poll
+ * Space Complexity: O(V)
+ */
+public class IndexedMinHeap implements NodeQueue {
+    private final int arity;
+    // heap[i] = node stored in slot i, keys[i] = its key
+    private int[] heap;
+    private double[] keys;
+    // position[node] = slot of node in heap, -1 if not queued
+    private int[] position;
+    private int size;
+    
+    public IndexedMinHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2");
+        }
+        this.arity = arity;
+        this.heap = new int[capacity];
+        this.keys = new double[capacity];
+        this.position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+    
+    @Override
+    public void ensureCapacity(int nodeCount) {
+        if (nodeCount > position.length) {
+            int oldLength = position.length;
+            int newLength = Math.max(nodeCount, oldLength * 2);
+            heap = Arrays.copyOf(heap, newLength);
+            keys = Arrays.copyOf(keys, newLength);
+            position = Arrays.copyOf(position, newLength);
+            Arrays.fill(position, oldLength, newLength, -1);
+        }
+    }
+    
+    @Override
+    public void push(int node, double key) {
+        int slot = position[node];
+        if (slot < 0) {
+            slot = size++;
+            heap[slot] = node;
+            keys[slot] = key;
+            position[node] = slot;
+            siftUp(slot);
+        } else if (key < keys[slot]) {
+            keys[slot] = key;
+            siftUp(slot);
+        }
+    }
+    
+    /**
+     * Check whether a node is currently queued
+     */
+    public boolean contains(int node) {
+        return node < position.length && position[node] >= 0;
+    }
+    
+    /**
+     * Current key of a queued node
+     */
+    public double getKey(int node) {
+        return keys[position[node]];
+    }
+    
+    @Override
+    public int poll() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            keys[0] = keys[size];
+            position[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+    
+    @Override
+    public double peekKey() {
+        return size > 0 ? keys[0] : Double.POSITIVE_INFINITY;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Time Complexity: O(size) - only the queued nodes are reset
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+    
+    private void siftUp(int slot) {
+        int node = heap[slot];
+        double key = keys[slot];
+        
+        while (slot > 0) {
+            int parent = (slot - 1) / arity;
+            if (keys[parent] <= key) {
+                break;
+            }
+            moveTo(parent, slot);
+            slot = parent;
+        }
+        place(node, key, slot);
+    }
+    
+    private void siftDown(int slot) {
+        int node = heap[slot];
+        double key = keys[slot];
+        
+        while (true) {
+            int firstChild = slot * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            
+            // Pick the smallest of up to d children
+            int best = firstChild;
+            int lastChild = Math.min(firstChild + arity, size);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (keys[child] < keys[best]) {
+                    best = child;
+                }
+            }
+            
+            if (keys[best] >= key) {
+                break;
+            }
+            moveTo(best, slot);
+            slot = best;
+        }
+        place(node, key, slot);
+    }
+    
+    private void moveTo(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        position[heap[to]] = to;
+    }
+    
+    private void place(int node, double key, int slot) {
+        heap[slot] = node;
+        keys[slot] = key;
+        position[node] = slot;
+    }
+}
@@ -0,0 +1,185 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+import perds.models.Location;
+
+import java.util.*;
+
+/**
+ * ALT heuristic (A*, Landmarks, Triangle inequality)
+ * Precomputes exact travel times to and from a few landmark nodes; by the triangle
+ * inequality, for every landmark L:
+ *   d(v, t) >= d(L, t) - d(L, v)   and   d(v, t) >= d(v, L) - d(t, L)
+ * The largest of these bounds is admissible and consistent, and far tighter than a
+ * straight-line estimate on road networks
+ *
+ * Landmarks are dispatch centers first, then farthest-point picks to cover the periphery
+ * Bounds computed for one snapshot stay valid lower bounds (and consistent) while
+ * edge weights only grow, e.g. as congestion builds or roads close, so such snapshots
+ * reuse them after an O(E) weight check; new edges or any lower weight rebuild them
+ * Time Complexity: O(k (V + E) log V) per rebuild, O(E) per reuse, O(k) per estimate
+ * Space Complexity: O(k * V)
+ */
+public class LandmarkHeuristic implements AStarHeuristic {
+    public static final int DEFAULT_LANDMARK_COUNT = 8;
+    
+    private final int landmarkCount;
+    private final DijkstraPathfinder pathfinder;
+    
+    private CompactGraph preparedGraph;
+    // Snapshot the landmark distances were computed on
+    private CompactGraph boundsGraph;
+    private int preparationCount;
+    private int[] landmarks;
+    // fromLandmark[i][v] = d(landmark i, v), toLandmark[i][v] = d(v, landmark i)
+    private double[][] fromLandmark;
+    private double[][] toLandmark;
+    
+    public LandmarkHeuristic() {
+        this(DEFAULT_LANDMARK_COUNT);
+    }
+    
+    public LandmarkHeuristic(int landmarkCount) {
+        if (landmarkCount <= 0) {
+            throw new IllegalArgumentException("Landmark count must be positive");
+        }
+        this.landmarkCount = landmarkCount;
+        this.pathfinder = new DijkstraPathfinder();
+    }
+    
+    /**
+     * Select landmarks and compute their distance arrays for a new snapshot, unless
+     * it only raises edge weights of the snapshot the current bounds were computed on
+     */
+    @Override
+    public void prepare(CompactGraph graph) {
+        if (graph == preparedGraph) {
+            return;
+        }
+        if (boundsGraph != null && onlyIncreases(boundsGraph, graph)) {
+            preparedGraph = graph;
+            return;
+        }
+        
+        int nodeCount = graph.getNodeCount();
+        List<Integer> chosen = new ArrayList<>();
+        List<double[]> forward = new ArrayList<>();
+        List<double[]> backward = new ArrayList<>();
+        CompactGraph reverse = graph.getReverse();
+        
+        // Dispatch centers are where most queries start
+        for (int node = 0; node < nodeCount && chosen.size() < landmarkCount; node++) {
+            Location location = graph.getLocation(node);
+            if (location != null && location.getType() == Location.LocationType.DISPATCH_CENTER) {
+                addLandmark(graph, reverse, node, chosen, forward, backward);
+            }
+        }
+        
+        // Farthest-point picks: the node worst covered by the landmarks so far
+        double[] coverage = new double[nodeCount];
+        Arrays.fill(coverage, Double.POSITIVE_INFINITY);
+        for (double[] distances : forward) {
+            updateCoverage(coverage, distances);
+        }
+        
+        while (chosen.size() < landmarkCount) {
+            int next = -1;
+            double worst = -1.0;
+            for (int node = 0; node < nodeCount; node++) {
+                if (!graph.hasLocation(node) || chosen.contains(node)) {
+                    continue;
+                }
+                // Nodes unreachable from every landmark so far are picked first
+                double score = coverage[node] == Double.POSITIVE_INFINITY ? Double.MAX_VALUE : coverage[node];
+                if (score > worst) {
+                    worst = score;
+                    next = node;
+                }
+            }
+            if (next < 0) {
+                break; // Fewer nodes than landmarks
+            }
+            addLandmark(graph, reverse, next, chosen, forward, backward);
+            updateCoverage(coverage, forward.get(forward.size() - 1));
+        }
+        
+        landmarks = new int[chosen.size()];
+        for (int i = 0; i < landmarks.length; i++) {
+            landmarks[i] = chosen.get(i);
+        }
+        fromLandmark = forward.toArray(new double[0][]);
+        toLandmark = backward.toArray(new double[0][]);
+        preparedGraph = graph;
+        boundsGraph = graph;
+        preparationCount++;
+    }
+    
+    /**
+     * Whether a snapshot has the same edges as another with no lower weight
+     * Time Complexity: O(E), O(V + E) unless derived via withWeights()
+     */
+    private static boolean onlyIncreases(CompactGraph original, CompactGraph graph) {
+        if (!graph.hasSameTopology(original)) {
+            return false;
+        }
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            // NaN weights fail the check too
+            if (!(graph.edgeWeight(edge) >= original.edgeWeight(edge))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void addLandmark(CompactGraph graph, CompactGraph reverse, int node, List<Integer> chosen,
+                             List<double[]> forward, List<double[]> backward) {
+        chosen.add(node);
+        forward.add(pathfinder.findShortestDistances(graph, node));
+        backward.add(pathfinder.findShortestDistances(reverse, node));
+    }
+    
+    private static void updateCoverage(double[] coverage, double[] distances) {
+        for (int node = 0; node < coverage.length; node++) {
+            coverage[node] = Math.min(coverage[node], distances[node]);
+        }
+    }
+    
+    /**
+     * Best triangle-inequality bound over all landmarks
+     * Time Complexity: O(k)
+     */
+    @Override
+    public double estimate(CompactGraph graph, int from, int to) {
+        double best = 0.0;
+        for (int i = 0; i < fromLandmark.length; i++) {
+            double[] fromL = fromLandmark[i];
+            double[] toL = toLandmark[i];
+            
+            // Infinite terms carry no usable bound
+            double forwardBound = fromL[to] - fromL[from];
+            if (forwardBound > best && forwardBound != Double.POSITIVE_INFINITY && !Double.isNaN(forwardBound)) {
+                best = forwardBound;
+            }
+            double backwardBound = toL[from] - toL[to];
+            if (backwardBound > best && backwardBound != Double.POSITIVE_INFINITY && !Double.isNaN(backwardBound)) {
+                best = backwardBound;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Node indices of the landmarks chosen when the bounds were last computed
+     */
+    public int[] getLandmarks() {
+        return landmarks == null ? new int[0] : landmarks.clone();
+    }
+    
+    /**
+     * Number of times landmark distances were computed, i.e. snapshots that could
+     * not reuse the previous bounds
+     */
+    public int getPreparationCount() {
+        return preparationCount;
+    }
+}
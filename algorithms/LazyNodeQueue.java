@@ -0,0 +1,97 @@
+package perds.algorithms;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Lazy-deletion node queue backed by java.util.PriorityQueue
+ * A decrease pushes a new entry and stale entries are skipped on poll;
+ * kept as the baseline the indexed heap is benchmarked against
+ *
+ * Time Complexity: O(log E) push/poll, queue holds up to O(E) entries
+ */
+public class LazyNodeQueue implements NodeQueue {
+    private final PriorityQueue<Entry> queue;
+    // Key of the live entry for each node, NaN when the node is not queued
+    private double[] liveKeys;
+    
+    private static class Entry implements Comparable<Entry> {
+        final int node;
+        final double key;
+        
+        Entry(int node, double key) {
+            this.node = node;
+            this.key = key;
+        }
+        
+        @Override
+        public int compareTo(Entry other) {
+            return Double.compare(this.key, other.key);
+        }
+    }
+    
+    public LazyNodeQueue(int capacity) {
+        this.queue = new PriorityQueue<>();
+        this.liveKeys = new double[capacity];
+        Arrays.fill(liveKeys, Double.NaN);
+    }
+    
+    @Override
+    public void ensureCapacity(int nodeCount) {
+        if (nodeCount > liveKeys.length) {
+            int oldLength = liveKeys.length;
+            liveKeys = Arrays.copyOf(liveKeys, Math.max(nodeCount, oldLength * 2));
+            Arrays.fill(liveKeys, oldLength, liveKeys.length, Double.NaN);
+        }
+    }
+    
+    @Override
+    public void push(int node, double key) {
+        double live = liveKeys[node];
+        if (Double.isNaN(live) || key < live) {
+            liveKeys[node] = key;
+            queue.offer(new Entry(node, key));
+        }
+    }
+    
+    @Override
+    public int poll() {
+        dropStale();
+        Entry entry = queue.poll();
+        liveKeys[entry.node] = Double.NaN;
+        return entry.node;
+    }
+    
+    @Override
+    public double peekKey() {
+        dropStale();
+        return queue.isEmpty() ? Double.POSITIVE_INFINITY : queue.peek().key;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        dropStale();
+        return queue.isEmpty();
+    }
+    
+    @Override
+    public void clear() {
+        for (Entry entry : queue) {
+            liveKeys[entry.node] = Double.NaN;
+        }
+        queue.clear();
+    }
+    
+    /**
+     * Discard superseded entries sitting at the head of the queue
+     */
+    private void dropStale() {
+        while (!queue.isEmpty()) {
+            Entry head = queue.peek();
+            if (liveKeys[head.node] == head.key) {
+                return;
+            }
+            queue.poll();
+        }
+    }
+}
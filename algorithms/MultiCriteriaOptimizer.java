@@ -2,6 +2,7 @@ package perds.algorithms;
 
 import perds.models.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * Advanced Multi-Criteria Dispatch Optimizer
@@ -15,6 +16,8 @@ import java.util.*;
  * 6. Unit fatigue (minimize)
  * 
  * Uses weighted scoring with configurable weights
+ * Batches are assigned greedily by priority or, in OPTIMAL mode, by maximizing the
+ * total score over all incidents at once (Hungarian algorithm)
  * 
  * Time Complexity: O(U * I) where U = units, I = incidents
  * Space Complexity: O(U)
@@ -25,7 +28,9 @@ import java.util.*;
 public class MultiCriteriaOptimizer {
     
     private final EmergencyNetwork network;
-    private final DijkstraPathfinder pathfinder;
+    private final Pathfinder pathfinder;
+    private final ParallelShortestPaths travelTimes;
+    private AssignmentMode assignmentMode = AssignmentMode.GREEDY;
     
     // Configurable weights for multi-criteria optimization
     private double distanceWeight = 0.30;
@@ -48,6 +53,16 @@ public class MultiCriteriaOptimizer {
             Set.of(Incident.IncidentType.POLICE, Incident.IncidentType.HAZMAT));
     }
     
+    /**
+     * How batchOptimize assigns units to incidents
+     */
+    public enum AssignmentMode {
+        // Highest-priority incident first, each taking its best remaining unit
+        GREEDY,
+        // Maximum total score over the batch from one travel-time matrix
+        OPTIMAL
+    }
+    
     /**
      * Detailed dispatch decision with scoring breakdown
      */
@@ -56,11 +71,11 @@ public class MultiCriteriaOptimizer {
         private final Incident incident;
         private final double totalScore;
         private final Map<String, Double> criteriaScores;
-        private final DijkstraPathfinder.PathResult path;
+        private final PathResult path;
         
         public OptimizedDispatchDecision(ResponseUnit unit, Incident incident, 
                                         double score, Map<String, Double> scores,
-                                        DijkstraPathfinder.PathResult path) {
+                                        PathResult path) {
             this.unit = unit;
             this.incident = incident;
             this.totalScore = score;
@@ -72,7 +87,7 @@ public class MultiCriteriaOptimizer {
         public Incident getIncident() { return incident; }
         public double getTotalScore() { return totalScore; }
         public Map<String, Double> getCriteriaScores() { return criteriaScores; }
-        public DijkstraPathfinder.PathResult getPath() { return path; }
+        public PathResult getPath() { return path; }
         
         @Override
         public String toString() {
@@ -90,8 +105,22 @@ public class MultiCriteriaOptimizer {
      * @param network Emergency network
      */
     public MultiCriteriaOptimizer(EmergencyNetwork network) {
+        this(network, new DijkstraPathfinder());
+    }
+    
+    /**
+     * Constructor
+     * 
+     * @param network Emergency network
+     * @param pathfinder Routing engine used for unit-to-incident paths
+     */
+    public MultiCriteriaOptimizer(EmergencyNetwork network, Pathfinder pathfinder) {
+        if (pathfinder == null) {
+            throw new IllegalArgumentException("Pathfinder cannot be null");
+        }
         this.network = network;
-        this.pathfinder = new DijkstraPathfinder();
+        this.pathfinder = pathfinder;
+        this.travelTimes = new ParallelShortestPaths();
     }
     
     /**
@@ -102,7 +131,7 @@ public class MultiCriteriaOptimizer {
      * @param unitWorkload Current workload for each unit
      * @return Optimized dispatch decision, or null if no suitable unit
      * 
-     * Time Complexity: O(U * (V+E) log V) where U = units, V = vertices, E = edges
+     * Time Complexity: O(U + (V+E) log V) where U = units, V = vertices, E = edges
      * Space Complexity: O(U)
      */
     public OptimizedDispatchDecision findOptimalUnit(
@@ -117,15 +146,20 @@ public class MultiCriteriaOptimizer {
         OptimizedDispatchDecision bestDecision = null;
         double bestScore = Double.NEGATIVE_INFINITY;
         
+        // Paths from every unit location in one reverse search from the incident
+        Set<Location> unitLocations = new HashSet<>();
         for (ResponseUnit unit : availableUnits) {
-            // Calculate path
-            DijkstraPathfinder.PathResult path = pathfinder.findShortestPath(
-                network, 
-                unit.getCurrentLocation(), 
-                incident.getLocation()
-            );
+            unitLocations.add(unit.getCurrentLocation());
+        }
+        Map<Location, PathResult> paths = pathfinder.findPathsToTarget(
+            network, unitLocations, incident.getLocation(), 0
+        );
+        double averageWorkload = averageWorkload(availableUnits, unitWorkload);
+        
+        for (ResponseUnit unit : availableUnits) {
+            PathResult path = paths.get(unit.getCurrentLocation());
             
-            if (!path.isValid()) {
+            if (path == null) {
                 continue; // Skip if no path exists
             }
             
@@ -149,7 +183,7 @@ public class MultiCriteriaOptimizer {
             criteriaScores.put("availability", availabilityScore);
             
             // 5. Load balance score (current system load)
-            double loadBalanceScore = calculateLoadBalanceScore(unit, availableUnits, unitWorkload);
+            double loadBalanceScore = calculateLoadBalanceScore(unit, averageWorkload, unitWorkload);
             criteriaScores.put("loadBalance", loadBalanceScore);
             
             // 6. Fatigue score (recent dispatch history)
@@ -157,18 +191,11 @@ public class MultiCriteriaOptimizer {
             criteriaScores.put("fatigue", fatigueScore);
             
             // Calculate weighted total score
-            double totalScore = 
+            double totalScore = weightedScore(incident,
                 distanceWeight * distanceScore +
                 timeWeight * timeScore +
-                specializationWeight * specializationScore +
-                availabilityWeight * availabilityScore +
-                loadBalanceWeight * loadBalanceScore +
-                fatigueWeight * fatigueScore;
-            
-            // Boost score for critical incidents
-            if (incident.getSeverity() == Incident.IncidentSeverity.CRITICAL) {
-                totalScore *= 1.2;
-            }
+                specializationWeight * specializationScore,
+                unitTerm(availabilityScore, loadBalanceScore, fatigueScore));
             
             // Update best decision
             if (totalScore > bestScore) {
@@ -182,6 +209,26 @@ public class MultiCriteriaOptimizer {
         return bestDecision;
     }
     
+    /**
+     * Weighted score of the workload criteria, which depend only on the unit
+     */
+    private double unitTerm(double availabilityScore, double loadBalanceScore, double fatigueScore) {
+        return availabilityWeight * availabilityScore +
+            loadBalanceWeight * loadBalanceScore +
+            fatigueWeight * fatigueScore;
+    }
+    
+    /**
+     * Total score from the weighted pair and unit terms, boosted for critical incidents
+     */
+    private static double weightedScore(Incident incident, double pairTerm, double unitTerm) {
+        double totalScore = pairTerm + unitTerm;
+        if (incident.getSeverity() == Incident.IncidentSeverity.CRITICAL) {
+            totalScore *= 1.2;
+        }
+        return totalScore;
+    }
+    
     /**
      * Calculate distance score (normalized, inverted)
      * Closer distances get higher scores
@@ -223,7 +270,11 @@ public class MultiCriteriaOptimizer {
      * @return Score between 0 and 1
      */
     private double calculateSpecializationScore(ResponseUnit unit, Incident incident) {
-        Set<Incident.IncidentType> specializations = SPECIALIZATIONS.get(unit.getType());
+        return calculateSpecializationScore(unit.getType(), incident);
+    }
+    
+    private double calculateSpecializationScore(ResponseUnit.UnitType unitType, Incident incident) {
+        Set<Incident.IncidentType> specializations = SPECIALIZATIONS.get(unitType);
         
         if (specializations == null) {
             return 0.5; // Neutral score if no specialization defined
@@ -232,7 +283,7 @@ public class MultiCriteriaOptimizer {
         if (specializations.contains(incident.getType())) {
             // Perfect match
             return 1.0;
-        } else if (canHandle(unit.getType(), incident.getType())) {
+        } else if (canHandle(unitType, incident.getType())) {
             // Can handle but not specialized
             return 0.6;
         } else {
@@ -284,27 +335,28 @@ public class MultiCriteriaOptimizer {
         return 1.0 - normalized;
     }
     
+    /**
+     * Average workload over the available units
+     * Computed once per decision rather than once per scored unit
+     */
+    private static double averageWorkload(List<ResponseUnit> allUnits, Map<ResponseUnit, Integer> unitWorkload) {
+        return allUnits.stream()
+            .mapToInt(u -> unitWorkload.getOrDefault(u, 0))
+            .average()
+            .orElse(0.0);
+    }
+    
     /**
      * Calculate load balance score
      * Encourages even distribution of work across units
      * 
      * @param unit Response unit being considered
-     * @param allUnits All available units
+     * @param avgWorkload Average workload of all available units
      * @param unitWorkload Current workload map
      * @return Score between 0 and 1
      */
-    private double calculateLoadBalanceScore(ResponseUnit unit, List<ResponseUnit> allUnits, 
+    private double calculateLoadBalanceScore(ResponseUnit unit, double avgWorkload,
                                              Map<ResponseUnit, Integer> unitWorkload) {
-        if (allUnits.isEmpty()) {
-            return 0.5;
-        }
-        
-        // Calculate average workload
-        double avgWorkload = allUnits.stream()
-            .mapToInt(u -> unitWorkload.getOrDefault(u, 0))
-            .average()
-            .orElse(0.0);
-        
         // Get this unit's workload
         int thisWorkload = unitWorkload.getOrDefault(unit, 0);
         
@@ -378,18 +430,63 @@ public class MultiCriteriaOptimizer {
     }
     
     /**
-     * Batch optimization for multiple incidents
-     * Finds globally optimal assignment considering all incidents
+     * Set how batchOptimize assigns units (GREEDY by default)
+     * 
+     * @param mode Assignment mode
+     */
+    public void setAssignmentMode(AssignmentMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Assignment mode cannot be null");
+        }
+        this.assignmentMode = mode;
+    }
+    
+    public AssignmentMode getAssignmentMode() {
+        return assignmentMode;
+    }
+    
+    /**
+     * Batch optimization for multiple incidents, in the configured assignment mode
      * 
      * @param incidents List of pending incidents
      * @param availableUnits List of available units
      * @param unitWorkload Current workload
-     * @return Map of incident to optimal unit
+     * @return Map of incident to assigned unit
+     */
+    public Map<Incident, OptimizedDispatchDecision> batchOptimize(
+            List<Incident> incidents,
+            List<ResponseUnit> availableUnits,
+            Map<ResponseUnit, Integer> unitWorkload) {
+        return batchOptimize(incidents, availableUnits, unitWorkload, assignmentMode);
+    }
+    
+    /**
+     * Batch optimization for multiple incidents in a given assignment mode
      * 
-     * Time Complexity: O(I * U * (V+E) log V)
-     * Space Complexity: O(I * U)
+     * @param incidents List of pending incidents
+     * @param availableUnits List of available units
+     * @param unitWorkload Current workload
+     * @param mode GREEDY or OPTIMAL
+     * @return Map of incident to assigned unit
      */
     public Map<Incident, OptimizedDispatchDecision> batchOptimize(
+            List<Incident> incidents,
+            List<ResponseUnit> availableUnits,
+            Map<ResponseUnit, Integer> unitWorkload,
+            AssignmentMode mode) {
+        if (mode == AssignmentMode.OPTIMAL) {
+            return optimalAssignment(incidents, availableUnits, unitWorkload);
+        }
+        return greedyAssignment(incidents, availableUnits, unitWorkload);
+    }
+    
+    /**
+     * Greedy assignment: highest-priority incidents pick their best unit first
+     * 
+     * Time Complexity: O(I * (U + (V+E) log V))
+     * Space Complexity: O(I * U)
+     */
+    private Map<Incident, OptimizedDispatchDecision> greedyAssignment(
             List<Incident> incidents,
             List<ResponseUnit> availableUnits,
             Map<ResponseUnit, Integer> unitWorkload) {
@@ -423,4 +520,133 @@ public class MultiCriteriaOptimizer {
         
         return assignments;
     }
+    
+    /**
+     * Optimal assignment: maximize the summed score of the whole batch
+     * One-to-all searches from every incident location over the reversed snapshot
+     * (run in parallel, each stopping once every unit location is settled) give the
+     * travel time from every unit location at once; the negated scores form the cost
+     * matrix of a rectangular Hungarian assignment, and the routes of the chosen
+     * pairs are searched in parallel as well.
+     * When incidents outnumber units, the highest-priority reachable incidents are
+     * considered, so priority still decides who is served under a surge
+     * 
+     * Time Complexity: O((I + n) (V+E) log V / P + I * U + n^2 m) for n = min(I, U), m = max(I, U)
+     * Space Complexity: O(I * U)
+     */
+    private Map<Incident, OptimizedDispatchDecision> optimalAssignment(
+            List<Incident> incidents,
+            List<ResponseUnit> availableUnits,
+            Map<ResponseUnit, Integer> unitWorkload) {
+        
+        Map<Incident, OptimizedDispatchDecision> assignments = new HashMap<>();
+        CompactGraph graph = network.getCompactGraph();
+        List<ResponseUnit> units = new ArrayList<>(new LinkedHashSet<>(availableUnits));
+        units.removeIf(unit -> graph.indexOf(unit.getCurrentLocation()) < 0);
+        List<Incident> sortedIncidents = new ArrayList<>(incidents);
+        sortedIncidents.removeIf(incident -> graph.indexOf(incident.getLocation()) < 0);
+        if (units.isEmpty() || sortedIncidents.isEmpty()) {
+            return assignments;
+        }
+        sortedIncidents.sort((a, b) -> Double.compare(b.getPriorityScore(), a.getPriorityScore()));
+        
+        // One matrix row per distinct incident location, one column per distinct unit location
+        int[] incidentNodes = distinctNodes(graph, sortedIncidents.stream().map(Incident::getLocation));
+        int[] unitNodes = distinctNodes(graph, units.stream().map(ResponseUnit::getCurrentLocation));
+        DistanceMatrix travel = travelTimes.computeDistances(graph.getReverse(), incidentNodes, unitNodes);
+        
+        // Highest-priority incidents that some unit can reach, at most one per unit
+        List<Incident> batch = new ArrayList<>();
+        for (Incident incident : sortedIncidents) {
+            if (batch.size() == units.size()) {
+                break;
+            }
+            int row = travel.rowOf(graph.indexOf(incident.getLocation()));
+            for (int column = 0; column < travel.getColumnCount(); column++) {
+                if (travel.get(row, column) != Double.POSITIVE_INFINITY) {
+                    batch.add(incident);
+                    break;
+                }
+            }
+        }
+        
+        // Unit criteria do not depend on the incident
+        double averageWorkload = averageWorkload(units, unitWorkload);
+        double[] unitTerms = new double[units.size()];
+        int[] unitColumns = new int[units.size()];
+        for (int u = 0; u < units.size(); u++) {
+            ResponseUnit unit = units.get(u);
+            unitTerms[u] = unitTerm(calculateAvailabilityScore(unit, unitWorkload),
+                calculateLoadBalanceScore(unit, averageWorkload, unitWorkload),
+                calculateFatigueScore(unit, unitWorkload));
+            unitColumns[u] = travel.columnOf(graph.indexOf(unit.getCurrentLocation()));
+        }
+        
+        double[][] cost = new double[batch.size()][units.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Incident incident = batch.get(i);
+            int row = travel.rowOf(graph.indexOf(incident.getLocation()));
+            double[] specialization = new double[ResponseUnit.UnitType.values().length];
+            for (ResponseUnit.UnitType type : ResponseUnit.UnitType.values()) {
+                specialization[type.ordinal()] = specializationWeight * calculateSpecializationScore(type, incident);
+            }
+            for (int u = 0; u < units.size(); u++) {
+                double distance = travel.get(row, unitColumns[u]);
+                if (distance == Double.POSITIVE_INFINITY) {
+                    cost[i][u] = Double.POSITIVE_INFINITY; // Unit cannot reach the incident
+                    continue;
+                }
+                double pairTerm = distanceWeight * calculateDistanceScore(distance) +
+                    timeWeight * calculateTimeScore(distance) +
+                    specialization[units.get(u).getType().ordinal()];
+                cost[i][u] = -weightedScore(incident, pairTerm, unitTerms[u]);
+            }
+        }
+        
+        int[] assignment = HungarianAssignment.solve(cost);
+        
+        // Routes of the chosen pairs, searched in parallel like the matrix rows
+        int[] routeSources = new int[batch.size()];
+        int[] routeTargets = new int[batch.size()];
+        int routes = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (assignment[i] >= 0) {
+                routeSources[routes] = graph.indexOf(units.get(assignment[i]).getCurrentLocation());
+                routeTargets[routes] = graph.indexOf(batch.get(i).getLocation());
+                routes++;
+            }
+        }
+        PathResult[] paths = travelTimes.computePaths(graph, Arrays.copyOf(routeSources, routes),
+            Arrays.copyOf(routeTargets, routes));
+        
+        int route = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (assignment[i] < 0) {
+                continue;
+            }
+            Incident incident = batch.get(i);
+            ResponseUnit unit = units.get(assignment[i]);
+            PathResult path = paths[route++];
+            if (!path.isValid()) {
+                continue;
+            }
+            
+            Map<String, Double> criteriaScores = new HashMap<>();
+            criteriaScores.put("distance", calculateDistanceScore(path.getTotalDistance()));
+            criteriaScores.put("time", calculateTimeScore(path.getTotalDistance()));
+            criteriaScores.put("specialization", calculateSpecializationScore(unit, incident));
+            criteriaScores.put("availability", calculateAvailabilityScore(unit, unitWorkload));
+            criteriaScores.put("loadBalance", calculateLoadBalanceScore(unit, averageWorkload, unitWorkload));
+            criteriaScores.put("fatigue", calculateFatigueScore(unit, unitWorkload));
+            assignments.put(incident, new OptimizedDispatchDecision(
+                unit, incident, -cost[i][assignment[i]], criteriaScores, path
+            ));
+        }
+        
+        return assignments;
+    }
+    
+    private static int[] distinctNodes(CompactGraph graph, Stream<Location> locations) {
+        return locations.mapToInt(graph::indexOf).distinct().toArray();
+    }
 }
@@ -0,0 +1,58 @@
+package perds.algorithms;
+
+/**
+ * Min-priority queue of graph node indices used by the pathfinders
+ * push() inserts a node or lowers its key; keys that are not smaller are ignored
+ */
+public interface NodeQueue {
+    
+    /**
+     * Available queue implementations
+     */
+    enum Type {
+        // Indexed 4-ary heap with true decrease-key (one entry per node)
+        INDEXED_HEAP,
+        // java.util.PriorityQueue with lazy deletion of stale entries
+        LAZY_PRIORITY_QUEUE
+    }
+    
+    /**
+     * Create a queue of the given type for node indices below capacity
+     */
+    static NodeQueue create(Type type, int capacity) {
+        switch (type) {
+            case LAZY_PRIORITY_QUEUE:
+                return new LazyNodeQueue(capacity);
+            case INDEXED_HEAP:
+            default:
+                return new IndexedMinHeap(capacity, 4);
+        }
+    }
+    
+    /**
+     * Make room for node indices below nodeCount
+     */
+    void ensureCapacity(int nodeCount);
+    
+    /**
+     * Insert a node, or decrease its key if it is already queued with a larger key
+     */
+    void push(int node, double key);
+    
+    /**
+     * Remove and return the node with the smallest key
+     */
+    int poll();
+    
+    /**
+     * Smallest key in the queue, +Infinity when empty
+     */
+    double peekKey();
+    
+    boolean isEmpty();
+    
+    /**
+     * Remove all queued nodes
+     */
+    void clear();
+}
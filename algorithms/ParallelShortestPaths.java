@@ -0,0 +1,231 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+import perds.models.EmergencyNetwork;
+import perds.models.Location;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-source shortest distances with the one-to-all searches fanned out over a ForkJoinPool
+ * Every search reads the same immutable CompactGraph snapshot; each task borrows a
+ * reusable Dijkstra workspace from this instance and returns it when done, and writes
+ * its rows into disjoint slices of one DistanceMatrix, so workers share nothing mutable
+ * Idle workspaces belong to the instance, not to pool threads, so they are released
+ * together with it
+ * Sources are split recursively, letting idle workers steal rows from busy ones
+ *
+ * Time Complexity: O(S (V + E) log V / P) for S sources on P workers
+ * Space Complexity: O(S * T) for the matrix, plus O(V) per concurrently running task
+ */
+public class ParallelShortestPaths {
+    // Sources searched by one task without splitting further
+    private static final int ROWS_PER_TASK = 2;
+    
+    private final ForkJoinPool pool;
+    // Idle search workspaces, borrowed by one task at a time and reused across calls
+    private final Deque<DijkstraPathfinder> workspaces = new ConcurrentLinkedDeque<>();
+    
+    public ParallelShortestPaths() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Run searches on a specific pool, e.g. new ForkJoinPool(4) to bound parallelism
+     */
+    public ParallelShortestPaths(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+    
+    /**
+     * Distances from every source node to every node of a snapshot
+     */
+    public DistanceMatrix computeDistances(CompactGraph graph, int[] sources) {
+        return computeDistances(graph, sources, null);
+    }
+    
+    /**
+     * Distances from every source node to every target node of a snapshot
+     * A null targets array selects every node as a target
+     */
+    public DistanceMatrix computeDistances(CompactGraph graph, int[] sources, int[] targets) {
+        if (graph == null || sources == null) {
+            throw new IllegalArgumentException("Graph and sources cannot be null");
+        }
+        validateNodes(graph, sources);
+        if (targets != null) {
+            validateNodes(graph, targets);
+        }
+        
+        int columns = targets != null ? targets.length : graph.getNodeCount();
+        long cells = (long) sources.length * columns;
+        if (cells > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Distance matrix too large: " + sources.length + " x " + columns);
+        }
+        
+        int[] sourceCopy = sources.clone();
+        int[] targetCopy = targets != null ? targets.clone() : null;
+        double[] values = new double[(int) cells];
+        if (sources.length > 0) {
+            pool.invoke(new RowTask(graph, sourceCopy, targetCopy, values, columns, 0, sourceCopy.length));
+        }
+        return new DistanceMatrix(graph, sourceCopy, targetCopy, values);
+    }
+    
+    /**
+     * Distances between locations of a network, on its current snapshot
+     * Unknown locations are skipped; look entries up with DistanceMatrix.getDistance(Location, Location)
+     */
+    public DistanceMatrix computeDistances(EmergencyNetwork network, Collection<Location> sources,
+                                           Collection<Location> targets) {
+        CompactGraph graph = network.getCompactGraph();
+        return computeDistances(graph, indicesOf(graph, sources), targets != null ? indicesOf(graph, targets) : null);
+    }
+    
+    /**
+     * Shortest paths for pairs of nodes, sources[i] to destinations[i], one early-exit
+     * search per pair on the pool
+     * Time Complexity: O(N (V + E) log V / P) worst case for N pairs on P workers
+     */
+    public PathResult[] computePaths(CompactGraph graph, int[] sources, int[] destinations) {
+        if (graph == null || sources == null || destinations == null) {
+            throw new IllegalArgumentException("Graph, sources and destinations cannot be null");
+        }
+        if (sources.length != destinations.length) {
+            throw new IllegalArgumentException("Every source needs one destination");
+        }
+        validateNodes(graph, sources);
+        validateNodes(graph, destinations);
+        
+        PathResult[] paths = new PathResult[sources.length];
+        if (sources.length > 0) {
+            pool.invoke(new PathTask(graph, sources.clone(), destinations.clone(), paths, 0, sources.length));
+        }
+        return paths;
+    }
+    
+    private static int[] indicesOf(CompactGraph graph, Collection<Location> locations) {
+        int[] indices = new int[locations.size()];
+        int count = 0;
+        for (Location location : locations) {
+            int index = graph.indexOf(location);
+            if (index >= 0) {
+                indices[count++] = index;
+            }
+        }
+        return Arrays.copyOf(indices, count);
+    }
+    
+    private static void validateNodes(CompactGraph graph, int[] nodes) {
+        for (int node : nodes) {
+            if (node < 0 || node >= graph.getNodeCount()) {
+                throw new IllegalArgumentException("Node index out of range: " + node);
+            }
+        }
+    }
+    
+    private DijkstraPathfinder borrowWorkspace() {
+        DijkstraPathfinder workspace = workspaces.pollFirst();
+        return workspace != null ? workspace : new DijkstraPathfinder();
+    }
+    
+    private void returnWorkspace(DijkstraPathfinder workspace) {
+        workspaces.offerFirst(workspace);
+    }
+    
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+    
+    /**
+     * Searches the sources of rows [from, to), splitting while the range is large
+     */
+    private class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final CompactGraph graph;
+        private final int[] sources;
+        private final int[] targets;
+        private final double[] values;
+        private final int columns;
+        private final int from;
+        private final int to;
+        
+        RowTask(CompactGraph graph, int[] sources, int[] targets, double[] values, int columns, int from, int to) {
+            this.graph = graph;
+            this.sources = sources;
+            this.targets = targets;
+            this.values = values;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RowTask(graph, sources, targets, values, columns, from, middle),
+                    new RowTask(graph, sources, targets, values, columns, middle, to));
+                return;
+            }
+            
+            DijkstraPathfinder workspace = borrowWorkspace();
+            try {
+                for (int row = from; row < to; row++) {
+                    workspace.findShortestDistances(graph, sources[row], targets, values, row * columns);
+                }
+            } finally {
+                returnWorkspace(workspace);
+            }
+        }
+    }
+    
+    /**
+     * Searches the pairs [from, to), splitting while the range is large
+     */
+    private class PathTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final CompactGraph graph;
+        private final int[] sources;
+        private final int[] destinations;
+        private final PathResult[] paths;
+        private final int from;
+        private final int to;
+        
+        PathTask(CompactGraph graph, int[] sources, int[] destinations, PathResult[] paths, int from, int to) {
+            this.graph = graph;
+            this.sources = sources;
+            this.destinations = destinations;
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PathTask(graph, sources, destinations, paths, from, middle),
+                    new PathTask(graph, sources, destinations, paths, middle, to));
+                return;
+            }
+            
+            DijkstraPathfinder workspace = borrowWorkspace();
+            try {
+                for (int pair = from; pair < to; pair++) {
+                    paths[pair] = workspace.findShortestPath(graph, sources[pair], destinations[pair]);
+                }
+            } finally {
+                returnWorkspace(workspace);
+            }
+        }
+    }
+}
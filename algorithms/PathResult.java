@@ -0,0 +1,57 @@
+package perds.algorithms;
+
+import perds.models.Location;
+
+import java.util.*;
+
+/**
+ * Result of a point-to-point route query, shared by every Pathfinder engine
+ * An invalid result has an empty path and a total distance of +Infinity,
+ * the same marker CompactGraph uses for blocked edges
+ */
+public class PathResult {
+    private final List<Location> path;
+    private final double totalDistance;
+    
+    public PathResult(List<Location> path, double totalDistance) {
+        this.path = path;
+        this.totalDistance = totalDistance;
+    }
+    
+    /**
+     * Result for an unreachable or unknown destination
+     */
+    public static PathResult noPath() {
+        return new PathResult(new ArrayList<>(), Double.POSITIVE_INFINITY);
+    }
+    
+    public List<Location> getPath() {
+        return path;
+    }
+    
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+    
+    public boolean isValid() {
+        return !path.isEmpty() && totalDistance != Double.POSITIVE_INFINITY;
+    }
+    
+    @Override
+    public String toString() {
+        if (!isValid()) {
+            return "PathResult{No path found}";
+        }
+        StringBuilder sb = new StringBuilder("PathResult{\n");
+        sb.append("  Distance: ").append(String.format("%.2f", totalDistance)).append("\n");
+        sb.append("  Path: ");
+        for (int i = 0; i < path.size(); i++) {
+            sb.append(path.get(i).getName());
+            if (i < path.size() - 1) {
+                sb.append(" -> ");
+            }
+        }
+        sb.append("\n}");
+        return sb.toString();
+    }
+}
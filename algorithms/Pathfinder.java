@@ -0,0 +1,55 @@
+package perds.algorithms;
+
+import perds.models.EmergencyNetwork;
+import perds.models.Location;
+
+import java.util.*;
+
+/**
+ * Common contract of the point-to-point routing engines
+ * Lets DispatchManager, MultiCriteriaOptimizer and ResourcePositioner run on whichever
+ * engine is configured (see PathfinderFactory); every engine answers with PathResult
+ * Implementations reuse search workspaces and are not thread-safe
+ */
+public interface Pathfinder {
+    
+    /**
+     * Find shortest path from source to destination
+     */
+    PathResult findShortestPath(EmergencyNetwork network, Location source, Location destination);
+    
+    /**
+     * Number of nodes settled by the last query
+     */
+    int getLastSettledCount();
+    
+    /**
+     * Find paths from many sources to a single target
+     * Returns reachable sources in ascending distance order, the nearest limit of them
+     * when limit is positive; unreachable ones are omitted
+     * The default runs one point-to-point query per distinct source
+     * Time Complexity: O(k * query) for k sources
+     */
+    default Map<Location, PathResult> findPathsToTarget(EmergencyNetwork network,
+                                                        Collection<Location> sources,
+                                                        Location target, int limit) {
+        List<Map.Entry<Location, PathResult>> reachable = new ArrayList<>();
+        for (Location source : new LinkedHashSet<>(sources)) {
+            PathResult path = findShortestPath(network, source, target);
+            if (path.isValid()) {
+                reachable.add(new AbstractMap.SimpleEntry<>(source, path));
+            }
+        }
+        // Stable sort keeps the callers' order among equally distant sources
+        reachable.sort(Comparator.comparingDouble(entry -> entry.getValue().getTotalDistance()));
+        
+        Map<Location, PathResult> paths = new LinkedHashMap<>();
+        for (Map.Entry<Location, PathResult> entry : reachable) {
+            if (limit > 0 && paths.size() == limit) {
+                break;
+            }
+            paths.put(entry.getKey(), entry.getValue());
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,116 @@
+package perds.algorithms;
+
+import java.util.Locale;
+
+/**
+ * Creates routing engines by name so consumers can switch engines by configuration
+ * The configured engine is read from the "perds.pathfinder" system property,
+ * e.g. -Dperds.pathfinder=bidirectional_alt; Dijkstra is used when it is unset
+ * Configured engines sit behind a CachingPathfinder whose capacity is read from
+ * "perds.pathfinder.cache" (0 disables the cache)
+ */
+public class PathfinderFactory {
+    public static final String ENGINE_PROPERTY = "perds.pathfinder";
+    public static final String CACHE_PROPERTY = "perds.pathfinder.cache";
+    
+    /**
+     * Available routing engines
+     */
+    public enum Engine {
+        DIJKSTRA,
+        ASTAR,
+        ALT,
+        BIDIRECTIONAL_DIJKSTRA,
+        BIDIRECTIONAL_ASTAR,
+        BIDIRECTIONAL_ALT,
+        CONTRACTION_HIERARCHY,
+        CUSTOMIZABLE_CH;
+        
+        /**
+         * Parse an engine name, ignoring case and treating '-' like '_'
+         */
+        public static Engine fromName(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("Engine name cannot be null");
+            }
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown routing engine: " + name);
+            }
+        }
+    }
+    
+    private PathfinderFactory() {
+    }
+    
+    /**
+     * Create a new instance of an engine
+     * Instances are not thread-safe, so every consumer should get its own
+     */
+    public static Pathfinder create(Engine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Engine cannot be null");
+        }
+        
+        switch (engine) {
+            case ASTAR:
+                return new AStarPathfinder();
+            case ALT:
+                return new AStarPathfinder(new LandmarkHeuristic());
+            case BIDIRECTIONAL_DIJKSTRA:
+                return new BidirectionalDijkstraPathfinder();
+            case BIDIRECTIONAL_ASTAR:
+                return new BidirectionalAStarPathfinder();
+            case BIDIRECTIONAL_ALT:
+                return new BidirectionalAStarPathfinder(new LandmarkHeuristic());
+            case CONTRACTION_HIERARCHY:
+                return new ContractionHierarchyPathfinder(ContractionHierarchyPathfinder.Preprocessing.CONTRACTION);
+            case CUSTOMIZABLE_CH:
+                return new ContractionHierarchyPathfinder(ContractionHierarchyPathfinder.Preprocessing.CUSTOMIZABLE);
+            case DIJKSTRA:
+            default:
+                return new DijkstraPathfinder();
+        }
+    }
+    
+    /**
+     * Engine selected by the "perds.pathfinder" system property, DIJKSTRA if unset
+     */
+    public static Engine getConfiguredEngine() {
+        String value = System.getProperty(ENGINE_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return Engine.DIJKSTRA;
+        }
+        return Engine.fromName(value);
+    }
+    
+    /**
+     * Route cache capacity selected by the "perds.pathfinder.cache" system property,
+     * CachingPathfinder.DEFAULT_CAPACITY if unset
+     */
+    public static int getConfiguredCacheCapacity() {
+        String value = System.getProperty(CACHE_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return CachingPathfinder.DEFAULT_CAPACITY;
+        }
+        try {
+            int capacity = Integer.parseInt(value.trim());
+            if (capacity < 0) {
+                throw new IllegalArgumentException("Route cache capacity cannot be negative: " + value);
+            }
+            return capacity;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid route cache capacity: " + value);
+        }
+    }
+    
+    /**
+     * Create a new instance of the configured engine, cached unless the capacity is 0
+     */
+    public static Pathfinder createConfigured() {
+        Pathfinder engine = create(getConfiguredEngine());
+        int capacity = getConfiguredCacheCapacity();
+        return capacity > 0 ? new CachingPathfinder(engine, capacity) : engine;
+    }
+}
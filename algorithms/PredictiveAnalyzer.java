@@ -13,24 +13,85 @@ public class PredictiveAnalyzer {
     private final Map<Location, IncidentHistory> locationHistory;
     private static final int HISTORY_WINDOW = 100; // Track last 100 incidents per location
     
+    // Demand scores in a Fenwick tree, one slot per tracked location in order of first
+    // incident, so demand-weighted sampling needs no full score map
+    private final List<Location> demandSlots;
+    private double[] demandTree;
+    private double totalDemand;
+    
     public PredictiveAnalyzer() {
         this.locationHistory = new HashMap<>();
+        this.demandSlots = new ArrayList<>();
+        this.demandTree = new double[16];
     }
     
     /**
      * Record an incident for predictive analysis
-     * Time Complexity: O(1) average case
+     * Time Complexity: O(log n) average case, amortized over demand tree growth
      */
     public void recordIncident(Incident incident) {
         Location location = incident.getLocation();
         
         // Get or create history for this location
-        IncidentHistory history = locationHistory.computeIfAbsent(
-            location, 
-            k -> new IncidentHistory(location)
-        );
+        IncidentHistory history = locationHistory.get(location);
+        if (history == null) {
+            history = new IncidentHistory(location);
+            locationHistory.put(location, history);
+            history.demandSlot = demandSlots.size();
+            demandSlots.add(location);
+            if (demandSlots.size() >= demandTree.length) {
+                rebuildDemandTree(demandTree.length * 2);
+            }
+        }
         
+        double previousScore = history.calculateDemandScore();
         history.addIncident(incident);
+        addDemand(history.demandSlot, history.calculateDemandScore() - previousScore);
+    }
+    
+    /**
+     * Pick a tracked location with probability proportional to its demand score
+     * fraction is a uniform random number in [0, 1); returns null without demand
+     * Time Complexity: O(log n)
+     */
+    public Location sampleLocationByDemand(double fraction) {
+        if (demandSlots.isEmpty() || totalDemand <= 0) {
+            return null;
+        }
+        // Descend to the first slot whose cumulative demand reaches the target
+        double target = fraction * totalDemand;
+        int position = 0;
+        for (int step = Integer.highestOneBit(demandTree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < demandTree.length && demandTree[next] < target) {
+                position = next;
+                target -= demandTree[next];
+            }
+        }
+        return demandSlots.get(Math.min(position, demandSlots.size() - 1));
+    }
+    
+    /**
+     * Sum of the demand scores of all tracked locations
+     */
+    public double getTotalDemand() {
+        return totalDemand;
+    }
+    
+    private void addDemand(int slot, double delta) {
+        totalDemand += delta;
+        for (int i = slot + 1; i < demandTree.length; i += i & -i) {
+            demandTree[i] += delta;
+        }
+    }
+    
+    private void rebuildDemandTree(int capacity) {
+        demandTree = new double[capacity];
+        totalDemand = 0.0;
+        for (int slot = 0; slot < demandSlots.size(); slot++) {
+            IncidentHistory history = locationHistory.get(demandSlots.get(slot));
+            addDemand(slot, history.calculateDemandScore());
+        }
     }
     
     /**
@@ -111,9 +172,13 @@ public class PredictiveAnalyzer {
     public static class IncidentHistory {
         private final Location location;
         private final Queue<Incident> recentIncidents;
+        // Severity priorities summed over the recent window
+        private double recentSeveritySum;
         private int totalIncidents;
         private final Map<Incident.IncidentType, Integer> typeCount;
         private final Map<Incident.IncidentSeverity, Integer> severityCount;
+        // Slot of the location in the analyzer's demand tree
+        private int demandSlot;
         
         public IncidentHistory(Location location) {
             this.location = location;
@@ -125,14 +190,17 @@ public class PredictiveAnalyzer {
         
         /**
          * Add incident to history
+         * Only through PredictiveAnalyzer.recordIncident, which keeps the demand tree
+         * and total demand in step with the score
          */
-        public void addIncident(Incident incident) {
+        void addIncident(Incident incident) {
             totalIncidents++;
             recentIncidents.offer(incident);
+            recentSeveritySum += incident.getSeverity().getPriority();
             
             // Maintain window size
             if (recentIncidents.size() > HISTORY_WINDOW) {
-                recentIncidents.poll();
+                recentSeveritySum -= recentIncidents.poll().getSeverity().getPriority();
             }
             
             // Update type count
@@ -144,6 +212,7 @@ public class PredictiveAnalyzer {
         
         /**
          * Calculate demand score based on frequency and severity
+         * Time Complexity: O(1), the window's severity sum is kept up to date
          */
         public double calculateDemandScore() {
             if (recentIncidents.isEmpty()) {
@@ -151,14 +220,9 @@ public class PredictiveAnalyzer {
             }
             
             double frequencyScore = recentIncidents.size();
-            double severityScore = 0.0;
-            
-            for (Incident incident : recentIncidents) {
-                severityScore += incident.getSeverity().getPriority();
-            }
             
             // Average severity weighted by frequency
-            return (frequencyScore * severityScore) / recentIncidents.size();
+            return (frequencyScore * recentSeveritySum) / recentIncidents.size();
         }
         
         /**
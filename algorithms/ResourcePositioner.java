@@ -12,21 +12,39 @@ import java.util.*;
 public class ResourcePositioner {
     private final EmergencyNetwork network;
     private final PredictiveAnalyzer predictiveAnalyzer;
-    private final DijkstraPathfinder pathfinder;
+    private final Pathfinder pathfinder;
+    // Unit location -> location travel times, reused across repositioning cycles
+    private final TravelTimeMatrix travelTimes;
+    private boolean loggingEnabled;
     
     // Configuration
     private static final double REPOSITIONING_THRESHOLD = 0.6; // 60% demand threshold
     private static final int MAX_REPOSITIONS_PER_CYCLE = 3;
     
     public ResourcePositioner(EmergencyNetwork network, PredictiveAnalyzer predictiveAnalyzer) {
+        this(network, predictiveAnalyzer, new DijkstraPathfinder());
+    }
+    
+    /**
+     * Create a positioner routing recommendations with a specific engine
+     * Coverage scoring keeps using the one-to-all travel-time matrix
+     */
+    public ResourcePositioner(EmergencyNetwork network, PredictiveAnalyzer predictiveAnalyzer,
+                              Pathfinder pathfinder) {
+        if (pathfinder == null) {
+            throw new IllegalArgumentException("Pathfinder cannot be null");
+        }
         this.network = network;
         this.predictiveAnalyzer = predictiveAnalyzer;
-        this.pathfinder = new DijkstraPathfinder();
+        this.pathfinder = pathfinder;
+        this.travelTimes = new TravelTimeMatrix(network);
+        this.loggingEnabled = true;
     }
     
     /**
      * Analyze current distribution and recommend repositioning
-     * Time Complexity: O(U * L * (V + E) log V) where U=units, L=locations
+     * Time Complexity: O(U * L) lookups on a warm travel-time matrix,
+     * plus O((V + E) log V / P) per unit location not yet cached on P workers
      */
     public List<RepositioningRecommendation> analyzeAndRecommend(List<ResponseUnit> availableUnits) {
         List<RepositioningRecommendation> recommendations = new ArrayList<>();
@@ -42,6 +60,13 @@ public class ResourcePositioner {
             return recommendations; // No historical data yet
         }
         
+        // Fill the travel-time rows of all unit locations in one parallel batch
+        List<Location> unitLocations = new ArrayList<>();
+        for (ResponseUnit unit : availableUnits) {
+            unitLocations.add(unit.getCurrentLocation());
+        }
+        travelTimes.precomputeRows(unitLocations);
+        
         // Identify high-demand locations that need more coverage
         List<Location> highDemandLocations = identifyUnderservedLocations(demandScores, availableUnits);
         
@@ -58,7 +83,7 @@ public class ResourcePositioner {
                 double benefit = calculateRepositioningBenefit(bestUnit, highDemandLoc, demandScores);
                 
                 if (benefit > REPOSITIONING_THRESHOLD) {
-                    DijkstraPathfinder.PathResult path = pathfinder.findShortestPath(
+                    PathResult path = pathfinder.findShortestPath(
                         network, bestUnit.getCurrentLocation(), highDemandLoc
                     );
                     
@@ -124,14 +149,11 @@ public class ResourcePositioner {
                 continue;
             }
             
-            // Calculate distance from unit to location
-            DijkstraPathfinder.PathResult path = pathfinder.findShortestPath(
-                network, unit.getCurrentLocation(), location
-            );
+            // Distance from unit to location (matrix row of the unit's location)
+            double distance = travelTimes.getTravelTime(unit.getCurrentLocation(), location);
             
-            if (path.isValid()) {
+            if (distance != Double.POSITIVE_INFINITY) {
                 // Closer units contribute more to coverage (inverse distance)
-                double distance = path.getTotalDistance();
                 double contribution = 10.0 / (1.0 + distance); // Diminishes with distance
                 coverageScore += contribution;
             }
@@ -154,13 +176,9 @@ public class ResourcePositioner {
             }
             
             // Calculate repositioning cost (distance + opportunity cost)
-            DijkstraPathfinder.PathResult path = pathfinder.findShortestPath(
-                network, unit.getCurrentLocation(), targetLocation
-            );
+            double repositioningCost = travelTimes.getTravelTime(unit.getCurrentLocation(), targetLocation);
             
-            if (path.isValid()) {
-                double repositioningCost = path.getTotalDistance();
-                
+            if (repositioningCost != Double.POSITIVE_INFINITY) {
                 // Consider opportunity cost (leaving current area)
                 double currentLocationDemand = predictiveAnalyzer
                     .predictIncidentProbability(unit.getCurrentLocation());
@@ -201,7 +219,16 @@ public class ResourcePositioner {
         Location newLocation = recommendation.getTargetLocation();
         
         unit.setCurrentLocation(newLocation);
-        System.out.println("Repositioned " + unit.getName() + " to " + newLocation.getName());
+        if (loggingEnabled) {
+            System.out.println("Repositioned " + unit.getName() + " to " + newLocation.getName());
+        }
+    }
+    
+    /**
+     * Turn the console log of applied repositionings on or off
+     */
+    public void setLoggingEnabled(boolean loggingEnabled) {
+        this.loggingEnabled = loggingEnabled;
     }
     
     /**
@@ -241,6 +268,22 @@ public class ResourcePositioner {
         return locationCount > 0 ? Math.sqrt(totalVariance / locationCount) : 0.0;
     }
     
+    /**
+     * Get the routing engine used for repositioning routes
+     */
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+    
+    /**
+     * Drop the cached travel times and stop following network changes, so a
+     * long-lived network does not keep this positioner reachable
+     * The positioner stays usable and refills travel times on its next analysis
+     */
+    public void close() {
+        travelTimes.detach();
+    }
+    
     /**
      * Repositioning recommendation
      */
@@ -248,10 +291,10 @@ public class ResourcePositioner {
         private final ResponseUnit unit;
         private final Location targetLocation;
         private final double benefitScore;
-        private final DijkstraPathfinder.PathResult path;
+        private final PathResult path;
         
         public RepositioningRecommendation(ResponseUnit unit, Location targetLocation,
-                                          double benefitScore, DijkstraPathfinder.PathResult path) {
+                                          double benefitScore, PathResult path) {
             this.unit = unit;
             this.targetLocation = targetLocation;
             this.benefitScore = benefitScore;
@@ -270,7 +313,7 @@ public class ResourcePositioner {
             return benefitScore;
         }
         
-        public DijkstraPathfinder.PathResult getPath() {
+        public PathResult getPath() {
             return path;
         }
         
@@ -0,0 +1,143 @@
+package perds.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Reusable workspace for shortest-path searches over CompactGraph snapshots
+ * Holds distance and predecessor arrays indexed by node, guarded by generation stamps:
+ * an entry only counts as set when its stamp equals the current generation,
+ * so starting a new search never re-initialises O(V) state
+ *
+ * Time Complexity: O(1) per reset (amortized), O(1) per access
+ * Space Complexity: O(V)
+ */
+public class SearchContext {
+    private double[] distances;
+    private int[] previous;
+    // Stamp == generation when distances/previous hold a value for the current search
+    private int[] reachedStamp;
+    // Stamp == generation when the node has been settled (visited)
+    private int[] settledStamp;
+    // Stamp == generation when the node was marked as a search target
+    private int[] markedStamp;
+    // Nodes reached in the current search, in order of first discovery
+    private int[] touched;
+    private int touchedCount;
+    private int settledCount;
+    private int generation;
+
+    public SearchContext(int capacity) {
+        allocate(capacity);
+        this.generation = 1;
+    }
+
+    /**
+     * Start a new search over a graph with the given number of nodes
+     * Time Complexity: O(1), or O(V) when the workspace has to grow
+     */
+    public void reset(int nodeCount) {
+        if (nodeCount > distances.length) {
+            allocate(Math.max(nodeCount, distances.length * 2));
+        }
+
+        touchedCount = 0;
+        settledCount = 0;
+
+        if (generation == Integer.MAX_VALUE) {
+            // Stamps would wrap around: clear them once and start over
+            Arrays.fill(reachedStamp, 0);
+            Arrays.fill(settledStamp, 0);
+            Arrays.fill(markedStamp, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+
+    private void allocate(int capacity) {
+        distances = new double[capacity];
+        previous = new int[capacity];
+        reachedStamp = new int[capacity];
+        settledStamp = new int[capacity];
+        markedStamp = new int[capacity];
+        touched = new int[capacity];
+    }
+
+    /**
+     * Tentative distance of a node, +Infinity if not reached in this search
+     */
+    public double getDistance(int node) {
+        return reachedStamp[node] == generation ? distances[node] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Predecessor of a node on its tentative path, -1 for the root or unreached nodes
+     */
+    public int getPrevious(int node) {
+        return reachedStamp[node] == generation ? previous[node] : -1;
+    }
+
+    /**
+     * Record a (better) tentative distance and predecessor for a node
+     */
+    public void update(int node, double distance, int previousNode) {
+        if (reachedStamp[node] != generation) {
+            reachedStamp[node] = generation;
+            touched[touchedCount++] = node;
+        }
+        distances[node] = distance;
+        previous[node] = previousNode;
+    }
+
+    public boolean isReached(int node) {
+        return reachedStamp[node] == generation;
+    }
+
+    public boolean isSettled(int node) {
+        return settledStamp[node] == generation;
+    }
+
+    /**
+     * Mark a node as settled (its distance is final)
+     */
+    public void settle(int node) {
+        settledStamp[node] = generation;
+        settledCount++;
+    }
+
+    /**
+     * Mark a node as one of several targets of the current search
+     * Returns false if it was already marked
+     */
+    public boolean mark(int node) {
+        if (markedStamp[node] == generation) {
+            return false;
+        }
+        markedStamp[node] = generation;
+        return true;
+    }
+
+    public boolean isMarked(int node) {
+        return markedStamp[node] == generation;
+    }
+
+    /**
+     * Number of nodes reached in the current search
+     */
+    public int getTouchedCount() {
+        return touchedCount;
+    }
+
+    /**
+     * The i-th node reached in the current search
+     */
+    public int getTouchedNode(int i) {
+        return touched[i];
+    }
+
+    /**
+     * Number of nodes settled in the current search
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+}
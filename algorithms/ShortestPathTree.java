@@ -0,0 +1,216 @@
+package perds.algorithms;
+
+import perds.models.CompactGraph;
+import perds.models.Location;
+
+import java.util.*;
+
+/**
+ * Full shortest-path tree from one root over CompactGraph node indices
+ * Holds the distance and tree parent of every node, so the route from the root to
+ * any node is a walk up the parent links instead of a new search
+ * Trees can be repaired in place after network changes (see ShortestPathTreeCache)
+ *
+ * Time Complexity: O((V + E) log V) to compute, O(path length) per route
+ * Space Complexity: O(V)
+ */
+public class ShortestPathTree {
+    private final int root;
+    private double[] distances;
+    private int[] parents;
+    private int settledCount;
+    
+    ShortestPathTree(int root) {
+        this.root = root;
+        this.distances = new double[0];
+        this.parents = new int[0];
+    }
+    
+    /**
+     * Run a full Dijkstra from the root on a snapshot
+     */
+    void compute(CompactGraph graph, IndexedMinHeap queue) {
+        int nodeCount = graph.getNodeCount();
+        distances = new double[nodeCount];
+        parents = new int[nodeCount];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parents, -1);
+        
+        queue.ensureCapacity(nodeCount);
+        queue.clear();
+        distances[root] = 0.0;
+        queue.push(root, 0.0);
+        settledCount = propagate(graph, queue);
+    }
+    
+    /**
+     * Grow the arrays to a snapshot with more nodes; new nodes start unreachable
+     */
+    void ensureNodeCount(int nodeCount) {
+        if (nodeCount > distances.length) {
+            int oldLength = distances.length;
+            distances = Arrays.copyOf(distances, nodeCount);
+            parents = Arrays.copyOf(parents, nodeCount);
+            Arrays.fill(distances, oldLength, nodeCount, Double.POSITIVE_INFINITY);
+            Arrays.fill(parents, oldLength, nodeCount, -1);
+        }
+    }
+    
+    /**
+     * Lower a node's distance through a new parent and queue it for propagation
+     * Returns false if the candidate is not an improvement
+     */
+    boolean offer(int node, double distance, int parent, IndexedMinHeap queue) {
+        if (distance >= distances[node]) {
+            return false;
+        }
+        distances[node] = distance;
+        parents[node] = parent;
+        queue.push(node, distance);
+        return true;
+    }
+    
+    /**
+     * Detach the subtrees below the given nodes: every node in them becomes unreachable
+     * Children are indexed from the parent links, since the snapshot may no longer
+     * hold the tree edges (e.g. the out-edges of a removed location)
+     * Returns the detached nodes
+     * Time Complexity: O(V) to index the children plus the size of the subtrees
+     */
+    int[] detachSubtrees(int[] subtreeRoots, int count) {
+        int nodeCount = parents.length;
+        int[] childStart = new int[nodeCount + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            if (parents[node] >= 0) {
+                childStart[parents[node] + 1]++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            childStart[node + 1] += childStart[node];
+        }
+        int[] children = new int[childStart[nodeCount]];
+        int[] fill = Arrays.copyOf(childStart, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            if (parents[node] >= 0) {
+                children[fill[parents[node]]++] = node;
+            }
+        }
+        
+        int[] detached = new int[nodeCount];
+        int detachedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int subtreeRoot = subtreeRoots[i];
+            if (distances[subtreeRoot] == Double.POSITIVE_INFINITY) {
+                continue; // Already inside a detached subtree
+            }
+            distances[subtreeRoot] = Double.POSITIVE_INFINITY;
+            int scan = detachedCount;
+            detached[detachedCount++] = subtreeRoot;
+            while (scan < detachedCount) {
+                int node = detached[scan++];
+                for (int slot = childStart[node]; slot < childStart[node + 1]; slot++) {
+                    int child = children[slot];
+                    if (distances[child] != Double.POSITIVE_INFINITY) {
+                        distances[child] = Double.POSITIVE_INFINITY;
+                        detached[detachedCount++] = child;
+                    }
+                }
+            }
+        }
+        
+        for (int i = 0; i < detachedCount; i++) {
+            parents[detached[i]] = -1;
+        }
+        return Arrays.copyOf(detached, detachedCount);
+    }
+    
+    /**
+     * Offer every detached node its best in-edge from the attached part of the tree
+     * Time Complexity: O(in-degree) per node
+     */
+    void reattach(CompactGraph reverse, int[] detached, IndexedMinHeap queue) {
+        for (int node : detached) {
+            if (reverse.getLocation(node) == null) {
+                continue; // Removed location
+            }
+            for (int edge = reverse.edgeStart(node); edge < reverse.edgeEnd(node); edge++) {
+                int neighbor = reverse.edgeTarget(edge);
+                double weight = reverse.edgeWeight(edge);
+                if (weight != Double.POSITIVE_INFINITY && distances[neighbor] != Double.POSITIVE_INFINITY) {
+                    offer(node, distances[neighbor] + weight, neighbor, queue);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Dijkstra-style propagation of the queued improvements
+     * Assumes every edge not leaving a queued node already satisfies d(v) <= d(u) + w
+     * Returns the number of nodes settled
+     */
+    int propagate(CompactGraph graph, IndexedMinHeap queue) {
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            settled++;
+            double currentDistance = distances[current];
+            for (int edge = graph.edgeStart(current); edge < graph.edgeEnd(current); edge++) {
+                double weight = graph.edgeWeight(edge);
+                if (weight != Double.POSITIVE_INFINITY) {
+                    offer(graph.edgeTarget(edge), currentDistance + weight, current, queue);
+                }
+            }
+        }
+        return settled;
+    }
+    
+    public int getRoot() {
+        return root;
+    }
+    
+    /**
+     * Shortest distance from the root, +Infinity if unreachable
+     */
+    public double getDistance(int node) {
+        return node >= 0 && node < distances.length ? distances[node] : Double.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Tree parent of a node, -1 for the root and unreachable nodes
+     */
+    public int getParent(int node) {
+        return node >= 0 && node < parents.length ? parents[node] : -1;
+    }
+    
+    public boolean isReachable(int node) {
+        return getDistance(node) != Double.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Route from the root to a node by walking up the tree
+     * Time Complexity: O(path length)
+     */
+    public PathResult getPath(CompactGraph graph, int target) {
+        if (!isReachable(target)) {
+            return PathResult.noPath();
+        }
+        
+        List<Location> path = new ArrayList<>();
+        for (int current = target; current != -1; current = parents[current]) {
+            path.add(graph.getLocation(current));
+        }
+        Collections.reverse(path);
+        return new PathResult(path, distances[target]);
+    }
+    
+    /**
+     * Nodes settled by the last full computation
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+    
+    public int getNodeCount() {
+        return distances.length;
+    }
+}
@@ -0,0 +1,311 @@
+package perds.algorithms;
+
+import perds.models.*;
+
+import java.util.*;
+
+/**
+ * Keeps a full shortest-path tree for every dispatch center of a network
+ * Units spend most idle time parked at DISPATCH_CENTER locations, so routing from a
+ * center becomes an O(path length) tree walk; routes from anywhere else go to the
+ * delegate engine
+ *
+ * Trees are built on first use and brought up to date lazily from the network's
+ * change log before each query (dynamic SSSP in the style of Ramalingam-Reps):
+ * - a tree edge that became more expensive or closed, or a removed tree node, cuts
+ *   off the subtree below it; the subtree's nodes are reattached through their best
+ *   in-edges from the rest of the tree and settled Dijkstra-style
+ * - cheaper, reopened or new edges seed their head node and the improvement is
+ *   propagated through the affected part of the tree only
+ * - changes to edges outside the tree that make them more expensive are free
+ * - a truncated change log recomputes every tree
+ *
+ * Time Complexity: O(path length) per route from a center, O(V + n log n) per
+ * repair for n affected nodes
+ * Space Complexity: O(C * V) for C dispatch centers
+ * Not thread-safe: trees share one repair queue
+ */
+public class ShortestPathTreeCache implements Pathfinder {
+    private final EmergencyNetwork network;
+    private final Pathfinder delegate;
+    // Root node index -> tree
+    private final Map<Integer, ShortestPathTree> trees;
+    private final IndexedMinHeap queue;
+    // Network version the trees are up to date with
+    private long version;
+    private int lastSettledCount;
+    
+    // Statistics
+    private long treeBuilds;
+    private long incrementalRepairs;
+    private long detachedNodes;
+    private long fullRecomputes;
+    private long treeQueries;
+    
+    public ShortestPathTreeCache(EmergencyNetwork network) {
+        this(network, new DijkstraPathfinder());
+    }
+    
+    /**
+     * Create a tree cache answering non-center routes with a specific engine
+     */
+    public ShortestPathTreeCache(EmergencyNetwork network, Pathfinder delegate) {
+        if (network == null || delegate == null) {
+            throw new IllegalArgumentException("Network and delegate pathfinder cannot be null");
+        }
+        this.network = network;
+        this.delegate = delegate;
+        this.trees = new HashMap<>();
+        this.queue = new IndexedMinHeap(0, 4);
+        this.version = network.getVersion();
+    }
+    
+    /**
+     * Shortest-path tree rooted at a dispatch center, up to date with the network
+     * Returns null if the location is not a dispatch center of the network
+     */
+    public ShortestPathTree getTree(Location center) {
+        if (!isDispatchCenter(network, center)) {
+            return null;
+        }
+        synchronize();
+        
+        int root = network.indexOf(center);
+        ShortestPathTree tree = trees.get(root);
+        if (tree == null) {
+            tree = new ShortestPathTree(root);
+            tree.compute(network.getCompactGraph(), queue);
+            trees.put(root, tree);
+            treeBuilds++;
+        }
+        return tree;
+    }
+    
+    /**
+     * Build the trees of every dispatch center up front
+     * Time Complexity: O(C (V + E) log V)
+     */
+    public void buildAll() {
+        for (Location location : network.getAllLocations()) {
+            getTree(location);
+        }
+    }
+    
+    /**
+     * Find shortest path, walking a tree when the source is a dispatch center
+     */
+    @Override
+    public PathResult findShortestPath(EmergencyNetwork network, Location source, Location destination) {
+        if (network != this.network || !isDispatchCenter(network, source)) {
+            PathResult result = delegate.findShortestPath(network, source, destination);
+            lastSettledCount = delegate.getLastSettledCount();
+            return result;
+        }
+        
+        ShortestPathTree tree = getTree(source);
+        treeQueries++;
+        lastSettledCount = 0;
+        return tree.getPath(network.getCompactGraph(), network.indexOf(destination));
+    }
+    
+    /**
+     * Dispatch centers are answered from their trees, the remaining sources with one
+     * call to the delegate; both groups are merged in ascending distance order
+     */
+    @Override
+    public Map<Location, PathResult> findPathsToTarget(EmergencyNetwork network, Collection<Location> sources,
+                                                       Location target, int limit) {
+        if (network != this.network) {
+            Map<Location, PathResult> paths = delegate.findPathsToTarget(network, sources, target, limit);
+            lastSettledCount = delegate.getLastSettledCount();
+            return paths;
+        }
+        
+        int targetIndex = network.indexOf(target);
+        List<Location> centers = new ArrayList<>();
+        List<Location> others = new ArrayList<>();
+        for (Location source : new LinkedHashSet<>(sources)) {
+            if (isDispatchCenter(network, source)) {
+                if (getTree(source).isReachable(targetIndex)) {
+                    centers.add(source);
+                }
+            } else {
+                others.add(source);
+            }
+        }
+        
+        Map<Location, PathResult> otherPaths = others.isEmpty() ? Collections.emptyMap()
+            : delegate.findPathsToTarget(network, others, target, limit);
+        lastSettledCount = others.isEmpty() ? 0 : delegate.getLastSettledCount();
+        
+        // Tree distances first; routes are only walked for the centers that are returned
+        centers.sort(Comparator.comparingDouble(center -> getTree(center).getDistance(targetIndex)));
+        Map<Location, PathResult> paths = new LinkedHashMap<>();
+        Iterator<Map.Entry<Location, PathResult>> other = otherPaths.entrySet().iterator();
+        Map.Entry<Location, PathResult> nextOther = other.hasNext() ? other.next() : null;
+        int nextCenter = 0;
+        CompactGraph graph = network.getCompactGraph();
+        
+        while ((limit <= 0 || paths.size() < limit) && (nextCenter < centers.size() || nextOther != null)) {
+            Location center = nextCenter < centers.size() ? centers.get(nextCenter) : null;
+            double centerDistance = center != null
+                ? getTree(center).getDistance(targetIndex) : Double.POSITIVE_INFINITY;
+            if (nextOther == null || centerDistance <= nextOther.getValue().getTotalDistance()) {
+                treeQueries++;
+                paths.put(center, getTree(center).getPath(graph, targetIndex));
+                nextCenter++;
+            } else {
+                paths.put(nextOther.getKey(), nextOther.getValue());
+                nextOther = other.hasNext() ? other.next() : null;
+            }
+        }
+        return paths;
+    }
+    
+    /**
+     * Bring every tree up to the network's current version
+     */
+    private void synchronize() {
+        if (network.getVersion() == version) {
+            return;
+        }
+        List<NetworkChange> changes = network.getChangesSince(version);
+        version = network.getVersion();
+        if (trees.isEmpty()) {
+            return;
+        }
+        
+        CompactGraph graph = network.getCompactGraph();
+        Iterator<ShortestPathTree> iterator = trees.values().iterator();
+        while (iterator.hasNext()) {
+            ShortestPathTree tree = iterator.next();
+            if (graph.getLocation(tree.getRoot()) == null) {
+                iterator.remove(); // Dispatch center removed
+            } else if (changes == null) {
+                tree.compute(graph, queue); // Change log truncated
+                fullRecomputes++;
+            } else {
+                repair(tree, graph, changes);
+            }
+        }
+    }
+    
+    /**
+     * Apply a batch of changes to one tree incrementally
+     */
+    private void repair(ShortestPathTree tree, CompactGraph graph, List<NetworkChange> changes) {
+        tree.ensureNodeCount(graph.getNodeCount());
+        queue.ensureCapacity(graph.getNodeCount());
+        queue.clear();
+        
+        // Find the tree nodes whose parent link no longer holds before touching any
+        // distance; the current weight decides, since parallel edges may remain and a
+        // later change in the batch may have lowered the edge again
+        int[] cut = new int[changes.size()];
+        int cutCount = 0;
+        for (NetworkChange change : changes) {
+            if (change.getType() == NetworkChange.ChangeType.LOCATION_REMOVED) {
+                if (tree.isReachable(change.getSourceIndex())) {
+                    cut[cutCount++] = change.getSourceIndex();
+                }
+            } else if (change.isEdgeChange() && change.getNewWeight() > change.getOldWeight()) {
+                int from = change.getSourceIndex();
+                int to = change.getDestinationIndex();
+                if (tree.getParent(to) == from && tree.isReachable(to)
+                        && tree.getDistance(from) + currentWeight(graph, from, to) > tree.getDistance(to)) {
+                    cut[cutCount++] = to;
+                }
+            }
+        }
+        
+        boolean improved = false;
+        if (cutCount > 0) {
+            int[] detached = tree.detachSubtrees(cut, cutCount);
+            tree.reattach(graph.getReverse(), detached, queue);
+            detachedNodes += detached.length;
+            improved = true;
+        }
+        
+        // Seed the heads of cheaper edges with the snapshot's current weights, since
+        // a later change in the batch may have raised an edge again
+        for (NetworkChange change : changes) {
+            if (!change.isEdgeChange() || change.getNewWeight() >= change.getOldWeight()) {
+                continue;
+            }
+            int from = change.getSourceIndex();
+            int to = change.getDestinationIndex();
+            double fromDistance = tree.getDistance(from);
+            if (fromDistance != Double.POSITIVE_INFINITY && graph.getLocation(to) != null) {
+                improved |= tree.offer(to, fromDistance + currentWeight(graph, from, to), from, queue);
+            }
+        }
+        
+        if (improved) {
+            tree.propagate(graph, queue);
+            incrementalRepairs++;
+        }
+    }
+    
+    /**
+     * Cheapest current weight of the edges from -> to in a snapshot
+     */
+    private static double currentWeight(CompactGraph graph, int from, int to) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int edge = graph.edgeStart(from); edge < graph.edgeEnd(from); edge++) {
+            if (graph.edgeTarget(edge) == to) {
+                best = Math.min(best, graph.edgeWeight(edge));
+            }
+        }
+        return best;
+    }
+    
+    private static boolean isDispatchCenter(EmergencyNetwork network, Location location) {
+        return location != null && location.getType() == Location.LocationType.DISPATCH_CENTER
+            && network.indexOf(location) >= 0;
+    }
+    
+    /**
+     * Nodes settled by the last query, 0 when it was answered from a tree
+     */
+    @Override
+    public int getLastSettledCount() {
+        return lastSettledCount;
+    }
+    
+    public Pathfinder getDelegate() {
+        return delegate;
+    }
+    
+    public int getTreeCount() {
+        return trees.size();
+    }
+    
+    public long getTreeBuilds() {
+        return treeBuilds;
+    }
+    
+    public long getIncrementalRepairs() {
+        return incrementalRepairs;
+    }
+    
+    /**
+     * Total number of nodes cut off and reattached by incremental repairs
+     */
+    public long getDetachedNodeCount() {
+        return detachedNodes;
+    }
+    
+    public long getFullRecomputes() {
+        return fullRecomputes;
+    }
+    
+    public long getTreeQueries() {
+        return treeQueries;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ShortestPathTreeCache{trees=%d, builds=%d, repairs=%d, detached=%d, recomputes=%d, treeQueries=%d}",
+            trees.size(), treeBuilds, incrementalRepairs, detachedNodes, fullRecomputes, treeQueries);
+    }
+}
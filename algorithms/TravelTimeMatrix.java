@@ -0,0 +1,249 @@
+package perds.algorithms;
+
+import perds.models.*;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Lazily filled travel-time matrix over an emergency network
+ * Each row holds the shortest travel times from one source and is computed on first use
+ * with a one-to-all Dijkstra; network changes invalidate only the rows whose
+ * distances may have changed, so repeated lookups on a stable network are table reads
+ * Rows needed together can be filled in one parallel batch (precomputeRows)
+ * At most maxRows rows are kept, least recently used rows are dropped first; the
+ * matrix follows network changes only while it holds rows, and detach() lets go of
+ * the network until the next lookup
+ *
+ * Time Complexity: O(1) per lookup on a cached row, O((V + E) log V) per row fill
+ * Space Complexity: O(R * V) for R <= maxRows cached rows
+ */
+public class TravelTimeMatrix implements NetworkChangeListener {
+    public static final int DEFAULT_MAX_ROWS = 256;
+
+    private final EmergencyNetwork network;
+    private final DijkstraPathfinder pathfinder;
+    private final ParallelShortestPaths parallelSearch;
+    // Source node index -> distances to every node index (+Infinity if unreachable)
+    private final Map<Integer, double[]> rows;
+    private final int maxRows;
+    // Whether the matrix is registered with the network
+    private boolean attached;
+
+    // Statistics
+    private long rowComputations;
+    private long rowInvalidations;
+    private long rowEvictions;
+
+    public TravelTimeMatrix(EmergencyNetwork network) {
+        this(network, DEFAULT_MAX_ROWS);
+    }
+
+    public TravelTimeMatrix(EmergencyNetwork network, int maxRows) {
+        if (network == null) {
+            throw new IllegalArgumentException("Network cannot be null");
+        }
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("Row limit must be positive");
+        }
+        this.network = network;
+        this.pathfinder = new DijkstraPathfinder();
+        this.parallelSearch = new ParallelShortestPaths();
+        this.maxRows = maxRows;
+        // Access order turns iteration order into least-recently-used first
+        this.rows = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, double[]> eldest) {
+                if (size() > TravelTimeMatrix.this.maxRows) {
+                    rowEvictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Shortest travel time from one location to another
+     * Returns +Infinity if either location is unknown or no path exists
+     * Time Complexity: O(1) when the source row is cached
+     */
+    public double getTravelTime(Location from, Location to) {
+        int source = network.indexOf(from);
+        int target = network.indexOf(to);
+
+        if (source < 0 || target < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return distance(getRow(source), target);
+    }
+
+    /**
+     * Distances from a source node index to every node index
+     * The returned array is shared with the cache and must not be modified
+     */
+    public double[] getRow(int source) {
+        double[] row = rows.get(source);
+        if (row == null) {
+            attach();
+            row = pathfinder.findShortestDistances(network.getCompactGraph(), source);
+            rows.put(source, row);
+            rowComputations++;
+        }
+        return row;
+    }
+
+    /**
+     * Fill the rows of several sources at once, running the missing searches in parallel
+     * At most maxRows rows are filled, the first missing ones in iteration order, so the
+     * batch never evicts its own rows; the others are filled on their first lookup
+     * Time Complexity: O(M (V + E) log V / P) for M <= maxRows missing rows on P workers
+     */
+    public void precomputeRows(Collection<Location> sources) {
+        CompactGraph graph = network.getCompactGraph();
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (Location source : sources) {
+            if (missing.size() == maxRows) {
+                break;
+            }
+            int index = graph.indexOf(source);
+            if (index >= 0 && !rows.containsKey(index)) {
+                missing.add(index);
+            }
+        }
+        if (missing.size() < 2) {
+            for (int source : missing) {
+                getRow(source);
+            }
+            return;
+        }
+
+        attach();
+        int[] indices = missing.stream().mapToInt(Integer::intValue).toArray();
+        DistanceMatrix matrix = parallelSearch.computeDistances(graph, indices);
+        for (int row = 0; row < indices.length; row++) {
+            rows.put(indices[row], matrix.copyRow(row));
+        }
+        rowComputations += indices.length;
+    }
+
+    /**
+     * Drop every cached row
+     */
+    public void clear() {
+        rows.clear();
+    }
+
+    /**
+     * Stop receiving network changes and drop every cached row, so the network no
+     * longer keeps the matrix reachable; the next lookup attaches it again
+     */
+    public void detach() {
+        if (attached) {
+            network.removeChangeListener(this);
+            attached = false;
+        }
+        rows.clear();
+    }
+
+    /**
+     * Follow network changes from now on; rows are only kept while attached
+     */
+    private void attach() {
+        if (!attached) {
+            network.addChangeListener(this);
+            attached = true;
+        }
+    }
+
+    /**
+     * Invalidate the rows a mutation can affect
+     * Time Complexity: O(R) for R cached rows
+     */
+    @Override
+    public void onNetworkChange(NetworkChange change) {
+        switch (change.getType()) {
+            case LOCATION_ADDED:
+                // An isolated node changes no existing distance
+                break;
+
+            case LOCATION_REMOVED:
+                int removed = change.getSourceIndex();
+                if (rows.remove(removed) != null) {
+                    rowInvalidations++;
+                }
+                // Only rows that could route through the removed node change
+                invalidateRows(row -> distance(row, removed) != Double.POSITIVE_INFINITY);
+                break;
+
+            default:
+                int from = change.getSourceIndex();
+                int to = change.getDestinationIndex();
+                double oldWeight = change.getOldWeight();
+                double newWeight = change.getNewWeight();
+                invalidateRows(row -> isAffected(row, from, to, oldWeight, newWeight));
+                break;
+        }
+    }
+
+    private void invalidateRows(Predicate<double[]> affected) {
+        Iterator<double[]> iterator = rows.values().iterator();
+        while (iterator.hasNext()) {
+            if (affected.test(iterator.next())) {
+                iterator.remove();
+                rowInvalidations++;
+            }
+        }
+    }
+
+    /**
+     * Whether changing edge from -> to can change distances in a row
+     * A cheaper edge matters only if it now improves the distance to its head;
+     * a more expensive one only if it was tight (on some shortest path)
+     */
+    private static boolean isAffected(double[] row, int from, int to, double oldWeight, double newWeight) {
+        double fromDistance = distance(row, from);
+        if (fromDistance == Double.POSITIVE_INFINITY || oldWeight == newWeight) {
+            return false;
+        }
+
+        double toDistance = distance(row, to);
+        if (newWeight < oldWeight) {
+            return fromDistance + newWeight < toDistance;
+        }
+        return fromDistance + oldWeight <= toDistance;
+    }
+
+    /**
+     * Row entry, treating nodes added after the row was computed as unreachable
+     */
+    private static double distance(double[] row, int node) {
+        return node < row.length ? row[node] : Double.POSITIVE_INFINITY;
+    }
+
+    public int getCachedRowCount() {
+        return rows.size();
+    }
+
+    public long getRowComputations() {
+        return rowComputations;
+    }
+
+    public long getRowInvalidations() {
+        return rowInvalidations;
+    }
+
+    public long getRowEvictions() {
+        return rowEvictions;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TravelTimeMatrix{cachedRows=%d/%d, computed=%d, invalidated=%d, evicted=%d}",
+            rows.size(), maxRows, rowComputations, rowInvalidations, rowEvictions);
+    }
+}
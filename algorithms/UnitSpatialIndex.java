@@ -0,0 +1,657 @@
+package perds.algorithms;
+
+import perds.models.*;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Uniform grid over the coordinates of response units, with one grid per unit type
+ * and availability (available or not), so candidate searches never look at busy units
+ * or units of the wrong type
+ * Units tell the index about every move and status change, which moves them between
+ * cells or partitions in O(1) expected time
+ * - k-nearest queries scan rings of cells outward from the query point and stop once
+ *   no unscanned cell can hold a closer unit; sparse partitions are scanned whole
+ * - radius queries scan the cells overlapping the circle's bounding square
+ * - availability buckets hold the available units of every type, positioned or not,
+ *   for location-free candidate lists and O(1) counts
+ * Distances are straight-line distances between location coordinates
+ * An index sized from a network keeps about cellsPerSide cells across the units:
+ * when the network has no locations yet it sizes itself from the first units, and
+ * it re-grids whenever the extent of the units grows past twice the grid's reach
+ *
+ * Time Complexity: O(1) expected per update, O(c + m log k) per k-nearest query
+ * for c scanned cells holding m units, O(candidates) per bucket lookup
+ * Space Complexity: O(U + occupied cells)
+ */
+public class UnitSpatialIndex implements UnitChangeListener {
+    // Unit types able to respond to each incident type
+    private static final Map<Incident.IncidentType, Set<ResponseUnit.UnitType>> CAPABLE_TYPES =
+        capableTypesByIncident();
+    
+    // Cells along the longer side of the unit extent, 0 for a fixed cell size
+    private final int cellsPerSide;
+    private double cellSize;
+    // Whether cellSize comes from a known extent rather than the 1.0 placeholder
+    private boolean sized;
+    // Bounding box of every unit position seen, which only grows
+    private double minX = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+    // Grids by unit type, [0] = not available, [1] = available
+    private final Map<ResponseUnit.UnitType, Grid[]> partitions;
+    private final Map<ResponseUnit, Entry> entries;
+    // Available units by type, and unit counts by type and availability
+    private final Map<ResponseUnit.UnitType, Set<ResponseUnit>> availableByType;
+    private final int[][] counts;
+    private int availableCount;
+    private long registrations;
+    
+    public UnitSpatialIndex(double cellSize) {
+        this(cellSize, 0);
+    }
+    
+    /**
+     * Create an index with cells sized to the extent of a network's locations,
+     * about cellsPerSide cells along its longer side
+     * The grid follows the units as they are added and move, so the network may
+     * still be empty when the index is created
+     */
+    public UnitSpatialIndex(EmergencyNetwork network, int cellsPerSide) {
+        this(cellSizeFor(network, cellsPerSide), cellsPerSide);
+    }
+    
+    private UnitSpatialIndex(double cellSize, int cellsPerSide) {
+        // NaN: no extent known yet, use a placeholder until the units have one
+        this.sized = !Double.isNaN(cellSize);
+        if (sized && (!(cellSize > 0) || Double.isInfinite(cellSize))) {
+            throw new IllegalArgumentException("Cell size must be positive and finite");
+        }
+        this.cellsPerSide = cellsPerSide;
+        this.cellSize = sized ? cellSize : 1.0;
+        this.partitions = new EnumMap<>(ResponseUnit.UnitType.class);
+        for (ResponseUnit.UnitType type : ResponseUnit.UnitType.values()) {
+            partitions.put(type, new Grid[] {new Grid(), new Grid()});
+        }
+        this.entries = new HashMap<>();
+        this.availableByType = new EnumMap<>(ResponseUnit.UnitType.class);
+        for (ResponseUnit.UnitType type : ResponseUnit.UnitType.values()) {
+            availableByType.put(type, new LinkedHashSet<>());
+        }
+        this.counts = new int[ResponseUnit.UnitType.values().length][2];
+    }
+    
+    private static double cellSizeFor(EmergencyNetwork network, int cellsPerSide) {
+        if (cellsPerSide <= 0) {
+            throw new IllegalArgumentException("Cells per side must be positive");
+        }
+        if (network == null) {
+            throw new IllegalArgumentException("Network cannot be null");
+        }
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (Location location : network.getAllLocations()) {
+            minX = Math.min(minX, location.getX());
+            maxX = Math.max(maxX, location.getX());
+            minY = Math.min(minY, location.getY());
+            maxY = Math.max(maxY, location.getY());
+        }
+        double extent = Math.max(maxX - minX, maxY - minY);
+        return extent > 0 && !Double.isInfinite(extent) ? extent / cellsPerSide : Double.NaN;
+    }
+    
+    /**
+     * Start indexing a unit and follow its changes
+     * Time Complexity: O(1) expected
+     */
+    public synchronized void add(ResponseUnit unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null");
+        }
+        if (entries.containsKey(unit)) {
+            return;
+        }
+        Entry entry = new Entry(unit, registrations++);
+        entries.put(unit, entry);
+        place(entry);
+        updateAvailability(entry);
+        unit.addChangeListener(this);
+    }
+    
+    /**
+     * Stop indexing a unit
+     * Time Complexity: O(1) expected
+     */
+    public synchronized void remove(ResponseUnit unit) {
+        Entry entry = entries.remove(unit);
+        if (entry != null) {
+            unplace(entry);
+            clearAvailability(entry);
+            unit.removeChangeListener(this);
+        }
+    }
+    
+    /**
+     * Stop indexing every unit, so no unit keeps this index reachable
+     * Time Complexity: O(U)
+     */
+    public synchronized void clear() {
+        for (ResponseUnit unit : new ArrayList<>(entries.keySet())) {
+            remove(unit);
+        }
+    }
+    
+    /**
+     * Move a unit to the cell and partition of its current location and status
+     */
+    @Override
+    public synchronized void onUnitChange(ResponseUnit unit) {
+        Entry entry = entries.get(unit);
+        if (entry == null) {
+            return;
+        }
+        updateAvailability(entry);
+        Location location = unit.getCurrentLocation();
+        Grid grid = gridOf(unit);
+        if (location != null && grid == entry.grid && cellKey(location) == entry.cell) {
+            entry.x = location.getX(); // Same cell, coordinates may still differ
+            entry.y = location.getY();
+            return;
+        }
+        unplace(entry);
+        place(entry);
+    }
+    
+    private void place(Entry entry) {
+        Location location = entry.unit.getCurrentLocation();
+        if (location == null) {
+            return; // Not positioned, cannot be found by location
+        }
+        if (cellsPerSide > 0 && extend(location)) {
+            regrid();
+        }
+        entry.x = location.getX();
+        entry.y = location.getY();
+        entry.grid = gridOf(entry.unit);
+        entry.cell = cellKey(location);
+        entry.grid.add(entry, cellX(entry.x), cellY(entry.y));
+    }
+    
+    /**
+     * Grow the unit extent to a location; true if the cell size no longer fits it
+     * The grid is re-sized once the extent spans more than twice cellsPerSide cells,
+     * so a fleet spreading out costs O(U log extent) re-placements in total
+     */
+    private boolean extend(Location location) {
+        double x = location.getX();
+        double y = location.getY();
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+            return false;
+        }
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+        double extent = Math.max(maxX - minX, maxY - minY);
+        if (!(extent > 0) || Double.isInfinite(extent)) {
+            return false;
+        }
+        return !sized || extent > 2.0 * cellsPerSide * cellSize;
+    }
+    
+    /**
+     * Re-size the cells to the unit extent and re-place every positioned unit
+     * Time Complexity: O(U)
+     */
+    private void regrid() {
+        cellSize = Math.max(maxX - minX, maxY - minY) / cellsPerSide;
+        sized = true;
+        for (Grid[] grids : partitions.values()) {
+            grids[0] = new Grid();
+            grids[1] = new Grid();
+        }
+        for (Entry entry : entries.values()) {
+            if (entry.grid != null) {
+                entry.grid = gridOf(entry.unit);
+                entry.cell = cellKey(entry.x, entry.y);
+                entry.grid.add(entry, cellX(entry.x), cellY(entry.y));
+            }
+        }
+    }
+    
+    private void unplace(Entry entry) {
+        if (entry.grid != null) {
+            entry.grid.remove(entry);
+            entry.grid = null;
+        }
+    }
+    
+    /**
+     * Move a unit into the bucket of its current availability
+     */
+    private void updateAvailability(Entry entry) {
+        int availability = entry.unit.isAvailable() ? 1 : 0;
+        if (availability == entry.availability) {
+            return;
+        }
+        clearAvailability(entry);
+        entry.availability = availability;
+        counts[entry.unit.getType().ordinal()][availability]++;
+        if (availability == 1) {
+            availableByType.get(entry.unit.getType()).add(entry.unit);
+            availableCount++;
+        }
+    }
+    
+    private void clearAvailability(Entry entry) {
+        if (entry.availability < 0) {
+            return;
+        }
+        counts[entry.unit.getType().ordinal()][entry.availability]--;
+        if (entry.availability == 1) {
+            availableByType.get(entry.unit.getType()).remove(entry.unit);
+            availableCount--;
+        }
+        entry.availability = -1;
+    }
+    
+    private Grid gridOf(ResponseUnit unit) {
+        return partitions.get(unit.getType())[unit.isAvailable() ? 1 : 0];
+    }
+    
+    /**
+     * Available units able to respond to an incident type, nearest first
+     */
+    public List<ResponseUnit> findNearest(Location from, int k, Incident.IncidentType incidentType) {
+        return findNearest(from, k, CAPABLE_TYPES.get(incidentType), true);
+    }
+    
+    /**
+     * Up to k units of the given types with the given availability, nearest first;
+     * ties are broken by the order units were added
+     * Time Complexity: O(c + m log k) for c scanned cells holding m units
+     */
+    public synchronized List<ResponseUnit> findNearest(Location from, int k, Set<ResponseUnit.UnitType> types,
+                                                       boolean available) {
+        if (from == null || types == null) {
+            throw new IllegalArgumentException("Location and unit types cannot be null");
+        }
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        List<Grid> grids = gridsOf(types, available);
+        if (grids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        double x = from.getX();
+        double y = from.getY();
+        int centerX = cellX(x);
+        int centerY = cellY(y);
+        int maxRing = 0;
+        long units = 0;
+        long occupiedCells = 0;
+        for (Grid grid : grids) {
+            maxRing = Math.max(maxRing, grid.ringsToCover(centerX, centerY));
+            units += grid.size;
+            occupiedCells += grid.cells.size();
+        }
+        
+        // Farthest of the best k on top
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.reverseOrder());
+        Consumer<Entry> offer = entry -> {
+            Candidate candidate = new Candidate(entry, distance(entry, x, y));
+            if (best.size() < k) {
+                best.add(candidate);
+            } else if (candidate.compareTo(best.peek()) < 0) {
+                best.poll();
+                best.add(candidate);
+            }
+        };
+        
+        // A sparse partition is cheaper to scan whole than ring by ring
+        long ringCells = (2L * maxRing + 1) * (2L * maxRing + 1);
+        if (units <= k || ringCells > occupiedCells) {
+            for (Grid grid : grids) {
+                grid.visitAll(offer);
+            }
+            return sorted(best);
+        }
+        
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (Grid grid : grids) {
+                grid.visitRing(centerX, centerY, ring, offer);
+            }
+            // Every cell beyond this ring is at least ring * cellSize away
+            if (best.size() == k && best.peek().distance <= ring * cellSize) {
+                break;
+            }
+        }
+        return sorted(best);
+    }
+    
+    /**
+     * Available units able to respond to an incident type within a radius, nearest first
+     */
+    public List<ResponseUnit> findWithinRadius(Location from, double radius, Incident.IncidentType incidentType) {
+        return findWithinRadius(from, radius, CAPABLE_TYPES.get(incidentType), true);
+    }
+    
+    /**
+     * Units of the given types with the given availability within a straight-line
+     * radius, nearest first
+     * Time Complexity: O(c + m log m) for c scanned cells holding m units
+     */
+    public synchronized List<ResponseUnit> findWithinRadius(Location from, double radius,
+                                                            Set<ResponseUnit.UnitType> types, boolean available) {
+        if (from == null || types == null) {
+            throw new IllegalArgumentException("Location and unit types cannot be null");
+        }
+        if (Double.isNaN(radius) || radius < 0) {
+            throw new IllegalArgumentException("Radius must be non-negative");
+        }
+        double x = from.getX();
+        double y = from.getY();
+        List<Candidate> found = new ArrayList<>();
+        for (Grid grid : gridsOf(types, available)) {
+            grid.visitSquare(cellX(x - radius), cellY(y - radius), cellX(x + radius), cellY(y + radius), entry -> {
+                double distance = distance(entry, x, y);
+                if (distance <= radius) {
+                    found.add(new Candidate(entry, distance));
+                }
+            });
+        }
+        Collections.sort(found);
+        List<ResponseUnit> units = new ArrayList<>(found.size());
+        for (Candidate candidate : found) {
+            units.add(candidate.entry.unit);
+        }
+        return units;
+    }
+    
+    /**
+     * Available units able to respond to an incident type, whatever their position,
+     * by type and then in the order they became available
+     * Time Complexity: O(candidates)
+     */
+    public synchronized List<ResponseUnit> getAvailableUnits(Incident.IncidentType incidentType) {
+        List<ResponseUnit> units = new ArrayList<>();
+        for (ResponseUnit.UnitType type : CAPABLE_TYPES.get(incidentType)) {
+            units.addAll(availableByType.get(type));
+        }
+        return units;
+    }
+    
+    /**
+     * Available units of one type
+     * Time Complexity: O(candidates)
+     */
+    public synchronized List<ResponseUnit> getAvailableUnits(ResponseUnit.UnitType type) {
+        return new ArrayList<>(availableByType.get(type));
+    }
+    
+    /**
+     * Number of indexed units of a type with the given availability
+     * Time Complexity: O(1)
+     */
+    public synchronized int count(ResponseUnit.UnitType type, boolean available) {
+        return counts[type.ordinal()][available ? 1 : 0];
+    }
+    
+    /**
+     * Number of available units able to respond to an incident type
+     * Time Complexity: O(1)
+     */
+    public synchronized int countAvailable(Incident.IncidentType incidentType) {
+        int count = 0;
+        for (ResponseUnit.UnitType type : CAPABLE_TYPES.get(incidentType)) {
+            count += counts[type.ordinal()][1];
+        }
+        return count;
+    }
+    
+    /**
+     * Number of available units of any type
+     * Time Complexity: O(1)
+     */
+    public synchronized int countAvailable() {
+        return availableCount;
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public synchronized double getCellSize() {
+        return cellSize;
+    }
+    
+    /**
+     * Unit types that can respond to an incident type
+     */
+    public static Set<ResponseUnit.UnitType> capableTypes(Incident.IncidentType incidentType) {
+        return EnumSet.copyOf(CAPABLE_TYPES.get(incidentType));
+    }
+    
+    private static Map<Incident.IncidentType, Set<ResponseUnit.UnitType>> capableTypesByIncident() {
+        Map<Incident.IncidentType, Set<ResponseUnit.UnitType>> capable = new EnumMap<>(Incident.IncidentType.class);
+        for (Incident.IncidentType incidentType : Incident.IncidentType.values()) {
+            Set<ResponseUnit.UnitType> types = EnumSet.noneOf(ResponseUnit.UnitType.class);
+            for (ResponseUnit.UnitType type : ResponseUnit.UnitType.values()) {
+                if (ResponseUnit.canRespondTo(type, incidentType)) {
+                    types.add(type);
+                }
+            }
+            capable.put(incidentType, types);
+        }
+        return capable;
+    }
+    
+    private List<Grid> gridsOf(Set<ResponseUnit.UnitType> types, boolean available) {
+        List<Grid> grids = new ArrayList<>(types.size());
+        for (ResponseUnit.UnitType type : types) {
+            Grid grid = partitions.get(type)[available ? 1 : 0];
+            if (grid.size > 0) {
+                grids.add(grid);
+            }
+        }
+        return grids;
+    }
+    
+    private static List<ResponseUnit> sorted(PriorityQueue<Candidate> best) {
+        ResponseUnit[] units = new ResponseUnit[best.size()];
+        for (int i = units.length - 1; i >= 0; i--) {
+            units[i] = best.poll().entry.unit;
+        }
+        return new ArrayList<>(Arrays.asList(units));
+    }
+    
+    private static double distance(Entry entry, double x, double y) {
+        double dx = entry.x - x;
+        double dy = entry.y - y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+    
+    private int cellX(double x) {
+        return clampToInt(Math.floor(x / cellSize));
+    }
+    
+    private int cellY(double y) {
+        return clampToInt(Math.floor(y / cellSize));
+    }
+    
+    private static int clampToInt(double value) {
+        return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, value));
+    }
+    
+    private long cellKey(Location location) {
+        return cellKey(location.getX(), location.getY());
+    }
+    
+    private long cellKey(double x, double y) {
+        return key(cellX(x), cellY(y));
+    }
+    
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("UnitSpatialIndex{units=%d, available=%d, cellSize=%.3f}",
+            entries.size(), availableCount, cellSize);
+    }
+    
+    /**
+     * Placement of one unit: its coordinates, partition and cell
+     */
+    private static class Entry {
+        private final ResponseUnit unit;
+        private final long order;
+        private double x;
+        private double y;
+        private Grid grid;
+        private long cell;
+        // Bucket the unit is counted in: 1 = available, 0 = not, -1 = none yet
+        private int availability = -1;
+        
+        Entry(ResponseUnit unit, long order) {
+            this.unit = unit;
+            this.order = order;
+        }
+    }
+    
+    private static class Candidate implements Comparable<Candidate> {
+        private final Entry entry;
+        private final double distance;
+        
+        Candidate(Entry entry, double distance) {
+            this.entry = entry;
+            this.distance = distance;
+        }
+        
+        @Override
+        public int compareTo(Candidate other) {
+            int byDistance = Double.compare(distance, other.distance);
+            return byDistance != 0 ? byDistance : Long.compare(entry.order, other.entry.order);
+        }
+    }
+    
+    /**
+     * Sparse grid of one partition; cells are only allocated while occupied
+     * The bounding box of occupied cells only grows, which keeps removal O(1)
+     */
+    private static class Grid {
+        private final Map<Long, Set<Entry>> cells = new HashMap<>();
+        private int size;
+        private int minX = Integer.MAX_VALUE;
+        private int maxX = Integer.MIN_VALUE;
+        private int minY = Integer.MAX_VALUE;
+        private int maxY = Integer.MIN_VALUE;
+        
+        void add(Entry entry, int cellX, int cellY) {
+            cells.computeIfAbsent(entry.cell, cell -> new LinkedHashSet<>()).add(entry);
+            size++;
+            minX = Math.min(minX, cellX);
+            maxX = Math.max(maxX, cellX);
+            minY = Math.min(minY, cellY);
+            maxY = Math.max(maxY, cellY);
+        }
+        
+        void remove(Entry entry) {
+            Set<Entry> cell = cells.get(entry.cell);
+            if (cell != null && cell.remove(entry)) {
+                size--;
+                if (cell.isEmpty()) {
+                    cells.remove(entry.cell);
+                }
+            }
+        }
+        
+        /**
+         * Rings around a cell needed to reach every occupied cell
+         */
+        int ringsToCover(int cellX, int cellY) {
+            if (size == 0) {
+                return 0;
+            }
+            long dx = Math.max((long) cellX - minX, (long) maxX - cellX);
+            long dy = Math.max((long) cellY - minY, (long) maxY - cellY);
+            return (int) Math.min(Integer.MAX_VALUE / 2, Math.max(dx, dy));
+        }
+        
+        /**
+         * Visit the entries of the cells at Chebyshev distance ring from a cell
+         */
+        void visitRing(int cellX, int cellY, int ring, Consumer<Entry> visitor) {
+            if (ring == 0) {
+                visitCell(cellX, cellY, visitor);
+                return;
+            }
+            // Only the part of the ring inside the occupied bounding box
+            int fromX = Math.max(cellX - ring, minX);
+            int toX = Math.min(cellX + ring, maxX);
+            int fromY = Math.max(cellY - ring + 1, minY);
+            int toY = Math.min(cellY + ring - 1, maxY);
+            for (int x = fromX; x <= toX; x++) {
+                visitCell(x, cellY - ring, visitor);
+                visitCell(x, cellY + ring, visitor);
+            }
+            for (int y = fromY; y <= toY; y++) {
+                visitCell(cellX - ring, y, visitor);
+                visitCell(cellX + ring, y, visitor);
+            }
+        }
+        
+        /**
+         * Visit the entries of every cell in a rectangle of cells
+         * Falls back to scanning the occupied cells when the rectangle is larger
+         */
+        void visitSquare(int fromX, int fromY, int toX, int toY, Consumer<Entry> visitor) {
+            fromX = Math.max(fromX, minX);
+            toX = Math.min(toX, maxX);
+            fromY = Math.max(fromY, minY);
+            toY = Math.min(toY, maxY);
+            if (fromX > toX || fromY > toY) {
+                return;
+            }
+            long area = ((long) toX - fromX + 1) * ((long) toY - fromY + 1);
+            if (area > cells.size()) {
+                for (Set<Entry> cell : cells.values()) {
+                    for (Entry entry : cell) {
+                        long key = entry.cell;
+                        int x = (int) (key >> 32);
+                        int y = (int) key;
+                        if (x >= fromX && x <= toX && y >= fromY && y <= toY) {
+                            visitor.accept(entry);
+                        }
+                    }
+                }
+                return;
+            }
+            for (int x = fromX; x <= toX; x++) {
+                for (int y = fromY; y <= toY; y++) {
+                    visitCell(x, y, visitor);
+                }
+            }
+        }
+        
+        void visitAll(Consumer<Entry> visitor) {
+            for (Set<Entry> cell : cells.values()) {
+                cell.forEach(visitor);
+            }
+        }
+        
+        private void visitCell(int cellX, int cellY, Consumer<Entry> visitor) {
+            if (cellX < minX || cellX > maxX || cellY < minY || cellY > maxY) {
+                return;
+            }
+            Set<Entry> cell = cells.get(key(cellX, cellY));
+            if (cell != null) {
+                cell.forEach(visitor);
+            }
+        }
+    }
+}
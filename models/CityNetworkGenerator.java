@@ -0,0 +1,334 @@
+package perds.models;
+
+import java.util.Random;
+
+/**
+ * Synthetic road networks for scaling experiments, generated straight into CSR form
+ * Nodes sit on a jittered square lattice (rows of ceil(sqrt(n)) nodes, the last row
+ * possibly partial) and are numbered row by row; every road is two-way with the same
+ * travel time in both directions. Layouts:
+ * - PERTURBED_GRID: lattice streets, with some local north-south streets missing
+ * - DELAUNAY: planar triangulation; every cell is split along the diagonal that passes
+ *   the Delaunay empty-circle test for its four corners
+ * - HIERARCHICAL: perturbed grid where every arterialSpacing-th street is an arterial
+ *   and every highwaySpacing-th one a highway, both faster than local streets
+ * Missing streets never disconnect the graph: east-west streets and the first column
+ * are always kept. Adjacency is a pure function of the coordinates and the seed, so
+ * the CSR arrays are filled in two streaming passes (count, then fill) without any
+ * per-edge or per-node objects
+ *
+ * Coordinates are in km and travel times in minutes
+ *
+ * Time Complexity: O(n) per graph
+ * Space Complexity: O(n) primitive arrays, about 65-95 bytes per node
+ */
+public class CityNetworkGenerator {
+    public static final String ID_PREFIX = "N";
+    // At most 4 streets and 4 diagonals per node
+    private static final int MAX_DEGREE = 8;
+    // Largest node count whose edges still fit int CSR offsets
+    public static final int MAX_NODES = Integer.MAX_VALUE / MAX_DEGREE;
+    // Per-edge travel times are stretched by a factor in [1, 1 + DELAY_SPREAD)
+    private static final double DELAY_SPREAD = 0.5;
+    private static final long CLOSURE_SALT = 1;
+    private static final long DELAY_SALT = 2;
+    
+    public enum Layout {
+        PERTURBED_GRID,
+        DELAUNAY,
+        HIERARCHICAL
+    }
+    
+    public enum RoadClass {
+        LOCAL(30.0),
+        ARTERIAL(50.0),
+        HIGHWAY(90.0);
+        
+        private final double speedKmh;
+        
+        RoadClass(double speedKmh) {
+            this.speedKmh = speedKmh;
+        }
+        
+        public double getSpeedKmh() {
+            return speedKmh;
+        }
+    }
+    
+    private final long seed;
+    private double blockLength;
+    private double jitter;
+    private double closureRate;
+    private int arterialSpacing;
+    private int highwaySpacing;
+    
+    public CityNetworkGenerator(long seed) {
+        this.seed = seed;
+        this.blockLength = 0.1;
+        this.jitter = 0.2;
+        this.closureRate = 0.15;
+        this.arterialSpacing = 8;
+        this.highwaySpacing = 64;
+    }
+    
+    /**
+     * Distance between neighbouring lattice points in km (0.1 by default)
+     */
+    public void setBlockLength(double blockLength) {
+        if (!(blockLength > 0) || Double.isInfinite(blockLength)) {
+            throw new IllegalArgumentException("Block length must be positive");
+        }
+        this.blockLength = blockLength;
+    }
+    
+    /**
+     * Largest displacement of a node along each axis, as a fraction of the block length
+     * Below 0.25 every lattice cell stays convex, so the triangulation stays planar
+     */
+    public void setJitter(double jitter) {
+        if (!(jitter >= 0 && jitter < 0.25)) {
+            throw new IllegalArgumentException("Jitter must be in [0, 0.25)");
+        }
+        this.jitter = jitter;
+    }
+    
+    /**
+     * Fraction of local north-south streets left out of grid layouts (0.15 by default)
+     */
+    public void setClosureRate(double closureRate) {
+        if (!(closureRate >= 0 && closureRate < 1)) {
+            throw new IllegalArgumentException("Closure rate must be in [0, 1)");
+        }
+        this.closureRate = closureRate;
+    }
+    
+    /**
+     * Every arterialSpacing-th street is an arterial and every highwaySpacing-th a
+     * highway (8 and 64 by default; HIERARCHICAL layout only)
+     */
+    public void setRoadSpacing(int arterialSpacing, int highwaySpacing) {
+        if (arterialSpacing < 2 || highwaySpacing < arterialSpacing) {
+            throw new IllegalArgumentException("Spacings must satisfy 2 <= arterial <= highway");
+        }
+        this.arterialSpacing = arterialSpacing;
+        this.highwaySpacing = highwaySpacing;
+    }
+    
+    /**
+     * Generate a network as a compact graph whose node i has the location ID "N" + i
+     * Time Complexity: O(n)
+     */
+    public CompactGraph generate(Layout layout, int nodeCount) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Layout cannot be null");
+        }
+        if (nodeCount <= 0 || nodeCount > MAX_NODES) {
+            throw new IllegalArgumentException("Node count must be in [1, " + MAX_NODES + "]");
+        }
+        Lattice lattice = new Lattice(layout, nodeCount);
+        
+        // Pass 1: degrees
+        int[] offsets = new int[nodeCount + 1];
+        int[] neighbors = new int[MAX_DEGREE];
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] = offsets[node] + lattice.neighbors(node, neighbors);
+        }
+        
+        // Pass 2: the same neighbours, now with their travel times
+        int[] targets = new int[offsets[nodeCount]];
+        double[] weights = new double[offsets[nodeCount]];
+        for (int node = 0; node < nodeCount; node++) {
+            int count = lattice.neighbors(node, neighbors);
+            int position = offsets[node];
+            for (int i = 0; i < count; i++) {
+                targets[position] = neighbors[i];
+                weights[position] = lattice.travelTime(node, neighbors[i]);
+                position++;
+            }
+        }
+        
+        return new CompactGraph(ID_PREFIX, lattice.xs, lattice.ys, offsets, targets, weights);
+    }
+    
+    /**
+     * Generate the same network as generate() as an EmergencyNetwork, with one Location
+     * object per node and edge distances equal to straight-line lengths
+     * Meant for networks small enough for object-based dispatching and simulation
+     * Time Complexity: O(n)
+     */
+    public EmergencyNetwork generateNetwork(Layout layout, int nodeCount) {
+        CompactGraph graph = generate(layout, nodeCount);
+        EmergencyNetwork network = new EmergencyNetwork();
+        Location[] locations = new Location[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            locations[node] = graph.getLocation(node);
+            network.addLocation(locations[node]);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                int target = graph.edgeTarget(edge);
+                if (node < target) { // addEdge adds both directions
+                    network.addEdge(locations[node], locations[target],
+                        locations[node].distanceTo(locations[target]), graph.edgeWeight(edge));
+                }
+            }
+        }
+        return network;
+    }
+    
+    /**
+     * Road class of the street running along lattice row or column line
+     */
+    public RoadClass roadClassOf(Layout layout, int line) {
+        if (layout != Layout.HIERARCHICAL) {
+            return RoadClass.LOCAL;
+        }
+        if (line % highwaySpacing == 0) {
+            return RoadClass.HIGHWAY;
+        }
+        return line % arterialSpacing == 0 ? RoadClass.ARTERIAL : RoadClass.LOCAL;
+    }
+    
+    /**
+     * Uniform value in [0, 1) for an undirected edge, the same from both ends
+     */
+    private double noise(int u, int v, long salt) {
+        long key = ((long) Math.min(u, v) << 32) | Math.max(u, v);
+        long z = seed + salt * 0x9E3779B97F4A7C15L + key * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+    
+    /**
+     * Node coordinates plus the adjacency rules of one layout
+     */
+    private class Lattice {
+        private final Layout layout;
+        private final int nodeCount;
+        private final int columns;
+        private final double[] xs;
+        private final double[] ys;
+        
+        Lattice(Layout layout, int nodeCount) {
+            this.layout = layout;
+            this.nodeCount = nodeCount;
+            this.columns = (int) Math.ceil(Math.sqrt(nodeCount));
+            this.xs = new double[nodeCount];
+            this.ys = new double[nodeCount];
+            
+            Random random = new Random(seed);
+            for (int node = 0; node < nodeCount; node++) {
+                xs[node] = (node % columns + jitter * (2 * random.nextDouble() - 1)) * blockLength;
+                ys[node] = (node / columns + jitter * (2 * random.nextDouble() - 1)) * blockLength;
+            }
+        }
+        
+        private int node(int row, int column) {
+            if (row < 0 || column < 0 || column >= columns) {
+                return -1;
+            }
+            long node = (long) row * columns + column;
+            return node < nodeCount ? (int) node : -1;
+        }
+        
+        /**
+         * Write the neighbours of a node into out and return how many there are
+         */
+        int neighbors(int node, int[] out) {
+            int row = node / columns;
+            int column = node % columns;
+            int count = 0;
+            
+            int west = node(row, column - 1);
+            int east = node(row, column + 1);
+            int south = node(row - 1, column);
+            int north = node(row + 1, column);
+            if (west >= 0) {
+                out[count++] = west;
+            }
+            if (east >= 0) {
+                out[count++] = east;
+            }
+            if (south >= 0 && !closed(south, node, column)) {
+                out[count++] = south;
+            }
+            if (north >= 0 && !closed(node, north, column)) {
+                out[count++] = north;
+            }
+            
+            if (layout == Layout.DELAUNAY) {
+                // The node is the SW, SE, NW or NE corner of up to four cells
+                if (cellExists(row, column) && splitsSouthWestToNorthEast(row, column)) {
+                    out[count++] = node(row + 1, column + 1);
+                }
+                if (cellExists(row, column - 1) && !splitsSouthWestToNorthEast(row, column - 1)) {
+                    out[count++] = node(row + 1, column - 1);
+                }
+                if (cellExists(row - 1, column) && !splitsSouthWestToNorthEast(row - 1, column)) {
+                    out[count++] = node(row - 1, column + 1);
+                }
+                if (cellExists(row - 1, column - 1) && splitsSouthWestToNorthEast(row - 1, column - 1)) {
+                    out[count++] = node(row - 1, column - 1);
+                }
+            }
+            return count;
+        }
+        
+        /**
+         * Whether the north-south street between south and north is missing
+         */
+        private boolean closed(int south, int north, int column) {
+            return layout != Layout.DELAUNAY && column != 0 && closureRate > 0
+                && roadClassOf(layout, column) == RoadClass.LOCAL
+                && noise(south, north, CLOSURE_SALT) < closureRate;
+        }
+        
+        /**
+         * Whether the cell with south-west corner (row, column) has all four corners
+         */
+        private boolean cellExists(int row, int column) {
+            return row >= 0 && column >= 0 && node(row + 1, column + 1) >= 0;
+        }
+        
+        /**
+         * Delaunay choice of diagonal for a cell: SW-NE unless the NW corner lies
+         * strictly inside the circumcircle of SW, SE, NE (then SE-NW)
+         */
+        private boolean splitsSouthWestToNorthEast(int row, int column) {
+            int a = node(row, column);
+            int b = node(row, column + 1);
+            int c = node(row + 1, column + 1);
+            int d = node(row + 1, column);
+            double adx = xs[a] - xs[d];
+            double ady = ys[a] - ys[d];
+            double bdx = xs[b] - xs[d];
+            double bdy = ys[b] - ys[d];
+            double cdx = xs[c] - xs[d];
+            double cdy = ys[c] - ys[d];
+            double inCircle = (adx * adx + ady * ady) * (bdx * cdy - cdx * bdy)
+                - (bdx * bdx + bdy * bdy) * (adx * cdy - cdx * ady)
+                + (cdx * cdx + cdy * cdy) * (adx * bdy - bdx * ady);
+            return inCircle <= 0;
+        }
+        
+        /**
+         * Travel time in minutes at the speed of the road's class, stretched per edge
+         */
+        double travelTime(int from, int to) {
+            RoadClass roadClass;
+            if (from / columns == to / columns) {
+                roadClass = roadClassOf(layout, from / columns);
+            } else if (from % columns == to % columns) {
+                roadClass = roadClassOf(layout, from % columns);
+            } else {
+                roadClass = RoadClass.LOCAL;
+            }
+            double dx = xs[to] - xs[from];
+            double dy = ys[to] - ys[from];
+            double length = Math.sqrt(dx * dx + dy * dy);
+            return length / roadClass.getSpeedKmh() * 60.0 * (1.0 + DELAY_SPREAD * noise(from, to, DELAY_SALT));
+        }
+    }
+}
@@ -0,0 +1,609 @@
+package perds.models;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * Immutable compressed-sparse-row (CSR) snapshot of an emergency network
+ * Nodes are addressed by dense int indices; the outgoing edges of node i occupy
+ * positions offsets[i] .. offsets[i+1]-1 of the parallel targets/weights arrays,
+ * so searches run over primitive arrays without hashing Location objects
+ *
+ * Weights are effective travel times (travel time * congestion) captured when the
+ * snapshot was built; blocked edges are kept with a weight of +Infinity
+ *
+ * Generated graphs may have no Location objects at all: node i then has the ID
+ * idPrefix + i and its Location is created on demand, so graphs with millions of
+ * nodes cost only their primitive arrays
+ *
+ * Graphs opened from a NetworkFile read their node and edge data in place from
+ * memory-mapped buffers instead of arrays; node identity, coordinates and edges
+ * each sit behind a small interface with one implementation per storage, so the
+ * accessors never branch on where the data lives
+ */
+public final class CompactGraph {
+    private final NodeTable nodes;
+    private final Coordinates coordinates;
+    private final Adjacency edges;
+    private final int nodeCount;
+    private final int edgeCount;
+    // Network version the snapshot was taken at
+    private final long version;
+    // Transposed snapshot, built on first use
+    private volatile CompactGraph reverse;
+
+    /**
+     * Create a snapshot from prebuilt CSR arrays
+     * locations[i] may be null for indices that no longer hold a location
+     * Time Complexity: O(V)
+     */
+    public CompactGraph(Location[] locations, int[] offsets, int[] targets, double[] weights) {
+        this(locations, offsets, targets, weights, 0L);
+    }
+
+    /**
+     * Create a snapshot from prebuilt CSR arrays, tagged with the network version it reflects
+     * Time Complexity: O(V)
+     */
+    public CompactGraph(Location[] locations, int[] offsets, int[] targets, double[] weights, long version) {
+        this(new StoredNodes(locations), storedCoordinates(locations), arrayAdjacency(locations.length, offsets,
+            targets, weights), version, null);
+    }
+
+    /**
+     * Create a snapshot of generated nodes given only by their coordinates
+     * Node i has the location ID idPrefix + i (no leading zeros); Location objects
+     * are created on demand by getLocation() and are equal for the same node
+     * Time Complexity: O(1)
+     */
+    public CompactGraph(String idPrefix, double[] xs, double[] ys, int[] offsets, int[] targets, double[] weights) {
+        this(generatedNodes(idPrefix, xs, ys), new ArrayCoordinates(xs, ys),
+            arrayAdjacency(xs.length, offsets, targets, weights), 0L, null);
+    }
+
+    /**
+     * Snapshot of nodes identified by a node table (e.g. imported road data)
+     * Time Complexity: O(1)
+     */
+    CompactGraph(NodeTable nodeTable, double[] xs, double[] ys, int[] offsets, int[] targets, double[] weights) {
+        this(nodeTable, new ArrayCoordinates(xs, ys), arrayAdjacency(xs.length, offsets, targets, weights), 0L, null);
+    }
+
+    /**
+     * Snapshot over memory-mapped buffers (see NetworkFile); nodes are identified
+     * either by a node table or, when it is null, by idPrefix + index
+     * Time Complexity: O(1)
+     */
+    CompactGraph(NodeTable nodeTable, String idPrefix, DoubleBuffer xs, DoubleBuffer ys, IntBuffer offsets,
+                 IntBuffer targets, DoubleBuffer weights, long version) {
+        this(nodeTable != null ? nodeTable : new GeneratedNodes(idPrefix, xs.limit()), new MappedCoordinates(xs, ys),
+            new MappedAdjacency(offsets, targets, weights), version, null);
+    }
+
+    private CompactGraph(NodeTable nodes, Coordinates coordinates, Adjacency edges, long version,
+                         CompactGraph reverse) {
+        this.nodes = nodes;
+        this.coordinates = coordinates;
+        this.edges = edges;
+        this.nodeCount = coordinates.size();
+        this.edgeCount = edges.size();
+        this.version = version;
+        this.reverse = reverse;
+    }
+
+    private static Coordinates storedCoordinates(Location[] locations) {
+        double[] xs = new double[locations.length];
+        double[] ys = new double[locations.length];
+        for (int i = 0; i < locations.length; i++) {
+            if (locations[i] != null) {
+                xs[i] = locations[i].getX();
+                ys[i] = locations[i].getY();
+            }
+        }
+        return new ArrayCoordinates(xs, ys);
+    }
+
+    private static NodeTable generatedNodes(String idPrefix, double[] xs, double[] ys) {
+        if (idPrefix == null || xs.length != ys.length) {
+            throw new IllegalArgumentException("ID prefix and one coordinate pair per node are required");
+        }
+        return new GeneratedNodes(idPrefix, xs.length);
+    }
+
+    private static Adjacency arrayAdjacency(int nodeCount, int[] offsets, int[] targets, double[] weights) {
+        if (offsets.length != nodeCount + 1) {
+            throw new IllegalArgumentException("offsets must have one entry per node plus one");
+        }
+        if (targets.length != weights.length || offsets[nodeCount] != targets.length) {
+            throw new IllegalArgumentException("targets and weights must cover every edge");
+        }
+        return new ArrayAdjacency(offsets, targets, weights);
+    }
+
+    /**
+     * Snapshot with the same nodes and edges but different weights
+     * The topology arrays are shared, so hasSameTopology() holds in O(1)
+     * Time Complexity: O(1)
+     */
+    public CompactGraph withWeights(double[] newWeights, long newVersion) {
+        if (newWeights.length != edgeCount) {
+            throw new IllegalArgumentException("Expected " + edgeCount + " edge weights");
+        }
+        return new CompactGraph(nodes, coordinates, edges.withWeights(newWeights), newVersion, null);
+    }
+
+    /**
+     * Copy of the edge weight array, e.g. for patching with withWeights()
+     */
+    public double[] copyWeights() {
+        return edges.copyWeights();
+    }
+
+    /**
+     * Whether another snapshot has the same nodes and edges in the same CSR order
+     * (weights may differ), so per-edge data computed for one applies to the other
+     * Time Complexity: O(1) for snapshots derived via withWeights(), O(V + E) otherwise
+     */
+    public boolean hasSameTopology(CompactGraph other) {
+        if (edges.sharesTopology(other.edges)) {
+            return true;
+        }
+        if (other.nodeCount != nodeCount || other.edgeCount != edgeCount) {
+            return false;
+        }
+        for (int node = 0; node <= nodeCount; node++) {
+            if (other.edgeStart(node) != edgeStart(node)) {
+                return false;
+            }
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (other.edgeTarget(edge) != edgeTarget(edge)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the snapshot with every edge reversed (u -> v becomes v -> u)
+     * Used for searches rooted at a destination, e.g. one-to-many queries
+     * Time Complexity: O(V + E) on first call, O(1) afterwards
+     */
+    public CompactGraph getReverse() {
+        CompactGraph result = reverse;
+        if (result == null) {
+            synchronized (this) {
+                result = reverse;
+                if (result == null) {
+                    result = buildReverse();
+                    reverse = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private CompactGraph buildReverse() {
+        int nodeCount = getNodeCount();
+        int[] reverseOffsets = new int[nodeCount + 1];
+
+        // Count incoming edges per node
+        for (int edge = 0; edge < edgeCount; edge++) {
+            reverseOffsets[edgeTarget(edge) + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+
+        int[] reverseTargets = new int[edgeCount];
+        double[] reverseWeights = new double[edgeCount];
+        int[] next = Arrays.copyOf(reverseOffsets, nodeCount);
+
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = edgeStart(node); edge < edgeEnd(node); edge++) {
+                int position = next[edgeTarget(edge)]++;
+                reverseTargets[position] = node;
+                reverseWeights[position] = edgeWeight(edge);
+            }
+        }
+
+        return new CompactGraph(nodes, coordinates, new ArrayAdjacency(reverseOffsets, reverseTargets, reverseWeights),
+            version, this);
+    }
+
+    /**
+     * Version of the network this snapshot was built from
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Number of node slots (including slots of removed locations)
+     * Time Complexity: O(1)
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Number of directed edges
+     * Time Complexity: O(1)
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Get node index of a location, or -1 if it is not part of the snapshot
+     * Time Complexity: O(1)
+     */
+    public int indexOf(Location location) {
+        if (location == null) {
+            return -1;
+        }
+        return indexOf(location.getId());
+    }
+
+    /**
+     * Get node index of a location ID, or -1 if it is not part of the snapshot
+     * Time Complexity: O(1)
+     */
+    public int indexOf(String locationId) {
+        return nodes.indexOf(locationId);
+    }
+
+    /**
+     * ID prefix of generated nodes, null when nodes have stored IDs
+     */
+    String getIdPrefix() {
+        return nodes instanceof GeneratedNodes ? ((GeneratedNodes) nodes).idPrefix : null;
+    }
+
+    /**
+     * Get the location stored at a node index (null for removed locations)
+     * Time Complexity: O(1)
+     */
+    public Location getLocation(int node) {
+        return nodes.location(node, coordinates.x(node), coordinates.y(node));
+    }
+
+    /**
+     * Whether a node index holds a location (false for removed locations)
+     * Time Complexity: O(1), without creating Location objects for generated nodes
+     */
+    public boolean hasLocation(int node) {
+        return nodes.contains(node);
+    }
+
+    /**
+     * X coordinate (longitude) of a node
+     */
+    public double getX(int node) {
+        return coordinates.x(node);
+    }
+
+    /**
+     * Y coordinate (latitude) of a node
+     */
+    public double getY(int node) {
+        return coordinates.y(node);
+    }
+
+    /**
+     * Position of the first outgoing edge of a node
+     */
+    public int edgeStart(int node) {
+        return edges.start(node);
+    }
+
+    /**
+     * Position one past the last outgoing edge of a node
+     */
+    public int edgeEnd(int node) {
+        return edges.start(node + 1);
+    }
+
+    /**
+     * Destination node of an edge
+     */
+    public int edgeTarget(int edge) {
+        return edges.target(edge);
+    }
+
+    /**
+     * Effective weight of an edge (+Infinity when blocked)
+     */
+    public double edgeWeight(int edge) {
+        return edges.weight(edge);
+    }
+
+    /**
+     * Number of outgoing edges of a node
+     */
+    public int degree(int node) {
+        return edgeEnd(node) - edgeStart(node);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactGraph{nodes=" + getNodeCount() + ", edges=" + getEdgeCount() + ", version=" + version + "}";
+    }
+
+    /**
+     * Identity of nodes whose data lives outside the graph, e.g. in a mapped file
+     */
+    interface NodeTable {
+        Location location(int node, double x, double y);
+
+        int indexOf(String locationId);
+
+        boolean contains(int node);
+    }
+
+    /**
+     * Nodes given by stored Location objects
+     */
+    private static final class StoredNodes implements NodeTable {
+        private final Location[] locations;
+        private final Map<String, Integer> indexById;
+
+        StoredNodes(Location[] locations) {
+            this.locations = locations;
+            this.indexById = new HashMap<>();
+            for (int i = 0; i < locations.length; i++) {
+                if (locations[i] != null) {
+                    indexById.put(locations[i].getId(), i);
+                }
+            }
+        }
+
+        @Override
+        public Location location(int node, double x, double y) {
+            return locations[node];
+        }
+
+        @Override
+        public int indexOf(String locationId) {
+            Integer index = indexById.get(locationId);
+            return index != null ? index : -1;
+        }
+
+        @Override
+        public boolean contains(int node) {
+            return locations[node] != null;
+        }
+    }
+
+    /**
+     * Generated nodes identified by idPrefix + index
+     */
+    private static final class GeneratedNodes implements NodeTable {
+        private final String idPrefix;
+        private final int nodeCount;
+
+        GeneratedNodes(String idPrefix, int nodeCount) {
+            if (idPrefix == null) {
+                throw new IllegalArgumentException("ID prefix is required without a node table");
+            }
+            this.idPrefix = idPrefix;
+            this.nodeCount = nodeCount;
+        }
+
+        @Override
+        public Location location(int node, double x, double y) {
+            String id = idPrefix + node;
+            return new Location(id, id, y, x, Location.LocationType.CITY);
+        }
+
+        @Override
+        public int indexOf(String locationId) {
+            int start = idPrefix.length();
+            int length = locationId.length() - start;
+            if (!locationId.startsWith(idPrefix) || length <= 0 || length > 10
+                    || (length > 1 && locationId.charAt(start) == '0')) {
+                return -1;
+            }
+            long index = 0;
+            for (int i = start; i < locationId.length(); i++) {
+                char digit = locationId.charAt(i);
+                if (digit < '0' || digit > '9') {
+                    return -1;
+                }
+                index = index * 10 + (digit - '0');
+            }
+            return index < nodeCount ? (int) index : -1;
+        }
+
+        @Override
+        public boolean contains(int node) {
+            return node >= 0 && node < nodeCount;
+        }
+    }
+
+    /**
+     * Node coordinates, in arrays or mapped buffers
+     */
+    private interface Coordinates {
+        double x(int node);
+
+        double y(int node);
+
+        int size();
+    }
+
+    private static final class ArrayCoordinates implements Coordinates {
+        private final double[] xs;
+        private final double[] ys;
+
+        ArrayCoordinates(double[] xs, double[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+        }
+
+        @Override
+        public double x(int node) {
+            return xs[node];
+        }
+
+        @Override
+        public double y(int node) {
+            return ys[node];
+        }
+
+        @Override
+        public int size() {
+            return xs.length;
+        }
+    }
+
+    private static final class MappedCoordinates implements Coordinates {
+        private final DoubleBuffer xs;
+        private final DoubleBuffer ys;
+
+        MappedCoordinates(DoubleBuffer xs, DoubleBuffer ys) {
+            this.xs = xs;
+            this.ys = ys;
+        }
+
+        @Override
+        public double x(int node) {
+            return xs.get(node);
+        }
+
+        @Override
+        public double y(int node) {
+            return ys.get(node);
+        }
+
+        @Override
+        public int size() {
+            return xs.limit();
+        }
+    }
+
+    /**
+     * CSR offsets, targets and weights, in arrays or mapped buffers
+     */
+    private interface Adjacency {
+        int start(int node);
+
+        int target(int edge);
+
+        double weight(int edge);
+
+        int size();
+
+        /**
+         * Same offsets and targets with other weights, sharing the topology storage
+         */
+        Adjacency withWeights(double[] weights);
+
+        double[] copyWeights();
+
+        /**
+         * Whether both hold the very same topology storage
+         */
+        boolean sharesTopology(Adjacency other);
+    }
+
+    private static final class ArrayAdjacency implements Adjacency {
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+
+        ArrayAdjacency(int[] offsets, int[] targets, double[] weights) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        @Override
+        public int start(int node) {
+            return offsets[node];
+        }
+
+        @Override
+        public int target(int edge) {
+            return targets[edge];
+        }
+
+        @Override
+        public double weight(int edge) {
+            return weights[edge];
+        }
+
+        @Override
+        public int size() {
+            return weights.length;
+        }
+
+        @Override
+        public Adjacency withWeights(double[] weights) {
+            return new ArrayAdjacency(offsets, targets, weights);
+        }
+
+        @Override
+        public double[] copyWeights() {
+            return weights.clone();
+        }
+
+        @Override
+        public boolean sharesTopology(Adjacency other) {
+            return other instanceof ArrayAdjacency
+                && ((ArrayAdjacency) other).offsets == offsets && ((ArrayAdjacency) other).targets == targets;
+        }
+    }
+
+    private static final class MappedAdjacency implements Adjacency {
+        private final IntBuffer offsets;
+        private final IntBuffer targets;
+        private final DoubleBuffer weights;
+
+        MappedAdjacency(IntBuffer offsets, IntBuffer targets, DoubleBuffer weights) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        @Override
+        public int start(int node) {
+            return offsets.get(node);
+        }
+
+        @Override
+        public int target(int edge) {
+            return targets.get(edge);
+        }
+
+        @Override
+        public double weight(int edge) {
+            return weights.get(edge);
+        }
+
+        @Override
+        public int size() {
+            return weights.limit();
+        }
+
+        @Override
+        public Adjacency withWeights(double[] weights) {
+            // Patched weights live on the heap, the topology stays mapped
+            return new MappedAdjacency(offsets, targets, DoubleBuffer.wrap(weights));
+        }
+
+        @Override
+        public double[] copyWeights() {
+            double[] copy = new double[weights.limit()];
+            weights.get(0, copy);
+            return copy;
+        }
+
+        @Override
+        public boolean sharesTopology(Adjacency other) {
+            return other instanceof MappedAdjacency
+                && ((MappedAdjacency) other).offsets == offsets && ((MappedAdjacency) other).targets == targets;
+        }
+    }
+}
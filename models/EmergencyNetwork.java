@@ -5,16 +5,134 @@ import java.util.*;
 /**
  * Graph-based representation of the emergency response network
  * Uses adjacency list structure for efficient traversal
+ *
+ * Every mutation made through this class increments a version number and is appended
+ * to a bounded change log, so derived data can tell whether it is stale and replay
+ * only the changes made since it was computed
  */
 public class EmergencyNetwork {
+    public static final int DEFAULT_CHANGE_LOG_CAPACITY = 1024;
+    
     // Adjacency list: Location -> List of Edges
     private final Map<Location, List<Edge>> adjacencyList;
     // Quick lookup for locations by ID
     private final Map<String, Location> locationMap;
+    // Stable node indices for compact snapshots (never reused after removal)
+    private final Map<String, Integer> indexById;
+    private final List<Location> locationsByIndex;
+    // Cached CSR snapshot, valid while its version matches
+    private CompactGraph compactGraph;
+    // Derived caches notified of every mutation
+    private final List<NetworkChangeListener> changeListeners;
+    // Incremented on every mutation
+    private long version;
+    // Most recent mutations, oldest first
+    private final ArrayDeque<NetworkChange> changeLog;
+    private final int changeLogCapacity;
     
     public EmergencyNetwork() {
+        this(DEFAULT_CHANGE_LOG_CAPACITY);
+    }
+    
+    /**
+     * Create a network that keeps at most changeLogCapacity mutations in its change log
+     */
+    public EmergencyNetwork(int changeLogCapacity) {
+        if (changeLogCapacity < 0) {
+            throw new IllegalArgumentException("Change log capacity cannot be negative");
+        }
         this.adjacencyList = new HashMap<>();
         this.locationMap = new HashMap<>();
+        this.indexById = new HashMap<>();
+        this.locationsByIndex = new ArrayList<>();
+        this.changeListeners = new ArrayList<>();
+        this.changeLog = new ArrayDeque<>();
+        this.changeLogCapacity = changeLogCapacity;
+    }
+    
+    /**
+     * Current version; increases by one with every mutation
+     * Time Complexity: O(1)
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Get the mutations made after the given version, oldest first
+     * Returns null if the change log no longer reaches back that far,
+     * in which case derived data has to be rebuilt from scratch
+     * Time Complexity: O(K) where K is the number of logged changes
+     */
+    public List<NetworkChange> getChangesSince(long sinceVersion) {
+        if (sinceVersion > version) {
+            throw new IllegalArgumentException("Version " + sinceVersion + " is newer than the network");
+        }
+        if (version - sinceVersion > changeLog.size()) {
+            return null;
+        }
+        
+        List<NetworkChange> changes = new ArrayList<>((int) (version - sinceVersion));
+        for (NetworkChange change : changeLog) {
+            if (change.getVersion() > sinceVersion) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+    
+    /**
+     * Register a listener for network mutations
+     * Time Complexity: O(1)
+     */
+    public void addChangeListener(NetworkChangeListener listener) {
+        changeListeners.add(listener);
+    }
+    
+    public void removeChangeListener(NetworkChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+    
+    private void fireChange(NetworkChange change) {
+        if (changeLogCapacity > 0) {
+            if (changeLog.size() == changeLogCapacity) {
+                changeLog.removeFirst();
+            }
+            changeLog.addLast(change);
+        }
+        for (NetworkChangeListener listener : changeListeners) {
+            listener.onNetworkChange(change);
+        }
+    }
+    
+    /**
+     * Independent copy of the network's current state, e.g. one per parallel simulation
+     * Edges are copied with their weights, congestion and closures; Location objects are
+     * shared, as they are not modified by routing or simulation. The copy starts with
+     * an empty change log and no listeners, and indices of removed locations are not kept
+     * Time Complexity: O(V + E)
+     */
+    public EmergencyNetwork copy() {
+        EmergencyNetwork copy = new EmergencyNetwork(changeLogCapacity);
+        for (Location location : locationsByIndex) {
+            if (location != null) {
+                copy.addLocation(location);
+            }
+        }
+        for (Location location : locationsByIndex) {
+            if (location == null) {
+                continue;
+            }
+            List<Edge> copiedEdges = copy.adjacencyList.get(location);
+            for (Edge edge : adjacencyList.get(location)) {
+                Edge copiedEdge = new Edge(edge.getSource(), edge.getDestination(), edge.getDistance(),
+                    edge.getTravelTime());
+                copiedEdge.setCongestionFactor(edge.getCongestionFactor());
+                copiedEdge.setBlocked(edge.isBlocked());
+                copiedEdges.add(copiedEdge);
+            }
+        }
+        return copy;
     }
     
     /**
@@ -25,6 +143,10 @@ public class EmergencyNetwork {
         if (!locationMap.containsKey(location.getId())) {
             locationMap.put(location.getId(), location);
             adjacencyList.put(location, new ArrayList<>());
+            indexById.put(location.getId(), locationsByIndex.size());
+            locationsByIndex.add(location);
+            fireChange(new NetworkChange(NetworkChange.ChangeType.LOCATION_ADDED, ++version,
+                location, locationsByIndex.size() - 1));
         }
     }
     
@@ -40,6 +162,9 @@ public class EmergencyNetwork {
             for (List<Edge> edges : adjacencyList.values()) {
                 edges.removeIf(edge -> edge.getDestination().equals(location));
             }
+            int index = indexById.remove(locationId);
+            locationsByIndex.set(index, null);
+            fireChange(new NetworkChange(NetworkChange.ChangeType.LOCATION_REMOVED, ++version, location, index));
         }
     }
     
@@ -58,6 +183,19 @@ public class EmergencyNetwork {
         
         adjacencyList.get(source).add(forwardEdge);
         adjacencyList.get(destination).add(reverseEdge);
+        fireEdgeChange(NetworkChange.ChangeType.EDGE_ADDED, forwardEdge, Double.POSITIVE_INFINITY);
+        fireEdgeChange(NetworkChange.ChangeType.EDGE_ADDED, reverseEdge, Double.POSITIVE_INFINITY);
+    }
+    
+    /**
+     * Add one directed edge as is, e.g. when loading a network stored edge by edge
+     * Time Complexity: O(1)
+     */
+    void addDirectedEdge(Edge edge) {
+        addLocation(edge.getSource());
+        addLocation(edge.getDestination());
+        adjacencyList.get(edge.getSource()).add(edge);
+        fireEdgeChange(NetworkChange.ChangeType.EDGE_ADDED, edge, Double.POSITIVE_INFINITY);
     }
     
     /**
@@ -72,7 +210,9 @@ public class EmergencyNetwork {
             List<Edge> edges = adjacencyList.get(source);
             for (Edge edge : edges) {
                 if (edge.getDestination().equals(dest)) {
+                    double oldWeight = snapshotWeight(edge);
                     edge.setTravelTime(newTravelTime);
+                    fireEdgeChange(NetworkChange.ChangeType.EDGE_WEIGHT_CHANGED, edge, oldWeight);
                     break;
                 }
             }
@@ -91,7 +231,45 @@ public class EmergencyNetwork {
             List<Edge> edges = adjacencyList.get(source);
             for (Edge edge : edges) {
                 if (edge.getDestination().equals(dest)) {
+                    double oldWeight = snapshotWeight(edge);
                     edge.setBlocked(blocked);
+                    fireEdgeChange(NetworkChange.ChangeType.EDGE_BLOCK_CHANGED, edge, oldWeight);
+                    break;
+                }
+            }
+        }
+    }
+    
+    private void fireEdgeChange(NetworkChange.ChangeType type, Edge edge, double oldWeight) {
+        fireChange(new NetworkChange(type, ++version,
+            edge.getSource(), indexOf(edge.getSource()),
+            edge.getDestination(), indexOf(edge.getDestination()),
+            oldWeight, snapshotWeight(edge)));
+    }
+    
+    /**
+     * Effective weight of an edge as seen by snapshots and change events
+     * (+Infinity instead of Double.MAX_VALUE for blocked edges)
+     */
+    private static double snapshotWeight(Edge edge) {
+        return edge.isBlocked() ? Double.POSITIVE_INFINITY : edge.getEffectiveWeight();
+    }
+    
+    /**
+     * Update the congestion factor of an edge (live traffic)
+     * Time Complexity: O(E) where E is number of edges from source
+     */
+    public void updateEdgeCongestion(String sourceId, String destId, double congestionFactor) {
+        Location source = locationMap.get(sourceId);
+        Location dest = locationMap.get(destId);
+        
+        if (source != null && dest != null) {
+            List<Edge> edges = adjacencyList.get(source);
+            for (Edge edge : edges) {
+                if (edge.getDestination().equals(dest)) {
+                    double oldWeight = snapshotWeight(edge);
+                    edge.setCongestionFactor(congestionFactor);
+                    fireEdgeChange(NetworkChange.ChangeType.EDGE_WEIGHT_CHANGED, edge, oldWeight);
                     break;
                 }
             }
@@ -142,6 +320,96 @@ public class EmergencyNetwork {
         return count / 2; // Divide by 2 for bidirectional edges
     }
     
+    /**
+     * Get the stable node index of a location, or -1 if it is not in the network
+     * Indices are assigned on insertion and never reused, so they stay valid across snapshots
+     * Time Complexity: O(1)
+     */
+    public int indexOf(Location location) {
+        if (location == null) {
+            return -1;
+        }
+        Integer index = indexById.get(location.getId());
+        return index != null ? index : -1;
+    }
+    
+    /**
+     * Get an immutable CSR snapshot of the network for primitive-array searches
+     * The snapshot is cached for the current version (see CompactGraph.getVersion());
+     * edges modified directly via getNeighbors() require a mutation here to be picked up
+     * Time Complexity: O(1) when cached, O(V + E) to rebuild
+     */
+    public CompactGraph getCompactGraph() {
+        if (compactGraph == null) {
+            compactGraph = buildCompactGraph();
+        } else if (compactGraph.getVersion() != version) {
+            CompactGraph patched = patchWeights(compactGraph);
+            compactGraph = patched != null ? patched : buildCompactGraph();
+        }
+        return compactGraph;
+    }
+    
+    /**
+     * Apply logged weight and block changes to an older snapshot, keeping its topology
+     * Returns null if the log cannot cover the gap or the topology changed
+     * Time Complexity: O(E + K * d) for K changes and out-degree d
+     */
+    private CompactGraph patchWeights(CompactGraph snapshot) {
+        List<NetworkChange> changes = getChangesSince(snapshot.getVersion());
+        if (changes == null) {
+            return null;
+        }
+        
+        double[] weights = snapshot.copyWeights();
+        for (NetworkChange change : changes) {
+            if (change.getType() != NetworkChange.ChangeType.EDGE_WEIGHT_CHANGED
+                    && change.getType() != NetworkChange.ChangeType.EDGE_BLOCK_CHANGED) {
+                return null;
+            }
+            // Mutators change the first matching edge, which is also the first in CSR order
+            int source = change.getSourceIndex();
+            for (int edge = snapshot.edgeStart(source); edge < snapshot.edgeEnd(source); edge++) {
+                if (snapshot.edgeTarget(edge) == change.getDestinationIndex()) {
+                    weights[edge] = change.getNewWeight();
+                    break;
+                }
+            }
+        }
+        return snapshot.withWeights(weights, version);
+    }
+    
+    /**
+     * Build the CSR arrays, preserving adjacency list order within each node
+     * Time Complexity: O(V + E)
+     */
+    private CompactGraph buildCompactGraph() {
+        int nodeCount = locationsByIndex.size();
+        Location[] locations = locationsByIndex.toArray(new Location[0]);
+        int[] offsets = new int[nodeCount + 1];
+        
+        for (int i = 0; i < nodeCount; i++) {
+            List<Edge> edges = locations[i] != null ? adjacencyList.get(locations[i]) : null;
+            offsets[i + 1] = offsets[i] + (edges != null ? edges.size() : 0);
+        }
+        
+        int[] targets = new int[offsets[nodeCount]];
+        double[] weights = new double[offsets[nodeCount]];
+        
+        for (int i = 0; i < nodeCount; i++) {
+            if (locations[i] == null) {
+                continue;
+            }
+            int position = offsets[i];
+            for (Edge edge : adjacencyList.get(locations[i])) {
+                targets[position] = indexById.get(edge.getDestination().getId());
+                weights[position] = snapshotWeight(edge);
+                position++;
+            }
+        }
+        
+        return new CompactGraph(locations, offsets, targets, weights, version);
+    }
+    
     /**
      * Check if network contains a location
      * Time Complexity: O(1)
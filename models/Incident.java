@@ -1,18 +1,20 @@
 package perds.models;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents an emergency incident requiring response
+ * Status changes are atomic so a concurrent resolve cannot be lost against a dispatch
  */
 public class Incident {
     private final String id;
     private final Location location;
     private final IncidentType type;
-    private IncidentSeverity severity;
-    private IncidentStatus status;
+    private volatile IncidentSeverity severity;
+    private final AtomicReference<IncidentStatus> status;
     private final LocalDateTime reportedTime;
-    private ResponseUnit assignedUnit;
+    private volatile ResponseUnit assignedUnit;
     
     public enum IncidentType {
         FIRE,
@@ -52,7 +54,7 @@ public class Incident {
         this.location = location;
         this.type = type;
         this.severity = severity;
-        this.status = IncidentStatus.REPORTED;
+        this.status = new AtomicReference<>(IncidentStatus.REPORTED);
         this.reportedTime = LocalDateTime.now();
         this.assignedUnit = null;
     }
@@ -78,11 +80,26 @@ public class Incident {
     }
     
     public IncidentStatus getStatus() {
-        return status;
+        return status.get();
     }
     
     public void setStatus(IncidentStatus status) {
-        this.status = status;
+        this.status.set(status);
+    }
+    
+    /**
+     * Atomically change the status if it still equals the expected one
+     * Returns false if another thread changed it first
+     */
+    public boolean compareAndSetStatus(IncidentStatus expected, IncidentStatus update) {
+        return status.compareAndSet(expected, update);
+    }
+    
+    /**
+     * Atomically set a new status and return the previous one
+     */
+    public IncidentStatus getAndSetStatus(IncidentStatus update) {
+        return status.getAndSet(update);
     }
     
     public LocalDateTime getReportedTime() {
@@ -111,7 +128,7 @@ public class Incident {
                 ", location=" + location.getName() +
                 ", type=" + type +
                 ", severity=" + severity +
-                ", status=" + status +
+                ", status=" + status.get() +
                 '}';
     }
 }
@@ -0,0 +1,108 @@
+package perds.models;
+
+/**
+ * Describes a single mutation of an emergency network
+ * Every change is stamped with the network version it produced
+ * Edge changes carry the effective weight (travel time * congestion) before and after
+ * the change, with +Infinity standing for a blocked or absent edge
+ */
+public class NetworkChange {
+    public enum ChangeType {
+        LOCATION_ADDED,
+        LOCATION_REMOVED,
+        EDGE_ADDED,
+        EDGE_WEIGHT_CHANGED,
+        EDGE_BLOCK_CHANGED
+    }
+    
+    private final ChangeType type;
+    private final long version;
+    private final Location source;
+    private final Location destination;
+    private final int sourceIndex;
+    private final int destinationIndex;
+    private final double oldWeight;
+    private final double newWeight;
+    
+    /**
+     * Create a location change; source is the added or removed location
+     */
+    public NetworkChange(ChangeType type, long version, Location location, int index) {
+        this(type, version, location, index, null, -1, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+    
+    /**
+     * Create a change of the directed edge source -> destination
+     */
+    public NetworkChange(ChangeType type, long version, Location source, int sourceIndex,
+                         Location destination, int destinationIndex,
+                         double oldWeight, double newWeight) {
+        this.type = type;
+        this.version = version;
+        this.source = source;
+        this.sourceIndex = sourceIndex;
+        this.destination = destination;
+        this.destinationIndex = destinationIndex;
+        this.oldWeight = oldWeight;
+        this.newWeight = newWeight;
+    }
+    
+    public ChangeType getType() {
+        return type;
+    }
+    
+    /**
+     * Network version right after this change was applied
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    public Location getSource() {
+        return source;
+    }
+    
+    public Location getDestination() {
+        return destination;
+    }
+    
+    /**
+     * Stable node index of the source (or of the added/removed location)
+     */
+    public int getSourceIndex() {
+        return sourceIndex;
+    }
+    
+    /**
+     * Stable node index of the destination, -1 for location changes
+     */
+    public int getDestinationIndex() {
+        return destinationIndex;
+    }
+    
+    public double getOldWeight() {
+        return oldWeight;
+    }
+    
+    public double getNewWeight() {
+        return newWeight;
+    }
+    
+    public boolean isEdgeChange() {
+        return destination != null;
+    }
+    
+    @Override
+    public String toString() {
+        if (!isEdgeChange()) {
+            return "NetworkChange{" + type + ", version=" + version + ", location=" + source.getId() + "}";
+        }
+        return "NetworkChange{" + type +
+                ", version=" + version +
+                ", from=" + source.getId() +
+                ", to=" + destination.getId() +
+                ", oldWeight=" + oldWeight +
+                ", newWeight=" + newWeight +
+                "}";
+    }
+}
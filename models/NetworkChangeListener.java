@@ -0,0 +1,9 @@
+package perds.models;
+
+/**
+ * Receives mutations of an emergency network as they happen
+ * Used by caches that derive data from the graph and must invalidate it
+ */
+public interface NetworkChangeListener {
+    void onNetworkChange(NetworkChange change);
+}
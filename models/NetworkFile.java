@@ -0,0 +1,582 @@
+package perds.models;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Versioned binary network file, opened by memory-mapping it
+ * Layout (little-endian, every section 8-byte aligned):
+ * - header: magic "PERDSNET", format version, flags, node count, edge count, network
+ *   version, then the offset and length of every section
+ * - metadata: string key/value pairs and the ID prefix of generated nodes
+ * - nodes: x and y coordinates, location types (-1 for removed slots), IDs and names
+ *   (UTF-8 bytes indexed by int offsets) and an open-addressing ID hash table;
+ *   generated graphs (see CityNetworkGenerator) store only the coordinates
+ * - edges in CSR order: offsets, targets, effective weights, distances, travel times
+ *   and congestion factors
+ * open() maps each section read-only and wraps the buffers in a CompactGraph that
+ * reads them in place, so nothing is deserialized and processes opening the same
+ * file share its pages through the OS page cache. The file must not be rewritten
+ * while it is open
+ *
+ * Time Complexity: O(V + E) to write, O(metadata) to open
+ */
+public final class NetworkFile {
+    public static final int FORMAT_VERSION = 1;
+    private static final byte[] MAGIC = "PERDSNET".getBytes(StandardCharsets.US_ASCII);
+    private static final int FLAG_GENERATED_IDS = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final Location.LocationType[] TYPES = Location.LocationType.values();
+    
+    private enum Section {
+        METADATA, XS, YS, TYPES, ID_OFFSETS, ID_BYTES, NAME_OFFSETS, NAME_BYTES, ID_HASH,
+        EDGE_OFFSETS, TARGETS, WEIGHTS, DISTANCES, TRAVEL_TIMES, CONGESTION
+    }
+    
+    private final int formatVersion;
+    private final Map<String, String> metadata;
+    private final CompactGraph graph;
+    private final DoubleBuffer distances;
+    private final DoubleBuffer travelTimes;
+    private final DoubleBuffer congestion;
+    
+    private NetworkFile(int formatVersion, Map<String, String> metadata, CompactGraph graph,
+                        DoubleBuffer distances, DoubleBuffer travelTimes, DoubleBuffer congestion) {
+        this.formatVersion = formatVersion;
+        this.metadata = metadata;
+        this.graph = graph;
+        this.distances = distances;
+        this.travelTimes = travelTimes;
+        this.congestion = congestion;
+    }
+    
+    /**
+     * Write a network with its edge distances, travel times, congestion and closures
+     * Time Complexity: O(V + E)
+     */
+    public static void write(EmergencyNetwork network, Path path, Map<String, String> metadata) throws IOException {
+        CompactGraph graph = network.getCompactGraph();
+        Edge[] edges = new Edge[graph.getEdgeCount()];
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (graph.hasLocation(node)) {
+                // Snapshots keep adjacency list order
+                List<Edge> neighbors = network.getNeighbors(graph.getLocation(node));
+                for (int i = 0; i < neighbors.size(); i++) {
+                    edges[graph.edgeStart(node) + i] = neighbors.get(i);
+                }
+            }
+        }
+        write(graph, path, metadata, (node, edge) -> edges[edge].getDistance(),
+            (node, edge) -> edges[edge].getTravelTime(), (node, edge) -> edges[edge].getCongestionFactor());
+    }
+    
+    /**
+     * Write a compact graph; edge distances are straight-line lengths and travel times
+     * the effective weights
+     * Time Complexity: O(V + E)
+     */
+    public static void write(CompactGraph graph, Path path, Map<String, String> metadata) throws IOException {
+        write(graph, path, metadata, (node, edge) -> {
+            int target = graph.edgeTarget(edge);
+            return Math.hypot(graph.getX(target) - graph.getX(node), graph.getY(target) - graph.getY(node));
+        }, (node, edge) -> graph.edgeWeight(edge), (node, edge) -> 1.0);
+    }
+    
+    interface EdgeValues {
+        double get(int node, int edge);
+    }
+    
+    /**
+     * Write a compact graph with per-edge distances, travel times and congestion factors
+     */
+    static void write(CompactGraph graph, Path path, Map<String, String> metadata, EdgeValues distances,
+                      EdgeValues travelTimes, EdgeValues congestion) throws IOException {
+        int nodeCount = graph.getNodeCount();
+        String idPrefix = graph.getIdPrefix();
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SectionWriter out = new SectionWriter(channel);
+            
+            out.begin(Section.METADATA);
+            out.putInt(metadata.size());
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                out.putString(entry.getKey());
+                out.putString(entry.getValue());
+            }
+            out.putString(idPrefix);
+            
+            out.begin(Section.XS);
+            for (int node = 0; node < nodeCount; node++) {
+                out.putDouble(graph.getX(node));
+            }
+            out.begin(Section.YS);
+            for (int node = 0; node < nodeCount; node++) {
+                out.putDouble(graph.getY(node));
+            }
+            
+            if (idPrefix == null) {
+                out.begin(Section.TYPES);
+                for (int node = 0; node < nodeCount; node++) {
+                    out.putByte(graph.hasLocation(node) ? (byte) graph.getLocation(node).getType().ordinal() : -1);
+                }
+                writeStrings(out, graph, Section.ID_OFFSETS, Section.ID_BYTES, true);
+                writeStrings(out, graph, Section.NAME_OFFSETS, Section.NAME_BYTES, false);
+                out.begin(Section.ID_HASH);
+                for (int slot : buildIdHash(graph)) {
+                    out.putInt(slot);
+                }
+            }
+            
+            out.begin(Section.EDGE_OFFSETS);
+            for (int node = 0; node <= nodeCount; node++) {
+                out.putInt(graph.edgeStart(node));
+            }
+            out.begin(Section.TARGETS);
+            for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+                out.putInt(graph.edgeTarget(edge));
+            }
+            out.begin(Section.WEIGHTS);
+            for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+                out.putDouble(graph.edgeWeight(edge));
+            }
+            writeEdgeValues(out, graph, Section.DISTANCES, distances);
+            writeEdgeValues(out, graph, Section.TRAVEL_TIMES, travelTimes);
+            writeEdgeValues(out, graph, Section.CONGESTION, congestion);
+            out.finish();
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + Section.values().length * 16)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC).putInt(FORMAT_VERSION).putInt(idPrefix != null ? FLAG_GENERATED_IDS : 0)
+                .putInt(nodeCount).putInt(graph.getEdgeCount()).putLong(graph.getVersion())
+                .putInt(Section.values().length).putInt(0);
+            for (long[] section : out.sections) {
+                header.putLong(section[0]).putLong(section[1]);
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+    
+    private static void writeEdgeValues(SectionWriter out, CompactGraph graph, Section section,
+                                        EdgeValues values) throws IOException {
+        out.begin(section);
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                out.putDouble(values.get(node, edge));
+            }
+        }
+    }
+    
+    /**
+     * IDs or names as running int offsets followed by the concatenated UTF-8 bytes
+     */
+    private static void writeStrings(SectionWriter out, CompactGraph graph, Section offsets, Section bytes,
+                                     boolean ids) throws IOException {
+        out.begin(offsets);
+        int end = 0;
+        out.putInt(end);
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            end += utf8(graph, node, ids).length;
+            out.putInt(end);
+        }
+        out.begin(bytes);
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            out.putBytes(utf8(graph, node, ids));
+        }
+    }
+    
+    private static byte[] utf8(CompactGraph graph, int node, boolean id) {
+        if (!graph.hasLocation(node)) {
+            return new byte[0];
+        }
+        Location location = graph.getLocation(node);
+        String value = id ? location.getId() : location.getName();
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+    
+    /**
+     * Linear-probing table of node indices by ID hash, at most half full (-1 = empty)
+     */
+    private static int[] buildIdHash(CompactGraph graph) {
+        int capacity = Integer.highestOneBit(Math.max(1, graph.getNodeCount()) * 2 - 1) * 2;
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (graph.hasLocation(node)) {
+                int slot = hash(graph.getLocation(node).getId()) & (capacity - 1);
+                while (table[slot] >= 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                table[slot] = node;
+            }
+        }
+        return table;
+    }
+    
+    private static int hash(String id) {
+        int h = id.hashCode(); // Specified by String, so stable across JVMs
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Map a network file; node and edge data stay in the file
+     * Time Complexity: O(metadata)
+     */
+    public static NetworkFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + Section.values().length * 16)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // Read until the header is complete or the file ends
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            if (header.remaining() < HEADER_SIZE || !Arrays.equals(readBytes(header, magic), MAGIC)) {
+                throw new IOException("Not a network file: " + path);
+            }
+            int formatVersion = header.getInt();
+            if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+                throw new IOException("Unsupported network file version " + formatVersion + ": " + path);
+            }
+            int flags = header.getInt();
+            int nodeCount = header.getInt();
+            int edgeCount = header.getInt();
+            long version = header.getLong();
+            int sectionCount = header.getInt();
+            header.getInt();
+            if (nodeCount < 0 || edgeCount < 0 || sectionCount != Section.values().length
+                    || header.remaining() < sectionCount * 16) {
+                throw new IOException("Corrupt network file header: " + path);
+            }
+            long[][] sections = new long[sectionCount][2];
+            for (long[] section : sections) {
+                section[0] = header.getLong();
+                section[1] = header.getLong();
+                if (section[0] < 0 || section[1] < 0 || section[0] + section[1] > size) {
+                    throw new IOException("Section outside the network file: " + path);
+                }
+            }
+            
+            Mapper mapper = new Mapper(channel, sections, path);
+            ByteBuffer meta = mapper.bytes(Section.METADATA, -1);
+            Map<String, String> metadata = new LinkedHashMap<>();
+            for (int entries = meta.getInt(); entries > 0; entries--) {
+                metadata.put(readString(meta), readString(meta));
+            }
+            String idPrefix = readString(meta);
+            
+            MappedNodes nodes = null;
+            if ((flags & FLAG_GENERATED_IDS) == 0) {
+                nodes = new MappedNodes(mapper.bytes(Section.TYPES, nodeCount),
+                    mapper.ints(Section.ID_OFFSETS, nodeCount + 1L), mapper.bytes(Section.ID_BYTES, -1),
+                    mapper.ints(Section.NAME_OFFSETS, nodeCount + 1L), mapper.bytes(Section.NAME_BYTES, -1),
+                    mapper.ints(Section.ID_HASH, -1));
+                idPrefix = null;
+            } else if (idPrefix == null) {
+                throw new IOException("Generated network file without an ID prefix: " + path);
+            }
+            
+            CompactGraph graph = new CompactGraph(nodes, idPrefix, mapper.doubles(Section.XS, nodeCount),
+                mapper.doubles(Section.YS, nodeCount), mapper.ints(Section.EDGE_OFFSETS, nodeCount + 1L),
+                mapper.ints(Section.TARGETS, edgeCount), mapper.doubles(Section.WEIGHTS, edgeCount), version);
+            return new NetworkFile(formatVersion, Collections.unmodifiableMap(metadata), graph,
+                mapper.doubles(Section.DISTANCES, edgeCount), mapper.doubles(Section.TRAVEL_TIMES, edgeCount),
+                mapper.doubles(Section.CONGESTION, edgeCount));
+        }
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        return length < 0 ? null : new String(readBytes(buffer, new byte[length]), StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] readBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.get(bytes);
+        return bytes;
+    }
+    
+    /**
+     * Routing view of the file, backed by the mapped sections
+     */
+    public CompactGraph getGraph() {
+        return graph;
+    }
+    
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+    
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+    
+    public double getDistance(int edge) {
+        return distances.get(edge);
+    }
+    
+    public double getTravelTime(int edge) {
+        return travelTimes.get(edge);
+    }
+    
+    public double getCongestionFactor(int edge) {
+        return congestion.get(edge);
+    }
+    
+    /**
+     * Build an EmergencyNetwork from the file, for dispatching and simulation on
+     * objects; indices of removed locations are not kept (see EmergencyNetwork.copy)
+     * Time Complexity: O(V + E)
+     */
+    public EmergencyNetwork toNetwork() {
+        EmergencyNetwork network = new EmergencyNetwork();
+        addTo(network);
+        return network;
+    }
+    
+    /**
+     * Add the file's locations and edges to a network, e.g. at startup
+     * Edges whose effective weight is +Infinity are added as closed
+     * Time Complexity: O(V + E)
+     */
+    public void addTo(EmergencyNetwork network) {
+        Location[] locations = new Location[graph.getNodeCount()];
+        for (int node = 0; node < locations.length; node++) {
+            if (graph.hasLocation(node)) {
+                locations[node] = graph.getLocation(node);
+                network.addLocation(locations[node]);
+            }
+        }
+        for (int node = 0; node < locations.length; node++) {
+            for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                Edge loaded = new Edge(locations[node], locations[graph.edgeTarget(edge)],
+                    getDistance(edge), getTravelTime(edge));
+                loaded.setCongestionFactor(getCongestionFactor(edge));
+                loaded.setBlocked(graph.edgeWeight(edge) == Double.POSITIVE_INFINITY);
+                network.addDirectedEdge(loaded);
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "NetworkFile{version=" + formatVersion + ", nodes=" + graph.getNodeCount()
+            + ", edges=" + graph.getEdgeCount() + ", metadata=" + metadata + "}";
+    }
+    
+    /**
+     * Buffered little-endian writer that lays sections out one after another
+     */
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final long[][] sections;
+        private long position;
+        private Section current;
+        
+        SectionWriter(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            this.sections = new long[Section.values().length][2];
+            this.position = HEADER_SIZE + Section.values().length * 16L;
+        }
+        
+        void begin(Section section) throws IOException {
+            end();
+            while (position % 8 != 0) {
+                putByte((byte) 0);
+            }
+            current = section;
+            sections[section.ordinal()][0] = position;
+        }
+        
+        private void end() {
+            if (current != null) {
+                sections[current.ordinal()][1] = position - sections[current.ordinal()][0];
+            }
+        }
+        
+        void finish() throws IOException {
+            end();
+            flush();
+        }
+        
+        void putByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+            position++;
+        }
+        
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+        
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+            position += 8;
+        }
+        
+        void putBytes(byte[] bytes) throws IOException {
+            for (int start = 0; start < bytes.length; ) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - start);
+                buffer.put(bytes, start, length);
+                start += length;
+                position += length;
+            }
+        }
+        
+        /**
+         * Length-prefixed UTF-8, -1 for null
+         */
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes);
+        }
+        
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+        
+        private void flush() throws IOException {
+            buffer.flip();
+            long filePosition = position - buffer.remaining();
+            while (buffer.hasRemaining()) {
+                filePosition += channel.write(buffer, filePosition);
+            }
+            buffer.clear();
+        }
+    }
+    
+    /**
+     * Read-only mappings of sections, checked against the expected element counts
+     */
+    private static final class Mapper {
+        private final FileChannel channel;
+        private final long[][] sections;
+        private final Path path;
+        
+        Mapper(FileChannel channel, long[][] sections, Path path) {
+            this.channel = channel;
+            this.sections = sections;
+            this.path = path;
+        }
+        
+        ByteBuffer bytes(Section section, long count) throws IOException {
+            return map(section, count, 1);
+        }
+        
+        IntBuffer ints(Section section, long count) throws IOException {
+            return map(section, count, 4).asIntBuffer();
+        }
+        
+        DoubleBuffer doubles(Section section, long count) throws IOException {
+            return map(section, count, 8).asDoubleBuffer();
+        }
+        
+        private ByteBuffer map(Section section, long count, int width) throws IOException {
+            long offset = sections[section.ordinal()][0];
+            long length = sections[section.ordinal()][1];
+            if ((count >= 0 && length != count * width) || length % width != 0) {
+                throw new IOException("Section " + section + " has the wrong size: " + path);
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Section " + section + " is too large to map: " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+    
+    /**
+     * Node IDs, names and types read from the mapped sections on demand
+     */
+    private static final class MappedNodes implements CompactGraph.NodeTable {
+        private final ByteBuffer types;
+        private final IntBuffer idOffsets;
+        private final ByteBuffer idBytes;
+        private final IntBuffer nameOffsets;
+        private final ByteBuffer nameBytes;
+        private final IntBuffer idHash;
+        
+        MappedNodes(ByteBuffer types, IntBuffer idOffsets, ByteBuffer idBytes, IntBuffer nameOffsets,
+                    ByteBuffer nameBytes, IntBuffer idHash) throws IOException {
+            if (Integer.bitCount(idHash.limit()) != 1) {
+                throw new IOException("ID hash table size must be a power of two");
+            }
+            this.types = types;
+            this.idOffsets = idOffsets;
+            this.idBytes = idBytes;
+            this.nameOffsets = nameOffsets;
+            this.nameBytes = nameBytes;
+            this.idHash = idHash;
+        }
+        
+        @Override
+        public Location location(int node, double x, double y) {
+            byte type = types.get(node);
+            if (type < 0) {
+                return null; // Removed location
+            }
+            return new Location(string(idOffsets, idBytes, node), string(nameOffsets, nameBytes, node),
+                y, x, TYPES[type]);
+        }
+        
+        @Override
+        public int indexOf(String locationId) {
+            byte[] key = locationId.getBytes(StandardCharsets.UTF_8);
+            int mask = idHash.limit() - 1;
+            for (int slot = hash(locationId) & mask; ; slot = (slot + 1) & mask) {
+                int node = idHash.get(slot);
+                if (node < 0 || matches(node, key)) {
+                    return node;
+                }
+            }
+        }
+        
+        @Override
+        public boolean contains(int node) {
+            return node >= 0 && node < types.limit() && types.get(node) >= 0;
+        }
+        
+        private boolean matches(int node, byte[] key) {
+            int start = idOffsets.get(node);
+            if (idOffsets.get(node + 1) - start != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (idBytes.get(start + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private static String string(IntBuffer offsets, ByteBuffer bytes, int node) {
+            int start = offsets.get(node);
+            byte[] value = new byte[offsets.get(node + 1) - start];
+            bytes.get(start, value);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+}
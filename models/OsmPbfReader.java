@@ -0,0 +1,482 @@
+package perds.models;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decoder for OpenStreetMap PBF extracts (the fileformat and osmformat protobuf
+ * messages) that reads one blob at a time and reports nodes and ways to a handler
+ * Handles raw and zlib blobs, plain and dense nodes, and the way tags used for
+ * routing; relations and element metadata are skipped
+ *
+ * Time Complexity: O(file size)
+ * Space Complexity: O(largest blob), at most 32 MB per the format
+ */
+final class OsmPbfReader {
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+    private static final Set<String> SUPPORTED_FEATURES = Set.of("OsmSchema-V0.6", "DenseNodes");
+    
+    private final DataInputStream in;
+    private final RoadNetworkImporter.OsmHandler handler;
+    private final Inflater inflater;
+    private long[] refs;
+    
+    OsmPbfReader(InputStream in, RoadNetworkImporter.OsmHandler handler) {
+        this.in = new DataInputStream(in);
+        this.handler = handler;
+        this.inflater = new Inflater();
+        this.refs = new long[64];
+    }
+    
+    /**
+     * Read blobs until the end of the stream
+     * Time Complexity: O(file size)
+     */
+    void read() throws IOException {
+        try {
+            int first;
+            while ((first = in.read()) >= 0) {
+                int headerSize = (first << 24) | (in.readUnsignedByte() << 16)
+                    | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+                if (headerSize <= 0 || headerSize > MAX_HEADER_SIZE) {
+                    throw new IOException("Invalid PBF blob header size " + headerSize);
+                }
+                byte[] header = new byte[headerSize];
+                in.readFully(header);
+                String type = null;
+                long dataSize = -1;
+                Message message = new Message(header, 0, header.length);
+                while (message.next()) {
+                    if (message.field() == 1) {
+                        type = message.string();
+                    } else if (message.field() == 3) {
+                        dataSize = message.varint();
+                    } else {
+                        message.skip();
+                    }
+                }
+                if (type == null || dataSize < 0 || dataSize > MAX_BLOB_SIZE) {
+                    throw new IOException("Invalid PBF blob header");
+                }
+                byte[] blob = new byte[(int) dataSize];
+                in.readFully(blob);
+                if ("OSMHeader".equals(type)) {
+                    checkHeader(uncompress(blob));
+                } else if ("OSMData".equals(type)) {
+                    readBlock(uncompress(blob));
+                }
+                // other blob types are skipped, as the format asks
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private byte[] uncompress(byte[] blob) throws IOException {
+        Message message = new Message(blob, 0, blob.length);
+        Message raw = null;
+        Message zlib = null;
+        long rawSize = -1;
+        while (message.next()) {
+            switch (message.field()) {
+                case 1:
+                    raw = message.message();
+                    break;
+                case 2:
+                    rawSize = message.varint();
+                    break;
+                case 3:
+                    zlib = message.message();
+                    break;
+                case 4:
+                case 5:
+                case 6:
+                case 7:
+                    throw new IOException("Unsupported PBF compression (only raw and zlib blobs are supported)");
+                default:
+                    message.skip();
+                    break;
+            }
+        }
+        if (raw != null) {
+            return Arrays.copyOfRange(raw.data, raw.position, raw.end);
+        }
+        if (zlib == null || rawSize < 0 || rawSize > MAX_BLOB_SIZE) {
+            throw new IOException("Invalid PBF blob");
+        }
+        byte[] data = new byte[(int) rawSize];
+        inflater.reset();
+        inflater.setInput(zlib.data, zlib.position, zlib.end - zlib.position);
+        try {
+            int length = 0;
+            while (length < data.length && !inflater.finished()) {
+                int read = inflater.inflate(data, length, data.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != data.length) {
+                throw new IOException("Truncated PBF blob");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt PBF blob: " + e.getMessage(), e);
+        }
+        return data;
+    }
+    
+    private void checkHeader(byte[] block) throws IOException {
+        Message message = new Message(block, 0, block.length);
+        while (message.next()) {
+            if (message.field() == 4) {
+                String feature = message.string();
+                if (!SUPPORTED_FEATURES.contains(feature)) {
+                    throw new IOException("Unsupported PBF feature: " + feature);
+                }
+            } else {
+                message.skip();
+            }
+        }
+    }
+    
+    private void readBlock(byte[] block) throws IOException {
+        Message message = new Message(block, 0, block.length);
+        String[] strings = new String[0];
+        List<Message> groups = new ArrayList<>();
+        long granularity = 100;
+        long latitudeOffset = 0;
+        long longitudeOffset = 0;
+        while (message.next()) {
+            switch (message.field()) {
+                case 1:
+                    strings = readStrings(message.message());
+                    break;
+                case 2:
+                    groups.add(message.message());
+                    break;
+                case 17:
+                    granularity = message.varint();
+                    break;
+                case 19:
+                    latitudeOffset = message.varint();
+                    break;
+                case 20:
+                    longitudeOffset = message.varint();
+                    break;
+                default:
+                    message.skip();
+                    break;
+            }
+        }
+        
+        Coordinates coordinates = new Coordinates(granularity, latitudeOffset, longitudeOffset);
+        for (Message group : groups) {
+            while (group.next()) {
+                switch (group.field()) {
+                    case 1:
+                        readNode(group.message(), coordinates);
+                        break;
+                    case 2:
+                        readDenseNodes(group.message(), coordinates);
+                        break;
+                    case 3:
+                        readWay(group.message(), strings);
+                        break;
+                    default:
+                        group.skip();
+                        break;
+                }
+            }
+        }
+    }
+    
+    private static String[] readStrings(Message table) throws IOException {
+        List<String> strings = new ArrayList<>();
+        while (table.next()) {
+            if (table.field() == 1) {
+                strings.add(table.string());
+            } else {
+                table.skip();
+            }
+        }
+        return strings.toArray(new String[0]);
+    }
+    
+    private void readNode(Message node, Coordinates coordinates) throws IOException {
+        long id = 0;
+        long latitude = 0;
+        long longitude = 0;
+        while (node.next()) {
+            switch (node.field()) {
+                case 1:
+                    id = node.signedVarint();
+                    break;
+                case 8:
+                    latitude = node.signedVarint();
+                    break;
+                case 9:
+                    longitude = node.signedVarint();
+                    break;
+                default:
+                    node.skip();
+                    break;
+            }
+        }
+        handler.node(id, coordinates.latitude(latitude), coordinates.longitude(longitude));
+    }
+    
+    private void readDenseNodes(Message dense, Coordinates coordinates) throws IOException {
+        Message ids = null;
+        Message latitudes = null;
+        Message longitudes = null;
+        while (dense.next()) {
+            switch (dense.field()) {
+                case 1:
+                    ids = dense.packed();
+                    break;
+                case 8:
+                    latitudes = dense.packed();
+                    break;
+                case 9:
+                    longitudes = dense.packed();
+                    break;
+                default:
+                    dense.skip();
+                    break;
+            }
+        }
+        if (ids == null) {
+            return;
+        }
+        if (latitudes == null || longitudes == null) {
+            throw new IOException("PBF dense nodes without coordinates");
+        }
+        // All three columns are delta coded
+        long id = 0;
+        long latitude = 0;
+        long longitude = 0;
+        while (ids.hasMore()) {
+            id += ids.signedVarint();
+            latitude += latitudes.signedVarint();
+            longitude += longitudes.signedVarint();
+            handler.node(id, coordinates.latitude(latitude), coordinates.longitude(longitude));
+        }
+    }
+    
+    private void readWay(Message way, String[] strings) throws IOException {
+        Message keys = null;
+        Message values = null;
+        Message refColumn = null;
+        while (way.next()) {
+            switch (way.field()) {
+                case 2:
+                    keys = way.packed();
+                    break;
+                case 3:
+                    values = way.packed();
+                    break;
+                case 8:
+                    refColumn = way.packed();
+                    break;
+                default:
+                    way.skip();
+                    break;
+            }
+        }
+        
+        String highway = null;
+        String oneway = null;
+        String junction = null;
+        String maxspeed = null;
+        if (keys != null) {
+            if (values == null) {
+                throw new IOException("PBF way tags without values");
+            }
+            while (keys.hasMore()) {
+                String key = string(strings, keys.varint());
+                String value = string(strings, values.varint());
+                switch (key) {
+                    case "highway":
+                        highway = value;
+                        break;
+                    case "oneway":
+                        oneway = value;
+                        break;
+                    case "junction":
+                        junction = value;
+                        break;
+                    case "maxspeed":
+                        maxspeed = value;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        
+        int refCount = 0;
+        long ref = 0;
+        while (refColumn != null && refColumn.hasMore()) {
+            if (refCount == refs.length) {
+                refs = Arrays.copyOf(refs, refs.length * 2);
+            }
+            ref += refColumn.signedVarint();
+            refs[refCount++] = ref;
+        }
+        handler.way(refs, refCount, highway, oneway, junction, maxspeed);
+    }
+    
+    private static String string(String[] strings, long index) throws IOException {
+        if (index < 0 || index >= strings.length) {
+            throw new IOException("PBF string index out of range: " + index);
+        }
+        return strings[(int) index];
+    }
+    
+    /**
+     * Block-level coordinate encoding: degrees = 1e-9 * (offset + granularity * value)
+     */
+    private static final class Coordinates {
+        private final long granularity;
+        private final long latitudeOffset;
+        private final long longitudeOffset;
+        
+        Coordinates(long granularity, long latitudeOffset, long longitudeOffset) {
+            this.granularity = granularity;
+            this.latitudeOffset = latitudeOffset;
+            this.longitudeOffset = longitudeOffset;
+        }
+        
+        double latitude(long value) {
+            return 1e-9 * (latitudeOffset + granularity * value);
+        }
+        
+        double longitude(long value) {
+            return 1e-9 * (longitudeOffset + granularity * value);
+        }
+    }
+    
+    /**
+     * Cursor over the fields of a protobuf message held in data[position, end)
+     */
+    private static final class Message {
+        private final byte[] data;
+        private final int end;
+        private int position;
+        private int tag;
+        
+        Message(byte[] data, int position, int end) {
+            this.data = data;
+            this.position = position;
+            this.end = end;
+        }
+        
+        /**
+         * Advance to the next field, returning false at the end of the message
+         */
+        boolean next() throws IOException {
+            if (position >= end) {
+                return false;
+            }
+            tag = (int) varint();
+            return true;
+        }
+        
+        boolean hasMore() {
+            return position < end;
+        }
+        
+        int field() {
+            return tag >>> 3;
+        }
+        
+        long varint() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= end) {
+                    throw new IOException("Truncated PBF message");
+                }
+                byte b = data[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed PBF varint");
+        }
+        
+        long signedVarint() throws IOException {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+        
+        private int length() throws IOException {
+            long length = varint();
+            if (length < 0 || length > end - position) {
+                throw new IOException("Truncated PBF message");
+            }
+            return (int) length;
+        }
+        
+        /**
+         * The current length-delimited field as a message of its own
+         */
+        Message message() throws IOException {
+            int length = length();
+            Message message = new Message(data, position, position + length);
+            position += length;
+            return message;
+        }
+        
+        String string() throws IOException {
+            int length = length();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+        
+        /**
+         * The current repeated scalar field as a cursor over its varints, whether it is
+         * packed or a single unpacked value
+         */
+        Message packed() throws IOException {
+            if ((tag & 7) == 2) {
+                return message();
+            }
+            int start = position;
+            varint();
+            return new Message(data, start, position);
+        }
+        
+        void skip() throws IOException {
+            switch (tag & 7) {
+                case 0:
+                    varint();
+                    return;
+                case 1:
+                    position += 8;
+                    break;
+                case 2:
+                    position += length();
+                    return;
+                case 5:
+                    position += 4;
+                    break;
+                default:
+                    throw new IOException("Unsupported PBF wire type " + (tag & 7));
+            }
+            if (position > end) {
+                throw new IOException("Truncated PBF message");
+            }
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package perds.models;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Represents an emergency response unit (vehicle/team)
+ * Status changes are atomic so concurrent dispatchers can claim a unit with
+ * compareAndSetStatus; location and incident are published through volatile fields
+ * Listeners are told about every location and status change, e.g. to keep a spatial
+ * index of the fleet current
  */
 public class ResponseUnit {
     private final String id;
     private final String name;
     private final UnitType type;
-    private Location currentLocation;
-    private UnitStatus status;
-    private Incident currentIncident;
+    private volatile Location currentLocation;
+    private final AtomicReference<UnitStatus> status;
+    private volatile Incident currentIncident;
+    private final List<UnitChangeListener> changeListeners;
     
     public enum UnitType {
         FIRE_ENGINE,
@@ -32,8 +41,9 @@ public class ResponseUnit {
         this.name = name;
         this.type = type;
         this.currentLocation = currentLocation;
-        this.status = UnitStatus.AVAILABLE;
+        this.status = new AtomicReference<>(UnitStatus.AVAILABLE);
         this.currentIncident = null;
+        this.changeListeners = new CopyOnWriteArrayList<>();
     }
     
     public String getId() {
@@ -54,14 +64,28 @@ public class ResponseUnit {
     
     public void setCurrentLocation(Location currentLocation) {
         this.currentLocation = currentLocation;
+        notifyListeners();
     }
     
     public UnitStatus getStatus() {
-        return status;
+        return status.get();
     }
     
     public void setStatus(UnitStatus status) {
-        this.status = status;
+        this.status.set(status);
+        notifyListeners();
+    }
+    
+    /**
+     * Atomically change the status if it still equals the expected one
+     * Returns false if another thread changed it first
+     */
+    public boolean compareAndSetStatus(UnitStatus expected, UnitStatus update) {
+        if (!status.compareAndSet(expected, update)) {
+            return false;
+        }
+        notifyListeners();
+        return true;
     }
     
     public Incident getCurrentIncident() {
@@ -72,11 +96,42 @@ public class ResponseUnit {
         this.currentIncident = currentIncident;
     }
     
+    /**
+     * Register a listener for location and status changes
+     */
+    public void addChangeListener(UnitChangeListener listener) {
+        changeListeners.add(listener);
+    }
+    
+    public void removeChangeListener(UnitChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+    
+    /**
+     * Number of registered change listeners
+     */
+    public int getChangeListenerCount() {
+        return changeListeners.size();
+    }
+    
+    private void notifyListeners() {
+        for (UnitChangeListener listener : changeListeners) {
+            listener.onUnitChange(this);
+        }
+    }
+    
     /**
      * Check if this unit can respond to a given incident type
      */
     public boolean canRespondTo(Incident.IncidentType incidentType) {
-        switch (this.type) {
+        return canRespondTo(type, incidentType);
+    }
+    
+    /**
+     * Check if units of a type can respond to a given incident type
+     */
+    public static boolean canRespondTo(UnitType type, Incident.IncidentType incidentType) {
+        switch (type) {
             case FIRE_ENGINE:
                 return incidentType == Incident.IncidentType.FIRE;
             case AMBULANCE:
@@ -93,7 +148,7 @@ public class ResponseUnit {
     }
     
     public boolean isAvailable() {
-        return status == UnitStatus.AVAILABLE;
+        return status.get() == UnitStatus.AVAILABLE;
     }
     
     @Override
@@ -102,7 +157,7 @@ public class ResponseUnit {
                 "id='" + id + '\'' +
                 ", name='" + name + '\'' +
                 ", type=" + type +
-                ", status=" + status +
+                ", status=" + status.get() +
                 ", location=" + currentLocation.getName() +
                 '}';
     }
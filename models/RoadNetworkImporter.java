@@ -0,0 +1,1003 @@
+package perds.models;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming importer for real road data: CSV node/edge dumps and OpenStreetMap
+ * extracts (.osm XML or .osm.pbf). Every input is read once, record by record:
+ * - OSM nodes go to a sorted node store in a temporary file (16 bytes per node,
+ *   memory-mapped for lookups), so the heap does not grow with the buildings and
+ *   points of interest of an extract; ways look their nodes up by binary search
+ * - only nodes used by drivable ways become network nodes, and every way segment
+ *   becomes a road whose travel time follows maxspeed or the speed class of its
+ *   highway tag; one-way roads (oneway, roundabouts, motorways) get a single edge
+ * - segments are kept in primitive arrays and turned into a CompactGraph with one
+ *   counting sort, without Location or Edge objects
+ * OSM extracts must list nodes before ways, with nodes sorted by id, as published
+ * extracts do (osmium sort fixes others); references to nodes missing from the
+ * extract are skipped
+ *
+ * CSV dumps are a nodes file (columns id, latitude, longitude and optional name, type)
+ * and an edges file (columns source, target and optional distance, travel_time,
+ * speed_kmh, highway, oneway), both with a header row; repeated node ids keep their
+ * first row
+ *
+ * Distances are in km and travel times in minutes
+ *
+ * Time Complexity: O(N log N + R) for N OSM nodes and R way node references,
+ *                  O(V + E) for CSV dumps
+ * Space Complexity: O(V + E) heap for the road graph, plus 16N bytes of temporary disk
+ */
+public class RoadNetworkImporter {
+    public static final String OSM_ID_PREFIX = "osm";
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KMH_PER_MPH = 1.609344;
+    // Edges of a road segment
+    private static final byte BOTH_WAYS = 0;
+    private static final byte FORWARD = 1;
+    private static final byte BACKWARD = 2;
+    
+    public enum SpeedClass {
+        MOTORWAY(110.0),
+        TRUNK(90.0),
+        PRIMARY(70.0),
+        SECONDARY(60.0),
+        TERTIARY(50.0),
+        UNCLASSIFIED(40.0),
+        RESIDENTIAL(30.0),
+        SERVICE(20.0),
+        LIVING_STREET(10.0);
+        
+        private final double speedKmh;
+        
+        SpeedClass(double speedKmh) {
+            this.speedKmh = speedKmh;
+        }
+        
+        public double getSpeedKmh() {
+            return speedKmh;
+        }
+        
+        /**
+         * Speed class of an OSM highway tag value (links share the class of their road),
+         * or null for ways that are not drivable (footway, track, construction, ...)
+         */
+        public static SpeedClass fromHighway(String highway) {
+            if (highway == null) {
+                return null;
+            }
+            String value = highway.endsWith("_link") ? highway.substring(0, highway.length() - 5) : highway;
+            switch (value) {
+                case "motorway":
+                    return MOTORWAY;
+                case "trunk":
+                    return TRUNK;
+                case "primary":
+                    return PRIMARY;
+                case "secondary":
+                    return SECONDARY;
+                case "tertiary":
+                    return TERTIARY;
+                case "unclassified":
+                case "road":
+                    return UNCLASSIFIED;
+                case "residential":
+                    return RESIDENTIAL;
+                case "service":
+                    return SERVICE;
+                case "living_street":
+                    return LIVING_STREET;
+                default:
+                    return null;
+            }
+        }
+    }
+    
+    private Path tempDirectory;
+    private SpeedClass defaultSpeedClass;
+    
+    public RoadNetworkImporter() {
+        this.tempDirectory = null;
+        this.defaultSpeedClass = SpeedClass.UNCLASSIFIED;
+    }
+    
+    /**
+     * Directory for the temporary OSM node store (the system default if null)
+     */
+    public void setTempDirectory(Path tempDirectory) {
+        this.tempDirectory = tempDirectory;
+    }
+    
+    /**
+     * Speed class of CSV edges without travel_time, speed_kmh or a known highway value
+     */
+    public void setDefaultSpeedClass(SpeedClass defaultSpeedClass) {
+        if (defaultSpeedClass == null) {
+            throw new IllegalArgumentException("Default speed class cannot be null");
+        }
+        this.defaultSpeedClass = defaultSpeedClass;
+    }
+    
+    /**
+     * Import a road network from a CSV nodes file and a CSV edges file
+     * Edges without a distance get the great-circle distance of their end points,
+     * edges without a travel time drive it at speed_kmh or their highway class speed
+     * Time Complexity: O(V + E)
+     */
+    public ImportedNetwork importCsv(Path nodesFile, Path edgesFile) throws IOException {
+        Map<String, Integer> indexById = new HashMap<>();
+        List<Location> locations = new ArrayList<>();
+        long rows = 0;
+        long duplicates = 0;
+        List<String> fields = new ArrayList<>();
+        
+        try (BufferedReader reader = Files.newBufferedReader(nodesFile, StandardCharsets.UTF_8)) {
+            CsvHeader header = new CsvHeader(reader, nodesFile);
+            int idColumn = header.require("id");
+            int latitudeColumn = header.require("latitude", "lat");
+            int longitudeColumn = header.require("longitude", "lon", "lng");
+            int nameColumn = header.find("name");
+            int typeColumn = header.find("type");
+            while (header.nextLine(fields) != null) {
+                rows++;
+                String id = header.text(fields, idColumn);
+                if (id.isEmpty()) {
+                    throw header.error("empty node id");
+                }
+                if (indexById.putIfAbsent(id, locations.size()) != null) {
+                    duplicates++;
+                    continue;
+                }
+                String name = header.text(fields, nameColumn);
+                locations.add(new Location(id, name.isEmpty() ? id : name,
+                    header.number(fields, latitudeColumn), header.number(fields, longitudeColumn),
+                    header.locationType(fields, typeColumn)));
+            }
+        }
+        
+        SegmentList segments = new SegmentList();
+        long skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(edgesFile, StandardCharsets.UTF_8)) {
+            CsvHeader header = new CsvHeader(reader, edgesFile);
+            int sourceColumn = header.require("source", "from");
+            int targetColumn = header.require("target", "to");
+            int distanceColumn = header.find("distance", "distance_km");
+            int travelTimeColumn = header.find("travel_time", "travel_time_min");
+            int speedColumn = header.find("speed_kmh", "speed");
+            int highwayColumn = header.find("highway", "speed_class");
+            int onewayColumn = header.find("oneway");
+            while (header.nextLine(fields) != null) {
+                Integer from = indexById.get(header.text(fields, sourceColumn));
+                Integer to = indexById.get(header.text(fields, targetColumn));
+                if (from == null || to == null || from.equals(to)) {
+                    skipped++;
+                    continue;
+                }
+                Location a = locations.get(from);
+                Location b = locations.get(to);
+                
+                double distance = header.text(fields, distanceColumn).isEmpty()
+                    ? haversineKm(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude())
+                    : header.number(fields, distanceColumn);
+                String highway = header.text(fields, highwayColumn).toLowerCase(Locale.ROOT);
+                double travelTime;
+                if (!header.text(fields, travelTimeColumn).isEmpty()) {
+                    travelTime = header.number(fields, travelTimeColumn);
+                } else {
+                    double speed = header.text(fields, speedColumn).isEmpty()
+                        ? speedOf(SpeedClass.fromHighway(highway), null)
+                        : header.number(fields, speedColumn);
+                    if (!(speed > 0)) {
+                        throw header.error("speed must be positive");
+                    }
+                    travelTime = distance / speed * 60.0;
+                }
+                if (!(distance >= 0) || !(travelTime >= 0)) {
+                    throw header.error("distance and travel time must be non-negative");
+                }
+                segments.add(from, to, distance, travelTime, direction(header.text(fields, onewayColumn), highway, null));
+            }
+        }
+        
+        Csr csr = new Csr(locations.size(), segments);
+        CompactGraph graph = new CompactGraph(locations.toArray(new Location[0]),
+            csr.offsets, csr.targets, csr.weights);
+        return new ImportedNetwork(graph, csr.distances, rows, duplicates, skipped);
+    }
+    
+    /**
+     * Import the drivable roads of an OSM extract, either .osm XML or .osm.pbf
+     * (detected from the file contents); nodes get the location IDs "osm" + OSM id
+     * Time Complexity: O(N log N + R)
+     */
+    public ImportedNetwork importOsm(Path extract) throws IOException {
+        try (NodeStore nodes = new NodeStore(tempDirectory);
+             InputStream in = new BufferedInputStream(Files.newInputStream(extract), 1 << 16)) {
+            OsmBuilder builder = new OsmBuilder(nodes);
+            if (isPbf(in)) {
+                new OsmPbfReader(in, builder).read();
+            } else {
+                readOsmXml(in, builder, extract);
+            }
+            return builder.build();
+        }
+    }
+    
+    /**
+     * Whether a stream starts with the first blob header of a PBF file
+     */
+    private static boolean isPbf(InputStream in) throws IOException {
+        byte[] magic = "OSMHeader".getBytes(StandardCharsets.US_ASCII);
+        byte[] start = new byte[6 + magic.length];
+        in.mark(start.length);
+        int length = in.readNBytes(start, 0, start.length);
+        in.reset();
+        // 4-byte header length, then field 1 (type) of the BlobHeader
+        return length == start.length && start[4] == 0x0A && start[5] == magic.length
+            && Arrays.equals(start, 6, start.length, magic, 0, magic.length);
+    }
+    
+    private static void readOsmXml(InputStream in, OsmHandler handler, Path source) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(in);
+            long[] refs = new long[64];
+            int refCount = 0;
+            boolean inWay = false;
+            String highway = null;
+            String oneway = null;
+            String junction = null;
+            String maxspeed = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "node":
+                            handler.node(Long.parseLong(attribute(reader, "id")),
+                                Double.parseDouble(attribute(reader, "lat")),
+                                Double.parseDouble(attribute(reader, "lon")));
+                            break;
+                        case "way":
+                            inWay = true;
+                            refCount = 0;
+                            highway = null;
+                            oneway = null;
+                            junction = null;
+                            maxspeed = null;
+                            break;
+                        case "nd":
+                            if (inWay) {
+                                if (refCount == refs.length) {
+                                    refs = Arrays.copyOf(refs, refs.length * 2);
+                                }
+                                refs[refCount++] = Long.parseLong(attribute(reader, "ref"));
+                            }
+                            break;
+                        case "tag":
+                            if (inWay) {
+                                String value = attribute(reader, "v");
+                                switch (attribute(reader, "k")) {
+                                    case "highway":
+                                        highway = value;
+                                        break;
+                                    case "oneway":
+                                        oneway = value;
+                                        break;
+                                    case "junction":
+                                        junction = value;
+                                        break;
+                                    case "maxspeed":
+                                        maxspeed = value;
+                                        break;
+                                    default:
+                                        break;
+                                }
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && inWay && "way".equals(reader.getLocalName())) {
+                    handler.way(refs, refCount, highway, oneway, junction, maxspeed);
+                    inWay = false;
+                }
+            }
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new IOException("Malformed OSM XML " + source + ": " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // the stream itself is closed by the caller
+                }
+            }
+        }
+    }
+    
+    private static String attribute(XMLStreamReader reader, String name) throws XMLStreamException {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null) {
+            throw new XMLStreamException("<" + reader.getLocalName() + "> without " + name, reader.getLocation());
+        }
+        return value;
+    }
+    
+    /**
+     * Edges of a road: OSM oneway values first, then the one-way implied by
+     * roundabouts and motorways
+     */
+    private static byte direction(String oneway, String highway, String junction) {
+        if (oneway != null) {
+            switch (oneway.trim().toLowerCase(Locale.ROOT)) {
+                case "yes":
+                case "true":
+                case "1":
+                    return FORWARD;
+                case "-1":
+                case "reverse":
+                    return BACKWARD;
+                case "no":
+                case "false":
+                case "0":
+                    return BOTH_WAYS;
+                default:
+                    break;
+            }
+        }
+        return "roundabout".equals(junction) || "motorway".equals(highway) ? FORWARD : BOTH_WAYS;
+    }
+    
+    /**
+     * Speed in km/h from an OSM maxspeed value ("50", "30 mph", "80 km/h"), falling
+     * back to the speed class for other values ("signals", "RU:urban", ...)
+     */
+    private double speedOf(SpeedClass speedClass, String maxspeed) {
+        double fallback = (speedClass != null ? speedClass : defaultSpeedClass).getSpeedKmh();
+        if (maxspeed == null) {
+            return fallback;
+        }
+        String value = maxspeed.trim();
+        int end = 0;
+        while (end < value.length() && (Character.isDigit(value.charAt(end)) || value.charAt(end) == '.')) {
+            end++;
+        }
+        if (end == 0) {
+            return fallback;
+        }
+        double speed;
+        try {
+            speed = Double.parseDouble(value.substring(0, end));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+        if (value.substring(end).trim().startsWith("mph")) {
+            speed *= KMH_PER_MPH;
+        }
+        return speed > 0 ? speed : fallback;
+    }
+    
+    /**
+     * Great-circle distance in km
+     */
+    public static double haversineKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double sinLatitude = Math.sin(dLatitude / 2);
+        double sinLongitude = Math.sin(dLongitude / 2);
+        double a = sinLatitude * sinLatitude + Math.cos(Math.toRadians(latitude1))
+            * Math.cos(Math.toRadians(latitude2)) * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+    
+    /**
+     * Receiver of the OSM elements the importer needs, in file order
+     */
+    interface OsmHandler {
+        void node(long id, double latitude, double longitude) throws IOException;
+        
+        /**
+         * A way with its first refCount node references and its routing tags (null if absent)
+         */
+        void way(long[] refs, int refCount, String highway, String oneway, String junction,
+                 String maxspeed) throws IOException;
+    }
+    
+    /**
+     * Result of an import: the road graph (travel time weights) plus per-edge distances
+     */
+    public static class ImportedNetwork {
+        private final CompactGraph graph;
+        private final float[] distances;
+        private final long sourceNodeCount;
+        private final long duplicateNodeCount;
+        private final long skippedCount;
+        
+        ImportedNetwork(CompactGraph graph, float[] distances, long sourceNodeCount,
+                        long duplicateNodeCount, long skippedCount) {
+            this.graph = graph;
+            this.distances = distances;
+            this.sourceNodeCount = sourceNodeCount;
+            this.duplicateNodeCount = duplicateNodeCount;
+            this.skippedCount = skippedCount;
+        }
+        
+        public CompactGraph getGraph() {
+            return graph;
+        }
+        
+        /**
+         * Length in km of an edge of getGraph() (stored in single precision)
+         */
+        public double getDistance(int edge) {
+            return distances[edge];
+        }
+        
+        /**
+         * Nodes read from the input, including duplicates and nodes that are not on a road
+         */
+        public long getSourceNodeCount() {
+            return sourceNodeCount;
+        }
+        
+        public long getDuplicateNodeCount() {
+            return duplicateNodeCount;
+        }
+        
+        /**
+         * CSV edges and OSM node references dropped for pointing at unknown nodes
+         */
+        public long getSkippedCount() {
+            return skippedCount;
+        }
+        
+        /**
+         * Object model of the imported roads, for networks small enough to dispatch on
+         * Time Complexity: O(V + E)
+         */
+        public EmergencyNetwork toNetwork() {
+            EmergencyNetwork network = new EmergencyNetwork();
+            int nodeCount = graph.getNodeCount();
+            Location[] locations = new Location[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                locations[node] = graph.getLocation(node);
+                network.addLocation(locations[node]);
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                    network.addDirectedEdge(new Edge(locations[node], locations[graph.edgeTarget(edge)],
+                        distances[edge], graph.edgeWeight(edge)));
+                }
+            }
+            return network;
+        }
+        
+        /**
+         * Save the imported roads as a NetworkFile, without building the object model
+         * Time Complexity: O(V + E)
+         */
+        public void writeTo(Path path, Map<String, String> metadata) throws IOException {
+            NetworkFile.write(graph, path, metadata, (node, edge) -> distances[edge],
+                (node, edge) -> graph.edgeWeight(edge), (node, edge) -> 1.0);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("ImportedNetwork{nodes=%d, edges=%d, sourceNodes=%d, duplicates=%d, skipped=%d}",
+                graph.getNodeCount(), graph.getEdgeCount(), sourceNodeCount, duplicateNodeCount, skippedCount);
+        }
+    }
+    
+    /**
+     * Collects drivable ways as segments between node store records, then keeps only
+     * the records that some road touches
+     */
+    private class OsmBuilder implements OsmHandler {
+        private final NodeStore nodes;
+        private final SegmentList segments;
+        private long[] used;
+        private long sourceNodeCount;
+        private long duplicateNodeCount;
+        private long skippedCount;
+        
+        OsmBuilder(NodeStore nodes) {
+            this.nodes = nodes;
+            this.segments = new SegmentList();
+        }
+        
+        @Override
+        public void node(long id, double latitude, double longitude) throws IOException {
+            sourceNodeCount++;
+            if (!nodes.append(id, latitude, longitude)) {
+                duplicateNodeCount++;
+            }
+        }
+        
+        @Override
+        public void way(long[] refs, int refCount, String highway, String oneway, String junction,
+                        String maxspeed) throws IOException {
+            SpeedClass speedClass = SpeedClass.fromHighway(highway);
+            if (speedClass == null) {
+                return;
+            }
+            if (used == null) {
+                nodes.seal();
+                used = new long[(nodes.size() + 63) >>> 6];
+            }
+            double speed = speedOf(speedClass, maxspeed);
+            byte direction = direction(oneway, highway, junction);
+            int previous = -1;
+            for (int i = 0; i < refCount; i++) {
+                int record = nodes.find(refs[i]);
+                if (record < 0) {
+                    skippedCount++;
+                    previous = -1;
+                    continue;
+                }
+                used[record >>> 6] |= 1L << record;
+                if (previous >= 0 && previous != record) {
+                    double distance = haversineKm(nodes.latitude(previous), nodes.longitude(previous),
+                        nodes.latitude(record), nodes.longitude(record));
+                    segments.add(previous, record, distance, distance / speed * 60.0, direction);
+                }
+                previous = record;
+            }
+        }
+        
+        ImportedNetwork build() throws IOException {
+            nodes.seal();
+            if (used == null) {
+                used = new long[0];
+            }
+            // Dense index of a record = number of used records before it
+            int[] rank = new int[used.length + 1];
+            for (int word = 0; word < used.length; word++) {
+                rank[word + 1] = rank[word] + Long.bitCount(used[word]);
+            }
+            int nodeCount = rank[used.length];
+            long[] osmIds = new long[nodeCount];
+            double[] xs = new double[nodeCount];
+            double[] ys = new double[nodeCount];
+            for (int word = 0, node = 0; word < used.length; word++) {
+                for (long bits = used[word]; bits != 0; bits &= bits - 1) {
+                    int record = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    osmIds[node] = nodes.id(record);
+                    xs[node] = nodes.longitude(record);
+                    ys[node] = nodes.latitude(record);
+                    node++;
+                }
+            }
+            for (int i = 0; i < segments.size; i++) {
+                segments.from[i] = denseIndex(rank, segments.from[i]);
+                segments.to[i] = denseIndex(rank, segments.to[i]);
+            }
+            
+            Csr csr = new Csr(nodeCount, segments);
+            CompactGraph graph = new CompactGraph(new OsmNodes(osmIds), xs, ys, csr.offsets, csr.targets, csr.weights);
+            return new ImportedNetwork(graph, csr.distances, sourceNodeCount, duplicateNodeCount, skippedCount);
+        }
+        
+        private int denseIndex(int[] rank, int record) {
+            int word = record >>> 6;
+            return rank[word] + Long.bitCount(used[word] & ((1L << record) - 1));
+        }
+    }
+    
+    /**
+     * OSM nodes as fixed 16-byte records (id, latitude and longitude in 1e-7 degrees)
+     * in a temporary file, appended in id order and memory-mapped for lookups once the
+     * first way arrives. Every SAMPLE_STRIDE-th id is also kept on the heap, so a lookup
+     * is a heap binary search plus a few probes into one mapped block
+     */
+    private static final class NodeStore implements Closeable {
+        private static final int RECORD_BYTES = 16;
+        // 2^23 records = 128 MB per mapping
+        private static final int MAPPING_SHIFT = 23;
+        private static final int MAPPING_MASK = (1 << MAPPING_SHIFT) - 1;
+        private static final int SAMPLE_SHIFT = 8;
+        private static final int SAMPLE_STRIDE = 1 << SAMPLE_SHIFT;
+        private static final double COORDINATE_SCALE = 1e7;
+        
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long[] samples;
+        private ByteBuffer[] mappings;
+        private int size;
+        private long lastId;
+        
+        NodeStore(Path directory) throws IOException {
+            Path file = directory != null
+                ? Files.createTempFile(directory, "perds-nodes", ".bin")
+                : Files.createTempFile("perds-nodes", ".bin");
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+            this.buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            this.samples = new long[1024];
+            this.lastId = Long.MIN_VALUE;
+        }
+        
+        /**
+         * Append a node, returning false for a repeat of the previous id
+         */
+        boolean append(long id, double latitude, double longitude) throws IOException {
+            if (mappings != null) {
+                throw new IOException("OSM nodes must come before ways");
+            }
+            if (size > 0 && id <= lastId) {
+                if (id == lastId) {
+                    return false;
+                }
+                throw new IOException("OSM nodes must be sorted by id (node " + id + " follows " + lastId
+                    + "); sort the extract first, e.g. with osmium sort");
+            }
+            if (size == Integer.MAX_VALUE) {
+                throw new IOException("Too many OSM nodes");
+            }
+            if (buffer.remaining() < RECORD_BYTES) {
+                flush();
+            }
+            buffer.putLong(id)
+                .putInt((int) Math.round(latitude * COORDINATE_SCALE))
+                .putInt((int) Math.round(longitude * COORDINATE_SCALE));
+            if ((size & (SAMPLE_STRIDE - 1)) == 0) {
+                int sample = size >>> SAMPLE_SHIFT;
+                if (sample == samples.length) {
+                    samples = Arrays.copyOf(samples, samples.length * 2);
+                }
+                samples[sample] = id;
+            }
+            lastId = id;
+            size++;
+            return true;
+        }
+        
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        
+        /**
+         * Stop appending and map the records for lookups
+         */
+        void seal() throws IOException {
+            if (mappings != null) {
+                return;
+            }
+            flush();
+            samples = Arrays.copyOf(samples, (size + SAMPLE_STRIDE - 1) >>> SAMPLE_SHIFT);
+            mappings = new ByteBuffer[(size + MAPPING_MASK) >>> MAPPING_SHIFT];
+            for (int i = 0; i < mappings.length; i++) {
+                long first = (long) i << MAPPING_SHIFT;
+                long records = Math.min(1L << MAPPING_SHIFT, size - first);
+                mappings[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * RECORD_BYTES,
+                    records * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        /**
+         * Record index of an OSM node id, or -1 if the extract does not contain it
+         */
+        int find(long id) {
+            int block = Arrays.binarySearch(samples, id);
+            if (block >= 0) {
+                return block << SAMPLE_SHIFT;
+            }
+            block = -block - 2;
+            if (block < 0) {
+                return -1;
+            }
+            int low = (block << SAMPLE_SHIFT) + 1;
+            int high = (int) Math.min(size - 1L, ((long) block << SAMPLE_SHIFT) + SAMPLE_STRIDE - 1);
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleId = id(middle);
+                if (middleId < id) {
+                    low = middle + 1;
+                } else if (middleId > id) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+        
+        long id(int record) {
+            return mappings[record >>> MAPPING_SHIFT].getLong((record & MAPPING_MASK) * RECORD_BYTES);
+        }
+        
+        double latitude(int record) {
+            return mappings[record >>> MAPPING_SHIFT].getInt((record & MAPPING_MASK) * RECORD_BYTES + 8)
+                / COORDINATE_SCALE;
+        }
+        
+        double longitude(int record) {
+            return mappings[record >>> MAPPING_SHIFT].getInt((record & MAPPING_MASK) * RECORD_BYTES + 12)
+                / COORDINATE_SCALE;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+    
+    /**
+     * Road segments in growable primitive arrays (17 bytes each)
+     */
+    private static final class SegmentList {
+        private int[] from = new int[1024];
+        private int[] to = new int[1024];
+        private float[] distances = new float[1024];
+        private float[] travelTimes = new float[1024];
+        private byte[] directions = new byte[1024];
+        private int size;
+        
+        void add(int a, int b, double distance, double travelTime, byte direction) {
+            if (size == from.length) {
+                if (size == Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Too many road segments");
+                }
+                int capacity = (int) Math.min(Integer.MAX_VALUE - 8L, size + (size >> 1));
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+                travelTimes = Arrays.copyOf(travelTimes, capacity);
+                directions = Arrays.copyOf(directions, capacity);
+            }
+            from[size] = a;
+            to[size] = b;
+            distances[size] = (float) distance;
+            travelTimes[size] = (float) travelTime;
+            directions[size] = direction;
+            size++;
+        }
+    }
+    
+    /**
+     * CSR arrays of a segment list, built with one counting sort by source node
+     */
+    private static final class Csr {
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final float[] distances;
+        
+        Csr(int nodeCount, SegmentList segments) {
+            offsets = new int[nodeCount + 1];
+            long edgeCount = 0;
+            for (int i = 0; i < segments.size; i++) {
+                if (segments.directions[i] != BACKWARD) {
+                    offsets[segments.from[i] + 1]++;
+                    edgeCount++;
+                }
+                if (segments.directions[i] != FORWARD) {
+                    offsets[segments.to[i] + 1]++;
+                    edgeCount++;
+                }
+            }
+            if (edgeCount > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Too many road edges: " + edgeCount);
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+            
+            targets = new int[(int) edgeCount];
+            weights = new double[(int) edgeCount];
+            distances = new float[(int) edgeCount];
+            int[] next = Arrays.copyOf(offsets, nodeCount);
+            for (int i = 0; i < segments.size; i++) {
+                if (segments.directions[i] != BACKWARD) {
+                    place(next, segments.from[i], segments.to[i], segments, i);
+                }
+                if (segments.directions[i] != FORWARD) {
+                    place(next, segments.to[i], segments.from[i], segments, i);
+                }
+            }
+        }
+        
+        private void place(int[] next, int source, int target, SegmentList segments, int segment) {
+            int edge = next[source]++;
+            targets[edge] = target;
+            weights[edge] = segments.travelTimes[segment];
+            distances[edge] = segments.distances[segment];
+        }
+    }
+    
+    /**
+     * Location IDs "osm" + OSM node id over the sorted ids of the imported nodes
+     */
+    private static final class OsmNodes implements CompactGraph.NodeTable {
+        private final long[] osmIds;
+        
+        OsmNodes(long[] osmIds) {
+            this.osmIds = osmIds;
+        }
+        
+        @Override
+        public Location location(int node, double x, double y) {
+            String id = OSM_ID_PREFIX + osmIds[node];
+            return new Location(id, id, y, x, Location.LocationType.CITY);
+        }
+        
+        @Override
+        public int indexOf(String locationId) {
+            if (locationId == null || !locationId.startsWith(OSM_ID_PREFIX)) {
+                return -1;
+            }
+            String digits = locationId.substring(OSM_ID_PREFIX.length());
+            long osmId;
+            try {
+                osmId = Long.parseLong(digits);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+            if (!digits.equals(Long.toString(osmId))) {
+                return -1; // "osm007" is not "osm7"
+            }
+            int index = Arrays.binarySearch(osmIds, osmId);
+            return index >= 0 ? index : -1;
+        }
+        
+        @Override
+        public boolean contains(int node) {
+            return node >= 0 && node < osmIds.length;
+        }
+    }
+    
+    /**
+     * Header-driven reader of one CSV file: column lookup by name, quoted fields and
+     * errors that name the file and line
+     */
+    private static final class CsvHeader {
+        private final BufferedReader reader;
+        private final Path path;
+        private final Map<String, Integer> columns;
+        private long lineNumber;
+        
+        CsvHeader(BufferedReader reader, Path path) throws IOException {
+            this.reader = reader;
+            this.path = path;
+            this.columns = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            if (nextLine(names) == null) {
+                throw new IOException("Missing CSV header in " + path);
+            }
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i).toLowerCase(Locale.ROOT);
+                if (i == 0 && name.startsWith("\uFEFF")) {
+                    name = name.substring(1);
+                }
+                columns.putIfAbsent(name, i);
+            }
+        }
+        
+        /**
+         * Index of the first column present among names, or -1
+         */
+        int find(String... names) {
+            for (String name : names) {
+                Integer column = columns.get(name);
+                if (column != null) {
+                    return column;
+                }
+            }
+            return -1;
+        }
+        
+        int require(String... names) throws IOException {
+            int column = find(names);
+            if (column < 0) {
+                throw new IOException("Missing column " + names[0] + " in " + path);
+            }
+            return column;
+        }
+        
+        /**
+         * Split the next non-blank line into fields, or return null at end of file
+         */
+        String nextLine(List<String> fields) throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && line.isBlank());
+            if (line != null) {
+                split(line, fields);
+            }
+            return line;
+        }
+        
+        private static void split(String line, List<String> fields) {
+            fields.clear();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString().trim());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString().trim());
+        }
+        
+        String text(List<String> fields, int column) {
+            return column >= 0 && column < fields.size() ? fields.get(column) : "";
+        }
+        
+        double number(List<String> fields, int column) throws IOException {
+            String value = text(fields, column);
+            try {
+                double number = Double.parseDouble(value);
+                if (!Double.isFinite(number)) {
+                    throw error("not a finite number: " + value);
+                }
+                return number;
+            } catch (NumberFormatException e) {
+                throw error("not a number: '" + value + "'");
+            }
+        }
+        
+        Location.LocationType locationType(List<String> fields, int column) throws IOException {
+            String value = text(fields, column);
+            if (value.isEmpty()) {
+                return Location.LocationType.CITY;
+            }
+            try {
+                return Location.LocationType.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw error("unknown location type " + value);
+            }
+        }
+        
+        IOException error(String message) {
+            return new IOException(path + ":" + lineNumber + ": " + message);
+        }
+    }
+}
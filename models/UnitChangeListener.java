@@ -0,0 +1,9 @@
+package perds.models;
+
+/**
+ * Receives position and status changes of a response unit after they happen
+ * Used by indexes that organize units by where they are and whether they are free
+ */
+public interface UnitChangeListener {
+    void onUnitChange(ResponseUnit unit);
+}
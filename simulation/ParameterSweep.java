@@ -0,0 +1,411 @@
+package perds.simulation;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Design-of-experiments engine over SimulationConfig parameters
+ * Configurations come from a full grid or a Latin hypercube over the declared
+ * parameter ranges, and are evaluated by a ReplicationRunner (which bounds the
+ * number of workers):
+ * - grid and Latin hypercube sweeps give every configuration the same replications
+ * - successive halving evaluates all configurations on a few replications, keeps the
+ *   best 1/eta by the objective, gives the survivors eta times the replications
+ *   (reusing the ones already run) and repeats until one configuration is left,
+ *   so losing configurations stop early
+ * Configurations whose objective was never measured (NaN, e.g. no dispatch in any
+ * replication) rank after every measured one, so an empty run cannot look best
+ * Results can be written to a compact binary columnar file (see writeColumnar)
+ *
+ * Time Complexity: O(C * R) replications for a grid or hypercube of C configurations,
+ * O(C * R0 * log_eta C) for successive halving from R0 replications
+ * Space Complexity: O(C * R) metric samples
+ */
+public class ParameterSweep {
+    // Sweepable SimulationConfig parameters
+    public static final String INCIDENT_RATE = "incidentRate";
+    public static final String REPOSITIONING_INTERVAL = "repositioningInterval";
+    
+    // Columnar file layout: magic, format version, column count, row count, then
+    // every column as its name followed by one double per row
+    private static final String FILE_MAGIC = "PERDSWEEP";
+    private static final int FILE_VERSION = 1;
+    
+    private final ReplicationRunner runner;
+    private final SimulationEngine.SimulationConfig baseConfig;
+    private final int durationMinutes;
+    private final Map<String, double[]> ranges;
+    private String objective;
+    private boolean minimize;
+    
+    /**
+     * Create a sweep that varies the parameters of baseConfig; parameters without a
+     * declared range keep their base value
+     */
+    public ParameterSweep(ReplicationRunner runner, SimulationEngine.SimulationConfig baseConfig,
+                          int durationMinutes) {
+        if (runner == null || baseConfig == null) {
+            throw new IllegalArgumentException("Runner and base config cannot be null");
+        }
+        if (durationMinutes <= 0) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        this.runner = runner;
+        this.baseConfig = baseConfig;
+        this.durationMinutes = durationMinutes;
+        this.ranges = new LinkedHashMap<>();
+        this.objective = ReplicationRunner.AVERAGE_RESPONSE_TIME;
+        this.minimize = true;
+    }
+    
+    /**
+     * Declare the range of a parameter (INCIDENT_RATE or REPOSITIONING_INTERVAL)
+     * Incident rates must be positive, since a run without incidents measures nothing;
+     * repositioning intervals are rounded to whole minutes
+     */
+    public void addParameter(String name, double min, double max) {
+        if (!INCIDENT_RATE.equals(name) && !REPOSITIONING_INTERVAL.equals(name)) {
+            throw new IllegalArgumentException("Unknown parameter: " + name);
+        }
+        if (!(min <= max) || Double.isInfinite(min) || Double.isInfinite(max)) {
+            throw new IllegalArgumentException("Invalid range for " + name + ": [" + min + ", " + max + "]");
+        }
+        if (INCIDENT_RATE.equals(name) ? !(min > 0) : min < 1) {
+            throw new IllegalArgumentException("Range of " + name + " starts below its minimum: " + min);
+        }
+        ranges.put(name, new double[] {min, max});
+    }
+    
+    /**
+     * Metric (a ReplicationRunner metric name) that ranks configurations by its mean
+     */
+    public void setObjective(String metric, boolean minimize) {
+        if (metric == null) {
+            throw new IllegalArgumentException("Objective metric cannot be null");
+        }
+        if (!ReplicationRunner.getMetricNames().contains(metric)) {
+            throw new IllegalArgumentException("Unknown objective metric: " + metric
+                + " (expected one of " + ReplicationRunner.getMetricNames() + ")");
+        }
+        this.objective = metric;
+        this.minimize = minimize;
+    }
+    
+    /**
+     * Every combination of levels evenly spaced over each declared range
+     * Time Complexity: O(levels^d) for d parameters
+     */
+    public List<Map<String, Double>> gridPoints(int levels) {
+        if (levels <= 0) {
+            throw new IllegalArgumentException("Levels must be positive");
+        }
+        List<Map<String, Double>> points = new ArrayList<>();
+        points.add(new LinkedHashMap<>());
+        for (Map.Entry<String, double[]> range : ranges.entrySet()) {
+            List<Map<String, Double>> expanded = new ArrayList<>(points.size() * levels);
+            for (Map<String, Double> point : points) {
+                for (int level = 0; level < levels; level++) {
+                    double fraction = levels == 1 ? 0.5 : level / (double) (levels - 1);
+                    Map<String, Double> next = new LinkedHashMap<>(point);
+                    next.put(range.getKey(), valueAt(range.getKey(), fraction));
+                    expanded.add(next);
+                }
+            }
+            points = expanded;
+        }
+        return points;
+    }
+    
+    /**
+     * Latin hypercube sample: each range is cut into samples equal strata and every
+     * stratum of every parameter is used exactly once, in an independently shuffled order
+     * Time Complexity: O(samples * d)
+     */
+    public List<Map<String, Double>> latinHypercubePoints(int samples, long seed) {
+        if (samples <= 0) {
+            throw new IllegalArgumentException("Samples must be positive");
+        }
+        Random random = new Random(seed);
+        List<Map<String, Double>> points = new ArrayList<>(samples);
+        for (int i = 0; i < samples; i++) {
+            points.add(new LinkedHashMap<>());
+        }
+        for (String name : ranges.keySet()) {
+            List<Integer> strata = new ArrayList<>(samples);
+            for (int i = 0; i < samples; i++) {
+                strata.add(i);
+            }
+            Collections.shuffle(strata, random);
+            for (int i = 0; i < samples; i++) {
+                double fraction = (strata.get(i) + random.nextDouble()) / samples;
+                points.get(i).put(name, valueAt(name, fraction));
+            }
+        }
+        return points;
+    }
+    
+    private double valueAt(String name, double fraction) {
+        double[] range = ranges.get(name);
+        double value = range[0] + fraction * (range[1] - range[0]);
+        return REPOSITIONING_INTERVAL.equals(name) ? Math.round(value) : value;
+    }
+    
+    /**
+     * Evaluate every point of a grid with the same number of replications
+     */
+    public SweepResult runGrid(int levels, int replications) {
+        return runAll(gridPoints(levels), replications);
+    }
+    
+    /**
+     * Evaluate a Latin hypercube sample with the same number of replications
+     */
+    public SweepResult runLatinHypercube(int samples, int replications, long seed) {
+        return runAll(latinHypercubePoints(samples, seed), replications);
+    }
+    
+    /**
+     * Evaluate configurations with the same number of replications
+     */
+    public SweepResult runAll(List<Map<String, Double>> points, int replications) {
+        List<Trial> trials = createTrials(points);
+        evaluate(trials, 0, replications, 0);
+        return new SweepResult(trials, objective, minimize);
+    }
+    
+    /**
+     * Successive halving from initialReplications per configuration, keeping the best
+     * ceil(n / eta) configurations of each round until one is left
+     */
+    public SweepResult runSuccessiveHalving(List<Map<String, Double>> points, int initialReplications, int eta) {
+        if (initialReplications <= 0 || eta < 2) {
+            throw new IllegalArgumentException("Initial replications must be positive and eta at least 2");
+        }
+        List<Trial> trials = createTrials(points);
+        List<Trial> survivors = new ArrayList<>(trials);
+        int replications = 0;
+        int budget = initialReplications;
+        int round = 0;
+        
+        while (true) {
+            evaluate(survivors, replications, budget, round);
+            replications = budget;
+            if (survivors.size() <= 1) {
+                break;
+            }
+            survivors.sort(ranking(objective, minimize));
+            int keep = (survivors.size() + eta - 1) / eta;
+            for (Trial eliminated : survivors.subList(keep, survivors.size())) {
+                eliminated.eliminatedInRound = round;
+            }
+            survivors = new ArrayList<>(survivors.subList(0, keep));
+            budget = (int) Math.min(Integer.MAX_VALUE, (long) budget * eta);
+            round++;
+        }
+        return new SweepResult(trials, objective, minimize);
+    }
+    
+    private List<Trial> createTrials(List<Map<String, Double>> points) {
+        if (points == null || points.isEmpty()) {
+            throw new IllegalArgumentException("At least one configuration is required");
+        }
+        List<Trial> trials = new ArrayList<>(points.size());
+        for (Map<String, Double> point : points) {
+            trials.add(new Trial(trials.size(), new LinkedHashMap<>(point)));
+        }
+        return trials;
+    }
+    
+    /**
+     * Bring every trial from done to total replications, in one batch on the runner
+     * Seeds continue where the previous round stopped
+     */
+    private void evaluate(List<Trial> trials, int done, int total, int round) {
+        List<SimulationEngine.SimulationConfig> configs = new ArrayList<>(trials.size());
+        for (Trial trial : trials) {
+            configs.add(toConfig(trial.parameters, baseConfig.getRandomSeed() + done));
+        }
+        List<ReplicationRunner.ReplicationSummary> summaries = runner.runAll(configs, total - done, durationMinutes);
+        for (int i = 0; i < trials.size(); i++) {
+            Trial trial = trials.get(i);
+            trial.summary = trial.summary == null ? summaries.get(i)
+                : trial.summary.merge(summaries.get(i), runner.getConfidenceLevel());
+            trial.rounds = round + 1;
+        }
+    }
+    
+    /**
+     * SimulationConfig for a point, taking undeclared parameters from the base config
+     */
+    public SimulationEngine.SimulationConfig toConfig(Map<String, Double> point, long seed) {
+        double incidentRate = point.getOrDefault(INCIDENT_RATE, baseConfig.getIncidentRate());
+        int interval = (int) Math.round(point.getOrDefault(REPOSITIONING_INTERVAL,
+            (double) baseConfig.getRepositioningInterval()));
+        return new SimulationEngine.SimulationConfig(incidentRate, baseConfig.isRepositioningEnabled(),
+            interval, seed);
+    }
+    
+    private static Comparator<Trial> ranking(String objective, boolean minimize) {
+        Comparator<Trial> byMean = Comparator.comparingDouble(trial -> trial.getMean(objective));
+        // Unmeasured objectives last in either direction
+        return Comparator.comparing((Trial trial) -> Double.isNaN(trial.getMean(objective)))
+            .thenComparing(minimize ? byMean : byMean.reversed())
+            .thenComparingInt(Trial::getId);
+    }
+    
+    /**
+     * Read a file written by SweepResult.writeColumnar: column name -> values per row
+     * Time Complexity: O(rows * columns)
+     */
+    public static Map<String, double[]> readColumnar(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            byte[] magic = new byte[FILE_MAGIC.length()];
+            in.readFully(magic);
+            if (!FILE_MAGIC.equals(new String(magic, StandardCharsets.US_ASCII)) || in.readInt() != FILE_VERSION) {
+                throw new IOException("Not a sweep result file: " + path);
+            }
+            int columns = in.readInt();
+            int rows = in.readInt();
+            Map<String, double[]> table = new LinkedHashMap<>();
+            for (int column = 0; column < columns; column++) {
+                String name = in.readUTF();
+                double[] values = new double[rows];
+                for (int row = 0; row < rows; row++) {
+                    values[row] = in.readDouble();
+                }
+                table.put(name, values);
+            }
+            return table;
+        }
+    }
+    
+    /**
+     * One evaluated configuration
+     */
+    public static class Trial {
+        private final int id;
+        private final Map<String, Double> parameters;
+        private ReplicationRunner.ReplicationSummary summary;
+        private int rounds;
+        private int eliminatedInRound = -1;
+        
+        Trial(int id, Map<String, Double> parameters) {
+            this.id = id;
+            this.parameters = parameters;
+        }
+        
+        public int getId() { return id; }
+        public Map<String, Double> getParameters() { return Collections.unmodifiableMap(parameters); }
+        public ReplicationRunner.ReplicationSummary getSummary() { return summary; }
+        public int getReplicationCount() { return summary.getReplicationCount(); }
+        public int getRounds() { return rounds; }
+        /** Round after which successive halving dropped the configuration, -1 if never */
+        public int getEliminatedInRound() { return eliminatedInRound; }
+        
+        public double getMean(String metric) {
+            return summary.getConfidenceInterval(metric).mean;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Trial{id=%d, parameters=%s, replications=%d}", id, parameters,
+                summary != null ? summary.getReplicationCount() : 0);
+        }
+    }
+    
+    /**
+     * All trials of a sweep, ranked by the objective
+     */
+    public static class SweepResult {
+        private final List<Trial> trials;
+        private final String objective;
+        private final boolean minimize;
+        
+        public SweepResult(List<Trial> trials, String objective, boolean minimize) {
+            this.trials = trials;
+            this.objective = objective;
+            this.minimize = minimize;
+        }
+        
+        public List<Trial> getTrials() {
+            return Collections.unmodifiableList(trials);
+        }
+        
+        /**
+         * Trials ranked best first; trials with more replications (survivors of
+         * successive halving) rank ahead of those eliminated earlier
+         */
+        public List<Trial> getRanking() {
+            List<Trial> ranked = new ArrayList<>(trials);
+            ranked.sort(Comparator.comparingInt((Trial trial) -> -trial.getReplicationCount())
+                .thenComparing(ranking(objective, minimize)));
+            return ranked;
+        }
+        
+        public Trial getBest() {
+            return getRanking().get(0);
+        }
+        
+        public int getTotalReplications() {
+            return trials.stream().mapToInt(Trial::getReplicationCount).sum();
+        }
+        
+        /**
+         * Write one row per trial: id, replications, eliminated round, every parameter,
+         * then the mean of every metric and the confidence bounds of the objective
+         * Time Complexity: O(trials * columns)
+         */
+        public void writeColumnar(Path path) throws IOException {
+            Map<String, double[]> columns = new LinkedHashMap<>();
+            int rows = trials.size();
+            columns.put("trial", new double[rows]);
+            columns.put("replications", new double[rows]);
+            columns.put("eliminatedInRound", new double[rows]);
+            for (int row = 0; row < rows; row++) {
+                Trial trial = trials.get(row);
+                columns.get("trial")[row] = trial.getId();
+                columns.get("replications")[row] = trial.getReplicationCount();
+                columns.get("eliminatedInRound")[row] = trial.getEliminatedInRound();
+                for (Map.Entry<String, Double> parameter : trial.parameters.entrySet()) {
+                    columns.computeIfAbsent(parameter.getKey(), name -> filled(rows))[row] = parameter.getValue();
+                }
+                for (String metric : trial.summary.getMetricNames()) {
+                    columns.computeIfAbsent(metric, name -> filled(rows))[row] = trial.getMean(metric);
+                }
+                columns.computeIfAbsent(objective + ".lower", name -> filled(rows))[row] =
+                    trial.summary.getConfidenceInterval(objective).lowerBound;
+                columns.computeIfAbsent(objective + ".upper", name -> filled(rows))[row] =
+                    trial.summary.getConfidenceInterval(objective).upperBound;
+            }
+            
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                out.write(FILE_MAGIC.getBytes(StandardCharsets.US_ASCII));
+                out.writeInt(FILE_VERSION);
+                out.writeInt(columns.size());
+                out.writeInt(rows);
+                for (Map.Entry<String, double[]> column : columns.entrySet()) {
+                    out.writeUTF(column.getKey());
+                    for (double value : column.getValue()) {
+                        out.writeDouble(value);
+                    }
+                }
+            }
+        }
+        
+        private static double[] filled(int rows) {
+            double[] values = new double[rows];
+            Arrays.fill(values, Double.NaN); // Missing in this row
+            return values;
+        }
+        
+        @Override
+        public String toString() {
+            Trial best = getBest();
+            return String.format("SweepResult{trials=%d, replications=%d, best=%s, %s=%s}", trials.size(),
+                getTotalReplications(), best.parameters, objective, best.summary.getConfidenceInterval(objective));
+        }
+    }
+}
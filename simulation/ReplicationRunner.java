@@ -0,0 +1,285 @@
+package perds.simulation;
+
+import perds.models.*;
+import perds.algorithms.*;
+import perds.evaluation.StatisticalValidator;
+import perds.utils.PerformanceMetrics;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo replications of one simulation scenario, run in parallel on a ForkJoinPool
+ * The network and the units are snapshotted when the runner is created; every
+ * replication works on its own copy of both, with its own dispatch manager, analyzer
+ * and seed (the configured seed plus the replication number), so replications share
+ * nothing mutable and the results do not depend on thread scheduling
+ * Replications use the discrete-event mode with all console output turned off, and
+ * each one is reduced to a few scalar metrics as soon as it finishes, so memory
+ * does not grow with the length of the sweep
+ * Response times run from report to arrival (queueing included) and incidents left
+ * waiting at the end count as failures; a replication without any dispatch (or
+ * without any incident, for the success rate) reports NaN for that metric, and NaN
+ * samples are left out of the confidence intervals
+ *
+ * Time Complexity: O(R * T / P) for R replications of cost T on P workers
+ * Space Complexity: O(P * S + R * M) for simulations of size S and M metrics
+ */
+public class ReplicationRunner {
+    // Metrics collected from every replication
+    public static final String SUCCESS_RATE = "successRate";
+    public static final String AVERAGE_RESPONSE_TIME = "averageResponseTime";
+    public static final String AVERAGE_RESPONSE_DISTANCE = "averageResponseDistance";
+    public static final String P90_RESPONSE_TIME = "p90ResponseTime";
+    public static final String CRITICAL_RESPONSE_TIME = "criticalResponseTime";
+    public static final String INCIDENTS_PER_HOUR = "incidentsPerHour";
+    
+    private static final List<String> METRICS = List.of(SUCCESS_RATE, AVERAGE_RESPONSE_TIME,
+        AVERAGE_RESPONSE_DISTANCE, P90_RESPONSE_TIME, CRITICAL_RESPONSE_TIME, INCIDENTS_PER_HOUR);
+    
+    private final EmergencyNetwork network;
+    private final List<ResponseUnit> units;
+    private final ForkJoinPool pool;
+    private double confidenceLevel;
+    
+    public ReplicationRunner(EmergencyNetwork network, Collection<ResponseUnit> units) {
+        this(network, units, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Snapshot a scenario to replicate on a specific pool, e.g. new ForkJoinPool(32)
+     * Units keep their location and status; units busy on an incident start available,
+     * since incidents are not part of the scenario
+     */
+    public ReplicationRunner(EmergencyNetwork network, Collection<ResponseUnit> units, ForkJoinPool pool) {
+        if (network == null || units == null || pool == null) {
+            throw new IllegalArgumentException("Network, units and pool cannot be null");
+        }
+        this.network = network.copy();
+        this.units = new ArrayList<>();
+        for (ResponseUnit unit : units) {
+            this.units.add(copyUnit(unit));
+        }
+        this.pool = pool;
+        this.confidenceLevel = 0.95;
+    }
+    
+    private static ResponseUnit copyUnit(ResponseUnit unit) {
+        ResponseUnit copy = new ResponseUnit(unit.getId(), unit.getName(), unit.getType(), unit.getCurrentLocation());
+        copy.setStatus(unit.getCurrentIncident() != null ? ResponseUnit.UnitStatus.AVAILABLE : unit.getStatus());
+        return copy;
+    }
+    
+    /**
+     * Run replications with seeds config.getRandomSeed() + 0 .. replications - 1
+     * and aggregate their metrics into confidence intervals
+     */
+    public ReplicationSummary run(SimulationEngine.SimulationConfig config, int replications, int durationMinutes) {
+        return runAll(List.of(config), replications, durationMinutes).get(0);
+    }
+    
+    /**
+     * Replicate several configurations at once, one summary per configuration in order
+     * All configuration-replication pairs are scheduled on the pool together, so the
+     * workers stay busy even when every configuration gets only a few replications;
+     * each summary reports the wall time of the whole batch
+     */
+    public List<ReplicationSummary> runAll(List<SimulationEngine.SimulationConfig> configs, int replications,
+                                           int durationMinutes) {
+        if (configs == null || configs.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Configs cannot be null");
+        }
+        if (replications <= 0 || durationMinutes <= 0) {
+            throw new IllegalArgumentException("Replications and duration must be positive");
+        }
+        
+        List<Callable<double[]>> tasks = new ArrayList<>(configs.size() * replications);
+        for (SimulationEngine.SimulationConfig config : configs) {
+            for (int replication = 0; replication < replications; replication++) {
+                SimulationEngine.SimulationConfig seeded = new SimulationEngine.SimulationConfig(
+                    config.getIncidentRate(), config.isRepositioningEnabled(), config.getRepositioningInterval(),
+                    config.getRandomSeed() + replication);
+                tasks.add(() -> runReplication(seeded, durationMinutes));
+            }
+        }
+        
+        long startTime = System.currentTimeMillis();
+        List<double[]> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<double[]> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replications interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replication failed: " + e.getCause(), e.getCause());
+        }
+        double executionTime = (System.currentTimeMillis() - startTime) / 1000.0;
+        
+        List<ReplicationSummary> summaries = new ArrayList<>(configs.size());
+        for (int config = 0; config < configs.size(); config++) {
+            List<double[]> configResults = results.subList(config * replications, (config + 1) * replications);
+            Map<String, List<Double>> samples = new LinkedHashMap<>();
+            for (int metric = 0; metric < METRICS.size(); metric++) {
+                List<Double> values = new ArrayList<>(replications);
+                for (double[] result : configResults) {
+                    values.add(result[metric]);
+                }
+                samples.put(METRICS.get(metric), values);
+            }
+            summaries.add(new ReplicationSummary(samples, confidenceLevel, executionTime));
+        }
+        return summaries;
+    }
+    
+    /**
+     * One independent replication on fresh copies of the scenario
+     */
+    private double[] runReplication(SimulationEngine.SimulationConfig config, int durationMinutes) {
+        EmergencyNetwork replicaNetwork = network.copy();
+        DispatchManager dispatcher = new DispatchManager(replicaNetwork);
+        dispatcher.setLoggingEnabled(false);
+        for (ResponseUnit unit : units) {
+            dispatcher.registerUnit(copyUnit(unit));
+        }
+        
+        SimulationEngine engine = new SimulationEngine(replicaNetwork, dispatcher, new PredictiveAnalyzer(), config);
+        engine.setVerbose(false);
+        SimulationEngine.SimulationResult result = engine.runDiscreteEventSimulation(durationMinutes);
+        
+        PerformanceMetrics metrics = result.getMetrics();
+        // PerformanceMetrics reports 0 when nothing was measured, which would read as a perfect score
+        boolean dispatched = metrics.getSuccessfulDispatches() > 0;
+        PerformanceMetrics.SeverityMetrics critical = metrics.getSeverityMetrics(Incident.IncidentSeverity.CRITICAL);
+        // In METRICS order
+        return new double[] {
+            metrics.getTotalIncidents() > 0 ? metrics.getSuccessRate() : Double.NaN,
+            dispatched ? metrics.getAverageResponseTime() : Double.NaN,
+            dispatched ? metrics.getAverageResponseDistance() : Double.NaN,
+            metrics.getResponseTimePercentiles().getOrDefault("90th", Double.NaN),
+            critical.getSuccessRate() > 0 ? critical.getAverageResponseTime() : Double.NaN,
+            result.getTotalIncidents() / (durationMinutes / 60.0)
+        };
+    }
+    
+    /**
+     * Confidence level of the intervals in summaries (0.95 by default)
+     */
+    public void setConfidenceLevel(double confidenceLevel) {
+        if (!(confidenceLevel > 0 && confidenceLevel < 1)) {
+            throw new IllegalArgumentException("Confidence level must be between 0 and 1");
+        }
+        this.confidenceLevel = confidenceLevel;
+    }
+    
+    public double getConfidenceLevel() {
+        return confidenceLevel;
+    }
+    
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+    
+    /**
+     * Names of the metrics in every summary, in report order
+     */
+    public static List<String> getMetricNames() {
+        return METRICS;
+    }
+    
+    /**
+     * Per-metric samples of a set of replications and their confidence intervals
+     */
+    public static class ReplicationSummary {
+        private final Map<String, List<Double>> samples;
+        private final Map<String, StatisticalValidator.ConfidenceInterval> intervals;
+        private final double executionTimeSeconds;
+        
+        public ReplicationSummary(Map<String, List<Double>> samples, double confidenceLevel,
+                                  double executionTimeSeconds) {
+            this.samples = samples;
+            this.intervals = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Double>> metric : samples.entrySet()) {
+                intervals.put(metric.getKey(), confidenceInterval(metric.getValue(), confidenceLevel));
+            }
+            this.executionTimeSeconds = executionTimeSeconds;
+        }
+        
+        /**
+         * Interval over the measured (non-NaN) samples; NaN with n=0 if there are none
+         */
+        private static StatisticalValidator.ConfidenceInterval confidenceInterval(List<Double> values,
+                                                                                  double confidenceLevel) {
+            List<Double> measured = new ArrayList<>(values.size());
+            for (double value : values) {
+                if (!Double.isNaN(value)) {
+                    measured.add(value);
+                }
+            }
+            if (measured.isEmpty()) {
+                return new StatisticalValidator.ConfidenceInterval(Double.NaN, Double.NaN, Double.NaN,
+                    confidenceLevel, 0);
+            }
+            return StatisticalValidator.calculateConfidenceInterval(measured, confidenceLevel);
+        }
+        
+        /**
+         * Summary of the replications of this summary followed by those of another
+         * (e.g. more seeds of the same configuration), at the given confidence level
+         */
+        public ReplicationSummary merge(ReplicationSummary other, double confidenceLevel) {
+            Map<String, List<Double>> merged = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Double>> metric : samples.entrySet()) {
+                List<Double> values = new ArrayList<>(metric.getValue());
+                values.addAll(other.getSamples(metric.getKey()));
+                merged.put(metric.getKey(), values);
+            }
+            return new ReplicationSummary(merged, confidenceLevel, executionTimeSeconds + other.executionTimeSeconds);
+        }
+        
+        public StatisticalValidator.ConfidenceInterval getConfidenceInterval(String metric) {
+            StatisticalValidator.ConfidenceInterval interval = intervals.get(metric);
+            if (interval == null) {
+                throw new IllegalArgumentException("Unknown metric: " + metric);
+            }
+            return interval;
+        }
+        
+        /**
+         * Values of a metric, one per replication in seed order (NaN where unmeasured)
+         */
+        public List<Double> getSamples(String metric) {
+            List<Double> values = samples.get(metric);
+            if (values == null) {
+                throw new IllegalArgumentException("Unknown metric: " + metric);
+            }
+            return Collections.unmodifiableList(values);
+        }
+        
+        public Set<String> getMetricNames() {
+            return Collections.unmodifiableSet(samples.keySet());
+        }
+        
+        public int getReplicationCount() {
+            return samples.isEmpty() ? 0 : samples.values().iterator().next().size();
+        }
+        
+        public double getExecutionTimeSeconds() {
+            return executionTimeSeconds;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("Replications: %d (%.2f s)\n", getReplicationCount(), executionTimeSeconds));
+            for (Map.Entry<String, StatisticalValidator.ConfidenceInterval> interval : intervals.entrySet()) {
+                report.append(String.format("  %-24s %s\n", interval.getKey(), interval.getValue()));
+            }
+            return report.toString();
+        }
+    }
+}
@@ -10,8 +10,17 @@ import java.util.*;
  * Time-based simulation engine for PERDS
  * Simulates realistic incident patterns over time
  * Enables performance testing under various load conditions
+ * Two modes:
+ * - time-stepped (runSimulation): every simulated minute rolls for an arrival and
+ *   for the resolution of each dispatched incident
+ * - discrete-event (runDiscreteEventSimulation): a time-ordered queue of arrivals,
+ *   travel completions, on-scene completions and repositioning timers, so the cost
+ *   follows the number of events rather than the number of simulated minutes
  */
 public class SimulationEngine {
+    // Mean on-scene time, as in the time-stepped mode's 10% resolution chance per minute
+    private static final double MEAN_ON_SCENE_MINUTES = 10.0;
+    
     private final EmergencyNetwork network;
     private final DispatchManager dispatchManager;
     private final PredictiveAnalyzer predictiveAnalyzer;
@@ -21,6 +30,7 @@ public class SimulationEngine {
     private int currentTime; // Simulation time in minutes
     private int incidentCounter;
     private final Random random;
+    private boolean verbose;
     
     // Simulation configuration
     private final SimulationConfig config;
@@ -30,25 +40,30 @@ public class SimulationEngine {
         this.network = network;
         this.dispatchManager = dispatchManager;
         this.predictiveAnalyzer = predictiveAnalyzer;
-        this.resourcePositioner = new ResourcePositioner(network, predictiveAnalyzer);
+        this.resourcePositioner = new ResourcePositioner(network, predictiveAnalyzer,
+            PathfinderFactory.createConfigured());
         this.metrics = new PerformanceMetrics();
         this.config = config;
         this.currentTime = 0;
         this.incidentCounter = 0;
         this.random = new Random(config.getRandomSeed());
+        this.verbose = true;
+    }
+    
+    /**
+     * Turn progress and repositioning output on or off
+     * Dispatch logging is controlled separately, via DispatchManager.setLoggingEnabled
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+        resourcePositioner.setLoggingEnabled(verbose);
     }
     
     /**
      * Run simulation for specified duration
      */
     public SimulationResult runSimulation(int durationMinutes) {
-        System.out.println("╔════════════════════════════════════════════════════════════╗");
-        System.out.println("║          STARTING TIME-BASED SIMULATION                    ║");
-        System.out.println("╚════════════════════════════════════════════════════════════╝\n");
-        
-        System.out.printf("Duration: %d minutes (%d hours)\n", durationMinutes, durationMinutes / 60);
-        System.out.printf("Incident Rate: %.2f per hour\n", config.getIncidentRate());
-        System.out.printf("Repositioning Enabled: %s\n\n", config.isRepositioningEnabled());
+        printHeader("STARTING TIME-BASED SIMULATION", durationMinutes);
         
         long startTime = System.currentTimeMillis();
         List<SimulationEvent> events = new ArrayList<>();
@@ -80,24 +95,174 @@ public class SimulationEngine {
             }
             
             // Progress indicator
-            if (currentTime % (durationMinutes / 10) == 0) {
+            if (verbose && currentTime % Math.max(1, durationMinutes / 10) == 0) {
                 System.out.printf("Progress: %d%% (Time: %d min)\n", 
                     (currentTime * 100) / durationMinutes, currentTime);
             }
         }
         
+        // The network usually outlives the run
+        resourcePositioner.close();
+        
+        long endTime = System.currentTimeMillis();
+        double executionTime = (endTime - startTime) / 1000.0;
+        printSummary(executionTime, durationMinutes);
+        
+        return new SimulationResult(metrics, events, executionTime, incidentCounter);
+    }
+    
+    /**
+     * Run the simulation as a sequence of timed events
+     * Incidents arrive with exponential inter-arrival times (a Poisson process at the
+     * configured rate); a dispatched unit travels for its route's travel time, stays on
+     * scene for an exponential time with mean MEAN_ON_SCENE_MINUTES, then becomes
+     * available at the incident; repositioning runs on its configured interval
+     * Pending incidents are dispatched whenever an incident arrives or a unit frees up
+     * Response times run from the report to the unit's arrival, so they include the time
+     * an incident waited for a free unit; incidents still waiting when the run ends are
+     * recorded as failed dispatches
+     * Time Complexity: O(N log N) queue work for N events, plus one dispatch per incident
+     */
+    public SimulationResult runDiscreteEventSimulation(int durationMinutes) {
+        printHeader("STARTING DISCRETE-EVENT SIMULATION", durationMinutes);
+        
+        long startTime = System.currentTimeMillis();
+        List<SimulationEvent> events = new ArrayList<>();
+        PriorityQueue<ScheduledEvent> queue = new PriorityQueue<>();
+        Map<Incident, Double> reportTimes = new LinkedHashMap<>();
+        long sequence = 0;
+        
+        double arrivalRate = config.getIncidentRate() / 60.0; // Per minute
+        if (arrivalRate > 0) {
+            queue.add(new ScheduledEvent(exponential(arrivalRate), sequence++, EventKind.ARRIVAL, null));
+        }
+        if (config.isRepositioningEnabled()) {
+            queue.add(new ScheduledEvent(0, sequence++, EventKind.REPOSITION, null));
+        }
+        int nextProgress = 0;
+        
+        while (!queue.isEmpty() && queue.peek().time < durationMinutes) {
+            ScheduledEvent event = queue.poll();
+            currentTime = (int) event.time;
+            
+            while (verbose && event.time >= nextProgress * (durationMinutes / 10.0)) {
+                System.out.printf("Progress: %d%% (Time: %d min)\n", nextProgress * 10, currentTime);
+                nextProgress++;
+            }
+            
+            switch (event.kind) {
+                case ARRIVAL: {
+                    Incident incident = generateRandomIncident();
+                    dispatchManager.reportIncident(incident);
+                    predictiveAnalyzer.recordIncident(incident);
+                    reportTimes.put(incident, event.time);
+                    events.add(new SimulationEvent(currentTime, "INCIDENT_GENERATED", incident.getId()));
+                    queue.add(new ScheduledEvent(event.time + exponential(arrivalRate), sequence++,
+                        EventKind.ARRIVAL, null));
+                    break;
+                }
+                case TRAVEL_COMPLETE: {
+                    Incident incident = event.incident;
+                    ResponseUnit unit = incident.getAssignedUnit();
+                    if (incident.getStatus() == Incident.IncidentStatus.DISPATCHED && unit != null) {
+                        unit.setStatus(ResponseUnit.UnitStatus.ON_SCENE);
+                        events.add(new SimulationEvent(currentTime, "UNIT_ON_SCENE",
+                            unit.getName() + " @ " + incident.getId()));
+                        queue.add(new ScheduledEvent(event.time + exponential(1.0 / MEAN_ON_SCENE_MINUTES),
+                            sequence++, EventKind.ON_SCENE_COMPLETE, incident));
+                    }
+                    break;
+                }
+                case ON_SCENE_COMPLETE:
+                    dispatchManager.resolveIncident(event.incident.getId());
+                    events.add(new SimulationEvent(currentTime, "INCIDENT_RESOLVED", event.incident.getId()));
+                    break;
+                case REPOSITION:
+                    performRepositioning();
+                    queue.add(new ScheduledEvent(event.time + config.getRepositioningInterval(), sequence++,
+                        EventKind.REPOSITION, null));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event kind: " + event.kind);
+            }
+            
+            // A new incident or a freed unit may allow pending incidents to be dispatched
+            if (event.kind == EventKind.ARRIVAL || event.kind == EventKind.ON_SCENE_COMPLETE) {
+                DispatchManager.DispatchDecision decision;
+                while ((decision = dispatchManager.dispatchNext()) != null) {
+                    double travelTime = decision.getPath().getTotalDistance();
+                    double waitTime = event.time - reportTimes.remove(decision.getIncident());
+                    metrics.recordDispatch(decision, waitTime + travelTime);
+                    events.add(new SimulationEvent(currentTime, "UNIT_DISPATCHED",
+                        decision.getUnit().getName() + " -> " + decision.getIncident().getId()));
+                    queue.add(new ScheduledEvent(event.time + travelTime, sequence++,
+                        EventKind.TRAVEL_COMPLETE, decision.getIncident()));
+                }
+            }
+        }
+        currentTime = durationMinutes;
+        
+        // Incidents that never got a unit count against the success rate
+        for (Incident incident : reportTimes.keySet()) {
+            metrics.recordFailedDispatch(incident);
+        }
+        
+        // The network usually outlives the run
+        resourcePositioner.close();
+        
         long endTime = System.currentTimeMillis();
         double executionTime = (endTime - startTime) / 1000.0;
+        printSummary(executionTime, durationMinutes);
+        
+        return new SimulationResult(metrics, events, executionTime, incidentCounter);
+    }
+    
+    /**
+     * Sample an exponential time with the given rate per minute
+     */
+    private double exponential(double ratePerMinute) {
+        return -Math.log(1.0 - random.nextDouble()) / ratePerMinute;
+    }
+    
+    private void printHeader(String title, int durationMinutes) {
+        if (!verbose) {
+            return;
+        }
+        System.out.println("╔════════════════════════════════════════════════════════════╗");
+        System.out.println(String.format("║          %-50s║", title));
+        System.out.println("╚════════════════════════════════════════════════════════════╝\n");
         
+        System.out.printf("Duration: %d minutes (%d hours)\n", durationMinutes, durationMinutes / 60);
+        System.out.printf("Incident Rate: %.2f per hour\n", config.getIncidentRate());
+        System.out.printf("Repositioning Enabled: %s\n\n", config.isRepositioningEnabled());
+    }
+    
+    private void printSummary(double executionTime, int durationMinutes) {
+        if (!verbose) {
+            return;
+        }
         System.out.println("\n╔════════════════════════════════════════════════════════════╗");
         System.out.println("║          SIMULATION COMPLETE                               ║");
         System.out.println("╚════════════════════════════════════════════════════════════╝\n");
         
         System.out.printf("Execution Time: %.2f seconds\n", executionTime);
         System.out.printf("Total Incidents: %d\n", incidentCounter);
-        System.out.printf("Incidents per Hour: %.2f\n\n", (double) incidentCounter / (durationMinutes / 60.0));
-        
-        return new SimulationResult(metrics, events, executionTime, incidentCounter);
+        System.out.printf("Incidents per Hour: %.2f\n", (double) incidentCounter / (durationMinutes / 60.0));
+        printRoutingStatistics("Dispatch", dispatchManager.getPathfinder());
+        printRoutingStatistics("Repositioning", resourcePositioner.getPathfinder());
+        System.out.println();
+    }
+    
+    /**
+     * Print the counters of routing caches, following delegates
+     */
+    private static void printRoutingStatistics(String label, Pathfinder pathfinder) {
+        if (pathfinder instanceof ShortestPathTreeCache) {
+            System.out.println(label + " " + pathfinder);
+            printRoutingStatistics(label, ((ShortestPathTreeCache) pathfinder).getDelegate());
+        } else if (pathfinder instanceof CachingPathfinder) {
+            System.out.println(label + " " + pathfinder);
+        }
     }
     
     /**
@@ -125,12 +290,15 @@ public class SimulationEngine {
         // Random severity (weighted toward lower severity)
         Incident.IncidentSeverity severity = selectSeverityWeighted();
         
-        String id = "SIM-" + String.format("%04d", ++incidentCounter);
+        // Zero-padded to four digits, without the cost of String.format per incident
+        String number = Integer.toString(++incidentCounter);
+        String id = "SIM-" + "0000".substring(Math.min(4, number.length())) + number;
         return new Incident(id, location, type, severity);
     }
     
     /**
      * Select location weighted by demand probability
+     * Time Complexity: O(log n) once incidents have been recorded
      */
     private Location selectLocationByDemand() {
         Collection<Location> locations = network.getAllLocations();
@@ -139,29 +307,16 @@ public class SimulationEngine {
             throw new IllegalStateException("Network has no locations");
         }
         
-        // Get demand probabilities
-        Map<Location, Double> demandScores = predictiveAnalyzer.calculateDemandScores();
+        // Weighted random selection over the analyzer's demand scores
+        Location location = predictiveAnalyzer.sampleLocationByDemand(random.nextDouble());
         
-        if (demandScores.isEmpty()) {
+        if (location == null) {
             // No historical data, select randomly
             List<Location> locationList = new ArrayList<>(locations);
             return locationList.get(random.nextInt(locationList.size()));
         }
         
-        // Weighted random selection
-        double totalDemand = demandScores.values().stream().mapToDouble(Double::doubleValue).sum();
-        double randomValue = random.nextDouble() * totalDemand;
-        
-        double cumulative = 0.0;
-        for (Map.Entry<Location, Double> entry : demandScores.entrySet()) {
-            cumulative += entry.getValue();
-            if (cumulative >= randomValue) {
-                return entry.getKey();
-            }
-        }
-        
-        // Fallback
-        return demandScores.keySet().iterator().next();
+        return location;
     }
     
     /**
@@ -214,12 +369,18 @@ public class SimulationEngine {
             resourcePositioner.analyzeAndRecommend(new ArrayList<>(availableUnits));
         
         if (!recommendations.isEmpty()) {
-            System.out.printf("\n[Time: %d] Resource Repositioning:\n", currentTime);
+            if (verbose) {
+                System.out.printf("\n[Time: %d] Resource Repositioning:\n", currentTime);
+            }
             for (ResourcePositioner.RepositioningRecommendation rec : recommendations) {
                 resourcePositioner.applyRepositioning(rec);
-                System.out.println("  - " + rec);
+                if (verbose) {
+                    System.out.println("  - " + rec);
+                }
+            }
+            if (verbose) {
+                System.out.println();
             }
-            System.out.println();
         }
     }
     
@@ -236,8 +397,19 @@ public class SimulationEngine {
         private final int repositioningInterval; // Minutes between repositioning checks
         private final long randomSeed;
         
+        /**
+         * @throws IllegalArgumentException if the incident rate is negative or not finite,
+         *         or repositioning is enabled with an interval below one minute (simulated
+         *         time would stop advancing between repositioning timers)
+         */
         public SimulationConfig(double incidentRate, boolean repositioningEnabled, 
                               int repositioningInterval, long randomSeed) {
+            if (!(incidentRate >= 0) || Double.isInfinite(incidentRate)) {
+                throw new IllegalArgumentException("Incident rate must be non-negative and finite");
+            }
+            if (repositioningEnabled && repositioningInterval < 1) {
+                throw new IllegalArgumentException("Repositioning interval must be at least 1 minute");
+            }
             this.incidentRate = incidentRate;
             this.repositioningEnabled = repositioningEnabled;
             this.repositioningInterval = repositioningInterval;
@@ -259,6 +431,39 @@ public class SimulationEngine {
         public long getRandomSeed() { return randomSeed; }
     }
     
+    /**
+     * Kinds of events in the discrete-event mode
+     */
+    private enum EventKind {
+        ARRIVAL,
+        TRAVEL_COMPLETE,
+        ON_SCENE_COMPLETE,
+        REPOSITION
+    }
+    
+    /**
+     * Pending event of the discrete-event mode, ordered by time, then by scheduling order
+     */
+    private static class ScheduledEvent implements Comparable<ScheduledEvent> {
+        private final double time;
+        private final long sequence;
+        private final EventKind kind;
+        private final Incident incident;
+        
+        ScheduledEvent(double time, long sequence, EventKind kind, Incident incident) {
+            this.time = time;
+            this.sequence = sequence;
+            this.kind = kind;
+            this.incident = incident;
+        }
+        
+        @Override
+        public int compareTo(ScheduledEvent other) {
+            int byTime = Double.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+    
     /**
      * Simulation event for tracking
      */
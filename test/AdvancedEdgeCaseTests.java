@@ -2,7 +2,12 @@ package perds.test;
 
 import perds.models.*;
 import perds.algorithms.*;
+import perds.simulation.ParameterSweep;
+import perds.simulation.ReplicationRunner;
+import perds.simulation.SimulationEngine;
+import perds.evaluation.StatisticalValidator;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Comprehensive Edge Case and Boundary Testing
@@ -41,6 +46,12 @@ public class AdvancedEdgeCaseTests {
         testBoundaryConditions();
         testResourceExhaustion();
         testDynamicNetworkChanges();
+        testCompactGraphSnapshots();
+        testRoutingEngines();
+        testRoutingCaches();
+        testAssignment();
+        testSimulation();
+        testNetworkIO();
         
         // Print summary
         printSummary();
@@ -60,7 +71,7 @@ public class AdvancedEdgeCaseTests {
             Location loc1 = new Location("L1", "L1", 0, 0, Location.LocationType.CITY);
             Location loc2 = new Location("L2", "L2", 1, 1, Location.LocationType.CITY);
             
-            DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(network, loc1, loc2);
+            PathResult result = pathfinder.findShortestPath(network, loc1, loc2);
             return !result.isValid();
         });
         
@@ -108,7 +119,7 @@ public class AdvancedEdgeCaseTests {
             network.addLocation(loc);
             
             DijkstraPathfinder pathfinder = new DijkstraPathfinder();
-            DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(network, loc, loc);
+            PathResult result = pathfinder.findShortestPath(network, loc, loc);
             
             return result.isValid() && result.getTotalDistance() == 0.0;
         });
@@ -161,7 +172,7 @@ public class AdvancedEdgeCaseTests {
             // No edge between islands
             
             DijkstraPathfinder pathfinder = new DijkstraPathfinder();
-            DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(network, l1, l3);
+            PathResult result = pathfinder.findShortestPath(network, l1, l3);
             
             return !result.isValid(); // Should fail - no path exists
         });
@@ -215,7 +226,7 @@ public class AdvancedEdgeCaseTests {
             
             // Test pathfinding
             DijkstraPathfinder pathfinder = new DijkstraPathfinder();
-            DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(
+            PathResult result = pathfinder.findShortestPath(
                 network, locations.get(0), locations.get(999));
             
             return result.isValid() && result.getPath().size() == 1000;
@@ -374,7 +385,7 @@ public class AdvancedEdgeCaseTests {
             network.addEdge(l1, l2, 0.0, 0.0);
             
             DijkstraPathfinder pathfinder = new DijkstraPathfinder();
-            DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(network, l1, l2);
+            PathResult result = pathfinder.findShortestPath(network, l1, l2);
             
             return result.isValid() && result.getTotalDistance() == 0.0;
         });
@@ -456,14 +467,14 @@ public class AdvancedEdgeCaseTests {
             Location l2 = locations.get(1);
             
             // Find initial path
-            DijkstraPathfinder.PathResult result1 = pathfinder.findShortestPath(network, l1, l2);
+            PathResult result1 = pathfinder.findShortestPath(network, l1, l2);
             double dist1 = result1.getTotalDistance();
             
             // Block direct edge
             network.setEdgeBlocked(l1.getId(), l2.getId(), true);
             
             // Find new path
-            DijkstraPathfinder.PathResult result2 = pathfinder.findShortestPath(network, l1, l2);
+            PathResult result2 = pathfinder.findShortestPath(network, l1, l2);
             double dist2 = result2.getTotalDistance();
             
             // New path should be longer (or invalid)
@@ -480,7 +491,7 @@ public class AdvancedEdgeCaseTests {
             network.updateEdgeWeight(l1.getId(), l2.getId(), 100.0); // Make very expensive
             
             DijkstraPathfinder pathfinder = new DijkstraPathfinder();
-            DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(network, l1, l2);
+            PathResult result = pathfinder.findShortestPath(network, l1, l2);
             
             // Should use alternative route if available, or have high cost
             return result.getTotalDistance() >= 100.0 || result.getPath().size() > 2;
@@ -489,6 +500,1938 @@ public class AdvancedEdgeCaseTests {
         System.out.println();
     }
     
+    /**
+     * Test compact (CSR) snapshots of the network
+     */
+    private static void testCompactGraphSnapshots() {
+        System.out.println("Testing Compact Graph Snapshots...");
+        
+        testCase("Snapshot mirrors adjacency lists", () -> {
+            EmergencyNetwork network = createSimpleNetwork();
+            network.setEdgeBlocked("L1", "L3", true);
+            CompactGraph graph = network.getCompactGraph();
+            
+            for (Location location : network.getAllLocations()) {
+                int node = graph.indexOf(location);
+                List<Edge> edges = network.getNeighbors(location);
+                if (graph.degree(node) != edges.size()) {
+                    return false;
+                }
+                for (int i = 0; i < edges.size(); i++) {
+                    Edge edge = edges.get(i);
+                    int position = graph.edgeStart(node) + i;
+                    double expected = edge.isBlocked() ? Double.POSITIVE_INFINITY : edge.getEffectiveWeight();
+                    if (graph.getLocation(graph.edgeTarget(position)) != edge.getDestination()
+                            || graph.edgeWeight(position) != expected) {
+                        return false;
+                    }
+                }
+            }
+            return graph.getEdgeCount() == network.getEdgeCount() * 2;
+        });
+        
+        testCase("Node indices stable after removal", () -> {
+            EmergencyNetwork network = createSimpleNetwork();
+            Location l3 = network.getLocation("L3");
+            int before = network.indexOf(l3);
+            
+            network.removeLocation("L2");
+            CompactGraph graph = network.getCompactGraph();
+            
+            DijkstraPathfinder pathfinder = new DijkstraPathfinder();
+            PathResult result = pathfinder.findShortestPath(
+                network, network.getLocation("L1"), l3);
+            
+            return network.indexOf(l3) == before && graph.indexOf("L2") == -1
+                && result.isValid() && result.getTotalDistance() == 3.0;
+        });
+        
+        testCase("Network versions and bounded change log", () -> {
+            EmergencyNetwork network = new EmergencyNetwork(3);
+            Location a = new Location("A", "A", 0, 0, Location.LocationType.CITY);
+            Location b = new Location("B", "B", 1, 0, Location.LocationType.CITY);
+            network.addEdge(a, b, 1.0, 2.0); // 2 locations + 2 directed edges
+            long afterBuild = network.getVersion();
+            CompactGraph snapshot = network.getCompactGraph();
+            
+            network.updateEdgeWeight("A", "B", 4.0);
+            network.setEdgeBlocked("B", "A", true);
+            List<NetworkChange> changes = network.getChangesSince(afterBuild);
+            
+            return afterBuild == 4 && snapshot.getVersion() == 4
+                && network.getCompactGraph() != snapshot && network.getCompactGraph().getVersion() == 6
+                && changes.size() == 2
+                && changes.get(0).getType() == NetworkChange.ChangeType.EDGE_WEIGHT_CHANGED
+                && changes.get(0).getOldWeight() == 2.0 && changes.get(0).getNewWeight() == 4.0
+                && changes.get(1).getNewWeight() == Double.POSITIVE_INFINITY
+                && network.getChangesSince(network.getVersion()).isEmpty()
+                && network.getChangesSince(2) == null; // truncated: only 3 entries retained
+        });
+        
+        System.out.println();
+    }
+    
+    /**
+     * Test routing engines against plain Dijkstra
+     */
+    private static void testRoutingEngines() {
+        System.out.println("Testing Routing Engines...");
+        
+        testCase("Indexed d-ary heap orders decrease-keys, ties and reuse", () -> {
+            for (int arity : new int[]{2, 3, 4, 8}) {
+                // Starts too small, so pushes rely on ensureCapacity
+                IndexedMinHeap heap = new IndexedMinHeap(4, arity);
+                heap.ensureCapacity(500);
+                double[] expected = new double[500];
+                Random random = new Random(arity);
+                for (int node = 0; node < expected.length; node++) {
+                    expected[node] = random.nextInt(1000);
+                    heap.push(node, expected[node]);
+                }
+                for (int i = 0; i < 2000; i++) {
+                    int node = random.nextInt(expected.length);
+                    double key = random.nextInt(1000);
+                    heap.push(node, key); // Only a lower key moves the node
+                    expected[node] = Math.min(expected[node], key);
+                    if (heap.getKey(node) != expected[node]) {
+                        return false;
+                    }
+                }
+                if (heap.size() != expected.length) {
+                    return false;
+                }
+                double[] sorted = expected.clone();
+                Arrays.sort(sorted);
+                boolean[] polled = new boolean[expected.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    double key = heap.peekKey();
+                    int node = heap.poll();
+                    if (polled[node] || key != sorted[i] || expected[node] != key || heap.contains(node)) {
+                        return false;
+                    }
+                    polled[node] = true;
+                }
+                
+                // Ties come out in the same order for the same pushes, before any larger key
+                List<Integer> firstOrder = new ArrayList<>();
+                List<Integer> secondOrder = new ArrayList<>();
+                for (List<Integer> order : Arrays.asList(firstOrder, secondOrder)) {
+                    for (int node = 0; node < 60; node++) {
+                        heap.push(node, node % 3);
+                    }
+                    while (!heap.isEmpty()) {
+                        double key = heap.peekKey();
+                        int node = heap.poll();
+                        if (key != node % 3 || !order.isEmpty() && order.get(order.size() - 1) % 3 > key) {
+                            return false;
+                        }
+                        order.add(node);
+                    }
+                }
+                if (!firstOrder.equals(secondOrder)) {
+                    return false;
+                }
+                
+                // A cleared heap is empty and takes its old nodes back with new keys
+                for (int node = 0; node < 50; node++) {
+                    heap.push(node, 100 - node);
+                }
+                heap.poll();
+                heap.clear();
+                if (!heap.isEmpty() || heap.size() != 0 || heap.peekKey() != Double.POSITIVE_INFINITY) {
+                    return false;
+                }
+                for (int node = 0; node < 50; node++) {
+                    if (heap.contains(node)) {
+                        return false;
+                    }
+                }
+                heap.push(10, 500.0);
+                heap.push(20, 400.0);
+                if (heap.getKey(10) != 500.0 || heap.poll() != 20 || heap.poll() != 10 || !heap.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        
+        testCase("Reused search workspace matches fresh searches", () -> {
+            EmergencyNetwork network = createGridNetwork(12);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            DijkstraPathfinder reused = new DijkstraPathfinder();
+            Random random = new Random(7);
+            
+            for (int i = 0; i < 200; i++) {
+                Location from = locations.get(random.nextInt(locations.size()));
+                Location to = locations.get(random.nextInt(locations.size()));
+                double expected = new DijkstraPathfinder().findShortestPath(network, from, to).getTotalDistance();
+                if (reused.findShortestPath(network, from, to).getTotalDistance() != expected) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        
+        testCase("One-to-many search matches per-source searches", () -> {
+            EmergencyNetwork network = createGridNetwork(10);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            DijkstraPathfinder pathfinder = new DijkstraPathfinder();
+            Random random = new Random(11);
+            Location target = locations.get(random.nextInt(locations.size()));
+            List<Location> sources = new ArrayList<>();
+            for (int i = 0; i < 15; i++) {
+                sources.add(locations.get(random.nextInt(locations.size())));
+            }
+            
+            Map<Location, PathResult> all =
+                pathfinder.findPathsToTarget(network, sources, target, 0);
+            double previous = 0.0;
+            for (Map.Entry<Location, PathResult> entry : all.entrySet()) {
+                PathResult path = entry.getValue();
+                double expected = new DijkstraPathfinder()
+                    .findShortestPath(network, entry.getKey(), target).getTotalDistance();
+                if (path.getTotalDistance() != expected || path.getTotalDistance() < previous
+                        || !path.getPath().get(0).equals(entry.getKey())
+                        || !path.getPath().get(path.getPath().size() - 1).equals(target)) {
+                    return false;
+                }
+                previous = path.getTotalDistance();
+            }
+            
+            Map<Location, PathResult> nearest =
+                pathfinder.findPathsToTarget(network, sources, target, 3);
+            List<Location> ordered = new ArrayList<>(all.keySet());
+            return all.size() == new HashSet<>(sources).size()
+                && nearest.size() == 3
+                && nearest.values().iterator().next().getTotalDistance()
+                    == all.get(ordered.get(0)).getTotalDistance();
+        });
+        
+        testCase("One-to-many search follows edge direction", () -> {
+            EmergencyNetwork network = new EmergencyNetwork();
+            Location a = new Location("A", "A", 0, 0, Location.LocationType.CITY);
+            Location b = new Location("B", "B", 1, 0, Location.LocationType.CITY);
+            network.addEdge(a, b, 1.0, 2.0);
+            network.updateEdgeWeight("B", "A", 5.0);
+            
+            DijkstraPathfinder pathfinder = new DijkstraPathfinder();
+            boolean asymmetric = pathfinder.findPathsToTarget(network, List.of(a), b, 0).get(a).getTotalDistance() == 2.0
+                && pathfinder.findPathsToTarget(network, List.of(b), a, 0).get(b).getTotalDistance() == 5.0;
+            
+            network.setEdgeBlocked("B", "A", true);
+            return asymmetric && pathfinder.findPathsToTarget(network, List.of(b), a, 0).isEmpty()
+                && pathfinder.findPathsToTarget(network, List.of(a), b, 0).containsKey(a);
+        });
+        
+        testCase("Contraction hierarchy matches Dijkstra", () -> {
+            EmergencyNetwork network = createGridNetwork(12);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            Random random = new Random(5);
+            
+            // One-way restrictions and closures make the graph asymmetric
+            for (int i = 0; i < 30; i++) {
+                Location u = locations.get(random.nextInt(locations.size()));
+                Edge edge = network.getNeighbors(u).get(0);
+                if (i % 3 == 0) {
+                    network.setEdgeBlocked(u.getId(), edge.getDestination().getId(), true);
+                } else {
+                    network.updateEdgeWeight(u.getId(), edge.getDestination().getId(), 1.0 + random.nextInt(20));
+                }
+            }
+            
+            ContractionHierarchyPathfinder hierarchy = new ContractionHierarchyPathfinder();
+            for (int round = 0; round < 2; round++) {
+                for (int i = 0; i < 150; i++) {
+                    Location from = locations.get(random.nextInt(locations.size()));
+                    Location to = locations.get(random.nextInt(locations.size()));
+                    PathResult expected = new DijkstraPathfinder().findShortestPath(network, from, to);
+                    PathResult actual = hierarchy.findShortestPath(network, from, to);
+                    if (expected.isValid() != actual.isValid()) {
+                        return false;
+                    }
+                    if (expected.isValid() && (Math.abs(expected.getTotalDistance() - actual.getTotalDistance()) > 1e-9
+                            || Math.abs(pathWeight(network, actual.getPath()) - actual.getTotalDistance()) > 1e-9)) {
+                        return false;
+                    }
+                }
+                // The hierarchy must follow the network to its next version
+                network.updateEdgeWeight(locations.get(0).getId(),
+                    network.getNeighbors(locations.get(0)).get(0).getDestination().getId(), 0.1);
+            }
+            return true;
+        });
+        
+        testCase("Customizable hierarchy follows live congestion", () -> {
+            EmergencyNetwork network = createGridNetwork(12);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            Random random = new Random(9);
+            ContractionHierarchyPathfinder hierarchy =
+                new ContractionHierarchyPathfinder(ContractionHierarchyPathfinder.Preprocessing.CUSTOMIZABLE);
+            
+            for (int round = 0; round < 5; round++) {
+                CompactGraph before = network.getCompactGraph();
+                for (int i = 0; i < 20; i++) {
+                    Location u = locations.get(random.nextInt(locations.size()));
+                    String v = network.getNeighbors(u).get(0).getDestination().getId();
+                    if (i % 4 == 0) {
+                        network.setEdgeBlocked(u.getId(), v, random.nextBoolean());
+                    } else {
+                        network.updateEdgeCongestion(u.getId(), v, 0.5 + random.nextDouble() * 3);
+                    }
+                }
+                // Weight-only changes patch the snapshot instead of rebuilding its topology
+                if (!network.getCompactGraph().hasSameTopology(before)) {
+                    return false;
+                }
+                
+                for (int i = 0; i < 60; i++) {
+                    Location from = locations.get(random.nextInt(locations.size()));
+                    Location to = locations.get(random.nextInt(locations.size()));
+                    PathResult expected = new DijkstraPathfinder().findShortestPath(network, from, to);
+                    PathResult actual = hierarchy.findShortestPath(network, from, to);
+                    if (expected.isValid() != actual.isValid()) {
+                        return false;
+                    }
+                    if (expected.isValid() && (Math.abs(expected.getTotalDistance() - actual.getTotalDistance()) > 1e-9
+                            || Math.abs(pathWeight(network, actual.getPath()) - actual.getTotalDistance()) > 1e-9)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+        
+        testCase("ALT heuristic is exact and settles fewer nodes", () -> {
+            EmergencyNetwork network = createGridNetwork(20);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            Random random = new Random(13);
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            AStarPathfinder euclidean = new AStarPathfinder();
+            AStarPathfinder alt = new AStarPathfinder(new LandmarkHeuristic(4));
+            Location congested = locations.get(random.nextInt(locations.size()));
+            long dijkstraSettled = 0;
+            long altSettled = 0;
+            
+            for (int i = 0; i < 100; i++) {
+                Location from = locations.get(random.nextInt(locations.size()));
+                Location to = locations.get(random.nextInt(locations.size()));
+                if (i == 50 || i == 75) {
+                    // Congestion keeps the landmark distances, a faster road must refresh them
+                    network.updateEdgeCongestion(congested.getId(),
+                        network.getNeighbors(congested).get(0).getDestination().getId(), i == 50 ? 4.0 : 0.5);
+                }
+                double expected = dijkstra.findShortestPath(network, from, to).getTotalDistance();
+                dijkstraSettled += dijkstra.getLastSettledCount();
+                if (Math.abs(euclidean.findShortestPath(network, from, to).getTotalDistance() - expected) > 1e-9
+                        || Math.abs(alt.findShortestPath(network, from, to).getTotalDistance() - expected) > 1e-9) {
+                    return false;
+                }
+                altSettled += alt.getLastSettledCount();
+            }
+            return alt.getHeuristic() instanceof LandmarkHeuristic
+                && ((LandmarkHeuristic) alt.getHeuristic()).getLandmarks().length == 4
+                && ((LandmarkHeuristic) alt.getHeuristic()).getPreparationCount() == 2
+                && altSettled < dijkstraSettled;
+        });
+        
+        testCase("Euclidean scale follows the change log without rescanning", () -> {
+            EmergencyNetwork network = createGridNetwork(8);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            EuclideanHeuristic following = new EuclideanHeuristic();
+            following.prepare(network);
+            Random random = new Random(23);
+            for (int step = 0; step < 200; step++) {
+                Location u = locations.get(random.nextInt(locations.size()));
+                if (!network.containsLocation(u.getId()) || network.getNeighbors(u).isEmpty()) {
+                    continue;
+                }
+                Location v = network.getNeighbors(u).get(random.nextInt(network.getNeighbors(u).size())).getDestination();
+                // Only faster roads for the first steps, then any change
+                if (step < 50) {
+                    network.updateEdgeCongestion(u.getId(), v.getId(), 0.9 - step * 0.01);
+                } else if (step % 40 == 0) {
+                    network.removeLocation(u.getId());
+                } else if (step % 5 == 0) {
+                    network.setEdgeBlocked(u.getId(), v.getId(), random.nextBoolean());
+                } else {
+                    network.updateEdgeCongestion(u.getId(), v.getId(), 0.3 + random.nextDouble() * 3.0);
+                }
+                if (step == 49 && following.getFullScanCount() != 1) {
+                    return false;
+                }
+                
+                following.prepare(network);
+                CompactGraph graph = network.getCompactGraph();
+                EuclideanHeuristic fresh = new EuclideanHeuristic();
+                fresh.prepare(graph);
+                int from = graph.indexOf(locations.get(1));
+                int to = graph.indexOf(locations.get(locations.size() - 1));
+                if (Math.abs(following.estimate(graph, from, to) - fresh.estimate(graph, from, to)) > 1e-12) {
+                    return false;
+                }
+            }
+            return following.getFullScanCount() < 40;
+        });
+        
+        testCase("Bidirectional searches match Dijkstra", () -> {
+            EmergencyNetwork network = createGridNetwork(15);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            Random random = new Random(21);
+            // An unreachable island exercises the no-path case
+            Location island = new Location("ISLAND", "Island", 100, 100, Location.LocationType.CITY);
+            network.addLocation(island);
+            locations.add(island);
+            for (int i = 0; i < 30; i++) {
+                Location u = locations.get(random.nextInt(locations.size() - 1));
+                network.setEdgeBlocked(u.getId(), network.getNeighbors(u).get(0).getDestination().getId(), true);
+            }
+            
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            Pathfinder[] engines = {
+                new BidirectionalDijkstraPathfinder(),
+                new BidirectionalAStarPathfinder(),
+                new BidirectionalAStarPathfinder(new LandmarkHeuristic(4))
+            };
+            for (int i = 0; i < 150; i++) {
+                Location from = locations.get(random.nextInt(locations.size()));
+                Location to = locations.get(random.nextInt(locations.size()));
+                PathResult expected = dijkstra.findShortestPath(network, from, to);
+                for (Pathfinder engine : engines) {
+                    PathResult actual = engine.findShortestPath(network, from, to);
+                    if (expected.isValid() != actual.isValid()) {
+                        return false;
+                    }
+                    if (expected.isValid() && (Math.abs(expected.getTotalDistance() - actual.getTotalDistance()) > 1e-9
+                            || Math.abs(pathWeight(network, actual.getPath()) - actual.getTotalDistance()) > 1e-9
+                            || !actual.getPath().get(0).equals(from)
+                            || !actual.getPath().get(actual.getPath().size() - 1).equals(to))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+        
+        testCase("Dispatch runs on a configured routing engine", () -> {
+            EmergencyNetwork network = createGridNetwork(10);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            DispatchManager dijkstraDispatch = new DispatchManager(network);
+            DispatchManager bidirectionalDispatch = new DispatchManager(network, new BidirectionalDijkstraPathfinder());
+            Random random = new Random(5);
+            for (int i = 0; i < 8; i++) {
+                Location at = locations.get(random.nextInt(locations.size()));
+                dijkstraDispatch.registerUnit(new ResponseUnit("D" + i, "D" + i, ResponseUnit.UnitType.AMBULANCE, at));
+                bidirectionalDispatch.registerUnit(new ResponseUnit("B" + i, "B" + i, ResponseUnit.UnitType.AMBULANCE, at));
+            }
+            
+            for (int i = 0; i < 20; i++) {
+                Incident incident = new Incident("I" + i, locations.get(random.nextInt(locations.size())),
+                    Incident.IncidentType.MEDICAL, Incident.IncidentSeverity.HIGH);
+                DispatchManager.DispatchDecision expected = dijkstraDispatch.findBestUnit(incident);
+                DispatchManager.DispatchDecision actual = bidirectionalDispatch.findBestUnit(incident);
+                if (Math.abs(expected.getPath().getTotalDistance() - actual.getPath().getTotalDistance()) > 1e-9) {
+                    return false;
+                }
+            }
+            
+            MultiCriteriaOptimizer optimizer = new MultiCriteriaOptimizer(network, new BidirectionalAStarPathfinder());
+            Incident incident = new Incident("M1", locations.get(0),
+                Incident.IncidentType.MEDICAL, Incident.IncidentSeverity.HIGH);
+            return optimizer.findOptimalUnit(incident, bidirectionalDispatch.getResponseUnits(), new HashMap<>()) != null;
+        });
+        
+        testCase("Every routing engine honours the PathResult contract", () -> {
+            EmergencyNetwork network = createGridNetwork(8);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            Location island = new Location("ISLAND", "Island", 50, 50, Location.LocationType.CITY);
+            network.addLocation(island);
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            
+            for (PathfinderFactory.Engine engine : PathfinderFactory.Engine.values()) {
+                Pathfinder pathfinder = PathfinderFactory.create(engine);
+                PathResult unreachable = pathfinder.findShortestPath(network, locations.get(0), island);
+                if (unreachable.isValid() || unreachable.getTotalDistance() != Double.POSITIVE_INFINITY
+                        || !unreachable.getPath().isEmpty()) {
+                    return false;
+                }
+                PathResult self = pathfinder.findShortestPath(network, locations.get(5), locations.get(5));
+                if (!self.isValid() || self.getTotalDistance() != 0.0 || self.getPath().size() != 1) {
+                    return false;
+                }
+                for (int i = 0; i < locations.size(); i += 7) {
+                    Location to = locations.get(locations.size() - 1 - i);
+                    double expected = dijkstra.findShortestPath(network, locations.get(i), to).getTotalDistance();
+                    if (Math.abs(pathfinder.findShortestPath(network, locations.get(i), to).getTotalDistance()
+                            - expected) > 1e-9) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+        
+        testCase("Routing engine factory configuration", () -> {
+            if (PathfinderFactory.Engine.fromName(" bidirectional-alt ") != PathfinderFactory.Engine.BIDIRECTIONAL_ALT) {
+                return false;
+            }
+            try {
+                PathfinderFactory.Engine.fromName("teleport");
+                return false;
+            } catch (IllegalArgumentException expected) {
+                // Unknown names are rejected
+            }
+            
+            String previous = System.getProperty(PathfinderFactory.ENGINE_PROPERTY);
+            try {
+                System.clearProperty(PathfinderFactory.ENGINE_PROPERTY);
+                System.clearProperty(PathfinderFactory.CACHE_PROPERTY);
+                Pathfinder configured = PathfinderFactory.createConfigured();
+                boolean defaultsToCachedDijkstra = configured instanceof CachingPathfinder
+                    && ((CachingPathfinder) configured).getDelegate() instanceof DijkstraPathfinder;
+                System.setProperty(PathfinderFactory.ENGINE_PROPERTY, "customizable_ch");
+                System.setProperty(PathfinderFactory.CACHE_PROPERTY, "0");
+                return defaultsToCachedDijkstra
+                    && PathfinderFactory.createConfigured() instanceof ContractionHierarchyPathfinder;
+            } finally {
+                System.clearProperty(PathfinderFactory.CACHE_PROPERTY);
+                if (previous == null) {
+                    System.clearProperty(PathfinderFactory.ENGINE_PROPERTY);
+                } else {
+                    System.setProperty(PathfinderFactory.ENGINE_PROPERTY, previous);
+                }
+            }
+        });
+        
+        testCase("Parallel distance matrix matches sequential Dijkstra", () -> {
+            EmergencyNetwork network = createGridNetwork(14);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            network.setEdgeBlocked(locations.get(0).getId(), locations.get(1).getId(), true);
+            CompactGraph graph = network.getCompactGraph();
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            int[] sources = new int[40];
+            int[] targets = new int[25];
+            Random random = new Random(61);
+            for (int i = 0; i < sources.length; i++) {
+                sources[i] = random.nextInt(graph.getNodeCount());
+            }
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = random.nextInt(graph.getNodeCount());
+            }
+            
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                ParallelShortestPaths parallel = new ParallelShortestPaths(pool);
+                DistanceMatrix full = parallel.computeDistances(graph, sources);
+                DistanceMatrix selected = parallel.computeDistances(graph, sources, targets);
+                if (full.getColumnCount() != graph.getNodeCount() || selected.getColumnCount() != targets.length) {
+                    return false;
+                }
+                for (int row = 0; row < sources.length; row++) {
+                    double[] expected = dijkstra.findShortestDistances(graph, sources[row]);
+                    if (!Arrays.equals(expected, full.copyRow(row))) {
+                        return false;
+                    }
+                    for (int column = 0; column < targets.length; column++) {
+                        if (selected.get(row, column) != expected[targets[column]]) {
+                            return false;
+                        }
+                    }
+                }
+                
+                // Pairwise paths match serial point-to-point searches
+                int[] destinations = new int[sources.length];
+                for (int pair = 0; pair < sources.length; pair++) {
+                    destinations[pair] = targets[pair % targets.length];
+                }
+                PathResult[] paths = parallel.computePaths(graph, sources, destinations);
+                for (int pair = 0; pair < sources.length; pair++) {
+                    PathResult expected = dijkstra.findShortestPath(graph, sources[pair], destinations[pair]);
+                    if (paths[pair].isValid() != expected.isValid()
+                        || paths[pair].isValid() && paths[pair].getTotalDistance() != expected.getTotalDistance()) {
+                        return false;
+                    }
+                }
+                
+                // Location API and TravelTimeMatrix batches agree with single-row fills
+                List<Location> units = locations.subList(0, 6);
+                DistanceMatrix byLocation = parallel.computeDistances(network, units, null);
+                TravelTimeMatrix batched = new TravelTimeMatrix(network);
+                batched.precomputeRows(units);
+                TravelTimeMatrix single = new TravelTimeMatrix(network);
+                for (Location unit : units) {
+                    for (Location target : locations) {
+                        double expected = single.getTravelTime(unit, target);
+                        if (byLocation.getDistance(unit, target) != expected || batched.getTravelTime(unit, target) != expected) {
+                            return false;
+                        }
+                    }
+                }
+                boolean rejectsBadNode;
+                try {
+                    parallel.computeDistances(graph, new int[]{graph.getNodeCount()});
+                    rejectsBadNode = false;
+                } catch (IllegalArgumentException expected) {
+                    rejectsBadNode = true;
+                }
+                return rejectsBadNode && batched.getRowComputations() == units.size()
+                    && parallel.computeDistances(graph, new int[0]).getRowCount() == 0;
+            } finally {
+                pool.shutdown();
+            }
+        });
+        
+        System.out.println();
+    }
+    
+    /**
+     * Test caches of travel times, paths and shortest-path trees
+     */
+    private static void testRoutingCaches() {
+        System.out.println("Testing Routing Caches...");
+        
+        testCase("Travel-time matrix stays exact under network changes", () -> {
+            EmergencyNetwork network = createGridNetwork(8);
+            TravelTimeMatrix matrix = new TravelTimeMatrix(network);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            List<Location> sources = locations.subList(0, 10);
+            Random random = new Random(3);
+            
+            for (int step = 0; step < 40; step++) {
+                for (Location source : sources) {
+                    for (Location target : locations) {
+                        PathResult expected =
+                            new DijkstraPathfinder().findShortestPath(network, source, target);
+                        double actual = matrix.getTravelTime(source, target);
+                        if (expected.isValid() ? actual != expected.getTotalDistance()
+                                : actual != Double.POSITIVE_INFINITY) {
+                            return false;
+                        }
+                    }
+                }
+                
+                Location u = locations.get(random.nextInt(locations.size()));
+                List<Edge> edges = network.getNeighbors(u);
+                if (edges.isEmpty()) {
+                    continue;
+                }
+                Location v = edges.get(random.nextInt(edges.size())).getDestination();
+                switch (step % 4) {
+                    case 0 -> network.updateEdgeWeight(u.getId(), v.getId(), 0.5 + random.nextInt(6));
+                    case 1 -> network.setEdgeBlocked(u.getId(), v.getId(), random.nextBoolean());
+                    case 2 -> network.addEdge(u, locations.get(random.nextInt(locations.size())), 1.0, 1.0);
+                    default -> {
+                        if (step == 23) {
+                            network.removeLocation(locations.get(locations.size() - 1).getId());
+                        }
+                    }
+                }
+            }
+            // Rows untouched by a change are reused rather than recomputed every step
+            return matrix.getRowComputations() < sources.size() * 40L;
+        });
+        
+        testCase("Travel-time matrix caps its rows and lets go of the network", () -> {
+            EmergencyNetwork network = createGridNetwork(6);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            TravelTimeMatrix matrix = new TravelTimeMatrix(network, 4);
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            for (int round = 0; round < 2; round++) {
+                for (Location source : locations.subList(0, 10)) {
+                    Location target = locations.get(locations.size() - 1);
+                    if (matrix.getTravelTime(source, target)
+                            != dijkstra.findShortestPath(network, source, target).getTotalDistance()) {
+                        return false;
+                    }
+                }
+            }
+            if (matrix.getCachedRowCount() != 4 || matrix.getRowEvictions() != 16) {
+                return false;
+            }
+            
+            // A batch larger than the cap fills only as many rows as are kept
+            TravelTimeMatrix batched = new TravelTimeMatrix(network, 4);
+            batched.precomputeRows(locations.subList(0, 10));
+            if (batched.getRowComputations() != 4 || batched.getRowEvictions() != 0
+                    || batched.getCachedRowCount() != 4) {
+                return false;
+            }
+            
+            // Detached matrices miss changes but hold no rows that could go stale
+            matrix.detach();
+            Location u = locations.get(0);
+            Location v = network.getNeighbors(u).get(0).getDestination();
+            network.updateEdgeWeight(u.getId(), v.getId(), 9.0);
+            long invalidations = matrix.getRowInvalidations();
+            boolean exact = matrix.getTravelTime(u, v) == dijkstra.findShortestPath(network, u, v).getTotalDistance();
+            network.updateEdgeWeight(u.getId(), v.getId(), 8.0);
+            return exact && invalidations == 0 && matrix.getRowInvalidations() == 1
+                && matrix.getTravelTime(u, v) == dijkstra.findShortestPath(network, u, v).getTotalDistance();
+        });
+        
+        testCase("Path cache stays exact under network changes", () -> {
+            EmergencyNetwork network = createGridNetwork(8);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            CachingPathfinder cache = new CachingPathfinder(new DijkstraPathfinder(), 64);
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            Random random = new Random(17);
+            // A small hot set of origin-destination pairs, as in dispatch workloads
+            List<Location[]> hotPairs = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                hotPairs.add(new Location[]{locations.get(random.nextInt(12)),
+                    locations.get(random.nextInt(locations.size()))});
+            }
+            
+            for (int step = 0; step < 60; step++) {
+                for (int i = 0; i < 100; i++) {
+                    Location[] pair = random.nextInt(4) == 0
+                        ? new Location[]{locations.get(random.nextInt(locations.size())),
+                            locations.get(random.nextInt(locations.size()))}
+                        : hotPairs.get(random.nextInt(hotPairs.size()));
+                    PathResult expected = dijkstra.findShortestPath(network, pair[0], pair[1]);
+                    PathResult actual = cache.findShortestPath(network, pair[0], pair[1]);
+                    if (expected.isValid() != actual.isValid()
+                            || (expected.isValid() && (actual.getTotalDistance() != expected.getTotalDistance()
+                                || Math.abs(pathWeight(network, actual.getPath()) - actual.getTotalDistance()) > 1e-9))) {
+                        return false;
+                    }
+                }
+                
+                Location u = locations.get(random.nextInt(locations.size()));
+                List<Edge> edges = network.getNeighbors(u);
+                if (edges.isEmpty()) {
+                    continue;
+                }
+                Location v = edges.get(random.nextInt(edges.size())).getDestination();
+                switch (step % 5) {
+                    case 0 -> network.updateEdgeWeight(u.getId(), v.getId(), 0.5 + random.nextInt(6));
+                    case 1 -> network.setEdgeBlocked(u.getId(), v.getId(), random.nextBoolean());
+                    case 2 -> network.addEdge(u, locations.get(random.nextInt(locations.size())), 1.0, 1.0);
+                    case 3 -> network.updateEdgeCongestion(u.getId(), v.getId(), 0.5 + random.nextDouble() * 2);
+                    default -> {
+                        if (step == 34) {
+                            network.removeLocation(locations.get(locations.size() - 1).getId());
+                        }
+                    }
+                }
+            }
+            return cache.getHitCount() > cache.getMissCount()
+                && cache.getEvictionCount() > 0
+                && cache.getInvalidationCount() > 0
+                && cache.size() <= 64;
+        });
+        
+        testCase("Path cache is safe under concurrent lookups", () -> {
+            EmergencyNetwork network = createGridNetwork(10);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            CachingPathfinder cache = new CachingPathfinder(new BidirectionalDijkstraPathfinder(), 32);
+            double[][] expected = new double[locations.size()][locations.size()];
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            for (int i = 0; i < 10; i++) {
+                for (int j = 0; j < locations.size(); j++) {
+                    expected[i][j] = dijkstra.findShortestPath(network, locations.get(i), locations.get(j)).getTotalDistance();
+                }
+            }
+            
+            List<Thread> threads = new ArrayList<>();
+            boolean[] failed = new boolean[1];
+            for (int t = 0; t < 4; t++) {
+                Random random = new Random(t);
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        int from = random.nextInt(10);
+                        int to = random.nextInt(locations.size());
+                        if (cache.findShortestPath(network, locations.get(from), locations.get(to))
+                                .getTotalDistance() != expected[from][to]) {
+                            failed[0] = true;
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
+            return !failed[0] && cache.getHitCount() + cache.getMissCount() == 8000;
+        });
+        
+        testCase("Dispatch-center trees stay exact under network changes", () -> {
+            EmergencyNetwork network = createGridNetwork(9);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            List<Location> centers = new ArrayList<>();
+            for (Location location : locations) {
+                if (location.getType() == Location.LocationType.DISPATCH_CENTER) {
+                    centers.add(location);
+                }
+            }
+            ShortestPathTreeCache trees = new ShortestPathTreeCache(network);
+            trees.buildAll();
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            Random random = new Random(29);
+            
+            for (int step = 0; step < 80; step++) {
+                for (Location center : centers) {
+                    if (network.getLocation(center.getId()) == null) {
+                        continue;
+                    }
+                    for (Location target : network.getAllLocations()) {
+                        PathResult expected = dijkstra.findShortestPath(network, center, target);
+                        PathResult actual = trees.findShortestPath(network, center, target);
+                        if (expected.isValid() != actual.isValid()
+                                || (expected.isValid() && (Math.abs(actual.getTotalDistance() - expected.getTotalDistance()) > 1e-9
+                                    || Math.abs(pathWeight(network, actual.getPath()) - actual.getTotalDistance()) > 1e-9))) {
+                            return false;
+                        }
+                    }
+                }
+                
+                // Mixed sources are merged in distance order
+                Location target = locations.get(random.nextInt(locations.size()));
+                if (network.getLocation(target.getId()) != null) {
+                    List<Location> sources = new ArrayList<>(centers);
+                    sources.add(locations.get(random.nextInt(locations.size())));
+                    sources.removeIf(source -> network.getLocation(source.getId()) == null);
+                    Map<Location, PathResult> expected = dijkstra.findPathsToTarget(network, sources, target, 3);
+                    Map<Location, PathResult> actual = trees.findPathsToTarget(network, sources, target, 3);
+                    List<PathResult> expectedPaths = new ArrayList<>(expected.values());
+                    List<PathResult> actualPaths = new ArrayList<>(actual.values());
+                    if (expectedPaths.size() != actualPaths.size()) {
+                        return false;
+                    }
+                    for (int i = 0; i < expectedPaths.size(); i++) {
+                        if (Math.abs(expectedPaths.get(i).getTotalDistance() - actualPaths.get(i).getTotalDistance()) > 1e-9) {
+                            return false;
+                        }
+                    }
+                }
+                
+                Location u = locations.get(random.nextInt(locations.size()));
+                if (network.getLocation(u.getId()) == null || network.getNeighbors(u).isEmpty()) {
+                    continue;
+                }
+                List<Edge> edges = network.getNeighbors(u);
+                Location v = edges.get(random.nextInt(edges.size())).getDestination();
+                switch (step % 6) {
+                    case 0 -> network.updateEdgeWeight(u.getId(), v.getId(), 0.2 + random.nextInt(3));
+                    case 1 -> network.setEdgeBlocked(u.getId(), v.getId(), random.nextBoolean());
+                    case 2 -> network.addEdge(u, locations.get(random.nextInt(locations.size())), 1.0, 0.5);
+                    case 3 -> network.updateEdgeCongestion(u.getId(), v.getId(), 0.3 + random.nextDouble() * 2);
+                    case 4 -> network.updateEdgeWeight(u.getId(), v.getId(), 2.0 + random.nextInt(6));
+                    default -> {
+                        if (step == 41) {
+                            network.removeLocation(locations.get(locations.size() / 2).getId());
+                        }
+                    }
+                }
+            }
+            return trees.getTreeCount() == centers.size()
+                && trees.getIncrementalRepairs() > 0
+                && trees.getTreeQueries() > 0
+                && trees.getTreeBuilds() == centers.size()
+                && trees.getFullRecomputes() == 0;
+        });
+        
+        testCase("Tree repair after road closures only redoes affected subtrees", () -> {
+            EmergencyNetwork network = createGridNetwork(15);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            ShortestPathTreeCache trees = new ShortestPathTreeCache(network);
+            trees.buildAll();
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            Random random = new Random(53);
+            List<String[]> closed = new ArrayList<>();
+            int rounds = 25;
+            
+            for (int round = 0; round < rounds; round++) {
+                // A burst of closures and slowdowns, with a few roads reopening
+                for (int i = 0; i < 12; i++) {
+                    Location u = locations.get(random.nextInt(locations.size()));
+                    List<Edge> edges = network.getNeighbors(u);
+                    String v = edges.get(random.nextInt(edges.size())).getDestination().getId();
+                    if (i % 3 == 2) {
+                        network.updateEdgeWeight(u.getId(), v, 3.0 + random.nextInt(5));
+                    } else {
+                        network.setEdgeBlocked(u.getId(), v, true);
+                        closed.add(new String[]{u.getId(), v});
+                    }
+                }
+                if (round % 4 == 3) {
+                    for (String[] road : closed.subList(0, closed.size() / 2)) {
+                        network.setEdgeBlocked(road[0], road[1], false);
+                    }
+                    closed.subList(0, closed.size() / 2).clear();
+                }
+                
+                for (Location center : locations) {
+                    if (center.getType() != Location.LocationType.DISPATCH_CENTER) {
+                        continue;
+                    }
+                    ShortestPathTree tree = trees.getTree(center);
+                    for (Location target : locations) {
+                        double expected = dijkstra.findShortestPath(network, center, target).getTotalDistance();
+                        PathResult actual = tree.getPath(network.getCompactGraph(), network.indexOf(target));
+                        if (expected != Double.POSITIVE_INFINITY
+                                && (Math.abs(actual.getTotalDistance() - expected) > 1e-9
+                                    || Math.abs(pathWeight(network, actual.getPath()) - expected) > 1e-9)) {
+                            return false;
+                        }
+                        if (expected == Double.POSITIVE_INFINITY && actual.isValid()) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            // Far fewer nodes are redone than a recompute of every tree per round
+            return trees.getFullRecomputes() == 0
+                && trees.getDetachedNodeCount() > 0
+                && trees.getDetachedNodeCount() < (long) rounds * trees.getTreeCount() * locations.size() / 2;
+        });
+        
+        System.out.println();
+    }
+    
+    /**
+     * Test unit selection and assignment
+     */
+    private static void testAssignment() {
+        System.out.println("Testing Assignment...");
+        
+        testCase("Concurrent dispatch claims each unit at most once", () -> {
+            EmergencyNetwork network = createGridNetwork(10);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            ConcurrentDispatchManager manager = new ConcurrentDispatchManager(network);
+            for (int i = 0; i < 10; i++) {
+                manager.registerUnit(new ResponseUnit("AMB-" + i, "Ambulance " + i,
+                    ResponseUnit.UnitType.AMBULANCE, locations.get(i * 9)));
+            }
+            
+            // A call cancelled before dispatch never takes a unit
+            manager.reportIncident(new Incident("CANCELLED", locations.get(50),
+                Incident.IncidentType.MEDICAL, Incident.IncidentSeverity.CRITICAL));
+            manager.resolveIncident("CANCELLED");
+            if (manager.dispatchNext() != null || manager.getAvailableUnitsCount() != 10) {
+                return false;
+            }
+            
+            // 8 dispatchers race for 10 units over 200 incidents
+            for (int i = 0; i < 200; i++) {
+                manager.reportIncident(new Incident("RACE-" + i, locations.get(i % locations.size()),
+                    Incident.IncidentType.MEDICAL, Incident.IncidentSeverity.HIGH));
+            }
+            List<DispatchManager.DispatchDecision> decisions = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                threads.add(new Thread(() -> decisions.addAll(manager.dispatchAll())));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
+            
+            Set<ResponseUnit> units = new HashSet<>();
+            for (DispatchManager.DispatchDecision decision : decisions) {
+                if (!units.add(decision.getUnit()) || decision.getIncident().getAssignedUnit() != decision.getUnit()
+                        || decision.getUnit().getCurrentIncident() != decision.getIncident()) {
+                    return false;
+                }
+            }
+            // Resolving frees the unit at the incident location for the next call
+            DispatchManager.DispatchDecision first = decisions.get(0);
+            manager.resolveIncident(first.getIncident().getId());
+            DispatchManager.DispatchDecision next = manager.dispatchNext();
+            return decisions.size() == 10 && manager.getAvailableUnitsCount() == 0
+                && next != null && next.getUnit() == first.getUnit()
+                && first.getIncident().getStatus() == Incident.IncidentStatus.RESOLVED
+                && manager.getPendingCount() == 189;
+        });
+        
+        testCase("Hungarian assignment matches brute force", () -> {
+            Random random = new Random(71);
+            for (int trial = 0; trial < 300; trial++) {
+                int rows = 1 + random.nextInt(6);
+                int columns = 1 + random.nextInt(6);
+                double[][] cost = new double[rows][columns];
+                for (double[] row : cost) {
+                    for (int j = 0; j < columns; j++) {
+                        row[j] = random.nextInt(8) == 0 ? Double.POSITIVE_INFINITY : random.nextInt(20) - 5;
+                    }
+                }
+                int[] assignment = HungarianAssignment.solve(cost);
+                Set<Integer> usedColumns = new HashSet<>();
+                int matched = 0;
+                for (int column : assignment) {
+                    if (column >= 0) {
+                        matched++;
+                        if (!usedColumns.add(column)) {
+                            return false;
+                        }
+                    }
+                }
+                // Best (most matched rows, then lowest cost) over all injective partial assignments
+                double[] best = bruteForceAssignment(cost, 0, new boolean[columns], 0, 0.0);
+                if (matched != (int) best[0]
+                        || Math.abs(HungarianAssignment.totalCost(cost, assignment) - best[1]) > 1e-9) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        
+        testCase("Optimal batch assignment maximizes the total score", () -> {
+            EmergencyNetwork network = createGridNetwork(12);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            Random random = new Random(83);
+            List<ResponseUnit> units = new ArrayList<>();
+            Map<ResponseUnit, Integer> workload = new HashMap<>();
+            for (int i = 0; i < 15; i++) {
+                ResponseUnit unit = new ResponseUnit("OU-" + i, "Unit " + i, ResponseUnit.UnitType.values()[i % 5],
+                    locations.get(random.nextInt(locations.size())));
+                units.add(unit);
+                workload.put(unit, random.nextInt(6));
+            }
+            List<Incident> incidents = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                incidents.add(new Incident("OI-" + i, locations.get(random.nextInt(locations.size())),
+                    Incident.IncidentType.values()[i % 5], Incident.IncidentSeverity.values()[i % 4]));
+            }
+            MultiCriteriaOptimizer optimizer = new MultiCriteriaOptimizer(network);
+            
+            // Fewer incidents than units: every incident is served and the total beats greedy
+            List<Incident> small = incidents.subList(0, 10);
+            Map<Incident, MultiCriteriaOptimizer.OptimizedDispatchDecision> greedy = optimizer.batchOptimize(
+                small, units, workload, MultiCriteriaOptimizer.AssignmentMode.GREEDY);
+            optimizer.setAssignmentMode(MultiCriteriaOptimizer.AssignmentMode.OPTIMAL);
+            Map<Incident, MultiCriteriaOptimizer.OptimizedDispatchDecision> optimal = optimizer.batchOptimize(
+                small, units, workload);
+            double greedyTotal = 0.0;
+            double optimalTotal = 0.0;
+            for (MultiCriteriaOptimizer.OptimizedDispatchDecision decision : greedy.values()) {
+                greedyTotal += decision.getTotalScore();
+            }
+            Set<ResponseUnit> assigned = new HashSet<>();
+            for (MultiCriteriaOptimizer.OptimizedDispatchDecision decision : optimal.values()) {
+                optimalTotal += decision.getTotalScore();
+                // The total is the weighted sum of the reported criteria
+                double weighted = 0.0;
+                for (Map.Entry<String, Double> weight : optimizer.getWeights().entrySet()) {
+                    weighted += weight.getValue() * decision.getCriteriaScores().get(weight.getKey());
+                }
+                if (decision.getIncident().getSeverity() == Incident.IncidentSeverity.CRITICAL) {
+                    weighted *= 1.2;
+                }
+                if (!assigned.add(decision.getUnit()) || !decision.getPath().isValid()
+                        || Math.abs(weighted - decision.getTotalScore()) > 1e-9) {
+                    return false;
+                }
+            }
+            if (optimal.size() != small.size() || optimalTotal < greedyTotal - 1e-9) {
+                return false;
+            }
+            
+            // More incidents than units: every unit is used, on the highest priorities
+            Map<Incident, MultiCriteriaOptimizer.OptimizedDispatchDecision> surge = optimizer.batchOptimize(
+                incidents, units, workload);
+            double lowestServed = Double.POSITIVE_INFINITY;
+            for (Incident incident : surge.keySet()) {
+                lowestServed = Math.min(lowestServed, incident.getPriorityScore());
+            }
+            for (Incident incident : incidents) {
+                if (!surge.containsKey(incident) && incident.getPriorityScore() > lowestServed) {
+                    return false;
+                }
+            }
+            return surge.size() == units.size()
+                && optimizer.batchOptimize(new ArrayList<>(), units, workload).isEmpty();
+        });
+        
+        testCase("Spatial unit index matches brute-force nearest units", () -> {
+            EmergencyNetwork network = createGridNetwork(15);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            Random random = new Random(97);
+            UnitSpatialIndex index = new UnitSpatialIndex(network, 6);
+            List<ResponseUnit> units = new ArrayList<>();
+            for (int i = 0; i < 80; i++) {
+                ResponseUnit unit = new ResponseUnit("SU-" + i, "Unit " + i, ResponseUnit.UnitType.values()[i % 5],
+                    locations.get(random.nextInt(locations.size())));
+                units.add(unit);
+                index.add(unit);
+            }
+            
+            for (int round = 0; round < 3; round++) {
+                for (int query = 0; query < 25; query++) {
+                    Location from = locations.get(random.nextInt(locations.size()));
+                    Incident.IncidentType type = Incident.IncidentType.values()[query % 5];
+                    List<ResponseUnit> expected = new ArrayList<>();
+                    for (ResponseUnit unit : units) {
+                        if (unit.isAvailable() && unit.canRespondTo(type)) {
+                            expected.add(unit);
+                        }
+                    }
+                    // Stable sort keeps insertion order among equal distances
+                    expected.sort(Comparator.comparingDouble(unit -> unit.getCurrentLocation().distanceTo(from)));
+                    List<ResponseUnit> nearest = index.findNearest(from, 4, type);
+                    if (!nearest.equals(expected.subList(0, Math.min(4, expected.size())))) {
+                        return false;
+                    }
+                    double radius = random.nextDouble() * 6.0;
+                    List<ResponseUnit> within = new ArrayList<>();
+                    for (ResponseUnit unit : expected) {
+                        if (unit.getCurrentLocation().distanceTo(from) <= radius) {
+                            within.add(unit);
+                        }
+                    }
+                    if (!index.findWithinRadius(from, radius, type).equals(within)) {
+                        return false;
+                    }
+                }
+                // Moves and status changes reach the index through the units
+                for (int i = 0; i < 30; i++) {
+                    ResponseUnit unit = units.get(random.nextInt(units.size()));
+                    if (random.nextBoolean()) {
+                        unit.setCurrentLocation(locations.get(random.nextInt(locations.size())));
+                    } else {
+                        unit.setStatus(ResponseUnit.UnitStatus.values()[random.nextInt(3)]);
+                    }
+                }
+            }
+            int available = 0;
+            for (ResponseUnit.UnitType type : ResponseUnit.UnitType.values()) {
+                available += index.count(type, true);
+            }
+            long expectedAvailable = units.stream().filter(ResponseUnit::isAvailable).count();
+            index.remove(units.get(0));
+            units.get(0).setStatus(ResponseUnit.UnitStatus.AVAILABLE);
+            if (available != expectedAvailable || index.size() != units.size() - 1) {
+                return false;
+            }
+            
+            // Routing only the nearest few units per round picks units as close by road
+            // as routing the whole fleet
+            DispatchManager pruned = new DispatchManager(network);
+            DispatchManager full = new DispatchManager(network);
+            pruned.setCandidateLimit(1);
+            full.setCandidateLimit(0);
+            for (int i = 0; i < 60; i++) {
+                Location location = locations.get(random.nextInt(locations.size()));
+                ResponseUnit.UnitType type = ResponseUnit.UnitType.values()[i % 5];
+                pruned.registerUnit(new ResponseUnit("PU-" + i, "Unit " + i, type, location));
+                full.registerUnit(new ResponseUnit("FU-" + i, "Unit " + i, type, location));
+            }
+            for (int i = 0; i < 50; i++) {
+                Incident incident = new Incident("SI-" + i, locations.get(random.nextInt(locations.size())),
+                    Incident.IncidentType.values()[i % 5], Incident.IncidentSeverity.MEDIUM);
+                DispatchManager.DispatchDecision a = pruned.findBestUnit(incident);
+                DispatchManager.DispatchDecision b = full.findBestUnit(incident);
+                if ((a == null) != (b == null)) {
+                    return false;
+                }
+                if (a != null) {
+                    if (Math.abs(a.getPath().getTotalDistance() - b.getPath().getTotalDistance()) > 1e-9) {
+                        return false;
+                    }
+                    a.getUnit().setStatus(ResponseUnit.UnitStatus.DISPATCHED);
+                    b.getUnit().setStatus(ResponseUnit.UnitStatus.DISPATCHED);
+                }
+            }
+            return pruned.getUnitIndex().size() == 60;
+        });
+        
+        testCase("Spatial unit index sizes its grid from units added after an empty network", () -> {
+            // Managers are built before the network is loaded, as PERDS does
+            EmergencyNetwork network = new EmergencyNetwork();
+            DispatchManager dispatcher = new DispatchManager(network);
+            Random random = new Random(131);
+            List<ResponseUnit> units = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                // Degree-scale coordinates, about 0.1 degrees across
+                Location location = new Location("DL" + i, "Location " + i, -74.05 + random.nextDouble() * 0.1,
+                    40.70 + random.nextDouble() * 0.1, Location.LocationType.CITY);
+                network.addLocation(location);
+                ResponseUnit unit = new ResponseUnit("DU-" + i, "Unit " + i, ResponseUnit.UnitType.values()[i % 5],
+                    location);
+                units.add(unit);
+                dispatcher.registerUnit(unit);
+            }
+            UnitSpatialIndex index = dispatcher.getUnitIndex();
+            if (index.getCellSize() > 0.01) {
+                return false;
+            }
+            
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            for (int round = 0; round < 2; round++) {
+                for (int query = 0; query < 40; query++) {
+                    Location from = locations.get(random.nextInt(locations.size()));
+                    Incident.IncidentType type = Incident.IncidentType.values()[query % 5];
+                    List<ResponseUnit> expected = new ArrayList<>();
+                    for (ResponseUnit unit : units) {
+                        if (unit.isAvailable() && unit.canRespondTo(type)) {
+                            expected.add(unit);
+                        }
+                    }
+                    expected.sort(Comparator.comparingDouble(unit -> unit.getCurrentLocation().distanceTo(from)));
+                    if (!index.findNearest(from, 3, type).equals(expected.subList(0, Math.min(3, expected.size())))) {
+                        return false;
+                    }
+                }
+                // A unit far outside the extent makes the grid coarser, not wrong
+                Location far = new Location("DLF" + round, "Far " + round, -70.0 - round * 5, 42.0,
+                    Location.LocationType.CITY);
+                network.addLocation(far);
+                locations.add(far);
+                units.get(round).setCurrentLocation(far);
+            }
+            return index.getCellSize() > 0.01 && index.getCellSize() < 1.0 && index.size() == units.size();
+        });
+        
+        testCase("Availability buckets follow unit status transitions", () -> {
+            EmergencyNetwork network = createGridNetwork(6);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            DispatchManager dispatcher = new DispatchManager(network);
+            List<ResponseUnit> units = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                // Units without a position are still counted
+                ResponseUnit unit = new ResponseUnit("AU-" + i, "Unit " + i, ResponseUnit.UnitType.values()[i % 5],
+                    i % 8 == 0 ? null : locations.get(i % locations.size()));
+                units.add(unit);
+                dispatcher.registerUnit(unit);
+            }
+            UnitSpatialIndex index = dispatcher.getUnitIndex();
+            Random random = new Random(7);
+            for (int step = 0; step < 200; step++) {
+                ResponseUnit unit = units.get(random.nextInt(units.size()));
+                ResponseUnit.UnitStatus status = ResponseUnit.UnitStatus.values()[
+                    random.nextInt(ResponseUnit.UnitStatus.values().length)];
+                if (step % 3 == 0) {
+                    unit.compareAndSetStatus(unit.getStatus(), status);
+                } else {
+                    unit.setStatus(status);
+                }
+                
+                if (dispatcher.getAvailableUnitsCount() != units.stream().filter(ResponseUnit::isAvailable).count()) {
+                    return false;
+                }
+                for (Incident.IncidentType type : Incident.IncidentType.values()) {
+                    Set<ResponseUnit> expected = new HashSet<>();
+                    for (ResponseUnit candidate : units) {
+                        if (candidate.isAvailable() && candidate.canRespondTo(type)) {
+                            expected.add(candidate);
+                        }
+                    }
+                    List<ResponseUnit> bucket = index.getAvailableUnits(type);
+                    if (bucket.size() != expected.size() || !expected.containsAll(bucket)
+                            || index.countAvailable(type) != expected.size()) {
+                        return false;
+                    }
+                }
+            }
+            int unavailable = 0;
+            for (ResponseUnit.UnitType type : ResponseUnit.UnitType.values()) {
+                unavailable += index.count(type, false);
+            }
+            return unavailable + index.countAvailable() == units.size();
+        });
+        
+        testCase("Closed dispatch managers stop following their units", () -> {
+            EmergencyNetwork network = createGridNetwork(5);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            DispatchManager dropped = new DispatchManager(network);
+            ConcurrentDispatchManager concurrentDropped = new ConcurrentDispatchManager(network);
+            DispatchManager kept = new DispatchManager(network);
+            List<ResponseUnit> units = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                ResponseUnit unit = new ResponseUnit("CU-" + i, "Unit " + i, ResponseUnit.UnitType.AMBULANCE,
+                    locations.get(i));
+                units.add(unit);
+                dropped.registerUnit(unit);
+                concurrentDropped.registerUnit(unit);
+                kept.registerUnit(unit);
+            }
+            dropped.close();
+            concurrentDropped.close();
+            ResponseUnit leaving = units.get(0);
+            kept.unregisterUnit(leaving);
+            
+            for (ResponseUnit unit : units) {
+                int expectedListeners = unit == leaving ? 0 : 1;
+                if (unit.getChangeListenerCount() != expectedListeners) {
+                    return false;
+                }
+                unit.setStatus(ResponseUnit.UnitStatus.DISPATCHED);
+            }
+            return dropped.getUnitIndex().size() == 0 && dropped.getResponseUnits().isEmpty()
+                && concurrentDropped.getResponseUnits().isEmpty() && concurrentDropped.getAvailableUnitsCount() == 0
+                && kept.getUnitIndex().size() == units.size() - 1 && !kept.getResponseUnits().contains(leaving)
+                && kept.getAvailableUnitsCount() == 0;
+        });
+        
+        System.out.println();
+    }
+    
+    /**
+     * Test simulation modes, replications and parameter sweeps
+     */
+    private static void testSimulation() {
+        System.out.println("Testing Simulation...");
+        
+        testCase("Discrete-event simulation keeps units and incidents consistent", () -> {
+            int duration = 60 * 24 * 60;
+            int[] incidentCounts = new int[2];
+            for (int run = 0; run < 2; run++) {
+                EmergencyNetwork network = createGridNetwork(10);
+                List<Location> locations = new ArrayList<>(network.getAllLocations());
+                locations.sort(Comparator.comparing(Location::getId));
+                DispatchManager dispatcher = new DispatchManager(network);
+                dispatcher.setLoggingEnabled(false);
+                for (int i = 0; i < 15; i++) {
+                    dispatcher.registerUnit(new ResponseUnit("DU-" + i, "Unit " + i,
+                        ResponseUnit.UnitType.values()[i % 5], locations.get(i * 7 % locations.size())));
+                }
+                SimulationEngine simulation = new SimulationEngine(network, dispatcher, new PredictiveAnalyzer(),
+                    SimulationEngine.SimulationConfig.getDefault());
+                simulation.setVerbose(false);
+                SimulationEngine.SimulationResult result = simulation.runDiscreteEventSimulation(duration);
+                
+                int previousTime = 0;
+                int generated = 0;
+                int dispatched = 0;
+                for (SimulationEngine.SimulationEvent event : result.getEvents()) {
+                    if (event.getTimeMinutes() < previousTime || event.getTimeMinutes() >= duration) {
+                        return false;
+                    }
+                    previousTime = event.getTimeMinutes();
+                    generated += event.getEventType().equals("INCIDENT_GENERATED") ? 1 : 0;
+                    dispatched += event.getEventType().equals("UNIT_DISPATCHED") ? 1 : 0;
+                }
+                // Poisson arrivals at 12 per hour
+                double expected = 12.0 * duration / 60.0;
+                if (generated != result.getTotalIncidents() || Math.abs(generated - expected) > 0.05 * expected
+                        || dispatched != result.getMetrics().getSuccessfulDispatches()) {
+                    return false;
+                }
+                
+                // Every busy unit serves exactly one open incident
+                long busy = 0;
+                for (ResponseUnit unit : dispatcher.getResponseUnits()) {
+                    if (unit.isAvailable() != (unit.getCurrentIncident() == null)) {
+                        return false;
+                    }
+                    busy += unit.isAvailable() ? 0 : 1;
+                }
+                long served = dispatcher.getActiveIncidents().stream()
+                    .filter(incident -> incident.getStatus() != Incident.IncidentStatus.REPORTED)
+                    .count();
+                if (busy != served || dispatcher.getAvailableUnitsCount() != 15 - busy) {
+                    return false;
+                }
+                incidentCounts[run] = generated;
+            }
+            return incidentCounts[0] == incidentCounts[1]; // Same seed, same run
+        });
+        
+        testCase("Simulation configs reject intervals that stop simulated time", () -> {
+            for (int interval : new int[]{0, -30}) {
+                try {
+                    new SimulationEngine.SimulationConfig(12.0, true, interval, 1);
+                    return false;
+                } catch (IllegalArgumentException expected) {
+                    // Discrete-event repositioning timers would never advance
+                }
+            }
+            // The interval does not matter while repositioning is off
+            new SimulationEngine.SimulationConfig(12.0, false, 0, 1);
+            try {
+                new SimulationEngine.SimulationConfig(-1.0, false, 30, 1);
+                return false;
+            } catch (IllegalArgumentException expected) {
+                // Negative arrival rates are rejected as well
+            }
+            
+            // The shortest allowed interval still terminates
+            EmergencyNetwork network = createGridNetwork(5);
+            DispatchManager dispatcher = new DispatchManager(network);
+            dispatcher.setLoggingEnabled(false);
+            dispatcher.registerUnit(new ResponseUnit("RI-1", "Unit 1", ResponseUnit.UnitType.AMBULANCE,
+                network.getLocation("G0_0")));
+            SimulationEngine simulation = new SimulationEngine(network, dispatcher, new PredictiveAnalyzer(),
+                new SimulationEngine.SimulationConfig(6.0, true, 1, 7));
+            simulation.setVerbose(false);
+            return simulation.runDiscreteEventSimulation(120).getTotalIncidents() >= 0;
+        });
+        
+        testCase("Demand-weighted location sampling follows demand scores", () -> {
+            EmergencyNetwork network = createGridNetwork(6);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            PredictiveAnalyzer analyzer = new PredictiveAnalyzer();
+            if (analyzer.sampleLocationByDemand(0.5) != null) {
+                return false;
+            }
+            Random random = new Random(19);
+            for (int i = 0; i < 3000; i++) {
+                // Skewed toward the first locations, with more than 100 incidents at some
+                Location location = locations.get((int) (locations.size() * Math.pow(random.nextDouble(), 3)));
+                analyzer.recordIncident(new Incident("DI-" + i, location, Incident.IncidentType.FIRE,
+                    Incident.IncidentSeverity.values()[random.nextInt(4)]));
+            }
+            
+            Map<Location, Double> scores = analyzer.calculateDemandScores();
+            double total = scores.values().stream().mapToDouble(Double::doubleValue).sum();
+            if (Math.abs(total - analyzer.getTotalDemand()) > 1e-6) {
+                return false;
+            }
+            Map<Location, Integer> picks = new HashMap<>();
+            int samples = 40000;
+            for (int i = 0; i < samples; i++) {
+                picks.merge(analyzer.sampleLocationByDemand(random.nextDouble()), 1, Integer::sum);
+            }
+            for (Map.Entry<Location, Integer> pick : picks.entrySet()) {
+                if (!scores.containsKey(pick.getKey())) {
+                    return false;
+                }
+            }
+            for (Map.Entry<Location, Double> score : scores.entrySet()) {
+                double share = picks.getOrDefault(score.getKey(), 0) / (double) samples;
+                if (Math.abs(share - score.getValue() / total) > 0.015) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        
+        testCase("Parallel replications are independent and reproducible", () -> {
+            EmergencyNetwork network = createGridNetwork(8);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            List<ResponseUnit> units = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                units.add(new ResponseUnit("RU-" + i, "Unit " + i, ResponseUnit.UnitType.values()[i % 5],
+                    locations.get(i * 6 % locations.size())));
+            }
+            long version = network.getVersion();
+            SimulationEngine.SimulationConfig config = new SimulationEngine.SimulationConfig(10.0, true, 60, 500);
+            int duration = 3 * 24 * 60;
+            
+            ForkJoinPool pool = new ForkJoinPool(3);
+            try {
+                ReplicationRunner runner = new ReplicationRunner(network, units, pool);
+                ReplicationRunner.ReplicationSummary first = runner.run(config, 6, duration);
+                ReplicationRunner.ReplicationSummary second = new ReplicationRunner(network, units).run(config, 6, duration);
+                
+                // Replication 2 is the same as a standalone run with seed 502
+                EmergencyNetwork copy = network.copy();
+                DispatchManager dispatcher = new DispatchManager(copy);
+                dispatcher.setLoggingEnabled(false);
+                for (ResponseUnit unit : units) {
+                    dispatcher.registerUnit(new ResponseUnit(unit.getId(), unit.getName(), unit.getType(),
+                        unit.getCurrentLocation()));
+                }
+                SimulationEngine engine = new SimulationEngine(copy, dispatcher, new PredictiveAnalyzer(),
+                    new SimulationEngine.SimulationConfig(10.0, true, 60, 502));
+                engine.setVerbose(false);
+                double standalone = engine.runDiscreteEventSimulation(duration).getMetrics().getAverageResponseTime();
+                
+                for (String metric : first.getMetricNames()) {
+                    StatisticalValidator.ConfidenceInterval interval = first.getConfidenceInterval(metric);
+                    if (!first.getSamples(metric).equals(second.getSamples(metric)) || interval.sampleSize != 6
+                            || interval.lowerBound > interval.mean || interval.mean > interval.upperBound) {
+                        return false;
+                    }
+                }
+                List<Double> responseTimes = first.getSamples(ReplicationRunner.AVERAGE_RESPONSE_TIME);
+                // The scenario itself is left untouched
+                boolean untouched = network.getVersion() == version
+                    && units.stream().allMatch(unit -> unit.isAvailable() && unit.getCurrentIncident() == null);
+                return untouched && responseTimes.get(2) == standalone
+                    && new HashSet<>(responseTimes).size() > 1 && first.getReplicationCount() == 6;
+            } finally {
+                pool.shutdown();
+            }
+        });
+        
+        testCase("Replication metrics separate overloaded fleets from idle ones", () -> {
+            EmergencyNetwork network = createGridNetwork(6);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            List<ResponseUnit> oneUnit = List.of(new ResponseUnit("OL-0", "Unit 0", ResponseUnit.UnitType.AMBULANCE,
+                locations.get(0)));
+            List<ResponseUnit> fleet = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                fleet.add(new ResponseUnit("OL-" + i, "Unit " + i, ResponseUnit.UnitType.values()[i % 5],
+                    locations.get(i * 3 % locations.size())));
+            }
+            int duration = 24 * 60;
+            SimulationEngine.SimulationConfig busy = new SimulationEngine.SimulationConfig(30.0, false, 60, 77);
+            ReplicationRunner.ReplicationSummary overloaded = new ReplicationRunner(network, oneUnit).run(busy, 4, duration);
+            ReplicationRunner.ReplicationSummary staffed = new ReplicationRunner(network, fleet).run(busy, 4, duration);
+            
+            // Queueing shows up in response times, and incidents left waiting in the success rate
+            double overloadedResponse = overloaded.getConfidenceInterval(ReplicationRunner.AVERAGE_RESPONSE_TIME).mean;
+            double staffedResponse = staffed.getConfidenceInterval(ReplicationRunner.AVERAGE_RESPONSE_TIME).mean;
+            if (!(overloadedResponse > staffedResponse)
+                    || !(overloaded.getConfidenceInterval(ReplicationRunner.SUCCESS_RATE).mean < 0.5)
+                    || !(staffed.getConfidenceInterval(ReplicationRunner.SUCCESS_RATE).mean > 0.95)) {
+                return false;
+            }
+            
+            // Without incidents nothing is measured, rather than a perfect zero
+            ReplicationRunner.ReplicationSummary idle = new ReplicationRunner(network, fleet)
+                .run(new SimulationEngine.SimulationConfig(0.0, false, 60, 77), 3, duration);
+            StatisticalValidator.ConfidenceInterval idleResponse =
+                idle.getConfidenceInterval(ReplicationRunner.AVERAGE_RESPONSE_TIME);
+            return Double.isNaN(idleResponse.mean) && idleResponse.sampleSize == 0
+                && idle.getSamples(ReplicationRunner.SUCCESS_RATE).stream().allMatch(value -> value.isNaN())
+                && idle.getConfidenceInterval(ReplicationRunner.INCIDENTS_PER_HOUR).mean == 0.0
+                && ReplicationRunner.getMetricNames().equals(new ArrayList<>(idle.getMetricNames()));
+        });
+        
+        testCase("Parameter sweep designs, successive halving and columnar results", () -> {
+            EmergencyNetwork network = createGridNetwork(6);
+            List<Location> locations = new ArrayList<>(network.getAllLocations());
+            locations.sort(Comparator.comparing(Location::getId));
+            List<ResponseUnit> units = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                units.add(new ResponseUnit("RU-" + i, "Unit " + i, ResponseUnit.UnitType.values()[i % 5],
+                    locations.get(i * 5 % locations.size())));
+            }
+            ReplicationRunner runner = new ReplicationRunner(network, units);
+            ParameterSweep sweep = new ParameterSweep(runner,
+                new SimulationEngine.SimulationConfig(5.0, true, 60, 900), 24 * 60);
+            sweep.addParameter(ParameterSweep.INCIDENT_RATE, 2.0, 20.0);
+            sweep.addParameter(ParameterSweep.REPOSITIONING_INTERVAL, 30, 120);
+            try {
+                sweep.addParameter("unitSpeed", 1, 2);
+                return false;
+            } catch (IllegalArgumentException expected) {
+                // Only SimulationConfig parameters can be swept
+            }
+            
+            // Grid covers every level combination, including the range ends
+            List<Map<String, Double>> grid = sweep.gridPoints(3);
+            Set<Double> rates = new TreeSet<>();
+            grid.forEach(point -> rates.add(point.get(ParameterSweep.INCIDENT_RATE)));
+            if (grid.size() != 9 || !rates.equals(new TreeSet<>(List.of(2.0, 11.0, 20.0)))) {
+                return false;
+            }
+            // Latin hypercube uses each stratum of each parameter exactly once
+            int samples = 8;
+            List<Map<String, Double>> hypercube = sweep.latinHypercubePoints(samples, 7);
+            boolean[] used = new boolean[samples];
+            for (Map<String, Double> point : hypercube) {
+                int stratum = (int) ((point.get(ParameterSweep.INCIDENT_RATE) - 2.0) / 18.0 * samples);
+                if (stratum < 0 || stratum >= samples || used[stratum]) {
+                    return false;
+                }
+                used[stratum] = true;
+            }
+            
+            // Halving keeps ceil(8 / 2), 2, 1 configurations with 1, 2, 4, 8 replications
+            sweep.setObjective(ReplicationRunner.AVERAGE_RESPONSE_TIME, true);
+            ParameterSweep.SweepResult halving = sweep.runSuccessiveHalving(hypercube, 1, 2);
+            int[] eliminated = new int[4];
+            for (ParameterSweep.Trial trial : halving.getTrials()) {
+                if (trial.getEliminatedInRound() >= 0) {
+                    eliminated[trial.getEliminatedInRound()]++;
+                }
+            }
+            ParameterSweep.Trial best = halving.getBest();
+            if (best.getReplicationCount() != 8 || best.getEliminatedInRound() != -1
+                    || eliminated[0] != 4 || eliminated[1] != 2 || eliminated[2] != 1
+                    || halving.getTotalReplications() != 4 * 1 + 2 * 2 + 4 + 8) {
+                return false;
+            }
+            // Surviving seeds continue where the previous round stopped
+            ReplicationRunner.ReplicationSummary direct = runner.run(
+                sweep.toConfig(best.getParameters(), 900), 8, 24 * 60);
+            if (!direct.getSamples(ReplicationRunner.AVERAGE_RESPONSE_TIME)
+                    .equals(best.getSummary().getSamples(ReplicationRunner.AVERAGE_RESPONSE_TIME))) {
+                return false;
+            }
+            
+            // Columnar file round trip
+            java.nio.file.Path file = null;
+            try {
+                file = java.nio.file.Files.createTempFile("sweep", ".bin");
+                halving.writeColumnar(file);
+                Map<String, double[]> table = ParameterSweep.readColumnar(file);
+                double[] replications = table.get("replications");
+                double[] means = table.get(ReplicationRunner.AVERAGE_RESPONSE_TIME);
+                for (int row = 0; row < samples; row++) {
+                    ParameterSweep.Trial trial = halving.getTrials().get(row);
+                    if (replications[row] != trial.getReplicationCount()
+                            || means[row] != trial.getMean(ReplicationRunner.AVERAGE_RESPONSE_TIME)
+                            || table.get(ParameterSweep.INCIDENT_RATE)[row]
+                                != trial.getParameters().get(ParameterSweep.INCIDENT_RATE)) {
+                        return false;
+                    }
+                }
+                return table.containsKey(ReplicationRunner.AVERAGE_RESPONSE_TIME + ".lower");
+            } catch (java.io.IOException e) {
+                return false;
+            } finally {
+                if (file != null) {
+                    file.toFile().delete();
+                }
+            }
+        });
+        
+        testCase("Parameter sweep validates objectives and ranks unmeasured runs last", () -> {
+            EmergencyNetwork network = createGridNetwork(5);
+            List<ResponseUnit> units = List.of(new ResponseUnit("SW-0", "Unit 0", ResponseUnit.UnitType.AMBULANCE,
+                network.getLocation("G0_0")));
+            ParameterSweep sweep = new ParameterSweep(new ReplicationRunner(network, units),
+                new SimulationEngine.SimulationConfig(5.0, false, 60, 31), 60);
+            try {
+                sweep.setObjective("averageResponseTimes", true);
+                return false;
+            } catch (IllegalArgumentException expected) {
+                // Typos fail before any replication runs
+            }
+            try {
+                sweep.addParameter(ParameterSweep.INCIDENT_RATE, 0.0, 10.0);
+                return false;
+            } catch (IllegalArgumentException expected) {
+                // Zero-incident configurations would measure nothing
+            }
+            
+            // At 0.001 incidents per hour an hour-long run sees no incident and has no
+            // response time; it must not win in either direction
+            sweep.addParameter(ParameterSweep.INCIDENT_RATE, 0.001, 30.0);
+            for (boolean minimize : new boolean[]{true, false}) {
+                sweep.setObjective(ReplicationRunner.AVERAGE_RESPONSE_TIME, minimize);
+                ParameterSweep.SweepResult result = sweep.runGrid(2, 2);
+                ParameterSweep.Trial last = result.getRanking().get(1);
+                if (result.getBest().getParameters().get(ParameterSweep.INCIDENT_RATE) != 30.0
+                        || !Double.isNaN(last.getMean(ReplicationRunner.AVERAGE_RESPONSE_TIME))) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        
+        System.out.println();
+    }
+    
+    /**
+     * Test generated, saved and imported networks
+     */
+    private static void testNetworkIO() {
+        System.out.println("Testing Network Generation and IO...");
+        
+        testCase("City network generator builds connected symmetric road graphs", () -> {
+            int nodes = 1000; // 32 columns, partial last row
+            DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+            for (CityNetworkGenerator.Layout layout : CityNetworkGenerator.Layout.values()) {
+                CompactGraph graph = new CityNetworkGenerator(11).generate(layout, nodes);
+                CompactGraph again = new CityNetworkGenerator(11).generate(layout, nodes);
+                if (graph.getNodeCount() != nodes || !graph.hasSameTopology(again)
+                        || !Arrays.equals(graph.copyWeights(), again.copyWeights())) {
+                    return false;
+                }
+                // Two-way roads with the same travel time, never faster than the highway speed
+                double fastest = 60.0 / CityNetworkGenerator.RoadClass.HIGHWAY.getSpeedKmh();
+                for (int node = 0; node < nodes; node++) {
+                    for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                        int target = graph.edgeTarget(edge);
+                        double length = Math.hypot(graph.getX(target) - graph.getX(node),
+                            graph.getY(target) - graph.getY(node));
+                        boolean reverse = false;
+                        for (int back = graph.edgeStart(target); back < graph.edgeEnd(target); back++) {
+                            reverse |= graph.edgeTarget(back) == node
+                                && graph.edgeWeight(back) == graph.edgeWeight(edge);
+                        }
+                        if (!reverse || target == node || graph.edgeWeight(edge) < length * fastest - 1e-12) {
+                            return false;
+                        }
+                    }
+                }
+                for (double distance : dijkstra.findShortestDistances(graph, 0)) {
+                    if (distance == Double.POSITIVE_INFINITY) {
+                        return false; // Closures must not disconnect the city
+                    }
+                }
+                // Generated nodes resolve by ID without stored Location objects
+                Location last = graph.getLocation(nodes - 1);
+                if (graph.indexOf(last) != nodes - 1 || !last.equals(graph.getLocation(nodes - 1))
+                        || graph.indexOf("N01") != -1 || graph.indexOf("N" + nodes) != -1) {
+                    return false;
+                }
+            }
+            
+            // Triangulation has about 3 roads per node, the grids about 2
+            CityNetworkGenerator generator = new CityNetworkGenerator(11);
+            int delaunay = generator.generate(CityNetworkGenerator.Layout.DELAUNAY, nodes).getEdgeCount();
+            int grid = generator.generate(CityNetworkGenerator.Layout.PERTURBED_GRID, nodes).getEdgeCount();
+            if (delaunay < 5 * nodes || grid > 4 * nodes || grid < 3 * nodes) {
+                return false;
+            }
+            
+            // Object-based network has the same shortest travel times
+            CompactGraph hierarchical = generator.generate(CityNetworkGenerator.Layout.HIERARCHICAL, nodes);
+            EmergencyNetwork network = generator.generateNetwork(CityNetworkGenerator.Layout.HIERARCHICAL, nodes);
+            double[] expected = dijkstra.findShortestDistances(hierarchical, 7);
+            double[] actual = dijkstra.findShortestDistances(network.getCompactGraph(),
+                network.getCompactGraph().indexOf("N7"));
+            for (int node = 0; node < nodes; node++) {
+                if (Math.abs(expected[node] - actual[network.getCompactGraph().indexOf("N" + node)]) > 1e-9) {
+                    return false;
+                }
+            }
+            return generator.roadClassOf(CityNetworkGenerator.Layout.HIERARCHICAL, 8)
+                    == CityNetworkGenerator.RoadClass.ARTERIAL
+                && generator.roadClassOf(CityNetworkGenerator.Layout.PERTURBED_GRID, 8)
+                    == CityNetworkGenerator.RoadClass.LOCAL;
+        });
+        
+        testCase("Memory-mapped network files round-trip networks and generated graphs", () -> {
+            java.nio.file.Path file = null;
+            try {
+                file = java.nio.file.Files.createTempFile("network", ".bin");
+                EmergencyNetwork network = createGridNetwork(5);
+                Location hub = new Location("HUB-ü", "Zentrale Süd", 2.5, 2.5, Location.LocationType.DISPATCH_CENTER);
+                network.addLocation(hub);
+                network.addEdge(hub, network.getLocation("G0_0"), 3.0, 4.0);
+                network.removeLocation("G1_2");
+                network.updateEdgeCongestion("G0_0", "G0_1", 1.5);
+                network.setEdgeBlocked("G0_1", "G0_2", true);
+                NetworkFile.write(network, file, Map.of("region", "test"));
+                
+                NetworkFile opened = NetworkFile.open(file);
+                CompactGraph expected = network.getCompactGraph();
+                CompactGraph mapped = opened.getGraph();
+                if (opened.getFormatVersion() != NetworkFile.FORMAT_VERSION
+                        || !"test".equals(opened.getMetadata().get("region"))
+                        || mapped.getVersion() != expected.getVersion() || !mapped.hasSameTopology(expected)
+                        || !Arrays.equals(mapped.copyWeights(), expected.copyWeights())
+                        || mapped.hasLocation(7) || mapped.getLocation(7) != null) {
+                    return false;
+                }
+                for (int node = 0; node < expected.getNodeCount(); node++) {
+                    Location location = expected.getLocation(node);
+                    if (location != null && (mapped.indexOf(location.getId()) != node
+                            || !location.getName().equals(mapped.getLocation(node).getName())
+                            || location.getType() != mapped.getLocation(node).getType()
+                            || mapped.getX(node) != expected.getX(node))) {
+                        return false;
+                    }
+                }
+                if (mapped.indexOf("G1_2") != -1 || mapped.indexOf("missing") != -1) {
+                    return false;
+                }
+                // Routing on mapped buffers, including the derived reverse graph
+                DijkstraPathfinder dijkstra = new DijkstraPathfinder();
+                int source = expected.indexOf("G0_0");
+                if (!Arrays.equals(dijkstra.findShortestDistances(mapped, source),
+                        dijkstra.findShortestDistances(expected, source))
+                        || !Arrays.equals(dijkstra.findShortestDistances(mapped.getReverse(), source),
+                            dijkstra.findShortestDistances(expected.getReverse(), source))) {
+                    return false;
+                }
+                // Rebuilt network keeps distances, congestion and closures
+                EmergencyNetwork loaded = opened.toNetwork();
+                Edge congested = loaded.getNeighbors(loaded.getLocation("G0_0")).stream()
+                    .filter(edge -> edge.getDestination().getId().equals("G0_1")).findFirst().orElse(null);
+                Edge closed = loaded.getNeighbors(loaded.getLocation("G0_1")).stream()
+                    .filter(edge -> edge.getDestination().getId().equals("G0_2")).findFirst().orElse(null);
+                if (loaded.getLocationCount() != network.getLocationCount()
+                        || loaded.getEdgeCount() != network.getEdgeCount()
+                        || congested == null || congested.getCongestionFactor() != 1.5
+                        || closed == null || !closed.isBlocked() || closed.getTravelTime() == Double.POSITIVE_INFINITY) {
+                    return false;
+                }
+                
+                // Generated graphs store coordinates only and keep their implicit IDs
+                CompactGraph generated = new CityNetworkGenerator(3).generate(CityNetworkGenerator.Layout.DELAUNAY, 500);
+                NetworkFile.write(generated, file, Map.of());
+                CompactGraph reopened = NetworkFile.open(file).getGraph();
+                if (!reopened.hasSameTopology(generated) || reopened.indexOf("N499") != 499
+                        || !Arrays.equals(dijkstra.findShortestDistances(reopened, 42),
+                            dijkstra.findShortestDistances(generated, 42))) {
+                    return false;
+                }
+                
+                // Foreign files are rejected
+                java.nio.file.Files.write(file, "not a network file at all, just text padding".getBytes());
+                try {
+                    NetworkFile.open(file);
+                    return false;
+                } catch (java.io.IOException expectedFailure) {
+                    return true;
+                }
+            } catch (java.io.IOException e) {
+                return false;
+            } finally {
+                if (file != null) {
+                    file.toFile().delete();
+                }
+            }
+        });
+        
+        testCase("Road network importer streams CSV dumps and OSM XML/PBF extracts", () -> {
+            java.nio.file.Path directory = null;
+            try {
+                directory = java.nio.file.Files.createTempDirectory("roads");
+                RoadNetworkImporter importer = new RoadNetworkImporter();
+                importer.setTempDirectory(directory);
+                
+                // CSV: quoted names, duplicate ids, unknown endpoints, per-edge speeds and one-ways
+                java.nio.file.Path nodes = directory.resolve("nodes.csv");
+                java.nio.file.Path edges = directory.resolve("edges.csv");
+                java.nio.file.Files.writeString(nodes, String.join("\n",
+                    "id,name,latitude,longitude,type",
+                    "A,\"Station, North\",0.0,0.0,DISPATCH_CENTER",
+                    "B,,0.0,0.01,",
+                    "B,duplicate,5.0,5.0,",
+                    "C,Clinic,0.01,0.01,city"));
+                java.nio.file.Files.writeString(edges, String.join("\n",
+                    "source,target,distance,travel_time,speed_kmh,highway,oneway",
+                    "A,B,2.5,,,,",
+                    "B,C,,,60,,yes",
+                    "C,A,,7,,residential,no",
+                    "A,Z,1,1,,,"));
+                RoadNetworkImporter.ImportedNetwork csv = importer.importCsv(nodes, edges);
+                CompactGraph csvGraph = csv.getGraph();
+                int a = csvGraph.indexOf("A");
+                int b = csvGraph.indexOf("B");
+                int c = csvGraph.indexOf("C");
+                double bc = RoadNetworkImporter.haversineKm(0.0, 0.01, 0.01, 0.01);
+                if (csvGraph.getNodeCount() != 3 || csvGraph.getEdgeCount() != 5
+                        || csv.getSourceNodeCount() != 4 || csv.getDuplicateNodeCount() != 1 || csv.getSkippedCount() != 1
+                        || !"Station, North".equals(csvGraph.getLocation(a).getName())
+                        || csvGraph.getLocation(a).getType() != Location.LocationType.DISPATCH_CENTER
+                        || csvGraph.getLocation(b).getLongitude() != 0.01
+                        || Math.abs(importedWeight(csvGraph, a, b) - 2.5 / 40.0 * 60.0) > 1e-6
+                        || Math.abs(importedWeight(csvGraph, b, c) - bc) > 1e-6
+                        || importedWeight(csvGraph, c, b) != -1
+                        || Math.abs(importedWeight(csvGraph, c, a) - 7.0) > 1e-6
+                        || Math.abs(importedWeight(csvGraph, a, c) - 7.0) > 1e-6) {
+                    return false;
+                }
+                EmergencyNetwork csvNetwork = csv.toNetwork();
+                if (csvNetwork.getNeighbors(csvNetwork.getLocation("B")).size() != 2
+                        || csvNetwork.getNeighbors(csvNetwork.getLocation("C")).size() != 1) {
+                    return false;
+                }
+                
+                // OSM XML: only drivable ways count, nodes off the roads are dropped
+                String xml = String.join("\n",
+                    "<?xml version='1.0' encoding='UTF-8'?>",
+                    "<osm version='0.6'>",
+                    " <node id='1' lat='52.52' lon='13.40'/>",
+                    " <node id='2' lat='52.52' lon='13.41'/>",
+                    " <node id='3' lat='52.53' lon='13.41'/>",
+                    " <node id='4' lat='52.53' lon='13.40'><tag k='barrier' v='gate'/></node>",
+                    " <node id='4' lat='52.53' lon='13.40'/>",
+                    " <node id='6' lat='52.60' lon='13.50'/>",
+                    " <node id='7' lat='52.54' lon='13.42'/>",
+                    " <way id='10'><nd ref='1'/><nd ref='2'/><nd ref='3'/><tag k='highway' v='residential'/></way>",
+                    " <way id='11'><nd ref='3'/><nd ref='4'/><tag k='highway' v='primary'/>"
+                        + "<tag k='oneway' v='yes'/><tag k='maxspeed' v='30 mph'/></way>",
+                    " <way id='12'><nd ref='4'/><nd ref='1'/><tag k='highway' v='footway'/></way>",
+                    " <way id='13'><nd ref='4'/><nd ref='1'/><tag k='highway' v='service'/><tag k='oneway' v='-1'/></way>",
+                    " <way id='14'><nd ref='3'/><nd ref='99'/><nd ref='7'/><tag k='highway' v='tertiary'/></way>",
+                    " <relation id='20'><member type='way' ref='10' role=''/></relation>",
+                    "</osm>");
+                java.nio.file.Path xmlFile = directory.resolve("extract.osm");
+                java.nio.file.Files.writeString(xmlFile, xml);
+                RoadNetworkImporter.ImportedNetwork osm = importer.importOsm(xmlFile);
+                CompactGraph osmGraph = osm.getGraph();
+                int n1 = osmGraph.indexOf("osm1");
+                int n3 = osmGraph.indexOf("osm3");
+                int n4 = osmGraph.indexOf("osm4");
+                double d34 = RoadNetworkImporter.haversineKm(52.53, 13.41, 52.53, 13.40);
+                int edge34 = -1;
+                for (int edge = osmGraph.edgeStart(n3); edge < osmGraph.edgeEnd(n3); edge++) {
+                    if (osmGraph.edgeTarget(edge) == n4) {
+                        edge34 = edge;
+                    }
+                }
+                if (osmGraph.getNodeCount() != 5 || osmGraph.getEdgeCount() != 6
+                        || osm.getSourceNodeCount() != 7 || osm.getDuplicateNodeCount() != 1 || osm.getSkippedCount() != 1
+                        || osmGraph.indexOf("osm6") != -1 || osmGraph.indexOf("osm007") != -1
+                        || osmGraph.indexOf("osm7") < 0 || osmGraph.getLocation(n4).getLatitude() != 52.53
+                        || edge34 < 0 || Math.abs(osm.getDistance(edge34) - d34) > 1e-5
+                        || Math.abs(osmGraph.edgeWeight(edge34) - d34 / (30 * 1.609344) * 60.0) > 1e-5
+                        || importedWeight(osmGraph, n4, n3) != -1
+                        || importedWeight(osmGraph, n1, n4) < 0 || importedWeight(osmGraph, n4, n1) != -1) {
+                    return false;
+                }
+                
+                // The same extract as PBF (dense nodes, zlib blobs) imports to the same graph
+                java.nio.file.Path pbfFile = directory.resolve("extract.osm.pbf");
+                java.nio.file.Files.write(pbfFile, encodeOsmPbf(
+                    new long[]{1, 2, 3, 4, 4, 6, 7},
+                    new double[]{52.52, 52.52, 52.53, 52.53, 52.53, 52.60, 52.54},
+                    new double[]{13.40, 13.41, 13.41, 13.40, 13.40, 13.50, 13.42},
+                    List.of(new long[]{1, 2, 3}, new long[]{3, 4}, new long[]{4, 1}, new long[]{4, 1}, new long[]{3, 99, 7}),
+                    List.of(new String[]{"highway", "residential"},
+                        new String[]{"highway", "primary", "oneway", "yes", "maxspeed", "30 mph"},
+                        new String[]{"highway", "footway"},
+                        new String[]{"highway", "service", "oneway", "-1"},
+                        new String[]{"highway", "tertiary"})));
+                RoadNetworkImporter.ImportedNetwork pbf = importer.importOsm(pbfFile);
+                if (!pbf.getGraph().hasSameTopology(osmGraph)
+                        || !Arrays.equals(pbf.getGraph().copyWeights(), osmGraph.copyWeights())
+                        || pbf.getSkippedCount() != 1 || pbf.getDuplicateNodeCount() != 1) {
+                    return false;
+                }
+                
+                // Saved without the object model, reopened with the same IDs and distances
+                java.nio.file.Path saved = directory.resolve("roads.bin");
+                osm.writeTo(saved, Map.of("source", "extract.osm"));
+                NetworkFile opened = NetworkFile.open(saved);
+                if (!opened.getGraph().hasSameTopology(osmGraph) || opened.getGraph().indexOf("osm3") != n3
+                        || opened.getDistance(edge34) != osm.getDistance(edge34)) {
+                    return false;
+                }
+                
+                // Unsorted extracts are rejected
+                java.nio.file.Files.writeString(xmlFile, "<osm><node id='2' lat='0' lon='0'/><node id='1' lat='0' lon='0'/></osm>");
+                try {
+                    importer.importOsm(xmlFile);
+                    return false;
+                } catch (java.io.IOException expected) {
+                    return true;
+                }
+            } catch (java.io.IOException e) {
+                return false;
+            } finally {
+                if (directory != null) {
+                    for (java.io.File file : Objects.requireNonNull(directory.toFile().listFiles())) {
+                        file.delete();
+                    }
+                    directory.toFile().delete();
+                }
+            }
+        });
+        
+        System.out.println();
+    }
+    
     // Helper methods
     
     private static EmergencyNetwork createSimpleNetwork() {
@@ -509,6 +2452,199 @@ public class AdvancedEdgeCaseTests {
         return network;
     }
     
+    /**
+     * {matched rows, cost} of the best injective partial assignment: most matched rows first,
+     * then lowest total cost (+Infinity entries cannot be matched)
+     */
+    private static double[] bruteForceAssignment(double[][] cost, int row, boolean[] used, int matched, double total) {
+        if (row == cost.length) {
+            return new double[]{matched, total};
+        }
+        double[] best = bruteForceAssignment(cost, row + 1, used, matched, total);
+        for (int column = 0; column < used.length; column++) {
+            if (!used[column] && cost[row][column] != Double.POSITIVE_INFINITY) {
+                used[column] = true;
+                double[] candidate = bruteForceAssignment(cost, row + 1, used, matched + 1, total + cost[row][column]);
+                used[column] = false;
+                if (candidate[0] > best[0] || (candidate[0] == best[0] && candidate[1] < best[1])) {
+                    best = candidate;
+                }
+            }
+        }
+        return best;
+    }
+    
+    private static EmergencyNetwork createGridNetwork(int side) {
+        EmergencyNetwork network = new EmergencyNetwork();
+        Random random = new Random(42);
+        Location[][] grid = new Location[side][side];
+        
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                grid[r][c] = new Location("G" + r + "_" + c, "Grid " + r + "," + c, r, c,
+                    (r + c) % 7 == 0 ? Location.LocationType.DISPATCH_CENTER : Location.LocationType.CITY);
+                network.addLocation(grid[r][c]);
+            }
+        }
+        
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) {
+                    network.addEdge(grid[r][c], grid[r][c + 1], 1.0, 1.0 + random.nextInt(5));
+                }
+                if (r + 1 < side) {
+                    network.addEdge(grid[r][c], grid[r + 1][c], 1.0, 1.0 + random.nextInt(5));
+                }
+            }
+        }
+        
+        return network;
+    }
+    
+    /**
+     * Sum of effective edge weights along a path (+Infinity if two consecutive nodes are not linked)
+     */
+    private static double pathWeight(EmergencyNetwork network, List<Location> path) {
+        double total = 0.0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (Edge edge : network.getNeighbors(path.get(i))) {
+                if (edge.getDestination().equals(path.get(i + 1)) && !edge.isBlocked()) {
+                    best = Math.min(best, edge.getEffectiveWeight());
+                }
+            }
+            total += best;
+        }
+        return total;
+    }
+    
+    /**
+     * Weight of the edge from source to target in a compact graph, -1 if there is none
+     */
+    private static double importedWeight(CompactGraph graph, int source, int target) {
+        for (int edge = graph.edgeStart(source); edge < graph.edgeEnd(source); edge++) {
+            if (graph.edgeTarget(edge) == target) {
+                return graph.edgeWeight(edge);
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Minimal OSM PBF writer: one header blob, then one zlib data blob with a string
+     * table, a dense node group and a way group (tags given as key, value pairs)
+     */
+    private static byte[] encodeOsmPbf(long[] ids, double[] latitudes, double[] longitudes,
+                                       List<long[]> ways, List<String[]> tags) throws java.io.IOException {
+        java.io.ByteArrayOutputStream file = new java.io.ByteArrayOutputStream();
+        
+        java.io.ByteArrayOutputStream header = new java.io.ByteArrayOutputStream();
+        pbfBytes(header, 4, "OsmSchema-V0.6".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        pbfBytes(header, 4, "DenseNodes".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        pbfBlob(file, "OSMHeader", header.toByteArray());
+        
+        List<String> strings = new ArrayList<>(List.of(""));
+        java.io.ByteArrayOutputStream dense = new java.io.ByteArrayOutputStream();
+        java.io.ByteArrayOutputStream idColumn = new java.io.ByteArrayOutputStream();
+        java.io.ByteArrayOutputStream latitudeColumn = new java.io.ByteArrayOutputStream();
+        java.io.ByteArrayOutputStream longitudeColumn = new java.io.ByteArrayOutputStream();
+        for (int i = 0; i < ids.length; i++) {
+            pbfVarint(idColumn, pbfZigZag(ids[i] - (i > 0 ? ids[i - 1] : 0)));
+            long latitude = Math.round(latitudes[i] * 1e7);
+            long longitude = Math.round(longitudes[i] * 1e7);
+            pbfVarint(latitudeColumn, pbfZigZag(latitude - (i > 0 ? Math.round(latitudes[i - 1] * 1e7) : 0)));
+            pbfVarint(longitudeColumn, pbfZigZag(longitude - (i > 0 ? Math.round(longitudes[i - 1] * 1e7) : 0)));
+        }
+        pbfBytes(dense, 1, idColumn.toByteArray());
+        pbfBytes(dense, 8, latitudeColumn.toByteArray());
+        pbfBytes(dense, 9, longitudeColumn.toByteArray());
+        java.io.ByteArrayOutputStream nodeGroup = new java.io.ByteArrayOutputStream();
+        pbfBytes(nodeGroup, 2, dense.toByteArray());
+        
+        java.io.ByteArrayOutputStream wayGroup = new java.io.ByteArrayOutputStream();
+        for (int w = 0; w < ways.size(); w++) {
+            java.io.ByteArrayOutputStream way = new java.io.ByteArrayOutputStream();
+            java.io.ByteArrayOutputStream keys = new java.io.ByteArrayOutputStream();
+            java.io.ByteArrayOutputStream values = new java.io.ByteArrayOutputStream();
+            java.io.ByteArrayOutputStream refs = new java.io.ByteArrayOutputStream();
+            String[] pairs = tags.get(w);
+            for (int i = 0; i < pairs.length; i += 2) {
+                for (int k = 0; k < 2; k++) {
+                    if (!strings.contains(pairs[i + k])) {
+                        strings.add(pairs[i + k]);
+                    }
+                }
+                pbfVarint(keys, strings.indexOf(pairs[i]));
+                pbfVarint(values, strings.indexOf(pairs[i + 1]));
+            }
+            long previous = 0;
+            for (long ref : ways.get(w)) {
+                pbfVarint(refs, pbfZigZag(ref - previous));
+                previous = ref;
+            }
+            pbfVarint(way, 1 << 3);
+            pbfVarint(way, 10 + w);
+            pbfBytes(way, 2, keys.toByteArray());
+            pbfBytes(way, 3, values.toByteArray());
+            pbfBytes(way, 8, refs.toByteArray());
+            pbfBytes(wayGroup, 3, way.toByteArray());
+        }
+        
+        java.io.ByteArrayOutputStream block = new java.io.ByteArrayOutputStream();
+        java.io.ByteArrayOutputStream table = new java.io.ByteArrayOutputStream();
+        for (String string : strings) {
+            pbfBytes(table, 1, string.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+        pbfBytes(block, 1, table.toByteArray());
+        pbfBytes(block, 2, nodeGroup.toByteArray());
+        pbfBytes(block, 2, wayGroup.toByteArray());
+        pbfBlob(file, "OSMData", block.toByteArray());
+        return file.toByteArray();
+    }
+    
+    private static void pbfBlob(java.io.ByteArrayOutputStream file, String type, byte[] block) {
+        java.util.zip.Deflater deflater = new java.util.zip.Deflater();
+        deflater.setInput(block);
+        deflater.finish();
+        byte[] buffer = new byte[block.length + 64];
+        int compressedLength = deflater.deflate(buffer);
+        deflater.end();
+        java.io.ByteArrayOutputStream blob = new java.io.ByteArrayOutputStream();
+        pbfVarint(blob, 2 << 3);
+        pbfVarint(blob, block.length);
+        pbfBytes(blob, 3, Arrays.copyOf(buffer, compressedLength));
+        
+        java.io.ByteArrayOutputStream blobHeader = new java.io.ByteArrayOutputStream();
+        pbfBytes(blobHeader, 1, type.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        pbfVarint(blobHeader, 3 << 3);
+        pbfVarint(blobHeader, blob.size());
+        int size = blobHeader.size();
+        file.write(size >>> 24);
+        file.write(size >>> 16);
+        file.write(size >>> 8);
+        file.write(size);
+        file.writeBytes(blobHeader.toByteArray());
+        file.writeBytes(blob.toByteArray());
+    }
+    
+    private static void pbfBytes(java.io.ByteArrayOutputStream out, int field, byte[] bytes) {
+        pbfVarint(out, (field << 3) | 2);
+        pbfVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+    
+    private static void pbfVarint(java.io.ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+    
+    private static long pbfZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
     private static void testCase(String name, java.util.function.Supplier<Boolean> test) {
         testsRun++;
         try {
@@ -2,6 +2,7 @@ package perds.test;
 
 import perds.PERDS;
 import perds.algorithms.DijkstraPathfinder;
+import perds.algorithms.PathResult;
 import perds.models.*;
 
 /**
@@ -55,7 +56,7 @@ public class PERDSTest {
         network.addEdge(a, c, 3.0, 15.0);
         
         DijkstraPathfinder pathfinder = new DijkstraPathfinder();
-        DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(network, a, c);
+        PathResult result = pathfinder.findShortestPath(network, a, c);
         
         assert result.isValid() : "Path should be valid";
         assert result.getTotalDistance() == 10.0 : "Shortest path should be 10.0";
@@ -98,7 +99,7 @@ public class PERDSTest {
         network.updateEdgeWeight("A", "B", 10.0);
         
         DijkstraPathfinder pathfinder = new DijkstraPathfinder();
-        DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(network, a, b);
+        PathResult result = pathfinder.findShortestPath(network, a, b);
         
         assert result.getTotalDistance() == 10.0 : "Updated weight should be reflected";
         
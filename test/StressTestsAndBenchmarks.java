@@ -3,7 +3,12 @@ package perds.test;
 import perds.*;
 import perds.algorithms.*;
 import perds.models.*;
+import perds.evaluation.PerformanceProfiler;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Comprehensive Stress Tests and Performance Benchmarks
@@ -23,7 +28,13 @@ public class StressTestsAndBenchmarks {
     private static final int WARMUP_ITERATIONS = 10;
     private static final int BENCHMARK_ITERATIONS = 100;
     
+    /**
+     * Run every test and benchmark; pass --large to size the city, network file and
+     * road import benchmarks at up to a million nodes instead of 100,000
+     */
     public static void main(String[] args) {
+        boolean large = Arrays.asList(args).contains("--large");
+        
         System.out.println("╔════════════════════════════════════════════════════════════╗");
         System.out.println("║     PERDS STRESS TESTS AND PERFORMANCE BENCHMARKS         ║");
         System.out.println("╚════════════════════════════════════════════════════════════╝\n");
@@ -31,6 +42,21 @@ public class StressTestsAndBenchmarks {
         // Run all tests
         runScalabilityTests();
         runAlgorithmBenchmarks();
+        runQueueBenchmarks();
+        PerformanceProfiler.benchmarkBidirectionalSearch();
+        PerformanceProfiler.benchmarkRoutingEngines();
+        PerformanceProfiler.benchmarkContractionHierarchy();
+        PerformanceProfiler.benchmarkCustomization();
+        PerformanceProfiler.benchmarkTreeRepair();
+        PerformanceProfiler.benchmarkParallelDistances();
+        PerformanceProfiler.benchmarkBatchAssignment();
+        PerformanceProfiler.benchmarkUnitCandidates();
+        PerformanceProfiler.benchmarkSimulationModes();
+        PerformanceProfiler.benchmarkReplications();
+        PerformanceProfiler.benchmarkParameterSweep();
+        PerformanceProfiler.benchmarkCityNetworks(large ? 1_000_000 : 100_000);
+        PerformanceProfiler.benchmarkNetworkFile(large ? 840_000 : 100_000);
+        PerformanceProfiler.benchmarkRoadImport(large ? 700 : 240);
         runStressTests();
         runEdgeCaseTests();
         runPerformanceComparison();
@@ -107,6 +133,7 @@ public class StressTestsAndBenchmarks {
         
         DijkstraPathfinder dijkstra = new DijkstraPathfinder();
         AStarPathfinder aStar = new AStarPathfinder();
+        AStarPathfinder alt = new AStarPathfinder(new LandmarkHeuristic());
         
         System.out.println("Comparing Dijkstra vs A* algorithm:");
         System.out.println("Algorithm\tAvg Time (μs)\tPath Length\tNodes Explored");
@@ -114,7 +141,7 @@ public class StressTestsAndBenchmarks {
         
         // Benchmark Dijkstra
         long dijkstraTime = 0;
-        DijkstraPathfinder.PathResult dijkstraResult = null;
+        PathResult dijkstraResult = null;
         for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
             long start = System.nanoTime();
             dijkstraResult = dijkstra.findShortestPath(network, source, dest);
@@ -124,7 +151,7 @@ public class StressTestsAndBenchmarks {
         
         // Benchmark A*
         long aStarTime = 0;
-        AStarPathfinder.PathResult aStarResult = null;
+        PathResult aStarResult = null;
         for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
             long start = System.nanoTime();
             aStarResult = aStar.findShortestPath(network, source, dest);
@@ -132,22 +159,97 @@ public class StressTestsAndBenchmarks {
         }
         double avgAStarTime = aStarTime / 1000.0 / BENCHMARK_ITERATIONS;
         
-        System.out.printf("Dijkstra\t%.2f\t\t%.1f\t\t~%d\n", 
+        // Benchmark A* with landmarks (preprocessing happens on the first call)
+        alt.findShortestPath(network, source, dest);
+        long altTime = 0;
+        PathResult altResult = null;
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            altResult = alt.findShortestPath(network, source, dest);
+            altTime += System.nanoTime() - start;
+        }
+        double avgAltTime = altTime / 1000.0 / BENCHMARK_ITERATIONS;
+        
+        System.out.printf("Dijkstra\t%.2f\t\t%.1f\t\t%d\n", 
             avgDijkstraTime, 
             dijkstraResult.getTotalDistance(),
-            dijkstraResult.getPath().size());
+            dijkstra.getLastSettledCount());
         
-        System.out.printf("A*\t\t%.2f\t\t%.1f\t\t~%d\n", 
+        System.out.printf("A*\t\t%.2f\t\t%.1f\t\t%d\n", 
             avgAStarTime,
             aStarResult.getTotalDistance(),
-            aStarResult.getPath().size());
+            aStar.getLastSettledCount());
+        
+        System.out.printf("A* (ALT)\t%.2f\t\t%.1f\t\t%d\n", 
+            avgAltTime,
+            altResult.getTotalDistance(),
+            alt.getLastSettledCount());
         
         double speedup = avgDijkstraTime / avgAStarTime;
         System.out.printf("\nA* Speedup: %.2fx\n", speedup);
+        System.out.printf("A* (ALT) Speedup: %.2fx\n", avgDijkstraTime / avgAltTime);
         
         System.out.println("\n✓ Algorithm benchmarks completed\n");
     }
     
+    /**
+     * Benchmark indexed decrease-key heap against lazy-deletion PriorityQueue
+     */
+    private static void runQueueBenchmarks() {
+        System.out.println("═══ PRIORITY QUEUE BENCHMARKS ═══\n");
+        
+        System.out.println("Dijkstra one-to-all: indexed 4-ary heap vs lazy PriorityQueue:");
+        System.out.println("Graph\t\tNodes\tEdges\tLazy (μs)\tIndexed (μs)\tSpeedup");
+        System.out.println("─".repeat(70));
+        
+        Object[][] graphs = {
+            {"sparse", generateRandomNetwork(2000)},
+            {"sparse", generateRandomNetwork(10000)},
+            {"dense", generateDenseNetwork(2000, 30)},
+            {"dense", generateDenseNetwork(5000, 50)}
+        };
+        
+        for (Object[] entry : graphs) {
+            EmergencyNetwork network = (EmergencyNetwork) entry[1];
+            CompactGraph graph = network.getCompactGraph();
+            
+            DijkstraPathfinder lazy = new DijkstraPathfinder(NodeQueue.Type.LAZY_PRIORITY_QUEUE);
+            DijkstraPathfinder indexed = new DijkstraPathfinder(NodeQueue.Type.INDEXED_HEAP);
+            
+            double lazyTime = timeOneToAll(lazy, graph);
+            double indexedTime = timeOneToAll(indexed, graph);
+            
+            // Both queues must produce identical distances
+            double[] expected = lazy.findShortestDistances(graph, 0);
+            double[] actual = indexed.findShortestDistances(graph, 0);
+            if (!Arrays.equals(expected, actual)) {
+                System.out.println("✗ Indexed heap distances differ from lazy baseline");
+            }
+            
+            System.out.printf("%s\t\t%d\t%d\t%.1f\t\t%.1f\t\t%.2fx\n",
+                entry[0], graph.getNodeCount(), graph.getEdgeCount(),
+                lazyTime, indexedTime, lazyTime / indexedTime);
+        }
+        
+        System.out.println("\n✓ Priority queue benchmarks completed\n");
+    }
+    
+    /**
+     * Average time in microseconds of one-to-all searches from rotating sources
+     */
+    private static double timeOneToAll(DijkstraPathfinder pathfinder, CompactGraph graph) {
+        int runs = 20;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            pathfinder.findShortestDistances(graph, i % graph.getNodeCount());
+        }
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            pathfinder.findShortestDistances(graph, (i * 7919) % graph.getNodeCount());
+        }
+        return (System.nanoTime() - start) / 1000.0 / runs;
+    }
+    
     /**
      * Test system under extreme stress conditions
      */
@@ -199,7 +301,7 @@ public class StressTestsAndBenchmarks {
         Location src = fragLocations.get(0);
         Location dst = fragLocations.get(fragLocations.size() - 1);
         
-        DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(
+        PathResult result = pathfinder.findShortestPath(
             fragmentedNetwork, src, dst
         );
         
@@ -228,9 +330,150 @@ public class StressTestsAndBenchmarks {
         System.out.printf("  Throughput: %.0f incidents/second\n", 100000.0 / burstTime);
         System.out.println("  ✓ System handles burst traffic efficiently\n");
         
+        // Test 4: Concurrent dispatch
+        runConcurrentDispatchStress();
+        
         System.out.println("✓ Stress tests completed\n");
     }
     
+    /**
+     * Many intake, dispatcher and resolver threads on one ConcurrentDispatchManager
+     * Every dispatch is checked against an independent record of which unit holds
+     * which incident, so any double assignment is caught the moment it happens
+     */
+    private static void runConcurrentDispatchStress() {
+        System.out.println("Test 4: Concurrent Dispatch (no unit is ever double-assigned)");
+        EmergencyNetwork network = generateRandomNetwork(200);
+        List<Location> locations = new ArrayList<>(network.getAllLocations());
+        for (int i = 0; i < locations.size(); i++) {
+            // Ring keeps the random network connected, so every incident is reachable
+            Location from = locations.get(i);
+            Location to = locations.get((i + 1) % locations.size());
+            double distance = from.distanceTo(to);
+            network.addEdge(from, to, distance, distance / 40.0 * 60.0);
+        }
+        network.getCompactGraph();
+        
+        ConcurrentDispatchManager manager = new ConcurrentDispatchManager(network);
+        ResponseUnit.UnitType[] unitTypes = ResponseUnit.UnitType.values();
+        Incident.IncidentType[] incidentTypes = {
+            Incident.IncidentType.FIRE, Incident.IncidentType.MEDICAL, Incident.IncidentType.POLICE,
+            Incident.IncidentType.RESCUE, Incident.IncidentType.HAZMAT
+        };
+        Random unitRandom = new Random(3);
+        for (int i = 0; i < 30; i++) {
+            manager.registerUnit(new ResponseUnit("CU-" + i, "Concurrent Unit " + i,
+                unitTypes[i % unitTypes.length], locations.get(unitRandom.nextInt(locations.size()))));
+        }
+        
+        int intakeThreads = 4;
+        int incidentsPerThread = 1000;
+        int dispatcherThreads = 4;
+        int resolverThreads = 2;
+        ConcurrentHashMap<ResponseUnit, Incident> holders = new ConcurrentHashMap<>();
+        Set<String> dispatchedIds = ConcurrentHashMap.newKeySet();
+        ConcurrentLinkedQueue<DispatchManager.DispatchDecision> toResolve = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<String> toCancel = new ConcurrentLinkedQueue<>();
+        AtomicInteger violations = new AtomicInteger();
+        AtomicInteger intakeRunning = new AtomicInteger(intakeThreads);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        
+        for (int t = 0; t < intakeThreads; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(100 + thread);
+                for (int i = 0; i < incidentsPerThread; i++) {
+                    String id = "C-" + thread + "-" + i;
+                    manager.reportIncident(new Incident(id, locations.get(random.nextInt(locations.size())),
+                        incidentTypes[random.nextInt(incidentTypes.length)],
+                        Incident.IncidentSeverity.values()[random.nextInt(Incident.IncidentSeverity.values().length)]));
+                    if (i % 25 == 0) {
+                        toCancel.add(id); // Caller hangs up: races with dispatching
+                    }
+                }
+                intakeRunning.decrementAndGet();
+            }));
+        }
+        for (int t = 0; t < dispatcherThreads; t++) {
+            threads.add(new Thread(() -> {
+                while (!done.get()) {
+                    DispatchManager.DispatchDecision decision = manager.dispatchNext();
+                    if (decision == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (holders.putIfAbsent(decision.getUnit(), decision.getIncident()) != null
+                            || !dispatchedIds.add(decision.getIncident().getId())
+                            || !decision.getUnit().canRespondTo(decision.getIncident().getType())) {
+                        violations.incrementAndGet();
+                    }
+                    toResolve.add(decision);
+                }
+            }));
+        }
+        for (int t = 0; t < resolverThreads; t++) {
+            threads.add(new Thread(() -> {
+                while (!done.get()) {
+                    String cancelled = toCancel.poll();
+                    if (cancelled != null) {
+                        manager.resolveIncident(cancelled);
+                    }
+                    DispatchManager.DispatchDecision decision = toResolve.poll();
+                    if (decision == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    // Release the record before the unit becomes claimable again
+                    if (!holders.remove(decision.getUnit(), decision.getIncident())) {
+                        violations.incrementAndGet();
+                    }
+                    manager.resolveIncident(decision.getIncident().getId());
+                }
+            }));
+        }
+        
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        long deadline = start + 120_000_000_000L;
+        while ((intakeRunning.get() > 0 || !manager.getActiveIncidents().isEmpty()) && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        boolean drained = manager.getActiveIncidents().isEmpty();
+        done.set(true);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        
+        // Late decisions are still queued for resolution; every unit must be free afterwards
+        for (DispatchManager.DispatchDecision decision : toResolve) {
+            holders.remove(decision.getUnit(), decision.getIncident());
+            manager.resolveIncident(decision.getIncident().getId());
+        }
+        long busyUnits = manager.getResponseUnits().size() - manager.getAvailableUnitsCount();
+        int total = intakeThreads * incidentsPerThread;
+        
+        System.out.printf("  Threads: %d intake, %d dispatch, %d resolve\n", intakeThreads, dispatcherThreads, resolverThreads);
+        System.out.printf("  Incidents reported: %d, dispatched: %d, claim conflicts: %d\n",
+            total, dispatchedIds.size(), manager.getClaimConflictCount());
+        System.out.printf("  Time taken: %d ms (%.0f incidents/second)\n", elapsedMs, total * 1000.0 / elapsedMs);
+        if (violations.get() == 0 && drained && busyUnits == 0 && dispatchedIds.size() == manager.getDispatchCount()) {
+            System.out.println("  ✓ No double assignment, every incident handled, every unit released\n");
+        } else {
+            System.out.printf("  ✗ Violations: %d, drained: %b, busy units: %d\n\n", violations.get(), drained, busyUnits);
+        }
+    }
+    
     /**
      * Test edge cases and boundary conditions
      */
@@ -249,7 +492,7 @@ public class StressTestsAndBenchmarks {
             Location dummy1 = new Location("D1", "Dummy1", 0, 0, Location.LocationType.CITY);
             Location dummy2 = new Location("D2", "Dummy2", 1, 1, Location.LocationType.CITY);
             
-            DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(
+            PathResult result = pathfinder.findShortestPath(
                 emptyNetwork, dummy1, dummy2
             );
             
@@ -271,7 +514,7 @@ public class StressTestsAndBenchmarks {
             singleNode.addLocation(single);
             
             DijkstraPathfinder pathfinder = new DijkstraPathfinder();
-            DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(
+            PathResult result = pathfinder.findShortestPath(
                 singleNode, single, single
             );
             
@@ -298,7 +541,7 @@ public class StressTestsAndBenchmarks {
             blockedNetwork.setEdgeBlocked("A", "B", true);
             
             DijkstraPathfinder pathfinder = new DijkstraPathfinder();
-            DijkstraPathfinder.PathResult result = pathfinder.findShortestPath(
+            PathResult result = pathfinder.findShortestPath(
                 blockedNetwork, a, b
             );
             
@@ -474,6 +717,36 @@ public class StressTestsAndBenchmarks {
         return network;
     }
     
+    /**
+     * Generate dense random network with roughly edgesPerNode edges per location
+     */
+    private static EmergencyNetwork generateDenseNetwork(int size, int edgesPerNode) {
+        EmergencyNetwork network = new EmergencyNetwork();
+        Random random = new Random(42);
+        
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Location loc = new Location(
+                "DENSE-" + i, "Dense " + i,
+                random.nextDouble() * 100, random.nextDouble() * 100,
+                Location.LocationType.CITY
+            );
+            network.addLocation(loc);
+            locations.add(loc);
+        }
+        
+        for (int i = 0; i < size * edgesPerNode / 2; i++) {
+            Location locSrc = locations.get(random.nextInt(size));
+            Location locDst = locations.get(random.nextInt(size));
+            if (!locSrc.equals(locDst)) {
+                double distance = locSrc.distanceTo(locDst);
+                network.addEdge(locSrc, locDst, distance, distance / 40.0 * 60.0);
+            }
+        }
+        
+        return network;
+    }
+    
     /**
      * Generate fragmented network (multiple disconnected components)
      */
@@ -39,12 +39,20 @@ public class PerformanceMetrics {
      * Record a dispatch decision
      */
     public void recordDispatch(DispatchManager.DispatchDecision decision) {
+        // Using distance as proxy
+        recordDispatch(decision, decision != null ? decision.getPath().getTotalDistance() : 0.0);
+    }
+    
+    /**
+     * Record a dispatch decision with a measured response time (e.g. from report to
+     * arrival, including the time the incident waited for a unit)
+     */
+    public void recordDispatch(DispatchManager.DispatchDecision decision, double responseTime) {
         totalIncidents++;
         
         if (decision != null) {
             successfulDispatches++;
             
-            double responseTime = decision.getPath().getTotalDistance(); // Using distance as proxy
             double responseDistance = decision.getPath().getTotalDistance();
             
             totalResponseTime += responseTime;